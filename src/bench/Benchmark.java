@@ -0,0 +1,188 @@
+package bench;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.JTextArea;
+
+import main.AppTextArea;
+import main.FileManager;
+import main.ParallelSearch;
+import main.StatusBar;
+
+// a self-contained benchmark harness for the hot paths of the editor: opening and writing files, finding (down and up) and replacing text, computing
+// the status bar statistics, and typing into the document; every benchmark runs headless against a synthetic corpus of the requested size, and the
+// results are printed as JSON (and optionally written to the file given as the first argument), so that runs can be compared across commits
+//
+// usage: java -Xmx8g -cp <classes> bench.Benchmark [output.json]
+//   -Dbench.sizes=1m,100m,1g  corpus sizes to run against (default: 1m)
+//   -Dbench.warmup=2          warmup iterations per benchmark (not measured)
+//   -Dbench.iterations=5      measured iterations per benchmark
+public final class Benchmark {
+	
+	private static final String[] WORDS = {
+		"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do", "eiusmod", "tempor", "incididunt", "ut",
+		"labore", "et", "dolore", "magna", "aliqua", "INFO", "WARN", "ERROR", "2024-01-01T00:00:00Z", "{\"id\":", "42}", "<tag>", "</tag>"
+	};
+	private static final String NEEDLE_DOWN = "NEEDLE_DOWN";  // placed near the end of the corpus, so that finding downwards scans all of it
+	private static final String NEEDLE_UP = "NEEDLE_UP";      // placed near the start of the corpus, so that finding upwards scans all of it
+	private static final String MARKER = "MARKER";            // spread evenly across the corpus as the text to replace
+	private static final int MARKER_COUNT = 100;
+	private static final int KEYSTROKES = 50;
+	
+	private final int warmup = Integer.getInteger("bench.warmup", 2);
+	private final int iterations = Integer.getInteger("bench.iterations", 5);
+	private final List<String> results = new ArrayList<>();
+	
+	// note that a benchmark is made up of 2 parts: the setup, which is run before every iteration and isn't measured, and the operation itself
+	private interface Operation {
+		void run() throws Exception;
+	}
+	
+	public static void main(String[] args) throws Exception {
+		// the headless property must be set before any AWT or Swing class is initialized, which is why it's set here rather than relying on the caller
+		System.setProperty("java.awt.headless", "true");
+		
+		final Benchmark benchmark = new Benchmark();
+		
+		for (String size : System.getProperty("bench.sizes", "1m").split(","))
+			benchmark.runAll(parseSize(size.trim()));
+		
+		final String json = benchmark.toJson();
+		System.out.println(json);
+		
+		if (args.length > 0) Files.write(Paths.get(args[0]), json.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private void runAll(int size) throws Exception {
+		final String corpus = createCorpus(size);
+		final JTextArea textArea = (JTextArea) AppTextArea.getInstance().getViewport().getView();
+		final Path path = Files.createTempFile("bench", ".txt");
+		
+		try {
+			Files.write(path, corpus.getBytes(StandardCharsets.UTF_8));
+			
+			measure("FileManager.open", size, FileManager.START_NEW::run, () -> FileManager.getInstance().open(path.toFile()));
+			measure("FileManager.writeFile", size, () -> FileManager.getInstance().open(path.toFile()), FileManager.SAVE::run);
+			
+			// note that the find benchmarks use the "Find Next" action, which calls either "findDown" or "findUp" depending on the direction
+			AppTextArea.getInstance().setTextContent(corpus);
+			AppTextArea.getInstance().setFindMatchCase(true);
+			AppTextArea.getInstance().setFindWrapAround(false);
+			
+			measure("AppTextArea.findDown", size, () -> {
+				AppTextArea.getInstance().setFindDown(true);
+				AppTextArea.getInstance().setTextToFind(NEEDLE_DOWN);
+				AppTextArea.getInstance().setFindFromIndex(0);
+			}, AppTextArea.FIND_NEXT::run);
+			
+			measure("AppTextArea.findUp", size, () -> {
+				AppTextArea.getInstance().setFindDown(false);
+				AppTextArea.getInstance().setTextToFind(NEEDLE_UP);
+				AppTextArea.getInstance().setFindFromIndex(0);
+				AppTextArea.getInstance().setFindToIndex(corpus.length());
+			}, AppTextArea.FIND_NEXT::run);
+			
+			measure("AppTextArea.replaceAll", size, () -> {
+				AppTextArea.getInstance().setTextContent(corpus);
+				AppTextArea.getInstance().setFindDown(true);
+				AppTextArea.getInstance().setTextToFind(MARKER);
+				AppTextArea.getInstance().setReplacementText("REPLACED");
+			}, AppTextArea.REPLACE_ALL::run);
+			
+			AppTextArea.getInstance().setTextContent(corpus);
+			measure("StatusBar.updateTextInfo", size, () -> {}, StatusBar.getInstance()::updateTextInfo);
+			measure("StatusBar.countWords", size, () -> {}, () -> StatusBar.countWords(corpus));
+			measure("ParallelSearch.count", size, () -> {}, () -> ParallelSearch.count(corpus, MARKER, true, () -> false));
+			
+			// typing is measured as the time taken for a fixed number of single character insertions in the middle of the document, each of which
+			// goes through the same listener chain as a keystroke would (undo listener, menu items, saved state and status bar)
+			measure("AppTextArea.typing[" + KEYSTROKES + " keystrokes]", size, () -> {
+				AppTextArea.getInstance().setTextContent(corpus);
+				textArea.setCaretPosition(corpus.length() / 2);
+			}, () -> {
+				for (int i = 0; i < KEYSTROKES; i++) textArea.replaceSelection("x");
+			});
+		}
+		finally {
+			// mark the progress as saved, so that starting new doesn't prompt to save (which isn't possible when running headless)
+			FileManager.getInstance().setSaved(true);
+			FileManager.START_NEW.run();
+			Files.deleteIfExists(path);
+		}
+	}
+	
+	private void measure(String name, int size, Operation setup, Operation operation) throws Exception {
+		final long[] times = new long[iterations];
+		
+		for (int i = 0; i < warmup + iterations; i++) {
+			setup.run();
+			
+			final long start = System.nanoTime();
+			operation.run();
+			final long elapsed = System.nanoTime() - start;
+			
+			if (i >= warmup) times[i - warmup] = elapsed;
+		}
+		Arrays.sort(times);
+		
+		long total = 0;
+		for (long time : times) total += time;
+		
+		results.add(String.format("  {\"benchmark\": \"%s\", \"size\": %d, \"iterations\": %d, \"meanMs\": %.3f, \"minMs\": %.3f, \"p50Ms\": %.3f, \"maxMs\": %.3f}",
+				name, size, iterations, toMillis(total / iterations), toMillis(times[0]), toMillis(times[iterations / 2]), toMillis(times[iterations - 1])));
+		System.err.println(name + " (" + size + " chars): " + String.format("%.3f", toMillis(total / iterations)) + " ms");
+	}
+	
+	private String toJson() {
+		return "[\n" + String.join(",\n", results) + "\n]";
+	}
+	
+	private static double toMillis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+	
+	// accepts sizes such as "1m", "100m" and "1g" (or a plain number of characters)
+	private static int parseSize(String size) {
+		final char unit = Character.toLowerCase(size.charAt(size.length() - 1));
+		final long multiplier = unit == 'k' ? 1L << 10 : unit == 'm' ? 1L << 20 : unit == 'g' ? 1L << 30 : 1;
+		final long value = Long.parseLong(multiplier == 1 ? size : size.substring(0, size.length() - 1)) * multiplier;
+		
+		// a String (and therefore the text area) can hold at most Integer.MAX_VALUE characters
+		return (int) Math.min(value, Integer.MAX_VALUE - 8);
+	}
+	
+	// creates a deterministic, log-like corpus of (roughly) the given number of characters, with the needles and markers placed as described above
+	private static String createCorpus(int size) {
+		final StringBuilder sb = new StringBuilder(size);
+		final Random random = new Random(42);
+		final int markerInterval = Math.max(size / MARKER_COUNT, 1);
+		int lineLength = 0, nextMarker = markerInterval / 2;
+		
+		sb.append(NEEDLE_UP).append('\n');
+		
+		while (sb.length() < size - NEEDLE_DOWN.length() - 1) {
+			if (sb.length() >= nextMarker) {
+				sb.append(MARKER).append(' ');
+				nextMarker += markerInterval;
+			}
+			final String word = WORDS[random.nextInt(WORDS.length)];
+			sb.append(word);
+			lineLength += word.length() + 1;
+			
+			if (lineLength > 80) {
+				sb.append('\n');
+				lineLength = 0;
+			}
+			else sb.append(' ');
+		}
+		sb.append('\n').append(NEEDLE_DOWN);
+		return sb.toString();
+	}
+}
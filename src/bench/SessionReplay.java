@@ -0,0 +1,257 @@
+package bench;
+
+import java.awt.EventQueue;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.swing.JTextArea;
+
+import main.AppTextArea;
+import main.EditorState;
+import main.FileManager;
+import main.LatencyMonitor.Histogram;
+import main.SessionRecorder;
+
+// replays an editing session recorded by the editor (see main.SessionRecorder) headless against the real components, reporting the latency and the
+// allocation of every type of operation (typing, pasting, finding, saving, etc.); unlike the benchmarks, every operation goes through the whole chain
+// of listeners it sets off (the undo listener, the editor's state, the saved state and the status bar), on the EDT, and is only considered done once
+// the work it queued on the EDT has been done too, so the results reflect what the user would have waited for; the results are printed as JSON (and
+// optionally written to the file given as the second argument), and the replay fails if an operation's p99 latency is over the given budget, so that
+// a release can be gated on realistic workloads
+//
+// the files opened by the session are copied to a temporary directory before they're opened, so that saving doesn't write over them; note that the
+// edits are replayed by replacing the selection, so a large paste isn't streamed like it would be when pasting (see main.StreamedInsertion)
+//
+// usage: java -cp <classes> bench.SessionReplay <session> [output.json]
+//   -Dreplay.warmup=1       times the session is replayed (without being measured) before the measured replay
+//   -Dreplay.budget=<ms>    the longest p99 latency allowed for any operation, past which the replay exits with status 1
+public final class SessionReplay {
+	
+	private static final String[] NAMES = { "new", "open", "type", "delete", "paste", "findNext", "findPrevious", "replace", "replaceAll", "undo",
+			"redo", "save" };
+	
+	private final int warmup = Integer.getInteger("replay.warmup", 1);
+	private final List<SessionRecorder.Event> events = new ArrayList<>();
+	private final Map<String, Path> copies = new HashMap<>();  // the copy of every file opened by the session
+	private final Path directory;
+	private final Histogram[] latencies = new Histogram[NAMES.length], allocations = new Histogram[NAMES.length];
+	private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private JTextArea textArea;
+	private int skipped = 0;
+	
+	// the part of an operation that sets it up (ex. selecting the text an edit replaces), which isn't measured, and the operation itself
+	private static final class Operation {
+		
+		private final Runnable setup, operation;
+		
+		private Operation(Runnable setup, Runnable operation) {
+			this.setup = setup;
+			this.operation = operation;
+		}
+	}
+	
+	public static void main(String[] args) throws Exception {
+		// the headless property must be set before any AWT or Swing class is initialized, which is why it's set here rather than relying on the caller
+		System.setProperty("java.awt.headless", "true");
+		
+		if (args.length == 0) {
+			System.err.println("usage: java -cp <classes> bench.SessionReplay <session> [output.json]");
+			System.exit(2);
+		}
+		final SessionReplay replay = new SessionReplay(Paths.get(args[0]));
+		final String json;
+		
+		try {
+			json = replay.run();
+		}
+		finally {
+			replay.deleteCopies();
+		}
+		System.out.println(json);
+		
+		if (args.length > 1) Files.write(Paths.get(args[1]), json.getBytes(StandardCharsets.UTF_8));
+		
+		final String budget = System.getProperty("replay.budget");
+		System.exit(budget == null || replay.isWithinBudget((long) (Double.parseDouble(budget) * 1_000_000)) ? 0 : 1);
+	}
+	
+	private SessionReplay(Path session) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(session)))) {
+			SessionRecorder.readHeader(in);
+			
+			for (SessionRecorder.Event event = SessionRecorder.read(in); event != null; event = SessionRecorder.read(in))
+				events.add(event);
+		}
+		directory = Files.createTempDirectory("replay");
+		
+		// every file is checked for up front, so that a missing file doesn't fail the replay halfway through
+		for (SessionRecorder.Event event : events) {
+			if (event.type != SessionRecorder.OPEN || copies.containsKey(event.text)) continue;
+			
+			final Path file = Paths.get(event.text);
+			if (!Files.isRegularFile(file)) throw new IOException("The session opens " + file + ", which no longer exists");
+			
+			// the copy keeps the file's name, since the name decides the syntax (and whether the file is compressed)
+			copies.put(event.text, Files.createDirectories(directory.resolve(String.valueOf(copies.size()))).resolve(file.getFileName()));
+		}
+		for (int i = 0; i < NAMES.length; i++) {
+			latencies[i] = new Histogram();
+			allocations[i] = new Histogram();
+		}
+	}
+	
+	private String run() throws Exception {
+		EventQueue.invokeAndWait(() -> textArea = (JTextArea) AppTextArea.getInstance().getViewport().getView());
+		
+		for (int i = 0; i < warmup; i++) replay(false);
+		replay(true);
+		
+		final List<String> results = new ArrayList<>();
+		
+		for (int i = 0; i < NAMES.length; i++) {
+			if (latencies[i].getCount() == 0) continue;
+			
+			results.add(String.format("  {\"operation\": \"%s\", \"count\": %d, \"p50Ms\": %.3f, \"p99Ms\": %.3f, \"maxMs\": %.3f, \"p50AllocatedBytes\": %d, " +
+					"\"p99AllocatedBytes\": %d, \"maxAllocatedBytes\": %d}", NAMES[i], latencies[i].getCount(), toMillis(latencies[i].getPercentile(50)),
+					toMillis(latencies[i].getPercentile(99)), toMillis(latencies[i].getMax()), allocations[i].getPercentile(50),
+					allocations[i].getPercentile(99), allocations[i].getMax()));
+			System.err.printf("%s (%d): p50 %.3f ms, p99 %.3f ms, p99 allocated %d bytes%n", NAMES[i], latencies[i].getCount(),
+					toMillis(latencies[i].getPercentile(50)), toMillis(latencies[i].getPercentile(99)), allocations[i].getPercentile(99));
+		}
+		if (skipped > 0) System.err.println(skipped + " operation(s) skipped (saving a text that was never saved to a file)");
+		
+		return "[\n" + String.join(",\n", results) + "\n]";
+	}
+	
+	// every replay starts from a new, empty text, like the session did
+	private void replay(boolean measured) throws Exception {
+		EventQueue.invokeAndWait(() -> {
+			FileManager.getInstance().setSaved(true);  // so that starting new doesn't prompt to save (which isn't possible when running headless)
+			FileManager.START_NEW.run();
+		});
+		for (int i = 0; i < events.size(); i++) {
+			final SessionRecorder.Event event = events.get(i);
+			final Operation operation = getOperation(event, i);
+			
+			if (operation == null) {
+				if (measured) skipped++;
+				continue;
+			}
+			EventQueue.invokeAndWait(operation.setup);
+			
+			// the allocation is that of the EDT, measured on it before the operation and after the work the operation queued
+			final long[] allocated = new long[1];
+			final long start = System.nanoTime();
+			
+			EventQueue.invokeAndWait(() -> {
+				allocated[0] = threads.getCurrentThreadAllocatedBytes();
+				operation.operation.run();
+			});
+			EventQueue.invokeAndWait(() -> allocated[0] = threads.getCurrentThreadAllocatedBytes() - allocated[0]);
+			
+			// a file that's loaded in the background (ex. a compressed file) is only open once it's been loaded
+			while (event.type == SessionRecorder.OPEN && EditorState.getInstance().is(EditorState.LOADING)) {
+				Thread.sleep(1);
+				EventQueue.invokeAndWait(() -> {});
+			}
+			final long elapsed = System.nanoTime() - start;
+			
+			if (measured) {
+				latencies[event.type].record(elapsed);
+				allocations[event.type].record(allocated[0]);
+			}
+		}
+	}
+	
+	// returns the operation that replays the given event, or null if it can't be replayed
+	private Operation getOperation(SessionRecorder.Event event, int index) {
+		final Runnable none = () -> {};
+		
+		switch (event.type) {
+			case SessionRecorder.NEW:
+				return new Operation(() -> FileManager.getInstance().setSaved(true), FileManager.START_NEW);
+			case SessionRecorder.OPEN:
+				final Path copy = copies.get(event.text);
+				
+				// the file is copied again every time it's opened, since the replay may have saved over the copy since it was last opened
+				return new Operation(() -> {
+					try {
+						Files.copy(Paths.get(event.text), copy, StandardCopyOption.REPLACE_EXISTING);
+					}
+					catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+				}, () -> FileManager.getInstance().open(copy.toFile()));
+			case SessionRecorder.TYPE:
+			case SessionRecorder.DELETE:
+			case SessionRecorder.PASTE:
+				return new Operation(() -> {
+					if (event.offset + event.length > textArea.getDocument().getLength())
+						throw new IllegalStateException("Event " + index + " edits past the end of the text; the opened files may have changed since the session");
+					
+					textArea.setCaretPosition(event.offset);
+					textArea.moveCaretPosition(event.offset + event.length);
+				}, () -> textArea.replaceSelection(event.text));
+			case SessionRecorder.FIND_NEXT:
+			case SessionRecorder.FIND_PREVIOUS:
+			case SessionRecorder.REPLACE:
+			case SessionRecorder.REPLACE_ALL:
+				return new Operation(() -> {
+					final AppTextArea appTextArea = AppTextArea.getInstance();
+					
+					appTextArea.setFindDown((event.flags & SessionRecorder.FIND_DOWN) != 0);
+					appTextArea.setFindMatchCase((event.flags & SessionRecorder.MATCH_CASE) != 0);
+					appTextArea.setFindWrapAround((event.flags & SessionRecorder.WRAP_AROUND) != 0);
+					appTextArea.setTextToFind(event.text);
+					appTextArea.setFindFromIndex(event.findFromIndex);
+					appTextArea.setFindToIndex(event.findToIndex);
+					if (event.replacement != null) appTextArea.setReplacementText(event.replacement);
+				}, event.type == SessionRecorder.FIND_NEXT ? AppTextArea.FIND_NEXT : event.type == SessionRecorder.FIND_PREVIOUS ? AppTextArea.FIND_PREV :
+						event.type == SessionRecorder.REPLACE ? AppTextArea.REPLACE_NEXT : AppTextArea.REPLACE_ALL);
+			case SessionRecorder.UNDO:
+				return new Operation(none, AppTextArea.UNDO);
+			case SessionRecorder.REDO:
+				return new Operation(none, AppTextArea.REDO);
+			case SessionRecorder.SAVE:
+				// saving a text that isn't a file yet would prompt for the file to save it as
+				return FileManager.getInstance().getFile() == null ? null : new Operation(none, FileManager.SAVE);
+			default:
+				return null;
+		}
+	}
+	
+	private boolean isWithinBudget(long budget) {
+		boolean withinBudget = true;
+		
+		for (int i = 0; i < NAMES.length; i++) {
+			if (latencies[i].getPercentile(99) > budget) {
+				System.err.printf("%s is over budget: p99 %.3f ms%n", NAMES[i], toMillis(latencies[i].getPercentile(99)));
+				withinBudget = false;
+			}
+		}
+		return withinBudget;
+	}
+	
+	private void deleteCopies() throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) Files.deleteIfExists(path);
+		}
+	}
+	
+	private static double toMillis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+}
@@ -1,9 +1,13 @@
 package main;
 
+import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.util.List;
+import java.util.function.IntPredicate;
 
+import javax.swing.AbstractAction;
+import javax.swing.Action;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
@@ -28,24 +32,57 @@ public final class AppMenuBar extends JMenuBar {
 	// primitve type in Java, int[] can be used as a collection type; however, if a collection were to be of type int, for example, the type's wrapper class,
 	// Integer, would have to be used instead
 	private final List<int[]> itemKeyCodes = List.of(
-		new int[] { KeyEvent.VK_N, KeyEvent.VK_O, KeyEvent.VK_S, KeyEvent.VK_S, 0 },
-		new int[] { KeyEvent.VK_Z, KeyEvent.VK_Y, KeyEvent.VK_F, KeyEvent.VK_F3, KeyEvent.VK_F3, KeyEvent.VK_H },
+		new int[] { KeyEvent.VK_N, KeyEvent.VK_O, KeyEvent.VK_S, KeyEvent.VK_S, KeyEvent.VK_F, 0, 0, 0 },
+		new int[] { KeyEvent.VK_Z, KeyEvent.VK_Y, KeyEvent.VK_F, KeyEvent.VK_F3, KeyEvent.VK_F3, KeyEvent.VK_H, KeyEvent.VK_B, KeyEvent.VK_B, KeyEvent.VK_G,
+				KeyEvent.VK_UP, KeyEvent.VK_DOWN, 0, 0, 0, KeyEvent.VK_F2, KeyEvent.VK_F2, KeyEvent.VK_F2, 0 },
 		new int[] { 0, 0 },
-		new int[] { KeyEvent.VK_EQUALS, KeyEvent.VK_MINUS, KeyEvent.VK_0 }
+		new int[] { KeyEvent.VK_EQUALS, KeyEvent.VK_MINUS, KeyEvent.VK_0, 0 }
 	);
 	private final List<int[]> modifiers = List.of(
-		new int[] { Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, 0 },
-		new int[] { Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, 0, InputEvent.SHIFT_DOWN_MASK, Main.SHORTCUT_KEY },
+		new int[] { Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY | InputEvent.SHIFT_DOWN_MASK, 0, 0, 0 },
+		new int[] { Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, 0, InputEvent.SHIFT_DOWN_MASK, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY,
+				Main.SHORTCUT_KEY | InputEvent.SHIFT_DOWN_MASK, Main.SHORTCUT_KEY, InputEvent.ALT_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK,
+				InputEvent.ALT_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK, 0, 0, 0, Main.SHORTCUT_KEY, 0, InputEvent.SHIFT_DOWN_MASK, 0 },
 		new int[] { 0, 0 },
-		new int[] { Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY }
+		new int[] { Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, Main.SHORTCUT_KEY, 0 }
 	);
 	private final List<Runnable[]> actions = List.of(
-		new Runnable[] { FileManager.START_NEW, FileManager.OPEN, FileManager.SAVE, FileManager.SAVE_AS, FileManager.EXIT },
-		new Runnable[] { AppTextArea.UNDO, AppTextArea.REDO, AppTextArea.PROMPT_FIND, AppTextArea.FIND_NEXT, AppTextArea.FIND_PREV, AppTextArea.PROMPT_REPLACE },
+		new Runnable[] { FileManager.START_NEW, FileManager.OPEN, FileManager.SAVE, FileManager.SAVE_AS, AppTextArea.PROMPT_FIND_IN_FILES,
+				AppTextArea.COMPARE_WITH_SAVED, AppTextArea.PROMPT_COMPARE_FILES, FileManager.EXIT },
+		new Runnable[] { AppTextArea.UNDO, AppTextArea.REDO, AppTextArea.PROMPT_FIND, AppTextArea.FIND_NEXT, AppTextArea.FIND_PREV, AppTextArea.PROMPT_REPLACE,
+				AppTextArea.GO_TO_MATCHING_BRACKET, AppTextArea.SELECT_ENCLOSING_BLOCK, AppTextArea.PROMPT_GO_TO, AppTextArea.ADD_CARET_ABOVE,
+				AppTextArea.ADD_CARET_BELOW, AppTextArea.SORT_LINES, AppTextArea.UNIQUE_LINES, AppTextArea.PROMPT_FILTER_LINES, AppTextArea.TOGGLE_BOOKMARK,
+				AppTextArea.NEXT_BOOKMARK, AppTextArea.PREVIOUS_BOOKMARK, AppTextArea.CLEAR_BOOKMARKS },
 		new Runnable[] { AppTextArea.TOGGLE_WRAP, AppTextArea.CHANGE_FONT },
-		new Runnable[] { AppTextArea.ZOOM_IN, AppTextArea.ZOOM_OUT, AppTextArea.RESET_ZOOM }
+		new Runnable[] { AppTextArea.ZOOM_IN, AppTextArea.ZOOM_OUT, AppTextArea.RESET_ZOOM, FileManager.TOGGLE_FOLLOW }
 	);
 	
+	// whether each menu item can be used, given the flags of the editor's state (see the EditorState class); the items are bound to Swing actions,
+	// which are only enabled or disabled (and their items repainted) when one of the flags changes, and then only if the item's condition changed
+	// along with it; note that the text shown while a file is being loaded (see the SessionSnapshot class) is only a preview of it, so it can't be
+	// searched, edited or saved until the file has been loaded
+	private static final IntPredicate ALWAYS = flags -> true;
+	private static final IntPredicate HAS_TEXT = flags -> (flags & (EditorState.EMPTY | EditorState.LOADING)) == 0;
+	private static final IntPredicate NOT_LOADING = flags -> (flags & EditorState.LOADING) == 0;
+	private static final IntPredicate NOT_READ_ONLY = flags -> (flags & EditorState.READ_ONLY) == 0;
+	private static final IntPredicate CAN_START_NEW = flags -> (flags & EditorState.FILE_LOADED) != 0 || HAS_TEXT.test(flags);
+	private static final IntPredicate CAN_UNDO = flags -> (flags & (EditorState.CAN_UNDO | EditorState.FOLLOWING | EditorState.LOADING)) == EditorState.CAN_UNDO;
+	private static final IntPredicate CAN_REDO = flags -> (flags & (EditorState.CAN_REDO | EditorState.FOLLOWING | EditorState.LOADING)) == EditorState.CAN_REDO;
+	private static final IntPredicate CAN_REPLACE = flags -> HAS_TEXT.test(flags) && (flags & (EditorState.READ_ONLY | EditorState.FOLLOWING)) == 0;
+	private static final IntPredicate CAN_EDIT_LINES = flags -> HAS_TEXT.test(flags) && (flags & EditorState.FOLLOWING) == 0;
+	private static final IntPredicate CAN_BOOKMARK = flags -> HAS_TEXT.test(flags) && NOT_READ_ONLY.test(flags);
+	private static final IntPredicate CAN_FOLLOW = flags -> (flags & (EditorState.FILE_LOADED | EditorState.COMPRESSED | EditorState.READ_ONLY |
+			EditorState.LOADING)) == EditorState.FILE_LOADED;
+	
+	private final List<IntPredicate[]> conditions = List.of(
+		new IntPredicate[] { CAN_START_NEW, ALWAYS, NOT_LOADING, NOT_LOADING, ALWAYS, NOT_READ_ONLY, ALWAYS, ALWAYS },
+		new IntPredicate[] { CAN_UNDO, CAN_REDO, HAS_TEXT, HAS_TEXT, HAS_TEXT, CAN_REPLACE, HAS_TEXT, HAS_TEXT, HAS_TEXT, HAS_TEXT, HAS_TEXT,
+				CAN_EDIT_LINES, CAN_EDIT_LINES, CAN_EDIT_LINES, CAN_BOOKMARK, CAN_BOOKMARK, CAN_BOOKMARK, CAN_BOOKMARK },
+		new IntPredicate[] { ALWAYS, ALWAYS },
+		new IntPredicate[] { ALWAYS, ALWAYS, ALWAYS, CAN_FOLLOW }
+	);
+	private final Action[][] itemActions = new Action[menus.length][];
+	
 	// like private variables and methods, private constructors are only accessible within their own class; this ensures that no instances of the class
 	// are created outside of it
 	private AppMenuBar() {
@@ -53,39 +90,49 @@ public final class AppMenuBar extends JMenuBar {
 		
 		// parallel lists of arrays
 		final List<String[]> itemLabels = List.of(
-			new String[] { "New", "Open", "Save", "Save As", "Exit" },
-			new String[] { "Undo", "Redo", "Find", "Find Next", "Find Previous", "Replace" },
+			new String[] { "New", "Open", "Save", "Save As", "Find in Files", "Compare with Saved", "Compare Files", "Exit" },
+			new String[] { "Undo", "Redo", "Find", "Find Next", "Find Previous", "Replace", "Go to Matching Bracket", "Select Enclosing Block",
+					"Go To", "Add Caret Above", "Add Caret Below", "Sort Lines", "Unique Lines", "Filter Lines", "Toggle Bookmark", "Next Bookmark",
+					"Previous Bookmark", "Clear Bookmarks" },
 			new String[] { "Text Wrapping", "Font" },
-			new String[] { "Zoom In", "Zoom Out", "Restore Default Zoom" }
+			new String[] { "Zoom In", "Zoom Out", "Restore Default Zoom", "Follow File" }
 		);
 		for (int i = 0; i < menus.length; i++) {
 			menus[i].setMnemonic(mnemonicKeyCodes[i]);
+			itemActions[i] = new Action[itemLabels.get(i).length];
 			
 			for (int j = 0; j < itemLabels.get(i).length; j++) {
-				final JMenuItem menuItem;
-				
-				// JCheckBoxMenuItem is derived from JMenuItem
-				if (i == 2 && j == 0) menuItem = new JCheckBoxMenuItem(itemLabels.get(i)[j]);
-				else menuItem = new JMenuItem(itemLabels.get(i)[j]);
-				
+				final Runnable runnable = actions.get(i)[j];
+				final Action action = new AbstractAction(itemLabels.get(i)[j]) {
+					@Override
+					public void actionPerformed(ActionEvent e) { runnable.run(); }
+				};
 				final int keyCode = itemKeyCodes.get(i)[j];
 				final int modifier = modifiers.get(i)[j];
-				final int k = i, l = j;
 				
 				// assign key strokes (shortcuts)
 				if (!(keyCode == 0 && modifier == 0))
-					menuItem.setAccelerator(KeyStroke.getKeyStroke(keyCode, modifier));
+					action.putValue(Action.ACCELERATOR_KEY, KeyStroke.getKeyStroke(keyCode, modifier));
 				
-				menuItem.addActionListener(e -> actions.get(k)[l].run());
-				menus[i].add(menuItem);
+				itemActions[i][j] = action;
+				
+				// JCheckBoxMenuItem is derived from JMenuItem
+				if ((i == 2 && j == 0) || (i == 3 && j == 3)) menus[i].add(new JCheckBoxMenuItem(action));
+				else menus[i].add(new JMenuItem(action));
 			}
 			add(menus[i]);
 		}
-		setItemEnabled(0, 0, false);  // disble the "New" menu item since the app starts with a new progress
+		// the app starts with a new, empty text, so "New" and most of the edit menu items start off disabled
+		EditorState.getInstance().addListener(flag -> updateEnabled());
+		updateEnabled();
+	}
+	
+	// note that an action only notifies its menu item when its enabled state actually changes
+	private void updateEnabled() {
+		final int flags = EditorState.getInstance().getFlags();
 		
-		// disable the edit menu items since there is no text or changes made to start with
-		for (int i = 0; i < getNumMenuItems(1); i++)
-			setItemEnabled(1, i, false);
+		for (int i = 0; i < itemActions.length; i++)
+			for (int j = 0; j < itemActions[i].length; j++) itemActions[i][j].setEnabled(conditions.get(i)[j].test(flags));
 	}
 	
 	// initialize single instance if it's not initialized already, before returning it
@@ -98,12 +145,9 @@ public final class AppMenuBar extends JMenuBar {
 		return itemKeyCodes.get(i).length;
 	}
 	
-	public boolean getItemEnabled(int i, int j) {
-		return menus[i].getItem(j).isEnabled();
-	}
-	
-	public void setItemEnabled(int i, int j, boolean enabled) {
-		menus[i].getItem(j).setEnabled(enabled);
+	// only applies to the menu items that are check boxes
+	public void setItemSelected(int i, int j, boolean selected) {
+		menus[i].getItem(j).setSelected(selected);
 	}
 	
 	public int getKeyCode(int i, int j) {
@@ -114,7 +158,8 @@ public final class AppMenuBar extends JMenuBar {
 		return modifiers.get(i)[j];
 	}
 	
-	public Runnable getAction(int i, int j) {
-		return actions.get(i)[j];
+	// the action of the menu item, which is only enabled while the item is (ex. for binding its key stroke elsewhere)
+	public Action getAction(int i, int j) {
+		return itemActions[i][j];
 	}
 }
@@ -1,24 +1,58 @@
 package main;
 
+import java.awt.Color;
 import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
 import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
 
 import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.event.CaretEvent;
 import javax.swing.event.CaretListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.event.UndoableEditListener;
+import javax.swing.text.AbstractDocument;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.CompoundEdit;
 import javax.swing.undo.UndoManager;
 import javax.swing.undo.UndoableEdit;
 
+import main.panes.DiffPane;
+import main.panes.FindInFilesPane;
+import main.panes.FilterLinesPane;
 import main.panes.FindPane;
 import main.panes.FontPane;
+import main.panes.GoToPane;
 import main.panes.ReplacePane;
+import main.syntax.Lexer;
+import main.syntax.SyntaxHighlighter;
+import main.syntax.SyntaxTextAreaUI;
 
 @SuppressWarnings("serial")
 public final class AppTextArea extends JScrollPane {
@@ -28,16 +62,68 @@ public final class AppTextArea extends JScrollPane {
 	// while all members (ie. variables and methods) of a singleton can be static, it's better design practice to promote encapsulation and distinguish
 	// between class and instance members; this helps to ensure that the instance is initialized (via the "getInstance" method) before instance dependent
 	// members are accessed
-	private final JTextArea textArea = new JTextArea();
+	private final JTextArea textArea = new JTextArea() {
+		@Override
+		protected void paintComponent(Graphics g) {
+			super.paintComponent(g);
+			if (LatencyMonitor.ENABLED) LatencyMonitor.getInstance().painted();
+		}
+		
+		// the UI creates the views that draw the text, which draw it in the colors of its syntax (see the SyntaxTextAreaUI class)
+		@Override
+		public void updateUI() {
+			setUI(SyntaxTextAreaUI.create());
+		}
+	};
+	private final SyntaxHighlighter syntaxHighlighter = new SyntaxHighlighter(textArea, this::highlightBrackets);
+	private final MultiCaret caret = new MultiCaret();
 	private final UndoManager undoManager = new UndoManager();
+	static final int UNDO_LIMIT = 100;
 	private String lastSavedText = "";
-	private boolean wasEmpty = true;
+	private int textVersion = 0;  // incremented on every change to the text, so that snapshots of it can tell whether they're still up to date
+	private static final int COUNT_CHUNK = 1 << 18;  // the number of characters counted per read lock of the document (see "countWords")
+	private CompoundEdit compoundEdit = null;  // collects the edits made by a streamed insertion (see below), so that they're undone (and handled) as one
+	private boolean replacing = false;         // whether "replaceRanges" is replacing text, whose edits are kept track of by a RangesEdit instead
+	private boolean settingText = false;       // whether "setTextContent" is setting the text, which isn't recorded as an edit (see the SessionRecorder class)
+	private static final int TEXT_CHUNK_SIZE = 1 << 18;  // the number of characters of a text that's set a chunk at a time inserted per event
+	private Object settingChunks = null;       // the token of the text being set a chunk at a time, if any (see "setTextContent")
+	private static final int BATCH_THRESHOLD = 64;  // the number of ranges from which the text area's view is updated once (see "replaceText")
+	
+	// a large amount of text (ex. a large paste) is inserted a chunk at a time (see the StreamedInsertion class), during which the text area can't be
+	// edited; the chunks are collected into a single edit, which is only handled (like the edit of "replaceRange") once they've all been inserted
+	private StreamedInsertion insertion = null;
+	private CompoundEdit insertionEdit = null;
+	
+	// while a file is being loaded in the background (ex. a compressed file being decompressed), the text area is cleared and can't be edited, so that
+	// nothing typed in the meantime is lost once the file is loaded
+	private boolean loading = false;
+	
+	// the lines of the text (or of the file, in read-only mode) are sorted, deduped or filtered on a background thread (see the LineOperation class);
+	// for the text, the text area can't be edited in the meantime, and the lines between lineStart and lineEnd are replaced with the result
+	private static final String[] LINE_OPERATION_LABELS = { "Sorting lines", "Removing duplicate lines", "Filtering lines", "Filtering lines" };
+	private LineOperation lineOperation = null;
+	private int lineStart, lineEnd, lineTextVersion;
+	private boolean linesSelected;
 	
 	private String textToFind = "";  // note that like other complex types, strings are Null by default
 	private String replacementText = "";
 	private int findFromIndex, findToIndex;
 	private boolean findMatchCase = true, findWrapAround = true, findDown = true;
 	
+	// all of the matches of the text being found are highlighted, but only those within the viewport are actually added to the highlighter, since it
+	// keeps a Position (which is updated on every edit) for each highlight; the highlights are updated whenever the viewport is scrolled or resized
+	private static final Highlighter.HighlightPainter MATCH_PAINTER = new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 232, 140));
+	private static final int MAX_VISIBLE_HIGHLIGHTS = 2000;  // for very long lines, most of which isn't actually visible
+	private int[] highlightedMatches = null;
+	private int highlightLength;
+	private final List<Object> highlights = new ArrayList<>();
+	
+	// the bracket next to the caret and its match are highlighted as well, both of which are found with the syntax highlighter's bracket index, rather
+	// than by scanning the text every time the caret moves
+	private static final Highlighter.HighlightPainter BRACKET_PAINTER = new DefaultHighlighter.DefaultHighlightPainter(new Color(190, 215, 255));
+	private static final Highlighter.HighlightPainter MISMATCH_PAINTER = new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 190, 190));
+	private final List<Object> bracketHighlights = new ArrayList<>();
+	
 	private static final int FONT_SIZE_MIN = 8;
 	private static final int FONT_SIZE_MAX = 72;
 	
@@ -49,16 +135,68 @@ public final class AppTextArea extends JScrollPane {
 	private int baseFontSize;
 	private int zoom = ZOOM_DEFAULT;
 	
+	// each pane is only created the first time it's opened, then reused (rather than rebuilt) every time it's opened after that
+	private FindPane findPane = null;
+	private FindInFilesPane findInFilesPane = null;
+	private ReplacePane replacePane = null;
+	private FontPane fontPane = null;
+	private GoToPane goToPane = null;
+	private FilterLinesPane filterLinesPane = null;
+	private DiffPane diffPane = null;
+	
+	// when a file is too large to be loaded into memory in full, it's opened in read-only mode, in which only a window of the file (the pages around
+	// the viewport) is decoded and shown in the text area at a time; the window slides along the file as it's scrolled towards either end of it
+	private static final int WINDOW_SIZE = 1 << 20;  // in bytes
+	private PagedFile pagedFile = null;
+	private PagedFind pagedFind = null;              // the find in progress in the file (see "findPaged")
+	private long windowStart, windowEnd;             // byte offsets of the window in the file
+	private long windowFirstLine = 0;                // the line of the file the window starts at (or -1 if the line index hasn't reached it yet)
+	private boolean loadingWindow = false;
+	
+	// a jump to a line or character that the line index hasn't reached yet goes to an estimate of its position first, then to its exact position once
+	// the index reaches it, provided the caret hasn't been moved away from the estimate in the meantime
+	private long pendingTarget = -1;  // the line or character offset jumped to, or -1 if there isn't a jump pending
+	private int pendingColumn;
+	private boolean pendingChars;     // whether the target is a character offset rather than a line
+	private long pendingEstimate;     // the byte offset the caret was moved to
+	
+	// while following a file, the text appended to it is collected here by the follower's thread, then appended to the text area in a single edit by
+	// the EDT, so that a file being written to quickly doesn't result in an edit (and a repaint) for every line
+	private final StringBuilder followedText = new StringBuilder();
+	private boolean followedTextPending = false;
+	private boolean appendingFollowedText = false;
+	private volatile boolean following = false;  // note that this is read by the follower's thread
+	
+	// the bookmarks are the offsets of the lines they were added to, kept attached to those lines as the text is edited (see the MarkerTree class); note
+	// that they're dropped whenever the text is replaced as a whole (ex. opening a file), and aren't kept in read-only mode, where the window is
+	private final MarkerTree bookmarks = new MarkerTree();
+	private final BookmarkGutter gutter = new BookmarkGutter(textArea, bookmarks);
+	
 	// use the getInstance method instead of the instance variable directly to ensure instance is initialized
 	public static final Runnable UNDO = () -> getInstance().undo();
 	public static final Runnable REDO = () -> getInstance().redo();
 	public static final Runnable PROMPT_FIND = () -> getInstance().openFindPane();
-	public static final Runnable FIND_NEXT = () -> getInstance().findNext(true);
-	public static final Runnable FIND_PREV = () -> getInstance().findPrevious();
+	public static final Runnable FIND_NEXT = () -> getInstance().find(false);
+	public static final Runnable FIND_PREV = () -> getInstance().find(true);
 	public static final Runnable PROMPT_REPLACE = () -> getInstance().openReplacePane();
+	public static final Runnable GO_TO_MATCHING_BRACKET = () -> getInstance().goToMatchingBracket();
+	public static final Runnable SELECT_ENCLOSING_BLOCK = () -> getInstance().selectEnclosingBlock();
+	public static final Runnable PROMPT_GO_TO = () -> getInstance().openGoToPane();
+	public static final Runnable ADD_CARET_ABOVE = () -> getInstance().caret.addAdjacent(true);
+	public static final Runnable ADD_CARET_BELOW = () -> getInstance().caret.addAdjacent(false);
+	public static final Runnable SORT_LINES = () -> getInstance().transformLines(LineOperation.SORT, null);
+	public static final Runnable UNIQUE_LINES = () -> getInstance().transformLines(LineOperation.UNIQUE, null);
+	public static final Runnable PROMPT_FILTER_LINES = () -> getInstance().openFilterLinesPane();
+	public static final Runnable TOGGLE_BOOKMARK = () -> getInstance().toggleBookmark();
+	public static final Runnable NEXT_BOOKMARK = () -> getInstance().goToBookmark(true);
+	public static final Runnable PREVIOUS_BOOKMARK = () -> getInstance().goToBookmark(false);
+	public static final Runnable CLEAR_BOOKMARKS = () -> getInstance().clearBookmarks();
 	public static final Runnable REPLACE_NEXT = () -> getInstance().replaceNext();
 	public static final Runnable REPLACE_ALL = () -> getInstance().replaceAll();
 	public static final Runnable TOGGLE_WRAP = () -> getInstance().toggleTextWrapping();
+	public static final Runnable PROMPT_FIND_IN_FILES = () -> getInstance().openFindInFilesPane();
+	public static final Runnable COMPARE_WITH_SAVED = () -> getInstance().compareWithSaved();
+	public static final Runnable PROMPT_COMPARE_FILES = () -> getInstance().compareFiles();
 	public static final Runnable CHANGE_FONT = () -> getInstance().openFontPane();
 	public static final Runnable ZOOM_IN = () -> getInstance().zoom(true);
 	public static final Runnable ZOOM_OUT = () -> getInstance().zoom(false);
@@ -77,37 +215,82 @@ public final class AppTextArea extends JScrollPane {
 		textArea.getDocument().addUndoableEditListener(new UndoableEditListener() {
 			@Override
 			public void undoableEditHappened(UndoableEditEvent e) {
+				// loading a new window in read-only mode and appending the text of a followed file are not edits (as they're not made by the user)
+				if (pagedFile != null || appendingFollowedText || replacing) return;
+				
+				if (SessionRecorder.ENABLED && !settingText && e.getEdit() instanceof DocumentEvent)
+					SessionRecorder.getInstance().edited((DocumentEvent) e.getEdit(), compoundEdit != null);
+				
+				if (compoundEdit != null) {
+					compoundEdit.addEdit(e.getEdit());
+					return;
+				}
+				final long start = LatencyMonitor.ENABLED ? System.nanoTime() : 0;
 				UndoableEdit edit = e.getEdit();
-				String editType = edit.getPresentationName();
 				
 				// TODO: create custom class that extends AbstractUndoableEdit and override isSignificant() method
 				if (edit.isSignificant()) {
-					// enable the undo menu item if it was previously disabled, then add the UndoableEdit to the UndoManager
-					if (!undoManager.canUndo()) AppMenuBar.getInstance().setItemEnabled(1, 0, true);
 					undoManager.addEdit(edit);
+					updateUndoState();
 				}
-				// "addition" includes both typing and pasting
-				if (editType.equals("addition")) wasEmpty = !AppMenuBar.getInstance().getItemEnabled(1, 2);
-				else wasEmpty = false;
-				
 				updateText();
+				if (LatencyMonitor.ENABLED) LatencyMonitor.getInstance().editHandled(start);
 			}
 		});
+		// unlike UndoableEditListener, DocumentListener is notified of every change, including those that aren't edits (ex. loading a new window in
+		// read-only mode), which is what's needed for keeping track of whether the text has changed at all
+		textArea.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				bookmarks.insertUpdate(e.getOffset(), e.getLength());
+				textChanged();
+			}
+			
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				bookmarks.removeUpdate(e.getOffset(), e.getLength());
+				textChanged();
+			}
+			
+			@Override
+			public void changedUpdate(DocumentEvent e) {}
+		});
 		// CaretListener keeps track of changes related to the text caret, such as visibility or focus, and calls the "caretUpdate" method whenever it
 		// does detect a change; in this case, it's used for updating the information on the status bar whenever the caret's position changes
 		textArea.addCaretListener(new CaretListener() {
 			@Override
-			public void caretUpdate(CaretEvent e) { StatusBar.getInstance().updateCaretInfo(); }
+			public void caretUpdate(CaretEvent e) {
+				if (!replacing) caretMoved();
+			}
 		});
 		// by default, (Ctrl / Command) + H acts like backspace in text-based components (JTextArea, JTextField, etc.), deleting the character before the
 		// text cursor; this prevents other actions with the same key binding from being performed (in this case, opening the replace dialog); note that
 		// this is unique to OpenJDK and is not a feature of the standard JDK
 		textArea.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_H, Main.SHORTCUT_KEY), "none");
+		
+		// large pastes and dropped files are inserted a chunk at a time (see the StreamingTransferHandler class); note that the handler is kept when
+		// the look and feel changes, since it's not a UI resource, while the UI's own handler that it wraps works the same for any UI
+		textArea.setTransferHandler(new StreamingTransferHandler(textArea));
+		
+		// the caret can have other carets along with it (see the MultiCaret class); note that like the transfer handler, it's kept when the look and
+		// feel changes, so it only takes the blink rate of the UI's own caret
+		caret.setBlinkRate(textArea.getCaret().getBlinkRate());
+		textArea.setCaret(caret);
 		getViewport().setView(textArea);
+		setRowHeaderView(gutter);
+		
+		// slide the window in read-only mode once the viewport gets close to either end of it; note that this isn't done while the scroll bar is being
+		// dragged, since that would change the scroll bar's range under the mouse
+		getVerticalScrollBar().addAdjustmentListener(e -> {
+			if (pagedFile != null && !loadingWindow && !e.getValueIsAdjusting()) slideWindow();
+		});
+		getViewport().addChangeListener(e -> {
+			if (highlightedMatches != null) updateHighlights();
+		});
 		
 		// set a limit for UndoManager to only keep the 100 most recent UndoableEdit instances; any new edits added to either the undo or redo Deque after
 		// the limit is reached will result in the last edit being removed from its Deque
-		undoManager.setLimit(100);
+		undoManager.setLimit(UNDO_LIMIT);
 	}
 	
 	public static AppTextArea getInstance() {
@@ -116,40 +299,69 @@ public final class AppTextArea extends JScrollPane {
 	}
 	
 	private void updateText() {
-		boolean changesMade = !textArea.getText().equals(lastSavedText);
-		boolean isEmpty = textArea.getText().isEmpty();
+		updateTextState();
+		StatusBar.getInstance().updateTextInfo();
+	}
+	
+	// the same as above, except for the status bar, which is left to the caller
+	private void updateTextState() {
+		boolean changesMade = !isTextSaved();
 		
 		if (changesMade) findFromIndex = findToIndex = 0;
 		
-		// disable menu items related to finding and replacing text if text has been changed to be empty; otherwise, enable them if text used to be
-		// empty; also, disable the "New" menu item if there is no longer any progress at all (no file has been loaded and text is empty); otherwise,
-		// enable it if there used to be no progress at all
-		if ((wasEmpty && !isEmpty) || (!wasEmpty && isEmpty)) {
-			if (!FileManager.getInstance().getFileLoaded())
-				AppMenuBar.getInstance().setItemEnabled(0, 0, wasEmpty);
-			
-			for (int i = 2; i < AppMenuBar.getInstance().getNumMenuItems(1); i++)
-				AppMenuBar.getInstance().setItemEnabled(1, i, wasEmpty);
+		// the menu items that depend on whether there's any text (see the AppMenuBar class) are only updated once the text becomes empty or stops
+		// being empty; likewise, the saved state (and the frame's title along with it) is only set when it changes, rather than on every keystroke
+		EditorState.getInstance().set(EditorState.EMPTY, textArea.getDocument().getLength() == 0);
+		
+		if (FileManager.getInstance().getSaved() == changesMade) FileManager.getInstance().setSaved(!changesMade);
+	}
+	
+	// publishes whether there's anything to undo or redo, which the undo and redo menu items depend on
+	private void updateUndoState() {
+		EditorState.getInstance().set(EditorState.CAN_UNDO, undoManager.canUndo());
+		EditorState.getInstance().set(EditorState.CAN_REDO, undoManager.canRedo());
+	}
+	
+	// compares the text with the last saved text without copying it, reading it straight from the document a segment at a time instead; note that
+	// texts of different lengths are told apart in constant time, which is the case for most edits
+	private boolean isTextSaved() {
+		final Document document = textArea.getDocument();
+		
+		if (document.getLength() != lastSavedText.length()) return false;
+		
+		final Segment segment = new Segment();
+		segment.setPartialReturn(true);
+		
+		try {
+			for (int offset = 0; offset < document.getLength(); offset += segment.count) {
+				document.getText(offset, document.getLength() - offset, segment);
+				
+				for (int i = 0; i < segment.count; i++)
+					if (segment.array[segment.offset + i] != lastSavedText.charAt(offset + i)) return false;
+			}
+			return true;
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+			return false;
 		}
-		FileManager.getInstance().setSaved(!changesMade);
-		StatusBar.getInstance().updateTextInfo();
 	}
 	
 	private void undo() {
-		wasEmpty = textArea.getText().isEmpty();
+		if (SessionRecorder.ENABLED) SessionRecorder.getInstance().record(SessionRecorder.UNDO);
+		stopInsertion();
 		
-		if (!undoManager.canRedo()) AppMenuBar.getInstance().setItemEnabled(1, 1, true);  // enable redo menu item if it was previosuly disabled
 		if (undoManager.canUndo()) undoManager.undo();
-		if (!undoManager.canUndo()) AppMenuBar.getInstance().setItemEnabled(1, 0, false);  // disable undo menu item if there aren't any more undos left
+		updateUndoState();
 		updateText();
 	}
 	
 	private void redo() {
-		wasEmpty = textArea.getText().isEmpty();
+		if (SessionRecorder.ENABLED) SessionRecorder.getInstance().record(SessionRecorder.REDO);
+		stopInsertion();
 		
-		if (!undoManager.canUndo()) AppMenuBar.getInstance().setItemEnabled(1, 0, true);
 		if (undoManager.canRedo()) undoManager.redo();
-		if (!undoManager.canRedo()) AppMenuBar.getInstance().setItemEnabled(1, 1, false);
+		updateUndoState();
 		updateText();
 	}
 	
@@ -157,10 +369,82 @@ public final class AppTextArea extends JScrollPane {
 		// close any panes that may already be open before opening the new one; note that Java does not support implicit boolean expressions, meaning
 		// variables that are not of the boolean type must have their values checked explicitly
 		if (Main.activePane != null) Main.activePane.dispose();
-		Main.activePane = new FindPane(Main.getFrame());
+		
+		if (findPane == null) findPane = new FindPane(Main.getFrame());
+		else findPane.open(Main.getFrame());
+		
+		Main.activePane = findPane;
+	}
+	
+	private void openFindInFilesPane() {
+		if (Main.activePane != null) Main.activePane.dispose();
+		
+		if (findInFilesPane == null) findInFilesPane = new FindInFilesPane(Main.getFrame());
+		else findInFilesPane.open(Main.getFrame());
+		
+		Main.activePane = findInFilesPane;
+	}
+	
+	// compares the text with the file on disk, which may have been changed by another program since it was loaded, or, for a text that hasn't been
+	// saved to a file, with the text it was last saved as (ie. the empty text); note that the text is read on the diff's thread, under the document's
+	// read lock, rather than copied on the EDT
+	private void compareWithSaved() {
+		final File file = FileManager.getInstance().getFile();
+		final String savedText = lastSavedText, name = FileManager.getInstance().getFileName();
+		final AbstractDocument document = (AbstractDocument) textArea.getDocument();
+		
+		openDiffPane().compare(name + " (Saved)", file != null ? LineDiff.ofFile(file.toPath()) : () -> savedText, name, () -> {
+			final String[] text = { "" };
+			
+			document.render(() -> {
+				try {
+					text[0] = document.getText(0, document.getLength());
+				}
+				catch (BadLocationException e) {
+					e.printStackTrace();
+				}
+			});
+			return text[0];
+		});
+	}
+	
+	// compares two files, chosen one after the other; neither has to be the open file
+	private void compareFiles() {
+		final File left = FileManager.getInstance().promptOpenFile("Compare: Original File");
+		if (left == null) return;
+		
+		final File right = FileManager.getInstance().promptOpenFile("Compare: Changed File");
+		if (right == null) return;
+		
+		openDiffPane().compare(left.getName(), LineDiff.ofFile(left.toPath()), right.getName(), LineDiff.ofFile(right.toPath()));
+	}
+	
+	private DiffPane openDiffPane() {
+		if (Main.activePane != null) Main.activePane.dispose();
+		
+		if (diffPane == null) diffPane = new DiffPane(Main.getFrame());
+		else diffPane.open(Main.getFrame());
+		
+		Main.activePane = diffPane;
+		return diffPane;
+	}
+	
+	// the find actions are recorded along with the range being searched (see the SessionRecorder class), unlike the finds made by replacing text
+	private void find(boolean previous) {
+		if (SessionRecorder.ENABLED)
+			SessionRecorder.getInstance().record(previous ? SessionRecorder.FIND_PREVIOUS : SessionRecorder.FIND_NEXT, findFromIndex, findToIndex);
+		
+		if (previous) findPrevious();
+		else findNext(true);
 	}
 	
 	private boolean findNext(boolean showTextNotFound) {
+		// the occurrence is only selected once it's been found, so there's nothing to replace yet (which isn't possible in read-only mode anyway)
+		if (pagedFile != null) {
+			findPaged(findDown, showTextNotFound);
+			return false;
+		}
+		
 		int resultStart = findDown ? findDown() : findUp();  // get the starting index of an occurrence of the text found (-1 if not found)
 		final int textLength = textToFind.length();
 		
@@ -188,6 +472,10 @@ public final class AppTextArea extends JScrollPane {
 	}
 	
 	private void findPrevious() {
+		if (pagedFile != null) {
+			findPaged(!findDown, true);
+			return;
+		}
 		if (findFromIndex > findToIndex) {
 			int temp = findFromIndex;
 			findFromIndex = 0;
@@ -246,27 +534,47 @@ public final class AppTextArea extends JScrollPane {
 		else findToIndex = endIndex - 1;
 	}
 	
+	// selects text found by the incremental search, so that finding the next occurrence continues from it
+	public void selectFoundText(int start, int length) {
+		selectTextOccurrence(start, length, true);
+	}
+	
 	private String getShortQuotedText(String text) {
 		return "\"" + (text.length() > 10 ? (text.substring(0, 10) + "...") : text) + "\"";
 	}
 	
 	private void showTextNotFound() {
-		final String text = getShortQuotedText(textToFind);
+		showMessage("Could not find " + getShortQuotedText(textToFind), "Text Not Found");
+	}
+	
+	// dialogs cannot be shown when running headless (ex. in the benchmarks), in which case the message is simply skipped rather than throwing a
+	// HeadlessException in the middle of a find or replace operation
+	private void showMessage(String message, String title) {
+		if (GraphicsEnvironment.isHeadless()) return;
 		
-		JOptionPane.showOptionDialog(this, "Could not find " + text, "Text Not Found",
+		JOptionPane.showOptionDialog(this, message, title,
 				JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, null, JOptionPane.OK_OPTION);
 	}
 	
 	private void openReplacePane() {
 		if (Main.activePane != null) Main.activePane.dispose();
-		Main.activePane = new ReplacePane(Main.getFrame());
+		
+		if (replacePane == null) replacePane = new ReplacePane(Main.getFrame());
+		else replacePane.open(Main.getFrame());
+		
+		Main.activePane = replacePane;
 	}
 	
 	private void replaceNext() {
+		if (!textArea.isEditable()) return;  // text can't be replaced in read-only mode, or while following a file
+		if (SessionRecorder.ENABLED) SessionRecorder.getInstance().record(SessionRecorder.REPLACE, findFromIndex, findToIndex);
 		if (findNext(true)) textArea.replaceSelection(replacementText);
 	}
 	
 	private void replaceAll() {
+		if (!textArea.isEditable()) return;
+		if (SessionRecorder.ENABLED) SessionRecorder.getInstance().record(SessionRecorder.REPLACE_ALL, findFromIndex, findToIndex);
+		
 		int count = 0;
 		
 		while (findNext(false)) {
@@ -274,12 +582,232 @@ public final class AppTextArea extends JScrollPane {
 			count++;
 		}
 		if (count == 0) showTextNotFound();
+		else showMessage("Replaced " + count + " occurrence" + (count == 1 ? "" : "s") + " of " + getShortQuotedText(textToFind), "Replace All");
+	}
+	
+	// returns the offset of the bracket next to the caret (the one before it takes precedence over the one after it), or -1 if there isn't one
+	private int getBracketAtCaret() {
+		final int caret = textArea.getCaretPosition();
+		
+		if (caret > 0 && syntaxHighlighter.isBracket(caret - 1)) return caret - 1;
+		if (syntaxHighlighter.isBracket(caret)) return caret;
+		return -1;
+	}
+	
+	private void caretMoved() {
+		StatusBar.getInstance().updateCaretInfo();
+		highlightBrackets();
+	}
+	
+	private void highlightBrackets() {
+		final Highlighter highlighter = textArea.getHighlighter();
+		
+		for (Object highlight : bracketHighlights)
+			highlighter.removeHighlight(highlight);
+		
+		bracketHighlights.clear();
+		
+		final int bracket = getBracketAtCaret();
+		if (bracket == -1) return;
+		
+		try {
+			// a bracket without a match (or whose block is closed by a bracket of another kind, ex. the "(" of "(]") is shown as a mismatch
+			final int match = syntaxHighlighter.findMatchingBracket(bracket);
+			
+			bracketHighlights.add(highlighter.addHighlight(bracket, bracket + 1, match == -1 ? MISMATCH_PAINTER : BRACKET_PAINTER));
+			if (match != -1) bracketHighlights.add(highlighter.addHighlight(match, match + 1, BRACKET_PAINTER));
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	// moves the caret to the other side of the matching bracket, so that going to the matching bracket again goes back to the first one; that is,
+	// after a closing bracket, or before an opening one
+	private void goToMatchingBracket() {
+		final int bracket = getBracketAtCaret();
+		if (bracket == -1) return;
+		
+		final int match = syntaxHighlighter.findMatchingBracket(bracket);
+		if (match != -1) textArea.setCaretPosition(match > bracket ? match + 1 : match);
+	}
+	
+	// selects the innermost block around the selection (or the caret), including its brackets; selecting the enclosing block again then selects the
+	// block around that one, and so on
+	private void selectEnclosingBlock() {
+		final int[] block = syntaxHighlighter.findEnclosingBlock(textArea.getSelectionStart());
+		
+		if (block != null && block[1] >= textArea.getSelectionEnd()) textArea.select(block[0], block[1]);
+	}
+	
+	// toggles the bookmark of the caret's line
+	private void toggleBookmark() {
+		try {
+			toggleBookmark(textArea.getLineOfOffset(textArea.getCaretPosition()));
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	// removes the bookmarks of the given line if it has any, and otherwise adds one at its start; note that a line can end up with more than one
+	// bookmark when lines are joined, and that its bookmarks aren't necessarily at its start (see "getBookmarkLineEnd")
+	void toggleBookmark(int line) throws BadLocationException {
+		if (pagedFile != null) return;
+		
+		if (!bookmarks.remove(textArea.getLineStartOffset(line), getBookmarkLineEnd(line))) bookmarks.add(textArea.getLineStartOffset(line));
+		gutter.repaint();
+	}
+	
+	// goes to the start of the next (or previous) line with a bookmark, wrapping around to the first (or last) one at either end of the text
+	private void goToBookmark(boolean next) {
+		if (bookmarks.size() == 0) return;
+		
+		try {
+			final int line = textArea.getLineOfOffset(textArea.getCaretPosition());
+			int bookmark = next ? bookmarks.next(getBookmarkLineEnd(line)) : bookmarks.previous(textArea.getLineStartOffset(line));
+			
+			if (bookmark == -1) bookmark = next ? bookmarks.next(0) : bookmarks.previous(Integer.MAX_VALUE);
+			
+			textArea.setCaretPosition(textArea.getLineStartOffset(textArea.getLineOfOffset(bookmark)));
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	// returns the offset after the last one a bookmark of the given line can be at, which is the start of the next line; a bookmark can be anywhere in
+	// its line, since the start of the line may have been moved by an edit (ex. joining it with the line before it), including at the end of the text
+	private int getBookmarkLineEnd(int line) throws BadLocationException {
+		return line + 1 < textArea.getLineCount() ? textArea.getLineStartOffset(line + 1) : textArea.getDocument().getLength() + 1;
+	}
+	
+	private void clearBookmarks() {
+		bookmarks.clear();
+		gutter.repaint();
+	}
+	
+	private void openGoToPane() {
+		if (Main.activePane != null) Main.activePane.dispose();
+		
+		if (goToPane == null) goToPane = new GoToPane(Main.getFrame());
+		else goToPane.open(Main.getFrame());
+		
+		Main.activePane = goToPane;
+	}
+	
+	private void openFilterLinesPane() {
+		if (Main.activePane != null) Main.activePane.dispose();
+		
+		if (filterLinesPane == null) filterLinesPane = new FilterLinesPane(Main.getFrame());
+		else filterLinesPane.open(Main.getFrame());
+		
+		Main.activePane = filterLinesPane;
+	}
+	
+	// keeps (or removes) the lines that contain a match of the given pattern (see "transformLines")
+	public void filterLines(Pattern pattern, boolean keep) {
+		transformLines(keep ? LineOperation.KEEP_MATCHING : LineOperation.REMOVE_MATCHING, pattern);
+	}
+	
+	// transforms the lines of the selection (extended to whole lines, including the line feed after them) or of the whole text if nothing is selected,
+	// replacing them as a single edit once the result is ready; in read-only mode, the lines of the whole file are written to a file chosen by the user
+	// instead, which is then opened (note that it can't be the file itself, which is being read from)
+	private void transformLines(int operation, Pattern pattern) {
+		if (pagedFile == null && (!textArea.isEditable() || textArea.getDocument().getLength() == 0)) return;
+		
+		final LineOperation lineOperation = new LineOperation(operation, pattern, () -> SwingUtilities.invokeLater(this::lineOperationProgressed),
+				completed -> SwingUtilities.invokeLater(() -> finishLineOperation(completed)));
+		
+		if (pagedFile != null) {
+			final File target = FileManager.getInstance().promptSaveFile("Confirm Save");
+			if (target == null) return;
+			
+			if (target.toPath().toAbsolutePath().equals(pagedFile.getPath().toAbsolutePath())) {
+				JOptionPane.showMessageDialog(Main.getFrame(), "The lines can't be written to the file they're read from.", "Error",
+						JOptionPane.ERROR_MESSAGE);
+				return;
+			}
+			stopLineOperation();
+			this.lineOperation = lineOperation;
+			lineOperation.start(pagedFile, target.toPath());
+		}
 		else {
-			String text = getShortQuotedText(textToFind);
+			final Element root = textArea.getDocument().getDefaultRootElement();
+			final int start = textArea.getSelectionStart(), end = textArea.getSelectionEnd();
+			
+			stopLineOperation();
+			linesSelected = start != end;
 			
-			JOptionPane.showOptionDialog(this, "Replaced " + count + " occurrence" + (count == 1 ? "" : "s") + " of " + text, "Replace All",
-					JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, null, JOptionPane.OK_OPTION);
+			if (linesSelected) {
+				// a selection that ends at the start of a line doesn't include that line
+				final int lastLine = root.getElementIndex(getCharAt(end - 1) == '\n' ? end - 1 : end);
+				
+				lineStart = root.getElement(root.getElementIndex(start)).getStartOffset();
+				lineEnd = Math.min(textArea.getDocument().getLength(), root.getElement(lastLine).getEndOffset());
+			}
+			else {
+				lineStart = 0;
+				lineEnd = textArea.getDocument().getLength();
+			}
+			try {
+				lineOperation.start(textArea.getText(lineStart, lineEnd - lineStart));
+			}
+			catch (BadLocationException e) {
+				e.printStackTrace();
+				return;
+			}
+			this.lineOperation = lineOperation;
+			lineTextVersion = textVersion;
+			textArea.setEditable(false);
 		}
+		lineOperationProgressed();
+	}
+	
+	private void lineOperationProgressed() {
+		if (lineOperation != null)
+			StatusBar.getInstance().setProgress(LINE_OPERATION_LABELS[lineOperation.getOperation()] + "... " + lineOperation.getProgress() + "%");
+	}
+	
+	// the result is dropped if the text has changed in the meantime (ex. the file was reloaded after being modified by another program)
+	private void finishLineOperation(LineOperation lineOperation) {
+		if (lineOperation != this.lineOperation) return;
+		
+		this.lineOperation = null;
+		StatusBar.getInstance().setProgress(null);
+		
+		if (lineOperation.getError() != null) {
+			if (lineOperation.getTarget() == null) textArea.setEditable(!following);
+			
+			JOptionPane.showMessageDialog(Main.getFrame(), LINE_OPERATION_LABELS[lineOperation.getOperation()] + " failed: " + lineOperation.getError(),
+					"Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		if (lineOperation.getTarget() != null) {
+			FileManager.getInstance().open(lineOperation.getTarget().toFile());
+			return;
+		}
+		textArea.setEditable(!following);
+		if (textVersion != lineTextVersion) return;
+		
+		final String result = lineOperation.getResult();
+		final int caretPosition = textArea.getCaretPosition();
+		
+		replaceRange(result, lineStart, lineEnd);
+		
+		if (linesSelected) textArea.select(lineStart, lineStart + result.length());
+		else textArea.setCaretPosition(Math.min(caretPosition, textArea.getDocument().getLength()));
+	}
+	
+	// stops the current line operation (if any) before the text is replaced in any other way, or another one is started
+	private void stopLineOperation() {
+		if (lineOperation == null) return;
+		
+		lineOperation.stop();
+		if (lineOperation.getTarget() == null) textArea.setEditable(!following);
+		
+		lineOperation = null;
+		StatusBar.getInstance().setProgress(null);
 	}
 	
 	private void toggleTextWrapping() {
@@ -291,8 +819,45 @@ public final class AppTextArea extends JScrollPane {
 		setHorizontalScrollBarPolicy(scrollPolicy);
 	}
 	
+	// the following are the steps taken to free up memory when the heap is running out (see the MemoryGovernor class)
+	
+	// shows the text as plain text, which drops the tokens of every line; this lasts until a new text is started or another file is opened
+	void dropHighlighting() {
+		syntaxHighlighter.setLexer(null);
+	}
+	
+	// note that lowering the limit discards the oldest edits right away
+	void setUndoLimit(int limit) {
+		undoManager.setLimit(limit);
+		updateUndoState();
+	}
+	
+	// unwraps the text, which drops the views of the wrapped lines (that hold the breaks of every line), drops the kept search results (and the
+	// snapshot of the text they were found in), the kept folder listings (see the DirectoryCache class), and drops the panes that aren't showing,
+	// which are only kept to be shown again more quickly; note that the panes that hold on to little (ex. the go to pane) are kept
+	void dropCaches() {
+		setTextWrapping(false);
+		IncrementalSearch.getInstance().clear();
+		DirectoryCache.getInstance().clear();
+		
+		if (findInFilesPane != null && !findInFilesPane.isShowing()) findInFilesPane = null;
+		if (fontPane != null && !fontPane.isShowing()) fontPane = null;
+		if (diffPane != null && !diffPane.isShowing()) diffPane = null;
+		if (Main.activePane != null && !Main.activePane.isShowing()) Main.activePane = null;
+	}
+	
+	public boolean getTextWrapping() {
+		return textArea.getLineWrap();
+	}
+	
+	public void setTextWrapping(boolean wrapped) {
+		if (textArea.getLineWrap() != wrapped) toggleTextWrapping();
+		AppMenuBar.getInstance().setItemSelected(2, 0, wrapped);
+	}
+	
 	private void openFontPane() {
-		new FontPane(Main.getFrame());
+		if (fontPane == null) fontPane = new FontPane(Main.getFrame());
+		else fontPane.open(Main.getFrame());
 	}
 	
 	private void zoom(boolean in) {
@@ -317,6 +882,13 @@ public final class AppTextArea extends JScrollPane {
 		}
 	}
 	
+	// sets the zoom directly (ex. when the session is restored), which scales the font by the same amount as zooming in or out to it would
+	public void setZoom(int zoom) {
+		this.zoom = Math.clamp(zoom, ZOOM_MIN, ZOOM_MAX);
+		setFontSize(Math.max(1, baseFontSize + (this.zoom - ZOOM_DEFAULT) / ZOOM_AMOUNT * Math.max(baseFontSize / ZOOM_AMOUNT, 1)));
+		StatusBar.getInstance().updateZoomInfo();
+	}
+	
 	private void setFontSize(int size) {
 		Font f = textArea.getFont();
 		
@@ -329,21 +901,419 @@ public final class AppTextArea extends JScrollPane {
 	}
 	
 	public void setTextContent(String text) {
-		textArea.setText(text);
-		wasEmpty = text.length() == 0;
+		stopInsertion();
+		stopLineOperation();
+		closePagedFile();
+		bookmarks.clear();
+		settingText = true;
+		
+		try {
+			textArea.setText(text);
+		}
+		finally {
+			settingText = false;
+		}
 		findFromIndex = findToIndex = 0;  // reset the indices for the range to search for text in
 		undoManager.discardAllEdits();
+		updateUndoState();
 		updateText();
 	}
 	
+	// the same as above, except that the text is inserted a chunk at a time, each in an event of its own (like a streamed insertion, see the
+	// StreamedInsertion class), so that setting a large text (ex. the file restored from the last session, see the FileManager class) doesn't hold up
+	// the EDT; onProgress is called with the percentage inserted after each chunk, and onSet once all of it has been inserted, unless the text has been
+	// set in any other way in the meantime; note that the caller has to keep the text area from being edited until then (see "setLoading")
+	public void setTextContent(String text, IntConsumer onProgress, Runnable onSet) {
+		final Object token = new Object();
+		
+		setTextContent("");
+		settingChunks = token;
+		insertTextChunk(text, 0, token, onProgress, onSet);
+	}
+	
+	// the chunks are collected into an edit that's dropped, the same way as the edits of "setTextContent" are discarded; the caret is kept at the start,
+	// since it would otherwise be moved along with every chunk inserted at it, scrolling the text area to the end of the text each time
+	private void insertTextChunk(String text, int offset, Object token, IntConsumer onProgress, Runnable onSet) {
+		if (settingChunks != token) return;
+		
+		final int end = Math.min(text.length(), offset + TEXT_CHUNK_SIZE);
+		
+		settingText = true;
+		compoundEdit = new CompoundEdit();
+		
+		try {
+			textArea.getDocument().insertString(offset, text.substring(offset, end), null);
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+		finally {
+			compoundEdit = null;
+			settingText = false;
+		}
+		if (offset == 0) textArea.setCaretPosition(0);
+		
+		if (end < text.length()) {
+			onProgress.accept((int) ((long) end * 100 / text.length()));
+			SwingUtilities.invokeLater(() -> insertTextChunk(text, end, token, onProgress, onSet));
+			return;
+		}
+		settingChunks = null;
+		updateText();
+		onSet.run();
+	}
+	
 	public void clearText() {
 		setTextContent("");
 	}
 	
+	public void setLoading(boolean loading) {
+		if (loading) clearText();
+		else if (!this.loading) return;
+		
+		this.loading = loading;
+		textArea.setEditable(!loading);
+		EditorState.getInstance().set(EditorState.LOADING, loading);
+	}
+	
+	// the same as above, except that the given text (ex. the page of the file kept by the session snapshot, see the SessionSnapshot class) is shown
+	// until the file has been loaded
+	public void setLoading(String preview) {
+		setLoading(true);
+		setTextContent(preview);
+		textArea.setCaretPosition(0);
+	}
+	
+	// replaces the text between the given offsets with the given text as a single edit, which is undone in one step and only goes through the edit
+	// handling (the undo menu items, saved state and status bar) once; unlike "setTextContent", this keeps the undo history, and the caret and selection
+	// stay where they are relative to the text around them (unless they're within the replaced text, in which case they're moved to the end of it)
+	public void replaceRange(String text, int start, int end) {
+		replaceRanges(new int[] { start }, new int[] { end }, new String[] { text }, 1);
+	}
+	
+	// the same as above, but for the given number of ranges (ex. the selections of several carets), each replaced with the text at the same index;
+	// the ranges have to be in order and can't overlap (see the RangesEdit class)
+	void replaceRanges(int[] starts, int[] ends, String[] texts, int count) {
+		stopInsertion();
+		
+		final RangesEdit edit;
+		
+		try {
+			edit = new RangesEdit(starts, ends, texts, count);
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+			return;
+		}
+		if (!edit.changesText()) return;
+		
+		edit.replace(false);
+		undoManager.addEdit(edit);
+		updateUndoState();
+		updateText();
+	}
+	
+	// replaces the given ranges from the last one backwards, so that the offsets of the others stay the same; the caret may be moved by every
+	// replacement (ex. the last of several carets, whose offset changes with the text before it), and the view updated for each one, which are both
+	// only done once all of them are (see SyntaxTextAreaUI.startBatch)
+	private void replaceText(int[] starts, int[] ends, String[] texts, int count) {
+		final AbstractDocument document = (AbstractDocument) textArea.getDocument();
+		
+		replacing = true;
+		if (count >= BATCH_THRESHOLD) SyntaxTextAreaUI.startBatch(textArea);
+		
+		try {
+			for (int i = count - 1; i >= 0; i--)
+				document.replace(starts[i], ends[i] - starts[i], texts[i], null);
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+		finally {
+			replacing = false;
+			if (count >= BATCH_THRESHOLD) SyntaxTextAreaUI.endBatch(textArea);
+		}
+		caretMoved();
+	}
+	
+	// the edit of "replaceRanges", which keeps the replaced and inserted text of each range, rather than the edits the document makes for them; with
+	// many ranges (ex. typing at thousands of carets), those would take up far more memory (several hundred bytes for each range), and be undone one
+	// at a time, while this undoes (and redoes) them the same way they were made; note that positions within the replaced text (ex. of highlights) are
+	// moved to the start of it when it's put back, rather than to where they were before
+	@SuppressWarnings("serial")
+	private final class RangesEdit extends AbstractUndoableEdit {
+		
+		private final int[] starts, newStarts;  // the offsets of the ranges before and after the edit
+		private final String[] removed, inserted;
+		
+		private RangesEdit(int[] starts, int[] ends, String[] texts, int count) throws BadLocationException {
+			this.starts = Arrays.copyOf(starts, count);
+			newStarts = new int[count];
+			removed = new String[count];
+			inserted = Arrays.copyOf(texts, count);
+			
+			for (int i = 0, shift = 0; i < count; i++) {
+				removed[i] = ends[i] == starts[i] ? "" : textArea.getText(starts[i], ends[i] - starts[i]);
+				newStarts[i] = starts[i] + shift;
+				shift += inserted[i].length() - removed[i].length();
+			}
+		}
+		
+		private boolean changesText() {
+			for (int i = 0; i < starts.length; i++)
+				if (!removed[i].equals(inserted[i])) return true;
+			
+			return false;
+		}
+		
+		@Override
+		public void undo() throws CannotUndoException {
+			super.undo();
+			replace(true);
+		}
+		
+		@Override
+		public void redo() throws CannotRedoException {
+			super.redo();
+			replace(false);
+		}
+		
+		private void replace(boolean undo) {
+			final int[] from = undo ? newStarts : starts;
+			final String[] texts = undo ? removed : inserted;
+			final int[] ends = new int[from.length];
+			
+			for (int i = 0; i < from.length; i++)
+				ends[i] = from[i] + (undo ? inserted : removed)[i].length();
+			
+			replaceText(from, ends, texts, from.length);
+		}
+	}
+	
+	// replaces the text between the given offsets with the text of the given insertion, which then inserts its chunks through "insertChunk" and calls
+	// "finishInsertion" once it's done (or stopped); note that the words of the replaced text are counted here, so that the word count can be updated
+	// without counting the rest of the text (see the StreamedInsertion class)
+	void startInsertion(StreamedInsertion insertion, int start, int end) {
+		stopInsertion();
+		
+		this.insertion = insertion;
+		insertionEdit = new CompoundEdit();
+		textArea.setEditable(false);
+		
+		if (end > start) {
+			final int removedWords = countWordsRemoved(start, end);
+			
+			if (!insertChunk(null, start, end)) {
+				insertion.stop();
+				return;
+			}
+			StatusBar.getInstance().updateTextInfo(-removedWords);
+		}
+		insertion.start(start, getCharAt(start - 1));
+	}
+	
+	// inserts the given chunk of the current insertion at the given offset, adding its edit to that of the insertion; returns false if it couldn't be
+	// inserted (in which case the insertion should be stopped)
+	boolean insertChunk(String chunk, int offset) {
+		return insertChunk(chunk, offset, offset);
+	}
+	
+	private boolean insertChunk(String chunk, int start, int end) {
+		compoundEdit = insertionEdit;
+		
+		try {
+			if (chunk == null) textArea.getDocument().remove(start, end - start);
+			else textArea.getDocument().insertString(start, chunk, null);
+			return true;
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+			return false;
+		}
+		finally {
+			compoundEdit = null;
+		}
+	}
+	
+	// handles the edit of the given insertion (if it's still the current one), with the given number of words added by it that haven't been added to
+	// the word count yet
+	void finishInsertion(StreamedInsertion insertion, int addedWords) {
+		if (insertion != this.insertion) return;
+		
+		this.insertion = null;
+		insertionEdit.end();
+		textArea.setEditable(!following);
+		
+		if (insertionEdit.isSignificant()) {
+			undoManager.addEdit(insertionEdit);
+			updateUndoState();
+		}
+		insertionEdit = null;
+		updateTextState();
+		StatusBar.getInstance().updateTextInfo(addedWords);
+	}
+	
+	// stops the current insertion (if any) before the text is changed in any other way, keeping the part of it that has been inserted; the same goes for
+	// a text that's being set a chunk at a time (see "setTextContent")
+	private void stopInsertion() {
+		if (insertion != null) insertion.stop();
+		settingChunks = null;
+	}
+	
+	// returns the number of words the word count goes down by when the text between the given offsets is removed, which are the words that start in
+	// it, minus the word after it if that becomes part of the word before it (and plus that word if it starts in the text, but becomes a word of its own)
+	private int countWordsRemoved(int start, int end) {
+		final Document document = textArea.getDocument();
+		final Segment segment = new Segment();
+		boolean inWord = start > 0 && !StatusBar.isWhitespace(getCharAt(start - 1));
+		int words = 0;
+		
+		segment.setPartialReturn(true);
+		
+		try {
+			for (int offset = start; offset < end; offset += segment.count) {
+				document.getText(offset, end - offset, segment);
+				
+				for (int i = 0; i < segment.count; i++) {
+					final boolean whitespace = StatusBar.isWhitespace(segment.array[segment.offset + i]);
+					
+					if (!whitespace && !inWord) words++;
+					inWord = !whitespace;
+				}
+			}
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+		final char after = getCharAt(end);
+		
+		if (after != 0 && !StatusBar.isWhitespace(after)) {
+			final boolean wasWordStart = StatusBar.isWhitespace(getCharAt(end - 1));
+			final boolean isWordStart = start == 0 || StatusBar.isWhitespace(getCharAt(start - 1));
+			
+			words += (wasWordStart ? 1 : 0) - (isWordStart ? 1 : 0);
+		}
+		return words;
+	}
+	
+	// returns the character at the given offset, or 0 if there isn't one
+	char getCharAt(int offset) {
+		if (offset < 0 || offset >= textArea.getDocument().getLength()) return 0;
+		
+		try {
+			return textArea.getText(offset, 1).charAt(0);
+		}
+		catch (BadLocationException e) {
+			return 0;
+		}
+	}
+	
+	// the offsets of the highlighted matches are no longer valid once the text has changed, so the highlights are removed
+	private void textChanged() {
+		textVersion++;
+		if (bookmarks.size() > 0) gutter.repaint();
+		if (highlightedMatches != null) highlightMatches(null, 0);
+	}
+	
+	// highlights the matches at the given (sorted) offsets, each of the given length; null removes the highlights
+	public void highlightMatches(int[] matches, int length) {
+		highlightedMatches = matches;
+		highlightLength = length;
+		updateHighlights();
+	}
+	
+	private void updateHighlights() {
+		final Highlighter highlighter = textArea.getHighlighter();
+		
+		for (Object highlight : highlights)
+			highlighter.removeHighlight(highlight);
+		
+		highlights.clear();
+		if (highlightedMatches == null || highlightedMatches.length == 0) return;
+		
+		// find the range of offsets within the viewport, then the first match that ends within it (or after it)
+		final Rectangle view = getViewport().getViewRect();
+		final int start = textArea.viewToModel2D(new Point(view.x, view.y));
+		final int end = textArea.viewToModel2D(new Point(view.x + view.width, view.y + view.height));
+		int i = Arrays.binarySearch(highlightedMatches, Math.max(0, start - highlightLength + 1));
+		
+		if (i < 0) i = -i - 1;
+		
+		try {
+			for (; i < highlightedMatches.length && highlightedMatches[i] <= end && highlights.size() < MAX_VISIBLE_HIGHLIGHTS; i++)
+				highlights.add(highlighter.addHighlight(highlightedMatches[i], highlightedMatches[i] + highlightLength, MATCH_PAINTER));
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	// highlights the syntax of the text based on the name of the file it's from (see the Lexer class), or shows it as plain text if the name is null
+	// (or if the highlighting has been dropped to free up memory)
+	public void setSyntax(String fileName) {
+		syntaxHighlighter.setLexer(MemoryGovernor.getInstance().getLevel() >= MemoryGovernor.NO_HIGHLIGHTING ? null : Lexer.forFileName(fileName));
+	}
+	
+	public int getTextVersion() {
+		return textVersion;
+	}
+	
+	// counts the words of the text straight from the document, a chunk of COUNT_CHUNK characters at a time under its read lock, so that the text is
+	// never copied, and an edit is only ever held up for as long as a chunk takes to count; this is called on the status bar's background thread (see
+	// the StatusBar class), and returns -1 if the text has been changed since the given version, since the chunks counted before and after the change
+	// wouldn't add up to the count of either text
+	int countWords(int version) {
+		final AbstractDocument document = (AbstractDocument) textArea.getDocument();
+		final Segment segment = new Segment();
+		final int[] state = new int[3];  // the offset counted up to (-1 once the text has changed), the word count, and whether the offset is in a word
+		
+		segment.setPartialReturn(true);
+		
+		while (state[0] != -1 && state[0] < document.getLength()) {
+			// note that the version is only changed by the document's listeners, which are notified while the document is locked for writing, so it
+			// can be read from this thread while the document is locked for reading
+			document.render(() -> {
+				if (textVersion != version) {
+					state[0] = -1;
+					return;
+				}
+				try {
+					final int end = Math.min(document.getLength(), state[0] + COUNT_CHUNK);
+					
+					for (int offset = state[0]; offset < end; offset += segment.count) {
+						document.getText(offset, end - offset, segment);
+						
+						for (int i = 0; i < segment.count; i++) {
+							final boolean whitespace = StatusBar.isWhitespace(segment.array[segment.offset + i]);
+							
+							if (!whitespace && state[2] == 0) state[1]++;
+							state[2] = whitespace ? 0 : 1;
+						}
+					}
+					state[0] = end;
+				}
+				catch (BadLocationException e) {
+					e.printStackTrace();
+					state[0] = -1;
+				}
+			});
+		}
+		return state[0] == -1 ? -1 : state[1];
+	}
+	
+	public String getText(int offset, int length) throws BadLocationException {
+		return textArea.getText(offset, length);
+	}
+	
 	public void saveChanges() {
 		lastSavedText = textArea.getText();
 	}
 	
+	// unlike getting the length of the text from "getText", this doesn't copy the text, so it can be done in constant time
+	public int getTextLength() {
+		return textArea.getDocument().getLength();
+	}
+	
 	public int getLineCount() {
 		return textArea.getLineCount();
 	}
@@ -360,6 +1330,527 @@ public final class AppTextArea extends JScrollPane {
 		return textArea.getLineStartOffset(line);
 	}
 	
+	// note that this is called on the follower's thread
+	public void appendFollowedText(String text) {
+		synchronized (followedText) {
+			if (!following) return;  // the follower may still be reading when it's stopped
+			
+			followedText.append(text);
+			
+			if (!followedTextPending) {
+				followedTextPending = true;
+				SwingUtilities.invokeLater(this::flushFollowedText);
+			}
+		}
+	}
+	
+	private void flushFollowedText() {
+		final String text;
+		
+		synchronized (followedText) {
+			text = followedText.toString();
+			followedText.setLength(0);
+			followedTextPending = false;
+		}
+		if (!following || text.isEmpty()) return;
+		
+		final int length = textArea.getDocument().getLength();
+		final boolean atEnd = textArea.getCaretPosition() == length;
+		
+		try {
+			appendingFollowedText = true;
+			textArea.getDocument().insertString(length, text, null);
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+		finally {
+			appendingFollowedText = false;
+		}
+		// scroll to the end of the text only if the caret was already there, so that scrolling up (or moving the caret) pauses the scrolling
+		if (atEnd) textArea.setCaretPosition(textArea.getDocument().getLength());
+		
+		EditorState.getInstance().set(EditorState.EMPTY, false);
+		StatusBar.getInstance().updateTextInfo();
+	}
+	
+	// the text area can't be edited while following a file, and edits made before can't be undone either, since the positions they were made at are
+	// not necessarily valid after the file has been appended to (or reloaded); when following stops, the appended text is considered to be saved
+	public void setFollowing(boolean following) {
+		stopInsertion();
+		stopLineOperation();
+		this.following = following;
+		textArea.setEditable(!following);
+		
+		if (following) {
+			undoManager.discardAllEdits();
+			updateUndoState();
+		}
+		else {
+			synchronized (followedText) {
+				followedText.setLength(0);
+			}
+			saveChanges();
+		}
+		EditorState.getInstance().set(EditorState.FOLLOWING, following);
+	}
+	
+	// returns the offsets of the first line shown, the caret and the mark (the other end of the selection), which are kept by the session snapshot (see
+	// the SessionSnapshot class); in read-only mode, these are byte offsets in the file rather than offsets in the window
+	public long[] getViewOffsets() {
+		try {
+			// note that the text area can't be hit-tested before it's been laid out (ex. when running headless), in which case the top is the start
+			final int top = textArea.getLineStartOffset(textArea.getLineOfOffset(Math.max(0, textArea.viewToModel2D(getViewport().getViewPosition()))));
+			final int caret = textArea.getCaret().getDot(), mark = textArea.getCaret().getMark();
+			
+			if (pagedFile == null) return new long[] { top, caret, mark };
+			return new long[] { toByteOffset(top), toByteOffset(caret), toByteOffset(mark) };
+		}
+		catch (IOException | BadLocationException e) {
+			e.printStackTrace();
+			return new long[3];
+		}
+	}
+	
+	// returns the text of the lines shown (up to the given length), from the start of the first one to the end of the last one
+	public String getVisibleText(int maxLength) {
+		final Rectangle view = getViewport().getViewRect();
+		
+		try {
+			final int start = textArea.getLineStartOffset(textArea.getLineOfOffset(Math.max(0, textArea.viewToModel2D(view.getLocation()))));
+			final int end = textArea.getLineEndOffset(textArea.getLineOfOffset(Math.max(0, textArea.viewToModel2D(new Point(view.x + view.width,
+					view.y + view.height)))));
+			
+			return textArea.getText(start, Math.min(end - start, maxLength));
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+			return "";
+		}
+	}
+	
+	// the reverse of "getViewOffsets", once the file has been loaded again; offsets past the end of the text (ex. if the file has been changed since)
+	// are moved to the end of it, and in read-only mode, the window around the first line shown is loaded
+	public void setViewOffsets(long top, long caret, long mark) {
+		try {
+			final int windowTop, windowCaret, windowMark;
+			
+			if (pagedFile != null) {
+				final long lineStart = pagedFile.lineStartAtOrBefore(Math.min(top, pagedFile.getSize()));
+				
+				loadWindow(lineStart);
+				windowTop = toWindowOffset(lineStart);
+				windowCaret = caret >= windowStart && caret <= windowEnd ? toWindowOffset(caret) : windowTop;
+				windowMark = mark >= windowStart && mark <= windowEnd ? toWindowOffset(mark) : windowCaret;
+			}
+			else {
+				final int length = textArea.getDocument().getLength();
+				
+				windowTop = textArea.getLineStartOffset(textArea.getLineOfOffset((int) Math.min(top, length)));
+				windowCaret = (int) Math.min(caret, length);
+				windowMark = (int) Math.min(mark, length);
+			}
+			loadingWindow = true;
+			textArea.setCaretPosition(windowMark);
+			textArea.moveCaretPosition(windowCaret);
+			scrollToTop(windowTop);
+		}
+		catch (IOException | BadLocationException e) {
+			e.printStackTrace();
+		}
+		finally {
+			loadingWindow = false;
+		}
+	}
+	
+	// opens a file in read-only mode, showing the window at the start of it
+	public void openPagedFile(Path path) throws IOException {
+		stopInsertion();
+		stopLineOperation();
+		closePagedFile();
+		bookmarks.clear();
+		pagedFile = new PagedFile(path, () -> SwingUtilities.invokeLater(this::indexProgressed));
+		
+		final PagedFile file = pagedFile;
+		
+		textArea.setEditable(false);
+		undoManager.discardAllEdits();
+		updateUndoState();
+		findFromIndex = findToIndex = 0;
+		EditorState.getInstance().set(EditorState.EMPTY, file.getSize() == 0);
+		EditorState.getInstance().set(EditorState.READ_ONLY, true);
+		
+		loadWindow(0);
+		textArea.setCaretPosition(0);
+		StatusBar.getInstance().updateTextInfo();
+	}
+	
+	// the line the window starts at may not have been indexed when the window was loaded, in which case it's found once the index reaches it
+	private void indexProgressed() {
+		if (pagedFile == null) return;
+		
+		try {
+			if (windowFirstLine == -1) windowFirstLine = pagedFile.getLineOfOffset(windowStart);
+			if (pendingTarget != -1) refineJump();
+		}
+		catch (IOException | BadLocationException e) {
+			loadingWindow = false;
+			e.printStackTrace();
+		}
+		StatusBar.getInstance().update();
+	}
+	
+	private void closePagedFile() {
+		stopPagedFind();
+		
+		if (pagedFile != null) {
+			pagedFile.close();
+			pagedFile = null;
+			windowFirstLine = 0;
+			pendingTarget = -1;
+			textArea.setEditable(true);
+			EditorState.getInstance().set(EditorState.READ_ONLY, false);
+		}
+	}
+	
+	public boolean isReadOnly() {
+		return pagedFile != null;
+	}
+	
+	public PagedFile getPagedFile() {
+		return pagedFile;
+	}
+	
+	// decodes and shows the window of the file around the given byte offset; note that the caret and scroll position aren't kept, so the caller has to
+	// set them afterwards
+	private void loadWindow(long anchor) throws IOException {
+		final long start = pagedFile.lineStartAtOrBefore(Math.max(0, anchor - WINDOW_SIZE / 2));
+		final long end = pagedFile.lineStartAtOrAfter(Math.min(pagedFile.getSize(), start + WINDOW_SIZE));
+		
+		loadingWindow = true;
+		textArea.setText(pagedFile.decode(start, end));
+		windowStart = start;
+		windowEnd = end;
+		windowFirstLine = pagedFile.getLineOfOffset(start);
+		loadingWindow = false;
+	}
+	
+	// if the viewport has gotten within a screen of either end of the window (and the window isn't already at that end of the file), a new window is
+	// loaded around the first visible line, which is then scrolled back to the top of the viewport, so that the scrolling appears to be seamless
+	private void slideWindow() {
+		final int extent = getVerticalScrollBar().getVisibleAmount();
+		final int value = getVerticalScrollBar().getValue();
+		final boolean nearStart = value <= extent && windowStart > 0;
+		final boolean nearEnd = value + 2 * extent >= getVerticalScrollBar().getMaximum() && windowEnd < pagedFile.getSize();
+		
+		if (!nearStart && !nearEnd) return;
+		
+		try {
+			final int topOffset = textArea.getLineStartOffset(textArea.getLineOfOffset(textArea.viewToModel2D(getViewport().getViewPosition())));
+			final long top = toByteOffset(topOffset);
+			final long caret = toByteOffset(textArea.getCaretPosition());
+			
+			loadWindow(top);
+			loadingWindow = true;
+			
+			// keep the caret where it was if it's still in the window; otherwise, move it to the first visible line
+			textArea.setCaretPosition(toWindowOffset(caret >= windowStart && caret <= windowEnd ? caret : top));
+			scrollToTop(toWindowOffset(top));
+			loadingWindow = false;
+		}
+		catch (IOException | BadLocationException e) {
+			loadingWindow = false;
+			e.printStackTrace();
+		}
+	}
+	
+	// scrolls the viewport so that the line at the given offset of the window is at the top of it
+	private void scrollToTop(int offset) throws BadLocationException {
+		validate();  // lay out the text area first, since its size changes whenever a new window is loaded
+		
+		final Rectangle2D bounds = textArea.modelToView2D(offset);  // note that this is null if the text area hasn't been shown yet
+		if (bounds != null) getViewport().setViewPosition(new Point(getViewport().getViewPosition().x, (int) bounds.getY()));
+	}
+	
+	// converts a byte offset in the file (which must be within the window) to an offset in the text area, and vice versa below; note that lines are
+	// counted rather than characters decoded, since the line separators of the window have been normalized
+	private int toWindowOffset(long byteOffset) throws IOException, BadLocationException {
+		final int line = pagedFile.countLines(windowStart, byteOffset);
+		final long lineStart = Math.max(windowStart, pagedFile.lineStartAtOrBefore(byteOffset));
+		
+		return Math.min(textArea.getLineStartOffset(line) + pagedFile.decode(lineStart, byteOffset).length(), textArea.getDocument().getLength());
+	}
+	
+	private long toByteOffset(int offset) throws IOException, BadLocationException {
+		final int line = textArea.getLineOfOffset(offset);
+		final int lineStart = textArea.getLineStartOffset(line);
+		
+		return pagedFile.skipLines(windowStart, line) + PagedFile.utf8Length(textArea.getText(lineStart, offset - lineStart), 0, offset - lineStart);
+	}
+	
+	// finds the next occurrence of the text to find in the whole file (rather than just the window) in read-only mode, on a background thread (see the
+	// PagedFind class) with its progress shown in the status bar, since the whole file may have to be searched; note that searching down starts after
+	// the start of the current selection and searching up starts before the end of it, so that the same occurrence isn't found again, which is the
+	// same as how the find range indices are shifted in the regular mode
+	private void findPaged(boolean down, boolean showTextNotFound) {
+		stopPagedFind();
+		
+		try {
+			final boolean textSelected = textArea.getSelectionStart() != textArea.getSelectionEnd();
+			final long from = down ?
+					toByteOffset(textArea.getSelectionStart() + (textSelected ? 1 : 0)) :
+					toByteOffset(textArea.getSelectionEnd() - (textSelected ? 1 : 0));
+			
+			pagedFind = new PagedFind(pagedFile, textToFind, findMatchCase, from, down, findWrapAround,
+					() -> SwingUtilities.invokeLater(this::pagedFindProgressed),
+					find -> SwingUtilities.invokeLater(() -> finishPagedFind(find, showTextNotFound)));
+			pagedFind.start();
+			pagedFindProgressed();
+		}
+		catch (IOException | BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private void pagedFindProgressed() {
+		if (pagedFind != null) StatusBar.getInstance().setProgress("Finding... " + pagedFind.getProgress() + "%");
+	}
+	
+	// selects the occurrence found, loading the window around it if it's outside of the current one
+	private void finishPagedFind(PagedFind find, boolean showTextNotFound) {
+		if (find != pagedFind) return;
+		
+		pagedFind = null;
+		StatusBar.getInstance().setProgress(null);
+		
+		if (find.hasFailed()) return;
+		
+		final long result = find.getResult();
+		final String text = find.getText();
+		
+		if (result == -1) {
+			if (showTextNotFound) showMessage("Could not find " + getShortQuotedText(text), "Text Not Found");
+			return;
+		}
+		try {
+			final long resultEnd = result + PagedFile.utf8Length(text, 0, text.length());
+			
+			if (result < windowStart || resultEnd > windowEnd) loadWindow(result);
+			
+			final int start = toWindowOffset(result);
+			textArea.select(start, start + text.length());
+		}
+		catch (IOException | BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private void stopPagedFind() {
+		if (pagedFind != null) {
+			pagedFind.stop();
+			pagedFind = null;
+			StatusBar.getInstance().setProgress(null);
+		}
+	}
+	
+	// moves the caret to the start of the given line (counted from 0), loading the window around it in read-only mode; returns false if there's no
+	// such line (or, in read-only mode, if the line index hasn't reached it yet)
+	public boolean goToLine(long line) {
+		try {
+			if (pagedFile == null) {
+				if (line < 0 || line >= textArea.getLineCount()) return false;
+				
+				textArea.setCaretPosition(textArea.getLineStartOffset((int) line));
+				return true;
+			}
+			final long lineStart = line < 0 ? -1 : pagedFile.getLineStart(line);
+			
+			if (lineStart == -1 || lineStart > pagedFile.getSize()) return false;
+			
+			showByteOffset(lineStart);
+			return true;
+		}
+		catch (IOException | BadLocationException e) {
+			loadingWindow = false;
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
+	// moves the caret to the given column of the given line (both counted from 0), where a column past the end of the line is the end of it; note that
+	// the start of the line is found through a line index (the elements of the document, or the line index of the file in read-only mode) rather than
+	// by going through the text before it, and that only the line itself is laid out when it's scrolled to; in read-only mode, a line the index hasn't
+	// reached yet is estimated (see "pendingTarget")
+	public boolean goToLineAndColumn(long line, int column) {
+		pendingTarget = -1;
+		
+		try {
+			if (pagedFile != null && line >= pagedFile.getLineCount() && !pagedFile.isIndexComplete()) {
+				goToEstimate(line, column, false);
+				return true;
+			}
+			if (!goToLine(line)) return false;
+			
+			// note that the last line has no line feed at its end
+			final int caret = textArea.getCaretPosition();
+			final int lineIndex = textArea.getLineOfOffset(caret);
+			final int lineEnd = lineIndex == textArea.getLineCount() - 1 ? textArea.getDocument().getLength() : textArea.getLineEndOffset(lineIndex) - 1;
+			
+			textArea.setCaretPosition((int) Math.min((long) caret + column, lineEnd));
+			return true;
+		}
+		catch (IOException | BadLocationException e) {
+			loadingWindow = false;
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
+	// moves the caret to the given character or byte offset (counted from 0), where the bytes are those of the text as it's saved (ie. encoded in UTF-8)
+	// or, in read-only mode, those of the file; returns false if the offset is past the end of the text
+	public boolean goToOffset(long offset, boolean bytes) {
+		pendingTarget = -1;
+		
+		try {
+			if (pagedFile == null) {
+				final int position = bytes ? toCharOffset(offset) : offset <= textArea.getDocument().getLength() ? (int) offset : -1;
+				
+				if (position == -1) return false;
+				
+				textArea.setCaretPosition(position);
+				return true;
+			}
+			if (bytes) {
+				if (offset > pagedFile.getSize()) return false;
+				
+				showByteOffset(pagedFile.toCharBoundary(offset));
+				return true;
+			}
+			final long byteOffset = pagedFile.getOffsetOfChar(offset);
+			
+			if (byteOffset == -1) goToEstimate(offset, 0, true);
+			else showByteOffset(byteOffset);
+			return true;
+		}
+		catch (IOException | BadLocationException e) {
+			loadingWindow = false;
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
+	// converts a byte offset in the text (as it's saved) to a character offset, or -1 if it's past the end of the text; a byte offset in the middle of a
+	// character is rounded up to the next one; note that the bytes of the text before the offset have to be counted, which is done by reading the text
+	// straight from the document a segment at a time, rather than copying it
+	private int toCharOffset(long byteOffset) throws BadLocationException {
+		final Document document = textArea.getDocument();
+		final Segment segment = new Segment();
+		long bytes = 0;
+		
+		segment.setPartialReturn(true);
+		
+		for (int offset = 0; offset < document.getLength(); offset += segment.count) {
+			document.getText(offset, document.getLength() - offset, segment);
+			
+			for (int i = 0; i < segment.count; i++) {
+				if (bytes >= byteOffset) return offset + i;
+				
+				// each half of a surrogate pair is counted as 2 bytes, since the pair is encoded in 4
+				final char c = segment.array[segment.offset + i];
+				bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+			}
+		}
+		return bytes >= byteOffset ? document.getLength() : -1;
+	}
+	
+	// moves the caret to the given byte offset in read-only mode, loading the window around it if it's outside of the current one, and scrolls it to
+	// the top of the viewport
+	private void showByteOffset(long byteOffset) throws IOException, BadLocationException {
+		if (byteOffset < windowStart || byteOffset >= windowEnd) loadWindow(byteOffset);
+		
+		loadingWindow = true;
+		textArea.setCaretPosition(toWindowOffset(byteOffset));
+		scrollToTop(textArea.getCaretPosition());
+		loadingWindow = false;
+	}
+	
+	// jumps to an estimate of the position of a line or character the index hasn't reached yet, which is then refined by "refineJump" as the index
+	// progresses; note that the status bar shows the line as unknown in the meantime, since the window's first line is unknown as well
+	private void goToEstimate(long target, int column, boolean chars) throws IOException, BadLocationException {
+		showByteOffset(pagedFile.estimateOffset(target, chars));
+		
+		pendingTarget = target;
+		pendingColumn = column;
+		pendingChars = chars;
+		pendingEstimate = toByteOffset(textArea.getCaretPosition());
+	}
+	
+	// called whenever the index progresses while a jump is pending; once the index has reached the target (or is complete, in which case a line past
+	// the end of the file is taken as the last line), the caret is moved to its exact position
+	private void refineJump() throws IOException, BadLocationException {
+		if (toByteOffset(textArea.getCaretPosition()) != pendingEstimate) {
+			pendingTarget = -1;
+			return;
+		}
+		if (pendingChars) {
+			final long byteOffset = pagedFile.getOffsetOfChar(pendingTarget);
+			
+			if (byteOffset == -1) return;
+			
+			pendingTarget = -1;
+			showByteOffset(byteOffset);
+		}
+		else if (pendingTarget < pagedFile.getLineCount() || pagedFile.isIndexComplete())
+			goToLineAndColumn(Math.min(pendingTarget, pagedFile.getLineCount() - 1), pendingColumn);
+	}
+	
+	// selects the given number of characters from the given column of the given line (ex. an occurrence found in the file); in read-only mode, the line
+	// is found by the byte offset of its start instead if the line index hasn't reached it yet
+	public boolean selectInLine(long line, long lineOffset, int column, int length) {
+		try {
+			pendingTarget = -1;
+			
+			if (pagedFile != null && pagedFile.getLineStart(line) == -1) showByteOffset(lineOffset);
+			else if (!goToLine(line)) return false;
+			
+			final int start = Math.min(textArea.getCaretPosition() + column, textArea.getDocument().getLength());
+			
+			textArea.select(start, Math.min(start + length, textArea.getDocument().getLength()));
+			return true;
+		}
+		catch (IOException | BadLocationException e) {
+			loadingWindow = false;
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
+	// returns the line of the file the text area starts at, which is 0 unless a file is open in read-only mode (in which case it's the line the window
+	// starts at, or -1 if the line index hasn't reached it yet)
+	public long getFirstLine() {
+		return windowFirstLine;
+	}
+	
+	// returns the line of the file the caret is on, or -1 if it's not known yet (in read-only mode)
+	public long getCaretLine() {
+		try {
+			return windowFirstLine == -1 ? -1 : windowFirstLine + textArea.getLineOfOffset(textArea.getCaretPosition());
+		}
+		catch (BadLocationException e) {
+			return -1;
+		}
+	}
+	
+	// returns the byte offset of the caret in the file in read-only mode
+	public long getCaretByteOffset() {
+		try {
+			return toByteOffset(textArea.getCaretPosition());
+		}
+		catch (IOException | BadLocationException e) {
+			return -1;
+		}
+	}
+	
 	public String getTextToFind() {
 		return textToFind;
 	}
@@ -0,0 +1,96 @@
+package main;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+
+import javax.swing.JComponent;
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+
+// the gutter along the left side of the text area (its scroll pane's row header), which marks the lines that have bookmarks; only the bookmarks within
+// the part of the gutter being painted are looked up (see the MarkerTree class), so painting it takes the same time no matter how many bookmarks
+// there are; clicking the gutter toggles the bookmark of the line next to it
+@SuppressWarnings("serial")
+final class BookmarkGutter extends JComponent {
+	
+	private static final int WIDTH = 14;
+	private static final Color BOOKMARK_COLOR = new Color(66, 133, 244);
+	
+	private final JTextArea textArea;
+	private final MarkerTree bookmarks;
+	
+	BookmarkGutter(JTextArea textArea, MarkerTree bookmarks) {
+		this.textArea = textArea;
+		this.bookmarks = bookmarks;
+		
+		// the gutter is as tall as the text area, so that its row header viewport scrolls along with the text area's viewport
+		textArea.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				revalidate();
+			}
+		});
+		addMouseListener(new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e) {
+				final int offset = textArea.viewToModel2D(new Point(0, e.getY()));
+				
+				try {
+					if (offset != -1) AppTextArea.getInstance().toggleBookmark(textArea.getLineOfOffset(offset));
+				}
+				catch (BadLocationException ex) {
+					ex.printStackTrace();
+				}
+			}
+		});
+	}
+	
+	@Override
+	public Dimension getPreferredSize() {
+		return new Dimension(WIDTH, textArea.getHeight());
+	}
+	
+	@Override
+	protected void paintComponent(Graphics g) {
+		if (bookmarks.size() == 0) return;
+		
+		final Rectangle clip = g.getClipBounds();
+		final Graphics2D g2 = (Graphics2D) g;
+		
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g2.setColor(BOOKMARK_COLOR);
+		
+		try {
+			final int firstLine = textArea.getLineOfOffset(textArea.viewToModel2D(new Point(0, clip.y)));
+			final int lastLine = textArea.getLineOfOffset(textArea.viewToModel2D(new Point(0, clip.y + clip.height)));
+			final int end = lastLine + 1 < textArea.getLineCount() ? textArea.getLineStartOffset(lastLine + 1) : Integer.MAX_VALUE;
+			int previousLine = -1;
+			
+			// a bookmark can be anywhere in its line, since the start of the line may have been moved by an edit (ex. joining it with the line before);
+			// note that a line with more than one bookmark is only marked once
+			for (int bookmark : bookmarks.range(textArea.getLineStartOffset(firstLine), end)) {
+				final int line = textArea.getLineOfOffset(bookmark);
+				if (line == previousLine) continue;
+				
+				final Rectangle2D bounds = textArea.modelToView2D(textArea.getLineStartOffset(line));
+				final int size = Math.min(WIDTH - 4, (int) bounds.getHeight() - 2);
+				
+				g2.fillRoundRect((WIDTH - size) / 2, (int) (bounds.getY() + (bounds.getHeight() - size) / 2), size, size, size / 2, size / 2);
+				previousLine = line;
+			}
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+}
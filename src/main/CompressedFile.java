@@ -0,0 +1,205 @@
+package main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// this class decompresses a gzip-compressed file (ex. a rotated log) on a background thread, so that it can be opened the same way as any other file;
+// the decompressed bytes are kept in memory as long as they'd be loaded in full anyway (see PagedFile.THRESHOLD), and are spilled to a temporary file
+// once they get any larger, which is then opened in read-only mode; that temporary file doubles as the seek index of the compressed file, since any
+// offset of it can be read (memory-mapped) directly, so jumping around a multi-gigabyte log never inflates it again from the start
+//
+// note that files consisting of several gzip members (ex. ones that were appended to, or compressed in parallel) are decompressed as a whole, and that
+// a file that's corrupt or ends early (ex. one that's still being written) is decompressed up to where it can be, rather than not at all; what's been
+// decompressed of it is always written to the temporary file, so that it's opened in read-only mode, and saving the part can't overwrite the whole
+// file (see "getError")
+public final class CompressedFile {
+	
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final String EXTENSION = ".gz";
+	
+	private final Path path;
+	private final Runnable onProgress;
+	private final Consumer<CompressedFile> onComplete;
+	private final Thread thread;
+	private volatile boolean stopped = false;
+	
+	private volatile long compressedSize = 0, readSize = 0;
+	private volatile byte[] content = null;   // the decompressed bytes, if they fit in memory
+	private volatile Path decompressedPath = null;  // otherwise, the temporary file they were written to
+	private volatile IOException error = null;      // what decompressing the file failed with, if it couldn't be decompressed to its end
+	
+	// both callbacks are called on the background thread: onProgress whenever another part of the file has been decompressed, and onComplete (with this
+	// instance) once the whole file has, unless it has been stopped first
+	public CompressedFile(Path path, Runnable onProgress, Consumer<CompressedFile> onComplete) {
+		this.path = path;
+		this.onProgress = onProgress;
+		this.onComplete = onComplete;
+		
+		thread = new Thread(this::decompress, "Decompressor");
+		thread.setDaemon(true);
+	}
+	
+	// the file is recognized by the 2 bytes every gzip member starts with, rather than by its name
+	public static boolean isCompressed(Path path) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final ByteBuffer magic = ByteBuffer.allocate(2);
+			
+			while (magic.hasRemaining() && channel.read(magic) != -1);
+			return !magic.hasRemaining() && (magic.get(0) & 0xFF) == 0x1F && (magic.get(1) & 0xFF) == 0x8B;
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+	
+	// files saved with this extension are compressed, whether or not the file they were opened from was
+	public static boolean hasCompressedExtension(String name) {
+		return name.toLowerCase().endsWith(EXTENSION);
+	}
+	
+	// returns the name of the file without its compression extension (ex. for the lexer to go by the extension of the compressed file)
+	public static String getDecompressedName(String name) {
+		return hasCompressedExtension(name) ? name.substring(0, name.length() - EXTENSION.length()) : name;
+	}
+	
+	public static byte[] compress(byte[] content) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4 + 64);
+		
+		try (GZIPOutputStream gzip = new GZIPOutputStream(output, BUFFER_SIZE)) {
+			gzip.write(content);
+		}
+		return output.toByteArray();
+	}
+	
+	// compresses the given file into another one, without reading it into memory (ex. a file opened in read-only mode that's saved as a compressed file)
+	public static void compress(Path source, Path target) throws IOException {
+		try (InputStream input = Files.newInputStream(source);
+				OutputStream output = new GZIPOutputStream(Files.newOutputStream(target), BUFFER_SIZE)) {
+			input.transferTo(output);
+		}
+	}
+	
+	public void start() {
+		thread.start();
+	}
+	
+	// stops decompressing the file, and deletes the temporary file (if any); note that a file opened in read-only mode from the temporary file can
+	// still be read after it's deleted on most platforms, while on the others it's deleted on exit instead
+	public void stop() {
+		stopped = true;
+		
+		final Path decompressedPath = this.decompressedPath;
+		
+		try {
+			if (decompressedPath != null) Files.deleteIfExists(decompressedPath);
+		}
+		catch (IOException e) {
+			decompressedPath.toFile().deleteOnExit();
+		}
+	}
+	
+	public Path getPath() {
+		return path;
+	}
+	
+	// returns how much of the file has been decompressed, as a percentage of its compressed size
+	public int getProgress() {
+		return compressedSize == 0 ? 100 : (int) (readSize * 100 / compressedSize);
+	}
+	
+	// returns the decompressed bytes once the file has been decompressed, or null if they were written to a temporary file instead
+	public byte[] getContent() {
+		return content;
+	}
+	
+	public Path getDecompressedPath() {
+		return decompressedPath;
+	}
+	
+	// returns the error the file couldn't be decompressed to its end because of (ex. it's corrupt, or it can't be read at all), or null if it could; in
+	// the first case, what's been decompressed is in the temporary file, while in the second, neither the content nor the temporary file is set
+	public IOException getError() {
+		return error;
+	}
+	
+	private void decompress() {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			compressedSize = channel.size();
+			
+			// the last 4 bytes of a gzip file are the size of its (last member's) decompressed content, modulo 2^32, which is only a hint, but a
+			// good enough one to size the buffer by
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) Math.min(PagedFile.THRESHOLD, Math.max(BUFFER_SIZE, sizeHint(channel))));
+			final byte[] bytes = new byte[BUFFER_SIZE];
+			OutputStream output = buffer;
+			long size = 0;
+			
+			try (InputStream input = new GZIPInputStream(Channels.newInputStream(channel), BUFFER_SIZE)) {
+				for (int read; !stopped && (read = input.read(bytes)) != -1;) {
+					size += read;
+					
+					if (size > PagedFile.THRESHOLD && decompressedPath == null) output = spill(buffer);
+					output.write(bytes, 0, read);
+					
+					final long position = channel.position();
+					
+					if (position * 100 / compressedSize > readSize * 100 / compressedSize) {
+						readSize = position;
+						onProgress.run();
+					}
+				}
+			}
+			catch (IOException e) {
+				// the file is corrupt, or ends in the middle of a member (ex. it's still being written), so what's been decompressed up to that point
+				// is opened (see above)
+				if (!stopped) error = e;
+			}
+			finally {
+				output.close();
+			}
+			readSize = compressedSize;
+			
+			if (decompressedPath == null && error == null) content = buffer.toByteArray();
+			else if (decompressedPath == null && size > 0) spill(buffer).close();
+		}
+		catch (IOException e) {
+			if (!stopped) {
+				e.printStackTrace();
+				if (error == null) error = e;
+			}
+		}
+		if (stopped) stop();  // the temporary file may have been created after stopping (in which case it's deleted here)
+		else onComplete.accept(this);
+	}
+	
+	// writes what's been decompressed so far to the temporary file, returning the stream the rest is written to
+	private OutputStream spill(ByteArrayOutputStream buffer) throws IOException {
+		decompressedPath = Files.createTempFile("text-editor-", "-" + getDecompressedName(path.getFileName().toString()));
+		decompressedPath.toFile().deleteOnExit();
+		
+		final OutputStream output = Files.newOutputStream(decompressedPath);
+		
+		buffer.writeTo(output);
+		buffer.reset();
+		return output;
+	}
+	
+	private static long sizeHint(FileChannel channel) throws IOException {
+		if (channel.size() < 18) return 0;  // the smallest possible gzip member
+		
+		final ByteBuffer trailer = ByteBuffer.allocate(4);
+		
+		while (trailer.hasRemaining() && channel.read(trailer, channel.size() - 4 + trailer.position()) != -1);
+		return Integer.toUnsignedLong(Integer.reverseBytes(trailer.getInt(0)));
+	}
+}
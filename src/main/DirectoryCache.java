@@ -0,0 +1,242 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// this class lists the entries of directories for the file browser (see the FileBrowser class) without ever blocking the EDT: a directory is listed
+// on a background thread with a DirectoryStream, reading the attributes of every entry as it goes (which, on Windows, come with the entry itself), and
+// the entries are handed over in the order they're listed, so that the browser can show them while the rest are still being listed, which for a large
+// directory on a network share can take several seconds
+//
+// the listings are kept once they're done, so that going back to a directory shows it right away; every directory that's kept is watched for changes
+// (see WatchService), and its listing is dropped as soon as anything in it is created, deleted or modified, so that a listing that's kept is never out
+// of date; a directory that can't be watched (ex. on some network file systems) isn't kept at all, and only the MAX_LISTINGS most recently used
+// listings are kept
+public final class DirectoryCache {
+	
+	private static final int MAX_LISTINGS = 16;
+	
+	private static DirectoryCache instance;
+	
+	// the listings kept, with the least recently used first; note that a listing that's still being listed is kept as well, so that the browser and the
+	// preloading of the recent files (see the RecentFiles class) share it rather than listing the same directory twice
+	private final Map<Path, Listing> listings = new LinkedHashMap<>(16, 0.75f, true);  // guarded by this instance
+	private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+		final Thread thread = new Thread(r, "Directory Listing");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private WatchService watchService = null;  // created on first use
+	
+	// an entry of a directory, along with the attributes the browser shows
+	public static final class Entry {
+		
+		public final Path path;
+		public final String name;
+		public final boolean directory, hidden;
+		public final long size, modified;  // the modification time is in milliseconds since the epoch
+		
+		private Entry(Path path, BasicFileAttributes attributes, boolean hidden) {
+			this.path = path;
+			this.name = path.getFileName() == null ? path.toString() : path.getFileName().toString();
+			this.directory = attributes.isDirectory();
+			this.hidden = hidden;
+			this.size = attributes.size();
+			this.modified = attributes.lastModifiedTime().toMillis();
+		}
+		
+		// reads the entry of a single file (ex. a recent file); note that this reads the file's attributes, so it shouldn't be called on the EDT
+		public static Entry read(Path path) throws IOException {
+			return new Entry(path, Files.readAttributes(path, BasicFileAttributes.class), Files.isHidden(path));
+		}
+	}
+	
+	// the entries of a directory, which are added to by the listing thread and taken by the browser a batch at a time (see "getEntries")
+	public static final class Listing {
+		
+		private final Path directory;
+		private final List<Entry> entries = new ArrayList<>();  // guarded by this listing
+		private volatile boolean done = false, invalidated = false;
+		private volatile IOException error = null;
+		private volatile WatchKey key = null;  // null if the directory can't be watched
+		
+		private Listing(Path directory) {
+			this.directory = directory;
+		}
+		
+		public Path getDirectory() {
+			return directory;
+		}
+		
+		// returns the entries listed from the given index on (ex. those listed since the last batch was taken)
+		public synchronized List<Entry> getEntries(int from) {
+			return new ArrayList<>(entries.subList(Math.min(from, entries.size()), entries.size()));
+		}
+		
+		private synchronized void add(Entry entry) {
+			entries.add(entry);
+		}
+		
+		// returns whether every entry has been listed (or the listing failed), meaning no more entries will be added
+		public boolean isDone() {
+			return done;
+		}
+		
+		// returns whether the directory has changed since it was listed
+		public boolean isInvalidated() {
+			return invalidated;
+		}
+		
+		// returns the error the listing failed with (ex. if the directory can't be read), or null if it didn't
+		public IOException getError() {
+			return error;
+		}
+	}
+	
+	private DirectoryCache() {}
+	
+	public static DirectoryCache getInstance() {
+		if (instance == null) instance = new DirectoryCache();
+		return instance;
+	}
+	
+	// returns the listing of the given directory, which is either the one kept (if the directory hasn't changed since) or a new one that's being listed
+	// in the background
+	public synchronized Listing list(Path directory) {
+		final Listing kept = listings.get(directory);
+		if (kept != null && !kept.invalidated && kept.error == null) return kept;
+		
+		final Listing listing = new Listing(directory);
+		
+		listings.put(directory, listing);
+		trim();
+		executor.execute(() -> read(listing));
+		return listing;
+	}
+	
+	// reads the entry of the given path on a listing thread and hands it to the callback (on that thread), or null if it can't be read (ex. it doesn't
+	// exist), so that the browser can find out whether a path typed is a folder or a file without blocking the EDT
+	public void readEntry(Path path, Consumer<Entry> onRead) {
+		executor.execute(() -> {
+			Entry entry = null;
+			try {
+				entry = Entry.read(path);
+			}
+			catch (IOException e) {
+				// the path is taken to be missing, whatever the reason it can't be read
+			}
+			onRead.accept(entry);
+		});
+	}
+	
+	// drops every listing kept (ex. when memory is running low, see the MemoryGovernor class)
+	public synchronized void clear() {
+		for (Listing listing : listings.values()) unwatch(listing);
+		listings.clear();
+	}
+	
+	private void trim() {
+		for (Iterator<Listing> iterator = listings.values().iterator(); listings.size() > MAX_LISTINGS && iterator.hasNext();) {
+			unwatch(iterator.next());
+			iterator.remove();
+		}
+	}
+	
+	// the directory is watched before it's listed, so that a change made while it's being listed isn't missed; note that an entry that can't be read
+	// (ex. because it was deleted since it was listed, or it's a broken link) is left out
+	private void read(Listing listing) {
+		watch(listing);
+		
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(listing.directory)) {
+			for (Path path : stream) {
+				try {
+					listing.add(Entry.read(path));
+				}
+				catch (IOException e) {
+					continue;
+				}
+			}
+		}
+		catch (IOException e) {
+			listing.error = e;
+		}
+		catch (DirectoryIteratorException e) {
+			listing.error = e.getCause();
+		}
+		listing.done = true;
+		
+		// a listing that can't be kept up to date isn't kept once it's done; the browser still has it, though
+		synchronized (this) {
+			if (listing.key == null && listings.get(listing.directory) == listing) listings.remove(listing.directory);
+		}
+	}
+	
+	private void watch(Listing listing) {
+		try {
+			synchronized (this) {
+				if (watchService == null) {
+					watchService = FileSystems.getDefault().newWatchService();
+					
+					final Thread thread = new Thread(this::watchChanges, "Directory Watcher");
+					thread.setDaemon(true);
+					thread.start();
+				}
+			}
+			// note that registering a directory that's already registered (ex. one that's being listed again after its listing failed) returns its key
+			listing.key = listing.directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+		}
+		catch (IOException | UnsupportedOperationException e) {
+			listing.key = null;
+		}
+	}
+	
+	// note that only the listing kept for a directory is ever dropped, so its key isn't shared with another listing that's still kept
+	private void unwatch(Listing listing) {
+		if (listing.key != null) listing.key.cancel();
+	}
+	
+	// every change to a directory drops its listing, whatever it is (ex. a file being written to changes its size and modification time), and cancels
+	// its key rather than resetting it, so that a directory that isn't listed again doesn't stay registered (on Linux, each key holds an inotify watch,
+	// of which there are only so many); the directory is registered again when it's listed again (see "read")
+	//
+	// the key is cancelled along with dropping the listing, under the same lock as "list", since a listing made in between would otherwise register
+	// the directory again, get back the same key (which is still valid until it's cancelled), and then never see its changes
+	private void watchChanges() {
+		try {
+			for (;;) {
+				final WatchKey key = watchService.take();
+				final Path directory = (Path) key.watchable();
+				
+				key.pollEvents();
+				
+				synchronized (this) {
+					final Listing listing = listings.remove(directory);
+					if (listing != null) listing.invalidated = true;
+					
+					key.cancel();
+				}
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e) {
+			return;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package main;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.util.ArrayDeque;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.JTextComponent;
+
+// the undo history of a text field (see the TextInput class), where every edit is kept as the text it removed and the text it inserted at an offset,
+// rather than as the edits of the field's document (which keep a lot more than that around, and can't be merged); an edit is coalesced into the one
+// before it if both were made by the same event (ex. replacing the selection, which removes it and then inserts the new text), or if both are a
+// keystroke that continues the other one (typing, or deleting with backspace or delete), made without too long of a pause in between
+//
+// every field keeps a limited number of edits, while the memory taken up by the edits of all of the fields together is limited by a shared budget;
+// once it's exceeded, the oldest edits of any field are discarded first, so that pasting large texts into a field over and over can't keep growing its
+// history (note that an edit that's larger than the whole budget can't be undone at all)
+//
+// note that the fields are only edited on the EDT, so the shared state isn't synchronized
+final class EditHistory {
+	
+	private static final int LIMIT = 100;              // the number of edits kept for each field
+	private static final int EDIT_OVERHEAD = 64;       // the approximate number of bytes an edit takes up in memory, besides its text
+	private static final long TYPING_INTERVAL = 1000;  // the longest pause (in milliseconds) between keystrokes that are undone together
+	private static final int COMPACT_THRESHOLD = 256;  // the number of discarded edits that are left in the shared queue before it's compacted
+	
+	// the memory budget can be changed with -Dfield.history.memory=<bytes>
+	private static final long MEMORY_BUDGET = Long.getLong("field.history.memory", 1 << 22);
+	
+	private static final ArrayDeque<Edit> edits = new ArrayDeque<>();  // the edits of every field, oldest first
+	private static long memory = 0;
+	private static int discardedCount = 0;  // the edits in the above that were discarded (ex. by being undone and then replaced by another edit)
+	
+	private final JTextComponent field;
+	private final StringBuilder text;  // a copy of the field's text, since the event of a removal doesn't include the text that was removed
+	private final ArrayDeque<Edit> undoEdits = new ArrayDeque<>(), redoEdits = new ArrayDeque<>();
+	private boolean applying = false;
+	private boolean sealed = false;    // whether the next edit can't be coalesced into the last one (ex. after undoing)
+	private AWTEvent lastEvent = null;
+	private long lastTime = 0;
+	private boolean lastKeystroke = false;  // whether the last edit inserted or removed a single character
+	
+	private static final class Edit {
+		
+		private final EditHistory history;
+		private int offset;
+		private String removed, inserted;
+		private boolean discarded = false;
+		
+		private Edit(EditHistory history, int offset, String removed, String inserted) {
+			this.history = history;
+			this.offset = offset;
+			this.removed = removed;
+			this.inserted = inserted;
+		}
+		
+		private long size() {
+			return EDIT_OVERHEAD + 2L * (removed.length() + inserted.length());
+		}
+	}
+	
+	EditHistory(JTextComponent field) {
+		this.field = field;
+		text = new StringBuilder(field.getText());
+	}
+	
+	// both of these are called by the field's document listener, and return whether the change was an edit (rather than undoing or redoing one)
+	boolean insertUpdate(DocumentEvent e) {
+		final String inserted;
+		
+		try {
+			inserted = e.getDocument().getText(e.getOffset(), e.getLength());
+		}
+		catch (BadLocationException ex) {
+			ex.printStackTrace();
+			return false;
+		}
+		text.insert(e.getOffset(), inserted);
+		
+		if (!applying) record(e.getOffset(), "", inserted);
+		return !applying;
+	}
+	
+	boolean removeUpdate(DocumentEvent e) {
+		final String removed = text.substring(e.getOffset(), e.getOffset() + e.getLength());
+		
+		text.delete(e.getOffset(), e.getOffset() + e.getLength());
+		
+		if (!applying) record(e.getOffset(), removed, "");
+		return !applying;
+	}
+	
+	boolean canUndo() {
+		return !undoEdits.isEmpty();
+	}
+	
+	boolean canRedo() {
+		return !redoEdits.isEmpty();
+	}
+	
+	void undo() {
+		final Edit edit = undoEdits.pollLast();
+		if (edit == null) return;
+		
+		apply(edit.offset, edit.inserted.length(), edit.removed);
+		redoEdits.addLast(edit);
+	}
+	
+	void redo() {
+		final Edit edit = redoEdits.pollLast();
+		if (edit == null) return;
+		
+		apply(edit.offset, edit.removed.length(), edit.inserted);
+		undoEdits.addLast(edit);
+	}
+	
+	private void apply(int offset, int length, String replacement) {
+		applying = true;
+		sealed = true;
+		
+		try {
+			((AbstractDocument) field.getDocument()).replace(offset, length, replacement, null);
+			field.setCaretPosition(offset + replacement.length());
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+		finally {
+			applying = false;
+		}
+	}
+	
+	private void record(int offset, String removed, String inserted) {
+		final AWTEvent event = EventQueue.getCurrentEvent();
+		final long time = System.currentTimeMillis();
+		final boolean keystroke = removed.length() + inserted.length() == 1;
+		final Edit last = undoEdits.peekLast();
+		
+		while (!redoEdits.isEmpty()) discard(redoEdits.pollLast());
+		
+		if (last != null && !sealed) {
+			final long size = last.size();
+			final boolean typing = keystroke && lastKeystroke && time - lastTime <= TYPING_INTERVAL;
+			
+			if (coalesce(last, offset, removed, inserted, event != null && event == lastEvent, typing)) {
+				memory += last.size() - size;
+				remember(event, time, keystroke);
+				trim();
+				return;
+			}
+		}
+		final Edit edit = new Edit(this, offset, removed, inserted);
+		
+		undoEdits.addLast(edit);
+		edits.addLast(edit);
+		memory += edit.size();
+		
+		if (undoEdits.size() > LIMIT) discard(undoEdits.pollFirst());
+		
+		remember(event, time, keystroke);
+		trim();
+	}
+	
+	private void remember(AWTEvent event, long time, boolean keystroke) {
+		lastEvent = event;
+		lastTime = time;
+		lastKeystroke = keystroke;
+		sealed = false;
+	}
+	
+	// returns whether the new edit could be merged into the last one, in which case it has been; typing means both edits are keystrokes made one right
+	// after the other
+	private static boolean coalesce(Edit last, int offset, String removed, String inserted, boolean sameEvent, boolean typing) {
+		if (!sameEvent && !typing) return false;
+		
+		// text inserted right after the text the last edit inserted (or where it removed text from)
+		if (removed.isEmpty() && offset == last.offset + last.inserted.length() && (sameEvent || last.removed.isEmpty())) {
+			last.inserted += inserted;
+			return true;
+		}
+		if (!inserted.isEmpty() || !last.inserted.isEmpty()) return false;
+		
+		// text removed right before the text the last edit removed (backspace), or right after it (delete)
+		if (offset + removed.length() == last.offset) {
+			last.offset = offset;
+			last.removed = removed + last.removed;
+			return true;
+		}
+		if (offset == last.offset) {
+			last.removed += removed;
+			return true;
+		}
+		return false;
+	}
+	
+	// discards the oldest edits of any field until the edits fit the budget again; the oldest edit of a field is the first one of its undo history, or
+	// if that's empty, the one to be redone next, without which the rest of its redo history can't be redone either
+	private static void trim() {
+		while (memory > MEMORY_BUDGET && !edits.isEmpty()) {
+			final Edit edit = edits.pollFirst();
+			
+			if (edit.discarded) {
+				discardedCount--;
+				continue;
+			}
+			final EditHistory history = edit.history;
+			
+			if (history.undoEdits.peekFirst() == edit) history.undoEdits.pollFirst();
+			else {
+				history.redoEdits.remove(edit);
+				while (!history.redoEdits.isEmpty()) history.discard(history.redoEdits.pollLast());
+			}
+			release(edit);
+		}
+	}
+	
+	// discards an edit that's still in the shared queue, which is only compacted once enough of its edits have been discarded
+	private void discard(Edit edit) {
+		release(edit);
+		
+		if (++discardedCount > COMPACT_THRESHOLD && discardedCount > edits.size() / 2) {
+			edits.removeIf(e -> e.discarded);
+			discardedCount = 0;
+		}
+	}
+	
+	private static void release(Edit edit) {
+		memory -= edit.size();
+		edit.discarded = true;
+		edit.removed = edit.inserted = null;
+	}
+}
@@ -0,0 +1,55 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// the state of the editor that decides which of the menu items can be used (see the AppMenuBar class), kept as a set of flags; the text area and the
+// file manager set the flags as the state changes, and the listeners are only called when a flag actually changes, so that setting a flag on every
+// keystroke (ex. whether the text is empty) costs nothing more than comparing it, rather than going over every menu item each time
+//
+// note that the state is only changed on the EDT, so it isn't synchronized
+public final class EditorState {
+	
+	public static final int EMPTY = 1;             // the text is empty (or the file, in read-only mode)
+	public static final int DIRTY = 1 << 1;        // the text has changes that haven't been saved
+	public static final int CAN_UNDO = 1 << 2;
+	public static final int CAN_REDO = 1 << 3;
+	public static final int FILE_LOADED = 1 << 4;  // the text is that of a file, rather than a new, untitled text
+	public static final int COMPRESSED = 1 << 5;   // the file is gzip-compressed
+	public static final int READ_ONLY = 1 << 6;    // a file too large to be loaded is shown a window at a time (see the PagedFile class)
+	public static final int FOLLOWING = 1 << 7;    // the file is being followed, so the text can't be edited
+	public static final int LOADING = 1 << 8;      // the file is being loaded in the background (ex. decompressed)
+	
+	private static EditorState instance;
+	
+	private int flags = EMPTY;
+	private final List<IntConsumer> listeners = new ArrayList<>();  // called with the flag that changed
+	
+	public static EditorState getInstance() {
+		if (instance == null) instance = new EditorState();
+		return instance;
+	}
+	
+	private EditorState() {}
+	
+	public int getFlags() {
+		return flags;
+	}
+	
+	public boolean is(int flag) {
+		return (flags & flag) != 0;
+	}
+	
+	public void set(int flag, boolean value) {
+		final int flags = value ? this.flags | flag : this.flags & ~flag;
+		if (flags == this.flags) return;
+		
+		this.flags = flags;
+		for (IntConsumer listener : listeners) listener.accept(flag);
+	}
+	
+	public void addListener(IntConsumer listener) {
+		listeners.add(listener);
+	}
+}
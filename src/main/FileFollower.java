@@ -0,0 +1,141 @@
+package main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// this class follows a file that is being appended to (ex. a log file), the way "tail -f" does: rather than reloading the whole file whenever it
+// changes, only the bytes appended since the last read are read (with a positioned read, starting at the previous end of the file), decoded, and
+// passed on; the reading is done on a background thread, which waits for the file to be modified using a WatchService
+public final class FileFollower {
+	
+	private static final int BUFFER_SIZE = 1 << 20;
+	
+	// the watch service is also polled at this interval (in milliseconds), since some platforms don't have native file change notifications, in which
+	// case modifications are only reported every few seconds
+	private static final int POLL_INTERVAL = 250;
+	
+	private final Path path;
+	private final Consumer<String> onAppend;
+	private final Runnable onTruncate;
+	private volatile long position;
+	
+	private final Thread thread;
+	private volatile WatchService watchService = null;
+	private volatile boolean stopped = false;
+	
+	// decoding is done incrementally, since a multi-byte character (or a \r\n line separator) may be split between 2 reads; the decoder keeps the bytes
+	// of an incomplete character until the rest of it is read, while a trailing \r is held back until it's known whether it's followed by \n
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+	private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+	private boolean pendingCarriageReturn = false;
+	
+	// the appended text is passed to onAppend (on the background thread) with its line separators normalized, while onTruncate is called (also on the
+	// background thread) if the file gets shorter than the position that was read up to, which usually means the file was truncated or rotated
+	public FileFollower(Path path, long position, Consumer<String> onAppend, Runnable onTruncate) {
+		this.path = path;
+		this.position = position;
+		this.onAppend = onAppend;
+		this.onTruncate = onTruncate;
+		
+		thread = new Thread(this::follow, "File Follower");
+		thread.setDaemon(true);
+	}
+	
+	public void start() {
+		thread.start();
+	}
+	
+	// note that closing the watch service wakes up the background thread if it's waiting for a modification
+	public void stop() {
+		stopped = true;
+		
+		try {
+			if (watchService != null) watchService.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	// returns the position the file has been read up to, which is where following it continues from once it's been stopped
+	public long getPosition() {
+		return position;
+	}
+	
+	private void follow() {
+		try (WatchService watchService = FileSystems.getDefault().newWatchService();
+				FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			this.watchService = watchService;
+			
+			// note that only directories can be watched, so the file's parent directory is watched for modifications of any of its files
+			path.toAbsolutePath().getParent().register(watchService, StandardWatchEventKinds.ENTRY_MODIFY);
+			
+			while (!stopped) {
+				readAppended(channel);
+				
+				final WatchKey key = watchService.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				
+				if (key != null) {
+					key.pollEvents();  // the events themselves don't matter, since the file's size is checked either way
+					key.reset();
+				}
+			}
+		}
+		catch (ClosedWatchServiceException | InterruptedException e) {
+			// the watch service was closed, meaning the follower was stopped
+		}
+		catch (IOException e) {
+			if (!stopped) e.printStackTrace();
+		}
+	}
+	
+	private void readAppended(FileChannel channel) throws IOException {
+		final long size = channel.size();
+		
+		if (size < position) {
+			stopped = true;
+			onTruncate.run();
+			return;
+		}
+		while (position < size && !stopped) {
+			final int read = channel.read(bytes, position);
+			if (read <= 0) break;
+			
+			position += read;
+			bytes.flip();
+			decoder.decode(bytes, chars, false);
+			bytes.compact();  // keep the bytes of an incomplete character at the start of the buffer for the next read
+			chars.flip();
+			
+			if (chars.hasRemaining()) {
+				final StringBuilder text = new StringBuilder(chars.length() + 1);
+				
+				if (pendingCarriageReturn) text.append('\r');
+				text.append(chars);
+				
+				pendingCarriageReturn = text.charAt(text.length() - 1) == '\r';
+				if (pendingCarriageReturn) text.setLength(text.length() - 1);
+				
+				if (text.length() > 0) onAppend.accept(text.toString().replace("\r\n", "\n"));
+			}
+			chars.clear();
+		}
+	}
+}
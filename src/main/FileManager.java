@@ -2,90 +2,359 @@ package main;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 
-import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
-import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+
+import main.panes.FileBrowser;
 
 public final class FileManager {
 	
 	private static FileManager instance;
-	private final JFileChooser fileChooser = new JFileChooser(new File(System.getProperty("user.home"), "Documents"));
+	private FileBrowser fileBrowser = null;  // created on first use (see below)
 	
 	private File file = null;
 	private boolean saved = true;
 	
+	private long loadedSize = 0;  // the size of the file when it was last loaded or saved, which is where following it starts from
+	private FileFollower follower = null;
+	
+	// the watcher detects modifications made to the file by other programs (see the FileWatcher class); if the user chose to keep their unsaved changes
+	// over such a modification, saving has to be confirmed, so that the other program's changes aren't overwritten without the user knowing
+	private FileWatcher watcher = null;
+	private boolean modifiedExternally = false;
+	private Object snapshotting = null;  // the token of the snapshot being taken once following has stopped (see "stopFollowing")
+	
+	// a compressed file is decompressed in the background when it's opened (see the CompressedFile class), and compressed again when it's saved; the
+	// CompressedFile is kept while the file is open in read-only mode, since its decompressed copy is what the text area reads from
+	private boolean compressed = false;
+	private CompressedFile compressedFile = null;
+	
+	// a file restored from the last session is read in the background (see "restore"); the token tells whether it's still the file being restored
+	// once it's been read, and the callback restores the caret and scroll position once its text has been loaded
+	private Object restoring = null;
+	private Runnable onLoaded = null;
+	
 	public static final Runnable START_NEW = () -> getInstance().startNew();
 	public static final Runnable OPEN = () -> getInstance().open();
 	public static final Runnable SAVE = () -> getInstance().save();
 	public static final Runnable SAVE_AS = () -> getInstance().saveAs();
 	public static final Runnable EXIT = () -> getInstance().exit();
-	
-	public FileManager() {
-		fileChooser.setFileFilter(new FileNameExtensionFilter("Text Files", "txt"));        // set default file name extension filter
-		//fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("All Files", "*"));  // any additional filter
-	}
+	public static final Runnable TOGGLE_FOLLOW = () -> getInstance().toggleFollow();
 	
 	public static FileManager getInstance() {
 		if (instance == null) instance = new FileManager();
 		return instance;
 	}
 	
+	// the file browser lists its folders in the background (see the FileBrowser class), but it's still only created the first time it's needed, since
+	// the file manager is initialized before the frame is even shown
+	private FileBrowser getFileBrowser() {
+		if (fileBrowser == null) fileBrowser = new FileBrowser(Main.getFrame());
+		return fileBrowser;
+	}
+	
 	public void startNew() {
 		// cancel the operation if changes are not saved and user cancelled when prompted with the save dialog
 		if (!saved && !promptSave()) return;
 		
+		stopFollowing();
+		stopWatching();
+		stopDecompressing();
+		stopRestoring();
+		MemoryGovernor.getInstance().reset();
 		AppTextArea.getInstance().clearText();
-		AppMenuBar.getInstance().setItemEnabled(0, 0, false);  // disable "New" menu item
-		
-		// disable all edit menu items
-		for (int i = 0; i < AppMenuBar.getInstance().getNumMenuItems(1); i++)
-			AppMenuBar.getInstance().setItemEnabled(1, i, false);
-		
-		file = null;
+		AppTextArea.getInstance().setSyntax(null);
+		setFile(null, false);
 		setSaved(true);
+		
+		if (SessionRecorder.ENABLED) SessionRecorder.getInstance().record(SessionRecorder.NEW);
 	}
 	
 	public void open() {
 		if (!saved && !promptSave()) return;
 		
-		if (fileChooser.showOpenDialog(Main.getFrame()) == JFileChooser.APPROVE_OPTION) {
-			File selectedFile = fileChooser.getSelectedFile();
+		final File selectedFile = getFileBrowser().prompt(Main.getFrame(), FileBrowser.OPEN, null);
+		if (selectedFile == null) return;
+		
+		open(selectedFile);
+		RecentFiles.getInstance().add(selectedFile);
+	}
+	
+	// opens the given file directly, without prompting the user with the file browser; this allows files to be loaded by means other than the open
+	// dialog (ex. the benchmarks, which run headless and therefore cannot show any dialogs)
+	public void open(File selectedFile) {
+		// cancel the operation if the same file that's already open is selected
+		if (file != null && selectedFile.getAbsolutePath().equals(file.getAbsolutePath())) return;
+		
+		if (SessionRecorder.ENABLED) SessionRecorder.getInstance().opened(selectedFile);
+		
+		stopFollowing();
+		file = selectedFile;
+		load();
+	}
+	
+	// opens the given file from another pane (ex. the find in files pane), prompting to save any unsaved changes first; returns whether the file is open,
+	// since the user may cancel
+	public boolean openPrompted(File selectedFile) {
+		if (!saved && !promptSave()) return false;
+		
+		open(selectedFile);
+		if (file == null || !file.getAbsolutePath().equals(selectedFile.getAbsolutePath())) return false;
+		
+		RecentFiles.getInstance().add(selectedFile);
+		return true;
+	}
+	
+	// loads the contents of the current file into the text area
+	private void load() {
+		// read all bytes directly, rather than using a Stream object or using the "readAllLines" method of the "Files" class, so as to preserve the
+		// original line separator characters; this is to ensure that there's no extra line separator at the end of the text of the text area after
+		// opening a file; however, because this method preserves and uses the original line separators, they must be normalized before the text is
+		// set, so as to ensure consistent display across different platforms (namely, Unix-based systems, including Mac, which use linefeed, \n, and
+		// Windows, which uses carriage return and line feed together, \r\n)
+		stopDecompressing();
+		stopRestoring();
+		setFile(file, CompressedFile.isCompressed(file.toPath()));
+		MemoryGovernor.getInstance().reset();
+		
+		try {
+			// the lexer is set before the text, so that the text is only lexed once; note that a compressed file goes by the extension before its own
+			AppTextArea.getInstance().setSyntax(CompressedFile.getDecompressedName(file.getName()));
 			
-			// cancel the operation if the same file that's already open is selected
-			if (file != null && selectedFile.getAbsolutePath().equals(file.getAbsolutePath())) return;
-			file = selectedFile;
+			if (compressed) {
+				decompress();
+				return;
+			}
+			// files that are too large to be loaded into memory are opened in read-only mode, where only the part of the file around the viewport
+			// is read (see the PagedFile class)
+			if (Files.size(file.toPath()) > PagedFile.THRESHOLD) {
+				stopWatching();  // the file is memory-mapped in this mode, so there's nothing to reload
+				openReadOnly(file.toPath());
+				return;
+			}
+			byte[] fileContent = Files.readAllBytes(file.toPath());
+			loadedSize = fileContent.length;
+			watch(fileContent);
+			loadContent(fileContent);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	// note that replacing text isn't possible in read-only mode, so the replace menu item is disabled, as are the bookmark menu items, since only the
+	// window of the file that's shown could be bookmarked; following and comparing with the saved file aren't supported either (see the AppMenuBar
+	// class)
+	private void openReadOnly(Path path) throws IOException {
+		AppTextArea.getInstance().openPagedFile(path);
+		setSaved(true);
+	}
+	
+	// reopens the file in read-only mode when the heap is running out (see the MemoryGovernor class), so that only the part of it around the viewport
+	// is kept in memory; this is only done if nothing would be lost, so not if there are unsaved changes or the file has been modified since it was
+	// loaded, nor if it's compressed, since the decompressed copy isn't kept once the file is loaded; returns whether the file is now in read-only mode
+	public boolean reopenReadOnly() {
+		if (AppTextArea.getInstance().isReadOnly()) return true;
+		if (file == null || !saved || compressed || modifiedExternally) return false;
+		
+		stopFollowing();
+		stopWatching();
+		
+		try {
+			openReadOnly(file.toPath());
+			return true;
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
+	private void loadContent(byte[] fileContent) {
+		try {
+			String text = new String(fileContent, "UTF-8");
 			
-			// read all bytes directly, rather than using a Stream object or using the "readAllLines" method of the "Files" class, so as to preserve the
-			// original line separator characters; this is to ensure that there's no extra line separator at the end of the text of the text area after
-			// opening a file; however, because this method preserves and uses the original line separators, they must be normalized before the text is
-			// set, so as to ensure consistent display across different platforms (namely, Unix-based systems, including Mac, which use linefeed, \n, and
-			// Windows, which uses carriage return and line feed together, \r\n)
+			// normalize line separators before setting text; note that strings in Java are immutable, meaning that the "loadFileContents" method gets
+			// passed a new string whose value is a modified version of the original string variable; "text" itself doesn't get passed to the method
+			AppTextArea.getInstance().setTextContent(text.replace("\r\n", "\n"));
+			setSaved(true);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		loaded();
+	}
+	
+	// opens the file the last session ended with (see the SessionSnapshot class) without making the frame wait for it: the given page of the file (if
+	// any) is shown while the file is read and decoded on a background thread, and the callback is called once its text has been loaded (which, for
+	// a compressed file, is once it's been decompressed, and for a file that's too large to be loaded, once it's been opened in read-only mode)
+	public void restore(File restoredFile, String page, Runnable onLoaded) {
+		if (SessionRecorder.ENABLED) SessionRecorder.getInstance().opened(restoredFile);
+		
+		setFile(restoredFile, CompressedFile.isCompressed(restoredFile.toPath()));
+		AppTextArea.getInstance().setSyntax(CompressedFile.getDecompressedName(file.getName()));
+		this.onLoaded = onLoaded;
+		
+		if (compressed) {
+			decompress();
+			return;
+		}
+		final Object token = new Object();
+		final Path path = file.toPath();
+		
+		restoring = token;
+		if (page != null) AppTextArea.getInstance().setLoading(page);
+		else AppTextArea.getInstance().setLoading(true);
+		StatusBar.getInstance().setProgress("Loading...");
+		setSaved(true);
+		
+		// note that a file that's too large to be loaded is only mapped (and indexed) once it's opened in read-only mode, which is quick enough to be
+		// done on the EDT
+		final Thread thread = new Thread(() -> {
 			try {
-				byte[] fileContent = Files.readAllBytes(file.toPath());
-				String text = new String(fileContent, "UTF-8");
-				
-				// normalize line separators before setting text; note that strings in Java are immutable, meaning that the "loadFileContents" method gets
-				// passed a new string whose value is a modified version of the original string variable; "text" itself doesn't get passed to the method
-				AppTextArea.getInstance().setTextContent(text.replace("\r\n", "\n"));
+				final byte[] content = Files.size(path) > PagedFile.THRESHOLD ? null : Files.readAllBytes(path);
+				final String text = content == null ? null : new String(content, StandardCharsets.UTF_8).replace("\r\n", "\n");
 				
-				// disable undo and redo menu items
-				for (int i = 0; i < 2; i++)
-					AppMenuBar.getInstance().setItemEnabled(1, i, false);
-				
-				// enable / disable edit menu items related to finding and replacing text, depending on whether the new file contains any text or not
-				for (int i = 2; i < AppMenuBar.getInstance().getNumMenuItems(1); i++)
-					AppMenuBar.getInstance().setItemEnabled(1, i, !text.isEmpty());
-				
-				setSaved(true);
+				SwingUtilities.invokeLater(() -> {
+					if (restoring == token) loadRestored(content, text);
+				});
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+				SwingUtilities.invokeLater(() -> {
+					if (restoring == token) startNew();
+				});
+			}
+		}, "Session Restore");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	private void loadRestored(byte[] content, String text) {
+		if (content == null) {
+			restoring = null;
+			StatusBar.getInstance().setProgress(null);
+			AppTextArea.getInstance().setLoading(false);
+			
+			try {
+				stopWatching();
+				openReadOnly(file.toPath());
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+			loaded();
+			return;
+		}
+		// the text is inserted a chunk at a time, so that a large file doesn't freeze the frame once it's been read (see "setTextContent" of the
+		// AppTextArea class); the file is still being restored (and can't be edited) until then, and is only watched for modifications once its text
+		// is all there, since a modification is patched into the text
+		AppTextArea.getInstance().setTextContent(text, progress -> StatusBar.getInstance().setProgress("Loading... " + progress + "%"), () -> {
+			restoring = null;
+			StatusBar.getInstance().setProgress(null);
+			AppTextArea.getInstance().setLoading(false);
+			
+			try {
+				loadedSize = content.length;
+				watch(content);
 			}
 			catch (IOException e) {
 				e.printStackTrace();
 			}
+			setSaved(true);
+			loaded();
+		});
+	}
+	
+	// stops restoring the file of the last session, once another file is opened (or a new text is started) before it's been loaded
+	private void stopRestoring() {
+		onLoaded = null;
+		
+		if (restoring != null) {
+			restoring = null;
+			StatusBar.getInstance().setProgress(null);
+			AppTextArea.getInstance().setLoading(false);
+		}
+	}
+	
+	private void loaded() {
+		if (onLoaded != null) {
+			final Runnable callback = onLoaded;
+			
+			onLoaded = null;
+			callback.run();
+		}
+	}
+	
+	// the text area is cleared (and can't be edited) until the file has been decompressed, with the progress shown in the status bar; note that the
+	// file isn't watched for modifications, since those would have to be decompressed again to find what changed in the text
+	private void decompress() {
+		stopWatching();
+		AppTextArea.getInstance().setLoading(true);
+		StatusBar.getInstance().setProgress("Decompressing... 0%");
+		setSaved(true);
+		
+		compressedFile = new CompressedFile(file.toPath(), () -> SwingUtilities.invokeLater(() -> {
+			if (compressedFile != null) StatusBar.getInstance().setProgress("Decompressing... " + compressedFile.getProgress() + "%");
+		}), decompressed -> SwingUtilities.invokeLater(() -> {
+			if (decompressed == compressedFile) loadDecompressed();
+		}));
+		compressedFile.start();
+	}
+	
+	// a file that couldn't be decompressed to its end (ex. it's corrupt, or ends early) is opened in read-only mode up to where it could be, since
+	// saving the part as the file would compress it over the whole file; a file that couldn't be decompressed at all isn't opened, rather than being
+	// opened as an empty text, for the same reason
+	private void loadDecompressed() {
+		final byte[] content = compressedFile.getContent();
+		final IOException error = compressedFile.getError();
+		
+		StatusBar.getInstance().setProgress(null);
+		AppTextArea.getInstance().setLoading(false);
+		
+		if (content == null && compressedFile.getDecompressedPath() == null) {
+			final String fileName = getFileName();
+			
+			compressedFile = null;
+			startNew();
+			JOptionPane.showMessageDialog(Main.getFrame(), "\"" + fileName + "\" can't be decompressed: " + error.getMessage(), "Error",
+					JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		if (content == null) {
+			try {
+				openReadOnly(compressedFile.getDecompressedPath());
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+			loaded();
+			
+			if (error != null) JOptionPane.showMessageDialog(Main.getFrame(), "\"" + getFileName() + "\" is corrupt or ends early (" +
+					error.getMessage() + "), so it has been opened in read-only mode up to where it could be decompressed.", "Warning",
+					JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+		compressedFile = null;  // there's nothing left to keep once the content is loaded
+		loadedSize = content.length;
+		loadContent(content);
+	}
+	
+	private void stopDecompressing() {
+		if (compressedFile != null) {
+			compressedFile.stop();
+			compressedFile = null;
+			StatusBar.getInstance().setProgress(null);
+			AppTextArea.getInstance().setLoading(false);
 		}
 	}
 	
@@ -95,25 +364,26 @@ public final class FileManager {
 	}
 	
 	public void saveAs() {
-		int selection = fileChooser.showSaveDialog(Main.getFrame());
+		final File selectedFile = promptSaveFile("Confirm Save As");
+		if (selectedFile == null) return;
 		
-		if (selection == JFileChooser.APPROVE_OPTION) {
-			File selectedFile = fileChooser.getSelectedFile();
-			
-			if (selectedFile.exists()) {
-				int option = JOptionPane.showConfirmDialog(fileChooser, "File already exists. Do you want to replace it?", "Confirm Save As",
-						JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
-				
-				if (option == JOptionPane.YES_OPTION) {
-					file = selectedFile;
-					writeFile();
-				}
-				else saveAs();
-			} else {
-				file = selectedFile;
-				writeFile();
-			}
-		}
+		setFile(selectedFile, CompressedFile.hasCompressedExtension(selectedFile.getName()));
+		writeFile();
+		AppTextArea.getInstance().setSyntax(CompressedFile.getDecompressedName(file.getName()));
+		RecentFiles.getInstance().add(selectedFile);
+	}
+	
+	// prompts the user with the save dialog, confirming before an existing file is replaced (which the browser does, since it finds out whether the file
+	// exists off the EDT); returns the file that was chosen, or null if the user cancelled (ex. for writing the result of sorting a file opened in
+	// read-only mode, see the LineOperation class)
+	public File promptSaveFile(String confirmTitle) {
+		return getFileBrowser().promptSave(Main.getFrame(), confirmTitle);
+	}
+	
+	// prompts the user with the open dialog under the given title, for choosing a file that isn't opened in the text area (ex. for comparing files,
+	// see the DiffPane class); returns null if the user cancelled
+	public File promptOpenFile(String title) {
+		return getFileBrowser().prompt(Main.getFrame(), FileBrowser.OPEN, title);
 	}
 	
 	// note that for closing a window or a pane (JFrame, JWindow, or JDialog) and marking it as eligible for garbage collection (to ensure proper cleanup
@@ -122,10 +392,141 @@ public final class FileManager {
 		if (!saved && !promptSave()) {
 			return;
 		}
+		SessionSnapshot.getInstance().save();
 		Main.getFrames()[0].dispose();
 		System.exit(0);
 	}
 	
+	// following a file appends anything written to the end of it (ex. by the application writing a log file) to the text area as it's written; the
+	// text area is read-only while following, since the text is kept in sync with the file, rather than the other way around
+	private void toggleFollow() {
+		if (follower != null) {
+			stopFollowing();
+			return;
+		}
+		// the text has to match the file for the appended text to end up in the right place, so any unsaved changes have to be saved first
+		if (file == null || compressed || AppTextArea.getInstance().isReadOnly() || (!saved && (!promptSave() || !saved))) {
+			AppMenuBar.getInstance().setItemSelected(3, 3, false);
+			return;
+		}
+		// note that both callbacks are called on the follower's thread; the appended text is batched by the text area itself, while the truncation
+		// of the file (ex. by log rotation) reloads the file from the start and then continues following it
+		follower = new FileFollower(file.toPath(), loadedSize, AppTextArea.getInstance()::appendFollowedText, () -> SwingUtilities.invokeLater(() -> {
+			stopFollowing();
+			load();
+			toggleFollow();
+		}));
+		stopWatching();  // the follower keeps the text in sync with the file instead
+		AppTextArea.getInstance().setFollowing(true);
+		AppMenuBar.getInstance().setItemSelected(3, 3, true);
+		follower.start();
+	}
+	
+	private void stopFollowing() {
+		if (follower != null) {
+			follower.stop();
+			loadedSize = follower.getPosition();
+			follower = null;
+			AppTextArea.getInstance().setFollowing(false);
+			AppMenuBar.getInstance().setItemSelected(3, 3, false);
+			
+			// following continues from where the follower stopped, while watching the file continues from what's in the text area, which is the file
+			// up to that position; since a followed file (ex. a log file) can be huge, that part of it is read and hashed on a background thread, and
+			// anything written to the file past it is then found by the watcher as a change (see "fileChanged")
+			final Object token = new Object();
+			final Path path = file.toPath();
+			final long size = loadedSize;
+			
+			snapshotting = token;
+			
+			final Thread thread = new Thread(() -> {
+				try (InputStream input = Files.newInputStream(path)) {
+					final FileWatcher.Snapshot snapshot = FileWatcher.Snapshot.of(path, input.readNBytes((int) Math.min(size, Integer.MAX_VALUE - 8)));
+					
+					SwingUtilities.invokeLater(() -> {
+						if (snapshotting == token) watch(snapshot);
+					});
+				}
+				catch (IOException e) {
+					e.printStackTrace();
+				}
+			}, "Follow Snapshot");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+	
+	// starts watching the current file for modifications, with the given content as what the text area holds; if the file is already being watched,
+	// only the content is updated (ex. after saving it)
+	private void watch(byte[] fileContent) throws IOException {
+		watch(FileWatcher.Snapshot.of(file.toPath(), fileContent));
+	}
+	
+	private void watch(FileWatcher.Snapshot snapshot) {
+		snapshotting = null;
+		modifiedExternally = false;
+		
+		if (watcher != null && watcher.getPath().equals(file.toPath())) {
+			watcher.setSnapshot(snapshot);
+			return;
+		}
+		stopWatching();
+		watcher = new FileWatcher(file.toPath(), snapshot, change -> SwingUtilities.invokeLater(() -> fileChanged(change)));
+		watcher.start();
+	}
+	
+	private void stopWatching() {
+		snapshotting = null;
+		
+		if (watcher != null) {
+			watcher.stop();
+			watcher = null;
+		}
+		modifiedExternally = false;
+	}
+	
+	// if there are no unsaved changes, the text area holds the content of the file as of the change's base snapshot, so only the changed range has to
+	// be replaced; that range is narrowed down further to the characters that actually differ, so that the caret and selection are only moved if
+	// they're within the changed text; otherwise, the user is asked whether to reload the file (losing their changes) or keep their changes
+	private void fileChanged(FileWatcher.Change change) {
+		// the change is outdated if the file has been saved, reloaded or closed since it was found
+		if (watcher == null || change.base != watcher.getSnapshot()) return;
+		
+		if (!saved) {
+			watcher.setSnapshot(change.snapshot);
+			
+			int option = JOptionPane.showConfirmDialog(Main.getFrame(), "\"" + getFileName() + "\" has been changed by another program. " +
+					"Do you want to reload it and lose your changes?", "File Changed", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+			
+			if (option == JOptionPane.YES_OPTION) load();
+			else modifiedExternally = true;
+			return;
+		}
+		final String text = change.text;
+		final int start = change.prefixLength, end = AppTextArea.getInstance().getTextLength() - change.suffixLength;
+		
+		try {
+			final String oldText = AppTextArea.getInstance().getText(start, end - start);
+			final int maxLength = Math.min(oldText.length(), text.length());
+			int prefix = 0, suffix = 0;
+			
+			while (prefix < maxLength && oldText.charAt(prefix) == text.charAt(prefix)) prefix++;
+			while (suffix < maxLength - prefix &&
+					oldText.charAt(oldText.length() - suffix - 1) == text.charAt(text.length() - suffix - 1)) suffix++;
+			
+			if (prefix + suffix < Math.max(oldText.length(), text.length()))
+				AppTextArea.getInstance().replaceRange(text.substring(prefix, text.length() - suffix), start + prefix, end - suffix);
+		}
+		catch (BadLocationException e) {
+			// the text doesn't match the snapshot after all (which shouldn't happen), so the whole file is reloaded instead
+			load();
+			return;
+		}
+		watcher.setSnapshot(change.snapshot);
+		loadedSize = change.snapshot.getSize();
+		setSaved(true);
+	}
+	
 	// returns a boolean value, indicating whether the calling method should proceed with its operation(s) or not
 	private boolean promptSave() {
 		final String[] options = { "Save", "Don't Save", "Cancel" };
@@ -143,11 +544,43 @@ public final class FileManager {
 	}
 	
 	private void writeFile() {
+		if (SessionRecorder.ENABLED) SessionRecorder.getInstance().record(SessionRecorder.SAVE);
+		
 		try {
+			// in read-only mode, the file can't have been changed, so saving it as another file is just a copy (while saving it as itself does nothing);
+			// the file that was opened is copied as is if it's saved in the same format, otherwise the text it holds is copied (or compressed)
+			if (AppTextArea.getInstance().isReadOnly()) {
+				final Path text = AppTextArea.getInstance().getPagedFile().getPath();
+				final Path source = compressedFile != null ? compressedFile.getPath() : text;
+				
+				if (!file.exists() || !Files.isSameFile(source, file.toPath())) {
+					if (compressed == (compressedFile != null)) Files.copy(source, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+					else if (compressed) CompressedFile.compress(text, file.toPath());
+					else Files.copy(text, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+				
+				setSaved(true);
+				return;
+			}
 			// note that character encoding should be specified explicitly; also, note that the last argument specifies that the file should be
 			// overwritten if it already exists
-			Files.write(Paths.get(file.getAbsolutePath()), AppTextArea.getInstance().getText().getBytes(StandardCharsets.UTF_8),
+			final byte[] fileContent = AppTextArea.getInstance().getText().getBytes(StandardCharsets.UTF_8);
+			
+			// confirm overwriting the file if another program has changed it since it was loaded (or last saved)
+			if (watcher != null && watcher.getPath().equals(file.toPath()) && (modifiedExternally || watcher.isModified())) {
+				int option = JOptionPane.showConfirmDialog(Main.getFrame(), "\"" + getFileName() + "\" has been changed by another program. " +
+						"Do you want to overwrite it?", "Confirm Save", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+				
+				if (option != JOptionPane.YES_OPTION) return;
+			}
+			Files.write(Paths.get(file.getAbsolutePath()), compressed ? CompressedFile.compress(fileContent) : fileContent,
 					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+			
+			if (compressed) stopWatching();
+			else {
+				loadedSize = fileContent.length;
+				watch(fileContent);
+			}
 			setSaved(true);
 		}
 		catch (IOException e) {
@@ -155,6 +588,19 @@ public final class FileManager {
 		}
 	}
 	
+	// the file (and whether it's compressed) is also kept in the editor's state, since some of the menu items depend on it (ex. "New" is enabled
+	// whenever a file is loaded, and following only makes sense for a file that's appended to as text)
+	private void setFile(File file, boolean compressed) {
+		this.file = file;
+		this.compressed = compressed;
+		EditorState.getInstance().set(EditorState.FILE_LOADED, file != null);
+		EditorState.getInstance().set(EditorState.COMPRESSED, compressed);
+	}
+	
+	public File getFile() {
+		return file;
+	}
+	
 	public boolean getFileLoaded() {
 		return file != null;
 	}
@@ -165,13 +611,16 @@ public final class FileManager {
 	
 	public void setSaved(boolean saved) {
 		this.saved = saved;
+		EditorState.getInstance().set(EditorState.DIRTY, !saved);
 		if (saved) AppTextArea.getInstance().saveChanges();
 		updateFrameTitle();
 	}
 	
 	public void updateFrameTitle() {
+		if (Main.getFrames().length == 0) return;  // there is no frame to set the title of when running headless (ex. in the benchmarks)
+		
 		Main.getFrames()[0].setTitle((FileManager.getInstance().getSaved() ? "" : "*") +
-				FileManager.getInstance().getFileName() + " - Text Editor");
+				FileManager.getInstance().getFileName() + (AppTextArea.getInstance().isReadOnly() ? " (Read-Only)" : "") + " - Text Editor");
 	}
 	
 	public String getFileName() {
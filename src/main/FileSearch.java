@@ -0,0 +1,249 @@
+package main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// this class finds all occurrences of a text in the files of a directory tree, the way grep does: the tree is walked on one thread while its files are
+// searched on a pool of worker threads (one per core), and each occurrence is passed on as soon as it's found, so the results can be shown while the
+// search continues; files are searched as raw bytes (the text is encoded in UTF-8 instead of every file being decoded), with files larger than
+// MAP_THRESHOLD being memory-mapped rather than read into the heap
+//
+// binary files are skipped by sniffing their first few kilobytes for a null byte (which text files practically never contain), as are hidden
+// directories (ex. .git), since they're rarely what's meant to be searched
+public final class FileSearch {
+	
+	public static final int MAX_HITS = 100_000;    // the search stops once this many occurrences have been found
+	private static final int SNIFF_SIZE = 8192;
+	private static final int MAP_THRESHOLD = 1 << 20;
+	private static final int PREVIEW_BEFORE = 60;  // the number of bytes of the line shown before and after an occurrence
+	private static final int PREVIEW_AFTER = 140;
+	
+	private final Path root;
+	private final String text;
+	private final byte[] pattern;
+	private final boolean matchCase;
+	private final Consumer<Hit> onHit;
+	
+	private final AtomicInteger fileCount = new AtomicInteger(), hitCount = new AtomicInteger();
+	private volatile boolean cancelled = false, done = false;
+	
+	// an occurrence of the text; the line is counted from 0, and the column is in characters (like the offsets of the text area), while the offset of
+	// the start of the line is in bytes, which is what's used to find it in a file opened in read-only mode before the line index has reached it
+	public static final class Hit {
+		
+		public final Path path;
+		public final long line, lineOffset;
+		public final int column, length;
+		public final String preview;
+		
+		private Hit(Path path, long line, long lineOffset, int column, int length, String preview) {
+			this.path = path;
+			this.line = line;
+			this.lineOffset = lineOffset;
+			this.column = column;
+			this.length = length;
+			this.preview = preview;
+		}
+		
+		@Override
+		public String toString() {
+			return path.getFileName() + ":" + (line + 1) + ":" + (column + 1) + ": " + preview;
+		}
+	}
+	
+	// onHit is called on the worker threads with every occurrence found
+	public FileSearch(Path root, String text, boolean matchCase, Consumer<Hit> onHit) {
+		this.root = root;
+		this.text = text;
+		this.matchCase = matchCase;
+		this.onHit = onHit;
+		
+		// occurrences are matched ignoring case by folding ASCII letters only, since other letters can have a different number of bytes in UTF-8
+		// depending on their case
+		final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		if (!matchCase) for (int i = 0; i < bytes.length; i++) bytes[i] = toLowerCase(bytes[i]);
+		pattern = bytes;
+	}
+	
+	public void start() {
+		final Thread thread = new Thread(this::walk, "Find in Files");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	// returns whether every file has been searched (or the search has been cancelled, or stopped at MAX_HITS), meaning no more occurrences will be
+	// passed on
+	public boolean isDone() {
+		return done;
+	}
+	
+	public int getFileCount() {
+		return fileCount.get();
+	}
+	
+	public int getHitCount() {
+		return Math.min(hitCount.get(), MAX_HITS);
+	}
+	
+	private void walk() {
+		final ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+			final Thread thread = new Thread(r, "Find in Files Worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+					if (cancelled) return FileVisitResult.TERMINATE;
+					return !dir.equals(root) && dir.getFileName().toString().startsWith(".") ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+				}
+				
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+					if (cancelled) return FileVisitResult.TERMINATE;
+					if (attributes.isRegularFile() && attributes.size() >= pattern.length) workers.execute(() -> search(file));
+					
+					return FileVisitResult.CONTINUE;
+				}
+				
+				// files and directories that can't be read (ex. due to their permissions) are skipped
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException e) {
+					return FileVisitResult.CONTINUE;
+				}
+			});
+			workers.shutdown();
+			workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			workers.shutdownNow();
+			done = true;
+		}
+	}
+	
+	// note that files of 2 GB or more can't be mapped in a single buffer, so they're skipped, along with anything that can't be read
+	private void search(Path file) {
+		if (cancelled) return;
+		
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (size > Integer.MAX_VALUE) return;
+			
+			final ByteBuffer buffer;
+			
+			if (size > MAP_THRESHOLD) buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			else {
+				buffer = ByteBuffer.allocate((int) size);
+				while (buffer.hasRemaining() && channel.read(buffer) != -1);
+				buffer.flip();
+			}
+			fileCount.incrementAndGet();
+			if (!isBinary(buffer)) search(file, buffer);
+		}
+		catch (IOException | UnsupportedOperationException e) {
+			// the file can't be read (ex. it's locked by another program, or it's a special file), so it's skipped
+		}
+	}
+	
+	private static boolean isBinary(ByteBuffer buffer) {
+		for (int i = 0, n = Math.min(buffer.limit(), SNIFF_SIZE); i < n; i++)
+			if (buffer.get(i) == 0) return true;
+		
+		return false;
+	}
+	
+	// the lines are only counted up to each occurrence found, so files without any occurrences are never counted at all; the column is counted along
+	// with them, carried forward from one occurrence to the next, so that a long line with many occurrences (ex. minified JSON) is only counted once
+	// rather than decoded from its start for every occurrence
+	private void search(Path file, ByteBuffer buffer) {
+		final int limit = buffer.limit() - pattern.length;
+		final byte first = pattern[0];
+		long line = 0;
+		int lineStart = 0, column = 0, counted = 0;
+		
+		for (int i = 0; i <= limit; i++) {
+			if ((i & 0xFFFFF) == 0 && cancelled) return;
+			if (fold(buffer.get(i)) != first || !matchesAt(buffer, i)) continue;
+			
+			for (; counted < i; counted++) {
+				final byte b = buffer.get(counted);
+				
+				if (b == '\n') {
+					line++;
+					lineStart = counted + 1;
+					column = 0;
+				}
+				else column += charCount(b);
+			}
+			if (hitCount.incrementAndGet() > MAX_HITS || cancelled) {
+				cancelled = true;
+				return;
+			}
+			onHit.accept(new Hit(file, line, lineStart, column, text.length(), preview(buffer, lineStart, i)));
+		}
+	}
+	
+	private boolean matchesAt(ByteBuffer buffer, int offset) {
+		for (int j = 1; j < pattern.length; j++)
+			if (fold(buffer.get(offset + j)) != pattern[j]) return false;
+		
+		return true;
+	}
+	
+	private byte fold(byte b) {
+		return matchCase ? b : toLowerCase(b);
+	}
+	
+	private static byte toLowerCase(byte b) {
+		return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+	}
+	
+	// returns the number of characters (as decoded, ie. with a supplementary character as two) that the UTF-8 character starting with the given byte
+	// decodes to, which is none for a continuation byte, since it's part of the character started before it
+	private static int charCount(byte b) {
+		if ((b & 0xC0) == 0x80) return 0;
+		return (b & 0xF8) == 0xF0 ? 2 : 1;
+	}
+	
+	// shows the line around the occurrence, trimmed to the characters (rather than bytes) at either end
+	private static String preview(ByteBuffer buffer, int lineStart, int offset) {
+		int start = Math.max(lineStart, offset - PREVIEW_BEFORE), end = offset;
+		
+		while (end < buffer.limit() && end < offset + PREVIEW_AFTER && buffer.get(end) != '\n') end++;
+		while (end > offset && end < buffer.limit() && (buffer.get(end) & 0xC0) == 0x80) end--;
+		while (start > lineStart && (buffer.get(start) & 0xC0) == 0x80) start++;
+		
+		return (start > lineStart ? "..." : "") + decode(buffer, start, end).strip();
+	}
+	
+	// note that the line separators don't need to be normalized, since the range never contains a line feed
+	private static String decode(ByteBuffer buffer, int start, int end) {
+		final byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,231 @@
+package main;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// this class watches the open file for modifications made by other programs; the file's size and modification time are compared against a snapshot
+// taken when the file was last loaded or saved, and if either of them has changed, the file is read again and the hashes of its chunks are compared
+// against those of the snapshot, so as to find the range of the file that has actually changed; only that range is then decoded and patched into the
+// text area, rather than reloading the whole file
+public final class FileWatcher {
+	
+	private static final int CHUNK_SIZE = 64 << 10;
+	private static final int POLL_INTERVAL = 1000;  // see FileFollower
+	private static final int SETTLE_DELAY = 100;    // how long the file has to stay the same before it's read (see below)
+	
+	private final Path path;
+	private final Consumer<Change> onChange;
+	
+	// the snapshot is replaced by the EDT when the file is saved or a change is applied, while the watcher only replaces it (if it hasn't been replaced
+	// in the meantime) when the file's content hasn't actually changed; the last snapshot a change was reported against isn't checked again until then,
+	// so that a change which hasn't been handled yet (ex. because the user is being asked about it) isn't reported more than once
+	private final AtomicReference<Snapshot> snapshot;
+	private Snapshot reportedBase = null;
+	
+	private final Thread thread;
+	private volatile WatchService watchService = null;
+	private volatile boolean stopped = false;
+	
+	// the size, modification time and chunk hashes of the file; the chunks are hashed both from the start and from the end of the file, since an
+	// insertion or a removal shifts all of the chunks after it (when hashed from the start), but none of those before it (when hashed from the end)
+	public static final class Snapshot {
+		
+		private final long size;
+		private final FileTime modifiedTime;
+		private final long[] headHashes, tailHashes;
+		
+		private Snapshot(byte[] content, FileTime modifiedTime) {
+			final int count = (content.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			
+			size = content.length;
+			this.modifiedTime = modifiedTime;
+			headHashes = new long[count];
+			tailHashes = new long[count];
+			
+			for (int i = 0; i < count; i++) {
+				final int headStart = i * CHUNK_SIZE;
+				final int tailEnd = content.length - i * CHUNK_SIZE;
+				
+				headHashes[i] = hash(content, headStart, Math.min(content.length, headStart + CHUNK_SIZE));
+				tailHashes[i] = hash(content, Math.max(0, tailEnd - CHUNK_SIZE), tailEnd);
+			}
+		}
+		
+		// takes a snapshot of the given content, which must be the current content of the file at the given path
+		public static Snapshot of(Path path, byte[] content) throws IOException {
+			return new Snapshot(content, Files.getLastModifiedTime(path));
+		}
+		
+		public long getSize() {
+			return size;
+		}
+		
+		private static long hash(byte[] content, int start, int end) {
+			final CRC32 crc = new CRC32();
+			crc.update(content, start, end - start);
+			return crc.getValue();
+		}
+	}
+	
+	// describes how to patch the text area, which (if there were no unsaved changes) holds the text of the old snapshot, to get the text of the new
+	// one: the text between the given number of characters from the start and from the end of it is replaced with the given text
+	public static final class Change {
+		
+		public final Snapshot base, snapshot;
+		public final int prefixLength, suffixLength;
+		public final String text;
+		
+		private Change(Snapshot base, Snapshot snapshot, int prefixLength, int suffixLength, String text) {
+			this.base = base;
+			this.snapshot = snapshot;
+			this.prefixLength = prefixLength;
+			this.suffixLength = suffixLength;
+			this.text = text;
+		}
+	}
+	
+	// onChange is called on the watcher's thread with every change found
+	public FileWatcher(Path path, Snapshot snapshot, Consumer<Change> onChange) {
+		this.path = path;
+		this.snapshot = new AtomicReference<>(snapshot);
+		this.onChange = onChange;
+		
+		thread = new Thread(this::watch, "File Watcher");
+		thread.setDaemon(true);
+	}
+	
+	public void start() {
+		thread.start();
+	}
+	
+	public void stop() {
+		stopped = true;
+		
+		try {
+			if (watchService != null) watchService.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	public Path getPath() {
+		return path;
+	}
+	
+	public Snapshot getSnapshot() {
+		return snapshot.get();
+	}
+	
+	// called whenever the file is saved (or a change has been applied), so that it isn't reported as having been modified
+	public void setSnapshot(Snapshot snapshot) {
+		this.snapshot.set(snapshot);
+	}
+	
+	// returns whether the file has been modified since the snapshot was taken, judging only by its size and modification time
+	public boolean isModified() {
+		try {
+			final Snapshot snapshot = this.snapshot.get();
+			return Files.size(path) != snapshot.size || !Files.getLastModifiedTime(path).equals(snapshot.modifiedTime);
+		}
+		catch (IOException e) {
+			return true;  // the file has been deleted (or can't be read), which also counts as having been modified
+		}
+	}
+	
+	private void watch() {
+		try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+			this.watchService = watchService;
+			path.toAbsolutePath().getParent().register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+			
+			while (!stopped) {
+				final WatchKey key = watchService.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				
+				if (key != null) {
+					key.pollEvents();
+					key.reset();
+				}
+				if (snapshot.get() != reportedBase && Files.exists(path) && isModified()) check();
+			}
+		}
+		catch (ClosedWatchServiceException | InterruptedException e) {
+			// the watcher was stopped
+		}
+		catch (IOException e) {
+			if (!stopped) e.printStackTrace();
+		}
+	}
+	
+	private void check() throws IOException, InterruptedException {
+		final Snapshot base = snapshot.get();
+		long size = -1;
+		FileTime modifiedTime = null;
+		
+		// another program is usually still writing the file when the first modification is noticed, so the file is only read once its size and
+		// modification time have stopped changing, and the change is only reported if they didn't change while it was being read either; otherwise,
+		// the text area would be patched with a half-written file
+		while (size != Files.size(path) || !Files.getLastModifiedTime(path).equals(modifiedTime)) {
+			size = Files.size(path);
+			modifiedTime = Files.getLastModifiedTime(path);
+			Thread.sleep(SETTLE_DELAY);
+		}
+		final byte[] content = Files.readAllBytes(path);
+		final Snapshot current = new Snapshot(content, modifiedTime);
+		
+		if (content.length != Files.size(path) || !Files.getLastModifiedTime(path).equals(modifiedTime)) return;  // checked again on the next poll
+		final int maxChunks = Math.min(base.headHashes.length, current.headHashes.length);
+		int head = 0, tail = 0;
+		
+		// count the chunks that are the same from the start, then those that are the same from the end (without overlapping the former)
+		while (head < maxChunks && base.headHashes[head] == current.headHashes[head]) head++;
+		while (tail < maxChunks - head && base.tailHashes[tail] == current.tailHashes[tail]) tail++;
+		
+		if (head == maxChunks && base.size == current.size) {
+			snapshot.compareAndSet(base, current);  // only the modification time has changed (ex. the file was touched, or saved without changes)
+			return;
+		}
+		// the changed range is widened to whole lines, so that it can be decoded (and its line separators normalized) on its own; note that the line
+		// feeds it's widened to are within the unchanged ranges, so they're the same in both versions of the file, and that the line feed byte is never
+		// part of a multi-byte character (or preceded by the \r of a \r\n line separator on the other side of it) in UTF-8
+		final long prefix = Math.min((long) head * CHUNK_SIZE, Math.min(base.size, current.size));
+		final long suffix = Math.min((long) tail * CHUNK_SIZE, Math.min(base.size, current.size) - prefix);
+		int start = (int) prefix, end = content.length - (int) suffix;
+		
+		while (start > 0 && content[start - 1] != '\n') start--;
+		
+		if (end < content.length) {
+			end++;
+			while (end < content.length && content[end - 1] != '\n') end++;
+		}
+		final String text = new String(content, start, end - start, StandardCharsets.UTF_8).replace("\r\n", "\n");
+		
+		reportedBase = base;
+		if (!stopped) onChange.accept(new Change(base, current, countChars(content, 0, start), countChars(content, end, content.length), text));
+	}
+	
+	// returns the number of characters the given range of UTF-8 bytes decodes to, once its line separators are normalized, without decoding it; every
+	// byte that isn't a continuation byte starts a character, except for 4 byte characters, which are decoded to 2 characters (a surrogate pair)
+	private static int countChars(byte[] content, int start, int end) {
+		int count = 0;
+		
+		for (int i = start; i < end; i++) {
+			final int b = content[i] & 0xFF;
+			
+			if ((b & 0xC0) != 0x80) count += b >= 0xF0 ? 2 : 1;
+			if (b == '\r' && i + 1 < end && content[i + 1] == '\n') count--;
+		}
+		return count;
+	}
+}
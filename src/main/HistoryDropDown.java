@@ -0,0 +1,140 @@
+package main;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.Popup;
+import javax.swing.PopupFactory;
+import javax.swing.SwingUtilities;
+
+// the drop-down list of the texts a field was last used with (see the SearchHistory class), which is shown below the field with the down arrow key;
+// the focus stays in the field while the list is shown, so the up and down arrow keys of the field move through the list, enter puts the selected text
+// in the field, and escape (or leaving the field) closes the list
+//
+// note that a plain popup is used rather than a JPopupMenu, since a popup menu takes the focus away from the field (to handle its own keys)
+final class HistoryDropDown {
+	
+	private static final int VISIBLE_ROWS = 8;
+	
+	private final TextInput field;
+	private final int kind;
+	private final JList<String> list = new JList<>();
+	private final JScrollPane scrollPane = new JScrollPane(list);
+	private Popup popup = null;
+	
+	HistoryDropDown(TextInput field, int kind) {
+		this.field = field;
+		this.kind = kind;
+		
+		list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		list.setFocusable(false);
+		list.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				final int index = list.locationToIndex(e.getPoint());
+				if (index != -1) choose(list.getModel().getElementAt(index));
+			}
+		});
+		field.addFocusListener(new FocusAdapter() {
+			@Override
+			public void focusLost(FocusEvent e) {
+				hide();
+			}
+		});
+		initActions();
+	}
+	
+	// up, enter and escape only do anything while the list is shown, so that they're handled by the field (or the pane) as usual otherwise; note that
+	// a disabled action lets the key stroke through to the bindings of the field's ancestors (ex. the default button of the pane for enter)
+	private void initActions() {
+		final Action down = new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (popup == null) show();
+				else move(1);
+			}
+		};
+		final Action up = new ShownAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) { move(-1); }
+		};
+		final Action enter = new ShownAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (list.getSelectedValue() != null) choose(list.getSelectedValue());
+			}
+		};
+		final Action escape = new ShownAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) { hide(); }
+		};
+		final int[] keyCodes = { KeyEvent.VK_DOWN, KeyEvent.VK_UP, KeyEvent.VK_ENTER, KeyEvent.VK_ESCAPE };
+		final Action[] actions = { down, up, enter, escape };
+		
+		for (int i = 0; i < keyCodes.length; i++) {
+			field.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(keyCodes[i], 0), "history" + i);
+			field.getActionMap().put("history" + i, actions[i]);
+		}
+	}
+	
+	@SuppressWarnings("serial")
+	private abstract class ShownAction extends AbstractAction {
+		@Override
+		public boolean isEnabled() {
+			return popup != null;
+		}
+	}
+	
+	private void show() {
+		final List<String> texts = SearchHistory.getInstance().get(kind);
+		if (texts.isEmpty() || !field.isShowing()) return;
+		
+		list.setListData(texts.toArray(new String[0]));
+		list.setVisibleRowCount(Math.min(VISIBLE_ROWS, texts.size()));
+		list.setSelectedIndex(Math.max(0, texts.indexOf(field.getText())));
+		
+		scrollPane.setPreferredSize(null);
+		scrollPane.setPreferredSize(new Dimension(field.getWidth(), scrollPane.getPreferredSize().height));
+		
+		final Point location = new Point(0, field.getHeight());
+		SwingUtilities.convertPointToScreen(location, field);
+		
+		popup = PopupFactory.getSharedInstance().getPopup(field, scrollPane, location.x, location.y);
+		popup.show();
+	}
+	
+	private void hide() {
+		if (popup != null) {
+			popup.hide();
+			popup = null;
+		}
+	}
+	
+	private void move(int delta) {
+		final int index = Math.max(0, Math.min(list.getModel().getSize() - 1, list.getSelectedIndex() + delta));
+		
+		list.setSelectedIndex(index);
+		list.ensureIndexIsVisible(index);
+	}
+	
+	// the text replaces the field's text as a single edit, which the field handles like any other (ex. the find field searching for it)
+	private void choose(String text) {
+		hide();
+		field.replaceText(text);
+		field.selectAll();
+	}
+}
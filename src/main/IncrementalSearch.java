@@ -0,0 +1,200 @@
+package main;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+import javax.swing.SwingUtilities;
+
+// this class searches the text as the text to find is typed into the find (or replace) pane, selecting the closest match to where the search started;
+// the search is done on a background thread against a snapshot of the text, so typing never waits on it, and a search that has been superseded by a
+// newer one (ie. another key was typed before it finished) is abandoned as soon as possible using a generation number, like the status bar's statistics
+//
+// note that every match of a query is also a match of any prefix of it, so the offsets of the matches of each query are kept, and when the query is
+// extended (which is what happens with every keystroke), only those offsets are checked again, rather than the whole text; the matches of the shorter
+// queries are kept as well, so that deleting characters from the end of the query doesn't require searching again either
+public final class IncrementalSearch {
+	
+	private static IncrementalSearch instance;
+	
+	// queries with more matches than this (ex. a single common letter in a large file) don't have their matches kept, as they would take up a lot of
+	// memory; the next query is searched for in the whole text instead
+	private static final int MAX_MATCHES = 1 << 20;
+	private static final int CANCEL_CHECK_INTERVAL = 1 << 20;  // the number of matches filtered between checks for cancellation
+	
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		final Thread thread = new Thread(r, "Incremental Search");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicLong generation = new AtomicLong();
+	
+	// the snapshot of the text is only taken again if the text has been edited since, and the results are only valid for the snapshot they were found
+	// in (with the same case sensitivity); note that these are only accessed on the EDT
+	private String text = null;
+	private int textVersion = -1;
+	private final Deque<Result> results = new ArrayDeque<>();
+	
+	// the matches of a query; matches is null if there were too many to keep
+	private static final class Result {
+		
+		private final String query;
+		private final boolean matchCase;
+		private final int textVersion;
+		private final int[] matches;
+		private final int count;
+		
+		private Result(String query, boolean matchCase, int textVersion, int[] matches, int count) {
+			this.query = query;
+			this.matchCase = matchCase;
+			this.textVersion = textVersion;
+			this.matches = matches;
+			this.count = count;
+		}
+	}
+	
+	private IncrementalSearch() {}
+	
+	public static IncrementalSearch getInstance() {
+		if (instance == null) instance = new IncrementalSearch();
+		return instance;
+	}
+	
+	// called on the EDT whenever the text to find has been edited; once the search is done, the number of matches is passed to onCount (on the EDT),
+	// while -1 is passed right away if the text isn't searched at all
+	public void search(String query, IntConsumer onCount) {
+		final long generation = this.generation.incrementAndGet();
+		
+		AppTextArea.getInstance().highlightMatches(null, 0);
+		
+		// read-only mode has no snapshot of the text to search, and searching the whole file on every keystroke would take far too long anyway
+		if (query.isEmpty() || AppTextArea.getInstance().isReadOnly()) {
+			onCount.accept(-1);
+			return;
+		}
+		
+		final boolean matchCase = AppTextArea.getInstance().getFindMatchCase();
+		final boolean down = AppTextArea.getInstance().getFindDown();
+		final boolean wrapAround = AppTextArea.getInstance().getFindWrapAround();
+		final int anchor = AppTextArea.getInstance().getSelectionStart();
+		final int version = AppTextArea.getInstance().getTextVersion();
+		
+		if (version != textVersion) {
+			text = AppTextArea.getInstance().getText();
+			textVersion = version;
+			results.clear();
+		}
+		// drop the results of the queries that aren't a prefix of this one, leaving either the results of this query itself (if characters were only
+		// deleted from the end of it) or those of its longest prefix that has been searched for
+		while (!results.isEmpty() &&
+				(results.peek().matchCase != matchCase || !query.startsWith(results.peek().query) || results.peek().matches == null))
+			results.pop();
+		
+		final Result previous = results.peek();
+		final String text = this.text;
+		
+		// note that the matches of a query that's been searched for already are kept only if there weren't too many of them, in which case finding the
+		// closest one is quick enough to be done on the EDT
+		if (previous != null && previous.query.equals(query)) {
+			select(previous, closest(previous, text, down, wrapAround, anchor));
+			onCount.accept(previous.count);
+			return;
+		}
+		executor.execute(() -> {
+			if (generation != this.generation.get()) return;
+			
+			// note that the whole text is searched in parallel (see the ParallelSearch class) if it's large enough, and that if there are too many
+			// matches to keep, they're still counted
+			final BooleanSupplier cancelled = () -> generation != this.generation.get();
+			final int[] matches = previous == null ?
+					ParallelSearch.findAll(text, query, matchCase, MAX_MATCHES, cancelled) : filter(text, query, matchCase, previous.matches, generation);
+			final int count = matches != null ? matches.length : ParallelSearch.count(text, query, matchCase, cancelled);
+			
+			if (cancelled.getAsBoolean()) return;
+			
+			final Result result = new Result(query, matchCase, version, matches, count);
+			final int start = closest(result, text, down, wrapAround, anchor);
+			
+			SwingUtilities.invokeLater(() -> {
+				if (generation != this.generation.get() || version != AppTextArea.getInstance().getTextVersion()) return;
+				
+				results.push(result);
+				select(result, start);
+				onCount.accept(result.count);
+			});
+		});
+	}
+	
+	// selects the given match and highlights all of the others (if they were kept)
+	private void select(Result result, int start) {
+		if (result.textVersion != AppTextArea.getInstance().getTextVersion()) return;
+		
+		if (start != -1) AppTextArea.getInstance().selectFoundText(start, result.query.length());
+		AppTextArea.getInstance().highlightMatches(result.matches, result.query.length());
+	}
+	
+	// stops any search in progress and removes the highlights, once the pane that started it has been closed
+	public void cancel() {
+		generation.incrementAndGet();
+		AppTextArea.getInstance().highlightMatches(null, 0);
+	}
+	
+	// the same as above, also dropping the snapshot of the text and the kept results, which are only there to make the next search quicker (see the
+	// MemoryGovernor class)
+	public void clear() {
+		cancel();
+		text = null;
+		textVersion = -1;
+		results.clear();
+	}
+	
+	// returns the first match at or after the anchor (or the last one at or before it, if finding upwards), wrapping around if enabled, or -1 if there
+	// isn't one
+	private static int closest(Result result, String text, boolean down, boolean wrapAround, int anchor) {
+		if (result.matches == null) {
+			// there were too many matches to keep, but that also means the closest one is usually a short distance from the anchor
+			final int start = down ? ParallelSearch.indexOf(text, result.query, result.matchCase, anchor, text.length()) :
+					lastIndexOf(text, result.query, result.matchCase, anchor);
+			
+			if (start != -1 || !wrapAround) return start;
+			return down ? ParallelSearch.indexOf(text, result.query, result.matchCase, 0, text.length()) :
+					lastIndexOf(text, result.query, result.matchCase, text.length());
+		}
+		if (result.matches.length == 0) return -1;
+		
+		int index = Arrays.binarySearch(result.matches, anchor);
+		
+		if (index < 0) index = down ? -index - 1 : -index - 2;  // the insertion point is the index of the first match after the anchor
+		if (index < 0 || index >= result.matches.length) {
+			if (!wrapAround) return -1;
+			index = down ? 0 : result.matches.length - 1;
+		}
+		return result.matches[index];
+	}
+	
+	// returns the offsets of the matches of a prefix of the query that are also matches of the query itself
+	private int[] filter(String text, String query, boolean matchCase, int[] previous, long generation) {
+		final int[] matches = new int[previous.length];
+		int count = 0;
+		
+		for (int i = 0; i < previous.length; i++) {
+			if (text.regionMatches(!matchCase, previous[i], query, 0, query.length())) matches[count++] = previous[i];
+			if (i % CANCEL_CHECK_INTERVAL == 0 && generation != this.generation.get()) return null;
+		}
+		return Arrays.copyOf(matches, count);
+	}
+	
+	private static int lastIndexOf(String text, String query, boolean matchCase, int from) {
+		if (matchCase) return text.lastIndexOf(query, from);
+		
+		for (int i = Math.min(from, text.length() - query.length()); i >= 0; i--)
+			if (text.regionMatches(true, i, query, 0, query.length())) return i;
+		
+		return -1;
+	}
+}
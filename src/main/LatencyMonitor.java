@@ -0,0 +1,215 @@
+package main;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.KeyEvent;
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// this class records latency histograms for the interactions that make typing feel laggy: the time from a key event being dispatched to the document
+// being edited, the time spent in the document's edit listener chain (updating the text state, menu items and status bar), the time from an edit to
+// the next paint of the text area, and any event on the event dispatch thread (EDT) that takes longer than a frame (16 ms); the histograms are exposed
+// through JMX (as "main:type=LatencyMonitor") and, optionally, on the status bar
+//
+// the monitor is only enabled when the application is started with -Dlatency.monitor=true; because ENABLED is a static final constant, the checks
+// guarding every hook are eliminated by the JIT compiler when it's disabled, meaning the instrumentation has virtually no overhead in that case
+public final class LatencyMonitor implements LatencyMonitorMXBean {
+	
+	public static final boolean ENABLED = Boolean.getBoolean("latency.monitor");
+	public static final long STALL_THRESHOLD = 16_000_000;  // in nanoseconds
+	
+	private static LatencyMonitor instance;
+	
+	private final Histogram keyToEdit = new Histogram();
+	private final Histogram editListeners = new Histogram();
+	private final Histogram editToPaint = new Histogram();
+	private final Histogram edtStalls = new Histogram();
+	
+	// note that these are only accessed on the EDT, so they don't need to be synchronized
+	private long keyDispatchStart = 0;
+	private long paintPendingSince = 0;
+	
+	private LatencyMonitor() {}
+	
+	public static LatencyMonitor getInstance() {
+		if (instance == null) instance = new LatencyMonitor();
+		return instance;
+	}
+	
+	// replaces the system event queue with one that times every event it dispatches, then registers the monitor with the platform MBean server; this
+	// should be called once, before the frame is created
+	public void install() {
+		Toolkit.getDefaultToolkit().getSystemEventQueue().push(new EventQueue() {
+			@Override
+			protected void dispatchEvent(AWTEvent event) {
+				final long start = System.nanoTime();
+				final boolean keyEvent = event.getID() == KeyEvent.KEY_PRESSED || event.getID() == KeyEvent.KEY_TYPED;
+				
+				if (keyEvent) keyDispatchStart = start;
+				
+				try {
+					super.dispatchEvent(event);
+				}
+				finally {
+					final long elapsed = System.nanoTime() - start;
+					
+					if (keyEvent) keyDispatchStart = 0;
+					if (elapsed > STALL_THRESHOLD) edtStalls.record(elapsed);
+				}
+			}
+		});
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("main:type=LatencyMonitor"));
+		}
+		catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	// called at the end of the document's edit listener chain with the time the chain started at
+	public void editHandled(long start) {
+		final long now = System.nanoTime();
+		
+		if (keyDispatchStart != 0) keyToEdit.record(start - keyDispatchStart);
+		if (paintPendingSince == 0) paintPendingSince = start;
+		
+		editListeners.record(now - start);
+	}
+	
+	// called after the text area has been painted; only the first paint after an edit is recorded
+	public void painted() {
+		if (paintPendingSince != 0) {
+			editToPaint.record(System.nanoTime() - paintPendingSince);
+			paintPendingSince = 0;
+		}
+	}
+	
+	@Override
+	public Snapshot getKeyToEdit() {
+		return keyToEdit.snapshot();
+	}
+	
+	@Override
+	public Snapshot getEditListeners() {
+		return editListeners.snapshot();
+	}
+	
+	@Override
+	public Snapshot getEditToPaint() {
+		return editToPaint.snapshot();
+	}
+	
+	@Override
+	public Snapshot getEdtStalls() {
+		return edtStalls.snapshot();
+	}
+	
+	@Override
+	public void reset() {
+		keyToEdit.reset();
+		editListeners.reset();
+		editToPaint.reset();
+		edtStalls.reset();
+	}
+	
+	// a histogram of durations (in nanoseconds) with logarithmic buckets, each power of 2 being split into 8 linear sub-buckets; this keeps the memory
+	// used constant regardless of the number of values recorded, while keeping the error of any percentile within 12.5%
+	public static final class Histogram {
+		
+		private static final int SUB_BUCKETS = 8;
+		
+		private final long[] counts = new long[64 * SUB_BUCKETS];
+		private long total, max;
+		
+		public synchronized void record(long value) {
+			if (value < 0) return;
+			
+			counts[indexOf(value)]++;
+			total++;
+			max = Math.max(max, value);
+		}
+		
+		public synchronized long getCount() {
+			return total;
+		}
+		
+		public synchronized long getMax() {
+			return max;
+		}
+		
+		// returns the (lower bound of the) value below which the given percentage of the recorded values fall, or 0 if nothing was recorded
+		public synchronized long getPercentile(double percentile) {
+			final long rank = (long) Math.ceil(total * percentile / 100.0);
+			long count = 0;
+			
+			for (int i = 0; i < counts.length; i++) {
+				count += counts[i];
+				if (count >= rank && count > 0) return Math.min(valueOf(i), max);
+			}
+			return 0;
+		}
+		
+		public synchronized void reset() {
+			Arrays.fill(counts, 0);
+			total = max = 0;
+		}
+		
+		public Snapshot snapshot() {
+			return new Snapshot(getCount(), getPercentile(50) / 1000, getPercentile(99) / 1000, getMax() / 1000);
+		}
+		
+		// values below 8 get their own bucket; otherwise, the bucket is determined by the position of the highest set bit (the power of 2) and the 3
+		// bits after it (the sub-bucket)
+		private static int indexOf(long value) {
+			if (value < SUB_BUCKETS) return (int) value;
+			
+			final int exponent = 63 - Long.numberOfLeadingZeros(value);
+			final int subBucket = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+			
+			return (exponent - 2) * SUB_BUCKETS + subBucket;
+		}
+		
+		private static long valueOf(int index) {
+			if (index < SUB_BUCKETS) return index;
+			
+			final int exponent = index / SUB_BUCKETS + 2;
+			return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - 3);
+		}
+	}
+	
+	// an immutable summary of a histogram, in microseconds; JMX maps this to CompositeData using its getters, and the annotated constructor allows JMX
+	// clients to map it back
+	public static final class Snapshot {
+		
+		private final long count, p50, p99, max;
+		
+		@ConstructorProperties({ "count", "p50Micros", "p99Micros", "maxMicros" })
+		public Snapshot(long count, long p50, long p99, long max) {
+			this.count = count;
+			this.p50 = p50;
+			this.p99 = p99;
+			this.max = max;
+		}
+		
+		public long getCount() {
+			return count;
+		}
+		
+		public long getP50Micros() {
+			return p50;
+		}
+		
+		public long getP99Micros() {
+			return p99;
+		}
+		
+		public long getMaxMicros() {
+			return max;
+		}
+	}
+}
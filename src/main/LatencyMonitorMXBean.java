@@ -0,0 +1,13 @@
+package main;
+
+import main.LatencyMonitor.Snapshot;
+
+// the attributes of an MXBean are defined by the getters of its interface; note that the interface must be public for the MBean server to be able to
+// introspect it, and its name must end with "MXBean"
+public interface LatencyMonitorMXBean {
+	Snapshot getKeyToEdit();
+	Snapshot getEditListeners();
+	Snapshot getEditToPaint();
+	Snapshot getEdtStalls();
+	void reset();
+}
@@ -0,0 +1,498 @@
+package main;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+// this class finds the lines that differ between two texts (ex. the text area's text and its last saved version, or two files) on a background thread,
+// and lines them up side by side as rows, where equal lines share a row and every change (a run of removed and added lines) takes up as many rows as
+// the longer side of it, with the other side left blank
+//
+// every distinct line is given a number first (by hashing it, without copying it out of its text), so that lines are compared as ints from then on;
+// lines that only occur on one side are changed no matter what, so they're set aside before the diff is even started, which leaves a lot less to
+// compare in texts that are mostly rewritten or reordered; what's left is compared with Myers' algorithm, in the linear space variant that finds the
+// middle of the shortest edit script (searching from both ends at once) and recurses on each half of it, so that only two arrays of diagonals are ever
+// needed, rather than one for every edit
+//
+// like GNU diff, the search for the middle gives up once it has taken too many edits (in which case the furthest point reached is used instead), which
+// may make the diff a bit longer than the shortest one, but keeps two texts that have very little in common from taking quadratic time
+//
+// note that a text that ends with a line feed doesn't have an empty last line, the same as for the line operations (see the LineOperation class)
+public final class LineDiff {
+	
+	public static final int LEFT = 0, RIGHT = 1;
+	
+	// the most edits the search for the middle of a part takes before it gives up on it (see "split")
+	private static final int MIN_COST_LIMIT = 256, MAX_COST_LIMIT = 4096;
+	private static final double COST_BUDGET = 1L << 36;
+	
+	private final List<Callable<String>> sources;
+	private final Consumer<LineDiff> onComplete;
+	private volatile boolean stopped = false;
+	
+	private final Lines[] lines = new Lines[2];
+	private final boolean[][] changed = new boolean[2][];
+	private int[][] rows;            // the line shown on each side of each row, or -1 for none
+	private int rowCount = 0;
+	private int[] changeRows;        // the first row of each change
+	private int changeCount = 0;
+	private final int[] changedLineCounts = new int[2];
+	private String error = null;
+	
+	// the state of the diff itself, which is only needed while it runs
+	private int[] xv, yv;            // the numbers of the lines that are left to compare on each side
+	private boolean[] xChanged, yChanged;
+	private int[] forward, backward;  // the furthest point reached on each diagonal, from either end
+	private int offset;              // of diagonal 0 in those arrays, since diagonals can be negative
+	private int costLimit;
+	private int xmid, ymid;          // where "split" found the middle
+	
+	// the lines of a text, found by the offset where each of them starts
+	private static final class Lines {
+		
+		private final String text;
+		private final int[] starts;  // has one more element than there are lines, which is the end of the last line plus one
+		private final int count;
+		
+		private Lines(String text) {
+			int count = 0;
+			
+			for (int i = text.indexOf('\n'); i != -1; i = text.indexOf('\n', i + 1)) count++;
+			if (!text.isEmpty() && text.charAt(text.length() - 1) != '\n') count++;
+			
+			this.text = text;
+			this.count = count;
+			starts = new int[count + 1];
+			
+			for (int i = 1, start = 0; i <= count; i++) {
+				final int end = text.indexOf('\n', start);
+				starts[i] = start = end == -1 ? text.length() + 1 : end + 1;
+			}
+		}
+		
+		private int start(int line) {
+			return starts[line];
+		}
+		
+		private int length(int line) {
+			return starts[line + 1] - starts[line] - 1;
+		}
+		
+		private int hash(int line) {
+			int hash = 0;
+			
+			for (int i = starts[line], end = i + length(line); i < end; i++) hash = 31 * hash + text.charAt(i);
+			return hash;
+		}
+	}
+	
+	// the texts are read on the background thread as well, since reading them from files may take a while; onComplete is called on that thread (with
+	// this instance) once the diff is done, or once it has failed, unless it has been stopped
+	public LineDiff(Callable<String> left, Callable<String> right, Consumer<LineDiff> onComplete) {
+		sources = List.of(left, right);
+		this.onComplete = onComplete;
+	}
+	
+	// returns a source for the text of a file, decoded the same way as it is when it's opened (including decompressing it if it's compressed); note
+	// that only \r\n is normalized, as when a file is loaded (see the FileManager class), so that a file compared with itself has no differences
+	public static Callable<String> ofFile(Path path) {
+		return () -> {
+			final byte[] content;
+			
+			if (CompressedFile.isCompressed(path)) {
+				try (InputStream input = new GZIPInputStream(Files.newInputStream(path))) {
+					content = input.readAllBytes();
+				}
+			}
+			else content = Files.readAllBytes(path);
+			
+			return new String(content, StandardCharsets.UTF_8).replace("\r\n", "\n");
+		};
+	}
+	
+	public void start() {
+		final Thread thread = new Thread(this::run, "Diff");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	public void stop() {
+		stopped = true;
+	}
+	
+	// returns why the texts couldn't be compared (ex. a file that couldn't be read), or null if they were
+	public String getError() {
+		return error;
+	}
+	
+	public int getRowCount() {
+		return rowCount;
+	}
+	
+	// returns the line shown on the given side of a row, or -1 if that side is blank
+	public int getLine(int side, int row) {
+		return rows[side][row];
+	}
+	
+	public String getLineText(int side, int line) {
+		final Lines lines = this.lines[side];
+		return lines.text.substring(lines.start(line), lines.start(line) + lines.length(line));
+	}
+	
+	public int getLineCount(int side) {
+		return lines[side].count;
+	}
+	
+	public boolean isChanged(int side, int line) {
+		return changed[side][line];
+	}
+	
+	// returns the number of lines that were removed (on the left) or added (on the right)
+	public int getChangedLineCount(int side) {
+		return changedLineCounts[side];
+	}
+	
+	public int getChangeCount() {
+		return changeCount;
+	}
+	
+	public int getChangeRow(int change) {
+		return changeRows[change];
+	}
+	
+	// returns the first change after the given row, or -1 if there is none
+	public int getNextChange(int row) {
+		final int index = Arrays.binarySearch(changeRows, 0, changeCount, row + 1);
+		final int next = index >= 0 ? index : -index - 1;
+		
+		return next < changeCount ? next : -1;
+	}
+	
+	// returns the last change before the given row, or -1 if there is none
+	public int getPreviousChange(int row) {
+		final int index = Arrays.binarySearch(changeRows, 0, changeCount, row - 1);
+		return index >= 0 ? index : -index - 2;
+	}
+	
+	private void run() {
+		try {
+			for (int i = 0; i < 2; i++) {
+				lines[i] = new Lines(sources.get(i).call());
+				changed[i] = new boolean[lines[i].count];
+			}
+			diff();
+			align();
+		}
+		catch (CancellationException e) {
+			return;
+		}
+		catch (Exception e) {
+			if (stopped) return;
+			
+			e.printStackTrace();
+			error = e.getMessage() != null ? e.getMessage() : e.toString();
+		}
+		finally {
+			xv = yv = forward = backward = null;
+			xChanged = yChanged = null;
+		}
+		if (!stopped) onComplete.accept(this);
+	}
+	
+	private void diff() {
+		final int[][] numbers = numberLines();
+		final int distinct = Math.max(max(numbers[LEFT]), max(numbers[RIGHT])) + 1;
+		final int[][] counts = new int[2][distinct];
+		final int[][] indexes = new int[2][];
+		
+		for (int side = 0; side < 2; side++)
+			for (int number : numbers[side]) counts[side][number]++;
+		
+		// set aside the lines that only occur on one side, keeping the index of every line that's left
+		for (int side = 0; side < 2; side++) {
+			final int[] sideNumbers = numbers[side], otherCounts = counts[1 - side];
+			int kept = 0;
+			
+			for (int i = 0; i < sideNumbers.length; i++) {
+				if (otherCounts[sideNumbers[i]] == 0) changed[side][i] = true;
+				else kept++;
+			}
+			indexes[side] = new int[kept];
+			
+			for (int i = 0, j = 0; i < sideNumbers.length; i++)
+				if (!changed[side][i]) {
+					indexes[side][j] = i;
+					sideNumbers[j++] = sideNumbers[i];
+				}
+			
+			numbers[side] = Arrays.copyOf(sideNumbers, kept);
+		}
+		xv = numbers[LEFT];
+		yv = numbers[RIGHT];
+		xChanged = new boolean[xv.length];
+		yChanged = new boolean[yv.length];
+		
+		final int diagonals = xv.length + yv.length + 3;
+		forward = new int[diagonals];
+		backward = new int[diagonals];
+		offset = yv.length + 1;
+		
+		// every part that's given up on costs about the square of the limit, so the limit is lowered for larger texts (which have more parts to give up
+		// on), down to a minimum that still finds the shortest edit script for all but very different texts
+		costLimit = (int) Math.max(MIN_COST_LIMIT, Math.min(MAX_COST_LIMIT, Math.sqrt(COST_BUDGET / diagonals)));
+		
+		compare();
+		
+		for (int i = 0; i < xv.length; i++) changed[LEFT][indexes[LEFT][i]] = xChanged[i];
+		for (int i = 0; i < yv.length; i++) changed[RIGHT][indexes[RIGHT][i]] = yChanged[i];
+	}
+	
+	private static int max(int[] values) {
+		int max = -1;
+		
+		for (int value : values) max = Math.max(max, value);
+		return max;
+	}
+	
+	// numbers the lines of both sides, so that equal lines have the same number; the lines are hashed into an open addressing table of the first line
+	// with each number, where lines with the same hash are then compared in place
+	private int[][] numberLines() {
+		final int total = lines[LEFT].count + lines[RIGHT].count;
+		final int mask = Integer.highestOneBit(Math.max(total, 1) * 2) * 2 - 1;
+		final int[] table = new int[mask + 1];  // the number of the line plus one, or 0 for an empty slot
+		final int[] hashes = new int[total];
+		final int[] firstSides = new int[total], firstLines = new int[total];  // of each number
+		final int[][] numbers = { new int[lines[LEFT].count], new int[lines[RIGHT].count] };
+		int distinct = 0;
+		
+		for (int side = 0; side < 2; side++) {
+			final Lines sideLines = lines[side];
+			
+			for (int line = 0; line < sideLines.count; line++) {
+				if ((line & 0xffff) == 0 && stopped) throw new CancellationException();
+				
+				final int hash = sideLines.hash(line);
+				int slot = (hash ^ (hash >>> 16)) & mask;
+				
+				for (;; slot = (slot + 1) & mask) {
+					final int number = table[slot] - 1;
+					
+					if (number == -1) {
+						table[slot] = distinct + 1;
+						hashes[distinct] = hash;
+						firstSides[distinct] = side;
+						firstLines[distinct] = line;
+						numbers[side][line] = distinct++;
+						break;
+					}
+					if (hashes[number] == hash && equal(sideLines, line, lines[firstSides[number]], firstLines[number])) {
+						numbers[side][line] = number;
+						break;
+					}
+				}
+			}
+		}
+		return numbers;
+	}
+	
+	private static boolean equal(Lines lines, int line, Lines otherLines, int otherLine) {
+		return lines.length(line) == otherLines.length(otherLine) &&
+				lines.text.regionMatches(lines.start(line), otherLines.text, otherLines.start(otherLine), lines.length(line));
+	}
+	
+	// compares the lines left to compare, splitting them at the middle of their edit script until every part is either empty on one side or the same
+	// on both; the parts are kept on a stack rather than recursed into, since giving up on the middle can make the splits lopsided (and deep)
+	private void compare() {
+		int[] stack = new int[64];
+		int size = 0;
+		
+		stack[size++] = 0;
+		stack[size++] = xv.length;
+		stack[size++] = 0;
+		stack[size++] = yv.length;
+		
+		while (size > 0) {
+			int ylim = stack[--size], yoff = stack[--size], xlim = stack[--size], xoff = stack[--size];
+			
+			// skip the lines that are the same at both ends
+			while (xoff < xlim && yoff < ylim && xv[xoff] == yv[yoff]) {
+				xoff++;
+				yoff++;
+			}
+			while (xoff < xlim && yoff < ylim && xv[xlim - 1] == yv[ylim - 1]) {
+				xlim--;
+				ylim--;
+			}
+			if (xoff == xlim) Arrays.fill(yChanged, yoff, ylim, true);
+			else if (yoff == ylim) Arrays.fill(xChanged, xoff, xlim, true);
+			else {
+				split(xoff, xlim, yoff, ylim);
+				
+				// giving up on the middle always makes some progress, but if it somehow didn't, the part is left as one change
+				if ((xmid == xoff && ymid == yoff) || (xmid == xlim && ymid == ylim)) {
+					Arrays.fill(xChanged, xoff, xlim, true);
+					Arrays.fill(yChanged, yoff, ylim, true);
+					continue;
+				}
+				if (size + 8 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+				
+				// the second half is pushed first, so that the parts are compared in order
+				stack[size++] = xmid;
+				stack[size++] = xlim;
+				stack[size++] = ymid;
+				stack[size++] = ylim;
+				stack[size++] = xoff;
+				stack[size++] = xmid;
+				stack[size++] = yoff;
+				stack[size++] = ymid;
+			}
+		}
+	}
+	
+	// finds the middle of the shortest edit script between the given parts of both sides, by following the furthest reaching paths of each cost from
+	// the start and the end at once, until they overlap on a diagonal (ie. Myers' middle snake, the same way as GNU diff's "diag" function does)
+	private void split(int xoff, int xlim, int yoff, int ylim) {
+		final int[] fd = forward, bd = backward, xv = this.xv, yv = this.yv;
+		final int o = offset;
+		final int dmin = xoff - ylim, dmax = xlim - yoff;
+		final int fmid = xoff - yoff, bmid = xlim - ylim;
+		final boolean odd = ((fmid - bmid) & 1) != 0;
+		int fmin = fmid, fmax = fmid, bmin = bmid, bmax = bmid;
+		
+		fd[o + fmid] = xoff;
+		bd[o + bmid] = xlim;
+		
+		for (int cost = 1;; cost++) {
+			if (stopped) throw new CancellationException();
+			
+			// extend the forward paths by one edit each
+			if (fmin > dmin) fd[o + --fmin - 1] = -1;
+			else fmin++;
+			if (fmax < dmax) fd[o + ++fmax + 1] = -1;
+			else fmax--;
+			
+			for (int d = fmax; d >= fmin; d -= 2) {
+				final int low = fd[o + d - 1], high = fd[o + d + 1];
+				int x = low < high ? high : low + 1, y = x - d;
+				
+				while (x < xlim && y < ylim && xv[x] == yv[y]) {
+					x++;
+					y++;
+				}
+				fd[o + d] = x;
+				
+				if (odd && bmin <= d && d <= bmax && bd[o + d] <= x) {
+					xmid = x;
+					ymid = y;
+					return;
+				}
+			}
+			// then the backward paths
+			if (bmin > dmin) bd[o + --bmin - 1] = Integer.MAX_VALUE;
+			else bmin++;
+			if (bmax < dmax) bd[o + ++bmax + 1] = Integer.MAX_VALUE;
+			else bmax--;
+			
+			for (int d = bmax; d >= bmin; d -= 2) {
+				final int low = bd[o + d - 1], high = bd[o + d + 1];
+				int x = low < high ? low : high - 1, y = x - d;
+				
+				while (x > xoff && y > yoff && xv[x - 1] == yv[y - 1]) {
+					x--;
+					y--;
+				}
+				bd[o + d] = x;
+				
+				if (!odd && fmin <= d && d <= fmax && x <= fd[o + d]) {
+					xmid = x;
+					ymid = y;
+					return;
+				}
+			}
+			if (cost >= costLimit) {
+				giveUp(xoff, xlim, yoff, ylim, fmin, fmax, bmin, bmax);
+				return;
+			}
+		}
+	}
+	
+	// uses whichever of the forward and backward paths got the furthest from its end as the middle
+	private void giveUp(int xoff, int xlim, int yoff, int ylim, int fmin, int fmax, int bmin, int bmax) {
+		final int o = offset;
+		int forwardBest = -1, forwardX = 0, backwardBest = Integer.MAX_VALUE, backwardX = 0;
+		
+		for (int d = fmax; d >= fmin; d -= 2) {
+			int x = Math.min(forward[o + d], xlim), y = x - d;
+			
+			if (y > ylim) {
+				x = ylim + d;
+				y = ylim;
+			}
+			if (x + y > forwardBest) {
+				forwardBest = x + y;
+				forwardX = x;
+			}
+		}
+		for (int d = bmax; d >= bmin; d -= 2) {
+			int x = Math.max(xoff, backward[o + d]), y = x - d;
+			
+			if (y < yoff) {
+				x = yoff + d;
+				y = yoff;
+			}
+			if (x + y < backwardBest) {
+				backwardBest = x + y;
+				backwardX = x;
+			}
+		}
+		if ((xlim + ylim) - backwardBest < forwardBest - (xoff + yoff)) {
+			xmid = forwardX;
+			ymid = forwardBest - forwardX;
+		}
+		else {
+			xmid = backwardX;
+			ymid = backwardBest - backwardX;
+		}
+	}
+	
+	// lines up the lines of both sides as rows; the unchanged lines of both sides are the same lines in the same order, so they always pair up
+	private void align() {
+		final int leftCount = lines[LEFT].count, rightCount = lines[RIGHT].count;
+		final boolean[] leftChanged = changed[LEFT], rightChanged = changed[RIGHT];
+		int[] left = new int[leftCount + rightCount], right = new int[leftCount + rightCount];
+		changeRows = new int[16];
+		
+		for (int i = 0, j = 0; i < leftCount || j < rightCount;) {
+			if (i < leftCount && j < rightCount && !leftChanged[i] && !rightChanged[j]) {
+				left[rowCount] = i++;
+				right[rowCount++] = j++;
+				continue;
+			}
+			int removed = 0, added = 0;
+			
+			while (i + removed < leftCount && leftChanged[i + removed]) removed++;
+			while (j + added < rightCount && rightChanged[j + added]) added++;
+			
+			if (changeCount == changeRows.length) changeRows = Arrays.copyOf(changeRows, changeCount * 2);
+			changeRows[changeCount++] = rowCount;
+			
+			for (int k = 0; k < Math.max(removed, added); k++) {
+				left[rowCount] = k < removed ? i + k : -1;
+				right[rowCount++] = k < added ? j + k : -1;
+			}
+			i += removed;
+			j += added;
+			changedLineCounts[LEFT] += removed;
+			changedLineCounts[RIGHT] += added;
+		}
+		rows = new int[][] { left, right };
+	}
+}
@@ -0,0 +1,417 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+// this class sorts the lines of a text, removes its duplicate lines (keeping the first occurrence of each, in their original order) or keeps or removes
+// the lines that match a pattern, on a background thread; the text is either a snapshot of (part of) the text area's text, whose result is returned as
+// a string, or a file opened in read-only mode, whose result is written to another file, a line at a time, without the file ever being held in memory
+//
+// the lines being sorted (or deduped) are held in memory as long as they fit in the memory budget (a share of the heap that's free when the operation
+// is started), and sorted with a parallel sort; otherwise, every budget's worth of them is sorted on its own and spilled to a temporary file (a run),
+// and the runs are then merged, a line at a time, which is an external merge sort; duplicates are removed by sorting the lines (along with their line
+// numbers), dropping all but the first of every run of equal lines, then sorting what's left by line number again (which, in memory, is done with a
+// hash set instead)
+//
+// note that a text that ends with a line feed keeps it, rather than its last line being considered empty
+final class LineOperation {
+	
+	static final int SORT = 0, UNIQUE = 1, KEEP_MATCHING = 2, REMOVE_MATCHING = 3;
+	
+	private static final int CHUNK_SIZE = 1 << 22;    // the number of bytes of a file decoded at a time
+	private static final int LINE_OVERHEAD = 96;      // the approximate number of bytes a line takes up in memory, besides its characters
+	private static final int BUFFER_SIZE = 1 << 16;  // of each run being written or merged
+	
+	// the memory budget can be changed with -Dlines.memory=<bytes>
+	private static final String MEMORY_PROPERTY = "lines.memory";
+	
+	private static final Comparator<Line> BY_TEXT = Comparator.<Line, String>comparing(line -> line.text).thenComparingLong(line -> line.number);
+	private static final Comparator<Line> BY_NUMBER = Comparator.comparingLong(line -> line.number);
+	
+	private final int operation;
+	private final Pattern pattern;  // for keeping or removing the matching lines
+	private final Runnable onProgress;
+	private final Consumer<LineOperation> onComplete;
+	private final long memoryBudget;
+	private volatile boolean stopped = false;
+	
+	private String text;            // the text whose lines are read (or null for a file)
+	private PagedFile file;
+	private Path target;            // the file the result is written to (for a file)
+	private volatile int progress = 0;
+	private volatile String result = null;
+	private volatile String error = null;
+	private boolean lineFeed = false;  // whether the text ends with a line feed
+	private final List<Path> runs = new CopyOnWriteArrayList<>();  // the runs that haven't been merged yet (which "stop" deletes from the EDT)
+	
+	// both callbacks are called on the background thread: onProgress whenever another part of the lines has been read, and onComplete (with this
+	// instance) once the result is ready or the operation has failed (see "getError"), unless it has been stopped first
+	LineOperation(int operation, Pattern pattern, Runnable onProgress, Consumer<LineOperation> onComplete) {
+		this.operation = operation;
+		this.pattern = pattern;
+		this.onProgress = onProgress;
+		this.onComplete = onComplete;
+		
+		final Runtime runtime = Runtime.getRuntime();
+		memoryBudget = Long.getLong(MEMORY_PROPERTY, (runtime.maxMemory() - runtime.totalMemory() + runtime.freeMemory()) / 4);
+	}
+	
+	// starts transforming the lines of the given text, whose result is then returned by "getResult"
+	void start(String text) {
+		this.text = text;
+		start();
+	}
+	
+	// starts transforming the lines of the given file, writing the result to the target file (compressed, if it has a compressed extension)
+	void start(PagedFile file, Path target) {
+		this.file = file;
+		this.target = target;
+		start();
+	}
+	
+	private void start() {
+		final Thread thread = new Thread(this::run, "Line Operation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	// stops the operation, and deletes its temporary files (including a partly written target file); note that the files may still be in use by the
+	// background thread, which deletes them once it's done otherwise
+	void stop() {
+		stopped = true;
+		deleteRuns();
+	}
+	
+	// returns the percentage of the lines that have been read (note that sorting a large file takes a while longer, since its runs are merged after)
+	int getProgress() {
+		return progress;
+	}
+	
+	// returns the transformed text once the operation is complete (for a text, rather than a file)
+	String getResult() {
+		return result;
+	}
+	
+	// returns why the operation failed (ex. the disk is full, or a run can't be read back), or null if it didn't
+	String getError() {
+		return error;
+	}
+	
+	Path getTarget() {
+		return target;
+	}
+	
+	int getOperation() {
+		return operation;
+	}
+	
+	private void run() {
+		final StringBuilder builder = text == null ? null : new StringBuilder(text.length());
+		
+		try (Writer writer = text == null ? openTarget() : null) {
+			final LineWriter output = new LineWriter(builder != null ? builder : writer);
+			
+			if (operation == KEEP_MATCHING || operation == REMOVE_MATCHING) filter(output);
+			else sort(output);
+			
+			output.finish(lineFeed);
+			if (builder != null) result = builder.toString();
+		}
+		// whatever goes wrong (including running out of memory while a run is being sorted), the caller is called back with the error, since it has
+		// made the text area read-only until the operation is complete
+		catch (IOException | RuntimeException | OutOfMemoryError e) {
+			if (!stopped) {
+				e.printStackTrace();
+				error = e.getMessage() != null ? e.getMessage() : e.toString();
+			}
+		}
+		finally {
+			deleteRuns();
+		}
+		if (target != null && (stopped || error != null)) delete(target);
+		if (!stopped) onComplete.accept(this);
+	}
+	
+	private Writer openTarget() throws IOException {
+		OutputStream output = Files.newOutputStream(target);
+		if (CompressedFile.hasCompressedExtension(target.getFileName().toString())) output = new GZIPOutputStream(output, BUFFER_SIZE);
+		
+		return new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+	
+	private void filter(LineWriter output) throws IOException {
+		final Matcher matcher = pattern.matcher("");
+		final boolean keep = operation == KEEP_MATCHING;
+		
+		readLines(line -> {
+			if (matcher.reset(line).find() == keep) output.write(line);
+		});
+	}
+	
+	// the lines are collected (with their line numbers) until they'd take up more than the memory budget, at which point they're sorted and spilled
+	// to a run; when deduping, every line that's already been collected is left out, so only the distinct lines count towards the budget
+	private void sort(LineWriter output) throws IOException {
+		final boolean unique = operation == UNIQUE;
+		final List<Line> lines = new ArrayList<>();
+		final Set<String> distinct = unique ? new HashSet<>() : null;
+		final long[] size = { 0 };
+		final long[] number = { 0 };
+		
+		readLines(text -> {
+			if (unique && !distinct.add(text)) {
+				number[0]++;
+				return;
+			}
+			lines.add(new Line(text, number[0]++));
+			size[0] += 2L * text.length() + LINE_OVERHEAD;
+			
+			if (size[0] > memoryBudget) {
+				spill(lines, BY_TEXT);
+				if (unique) distinct.clear();
+				size[0] = 0;
+			}
+		});
+		// if the lines all fit in memory, the duplicates have already been left out
+		if (!unique || runs.isEmpty()) {
+			write(lines, unique ? BY_NUMBER : BY_TEXT, output);
+			return;
+		}
+		// otherwise, the same line may still be in several runs, so only the first of them (the one with the lowest line number) is kept while merging,
+		// and the lines that are kept are then sorted back into their original order, spilling them the same way as above
+		final String[] previous = { null };
+		
+		spill(lines, BY_TEXT);
+		size[0] = 0;
+		
+		merge(new ArrayList<>(runs), BY_TEXT, line -> {
+			if (line.text.equals(previous[0])) return;
+			
+			previous[0] = line.text;
+			lines.add(line);
+			size[0] += 2L * line.text.length() + LINE_OVERHEAD;
+			
+			if (size[0] > memoryBudget) {
+				spill(lines, BY_NUMBER);
+				size[0] = 0;
+			}
+		});
+		write(lines, BY_NUMBER, output);
+	}
+	
+	// writes the given lines in the given order, merged with the runs that have been spilled (in the same order) so far, if there are any
+	private void write(List<Line> lines, Comparator<Line> order, LineWriter output) throws IOException {
+		if (runs.isEmpty()) {
+			final Line[] sorted = lines.toArray(new Line[0]);
+			Arrays.parallelSort(sorted, order);
+			
+			for (Line line : sorted) output.write(line.text);
+			return;
+		}
+		if (!lines.isEmpty()) spill(lines, order);
+		merge(new ArrayList<>(runs), order, line -> output.write(line.text));
+	}
+	
+	// sorts the given lines and writes them to a new run, then clears them
+	private void spill(List<Line> lines, Comparator<Line> order) throws IOException {
+		final Line[] sorted = lines.toArray(new Line[0]);
+		final Path run = Files.createTempFile("text-editor-", ".run");
+		
+		lines.clear();
+		run.toFile().deleteOnExit();
+		runs.add(run);
+		Arrays.parallelSort(sorted, order);
+		
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+			for (Line line : sorted) {
+				if (stopped) throw new IOException("Stopped");
+				
+				final byte[] bytes = line.text.getBytes(StandardCharsets.UTF_8);
+				
+				output.writeInt(bytes.length);
+				output.writeLong(line.number);
+				output.write(bytes);
+			}
+			output.writeInt(-1);
+		}
+	}
+	
+	// merges the given runs (each of which is sorted in the given order) a line at a time, always taking the smallest of the lines at the head of
+	// each run, which is kept track of in a priority queue; the runs are deleted once they've been merged
+	private void merge(List<Path> runs, Comparator<Line> order, LineConsumer<Line> consumer) throws IOException {
+		final PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size(), (a, b) -> order.compare(a.line, b.line));
+		
+		try {
+			for (Path run : runs) {
+				final RunReader reader = new RunReader(run);
+				
+				if (reader.next()) queue.add(reader);
+				else reader.close();
+			}
+			while (!queue.isEmpty()) {
+				if (stopped) throw new IOException("Stopped");
+				
+				final RunReader reader = queue.poll();
+				consumer.accept(reader.line);
+				
+				if (reader.next()) queue.add(reader);
+				else reader.close();
+			}
+		}
+		finally {
+			for (RunReader reader : queue)
+				reader.close();
+		}
+		for (Path run : runs) {
+			this.runs.remove(run);
+			delete(run);
+		}
+	}
+	
+	// reads the lines of the text (or file), a chunk at a time for a file; a line may span several chunks, so whatever's after the last line feed of a
+	// chunk is carried over to the next one
+	private void readLines(LineConsumer<String> consumer) throws IOException {
+		if (text != null) {
+			lineFeed = text.endsWith("\n");
+			splitLines(text, consumer, true);
+			progress = 100;
+			onProgress.run();
+			return;
+		}
+		final long size = file.getSize();
+		String carried = "";
+		
+		for (long start = 0; start < size;) {
+			if (stopped) throw new IOException("Stopped");
+			
+			long end = file.toCharBoundary(Math.min(size, start + CHUNK_SIZE));
+			if (end <= start) end = size;
+			
+			final String chunk = carried + file.decode(start, end);
+			
+			carried = chunk.substring(splitLines(chunk, consumer, false));
+			lineFeed = chunk.endsWith("\n");
+			start = end;
+			
+			if (start * 100 / size > progress) {
+				progress = (int) (start * 100 / size);
+				onProgress.run();
+			}
+		}
+		if (!carried.isEmpty()) consumer.accept(carried);
+	}
+	
+	// passes each line of the given text to the consumer, including the text after the last line feed (if it's not empty) if "all" is true, and returns
+	// the offset after the last line feed
+	private int splitLines(String text, LineConsumer<String> consumer, boolean all) throws IOException {
+		int start = 0;
+		
+		for (int end; (end = text.indexOf('\n', start)) != -1; start = end + 1) {
+			if (stopped) throw new IOException("Stopped");
+			consumer.accept(text.substring(start, end));
+		}
+		if (all && start < text.length()) consumer.accept(text.substring(start));
+		return start;
+	}
+	
+	private void deleteRuns() {
+		for (Path run : runs)
+			delete(run);
+	}
+	
+	private static void delete(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		}
+		catch (IOException e) {
+			path.toFile().deleteOnExit();
+		}
+	}
+	
+	private interface LineConsumer<T> {
+		void accept(T line) throws IOException;
+	}
+	
+	// a line along with its line number (counted from 0), which the lines are sorted by after removing duplicates, and which keeps a sort stable
+	private static final class Line {
+		
+		private final String text;
+		private final long number;
+		
+		private Line(String text, long number) {
+			this.text = text;
+			this.number = number;
+		}
+	}
+	
+	// writes the lines of the result, separated by line feeds, and followed by one if the text was
+	private static final class LineWriter {
+		
+		private final Appendable output;
+		private boolean empty = true;
+		
+		private LineWriter(Appendable output) {
+			this.output = output;
+		}
+		
+		private void write(String line) throws IOException {
+			if (!empty) output.append('\n');
+			output.append(line);
+			empty = false;
+		}
+		
+		private void finish(boolean lineFeed) throws IOException {
+			if (lineFeed && !empty) output.append('\n');
+		}
+	}
+	
+	// reads the lines of a run one at a time, in the format they were written in by "spill" (the length of the line's text in bytes, or -1 after the
+	// last line, then its line number and text)
+	private static final class RunReader {
+		
+		private final DataInputStream input;
+		private Line line;
+		
+		private RunReader(Path run) throws IOException {
+			input = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), BUFFER_SIZE));
+		}
+		
+		private boolean next() throws IOException {
+			final int length = input.readInt();
+			
+			if (length == -1) return false;
+			
+			final long number = input.readLong();
+			final byte[] bytes = new byte[length];
+			
+			input.readFully(bytes);
+			line = new Line(new String(bytes, StandardCharsets.UTF_8), number);
+			return true;
+		}
+		
+		private void close() throws IOException {
+			input.close();
+		}
+	}
+}
@@ -2,12 +2,14 @@ package main;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.GraphicsEnvironment;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.lang.management.ManagementFactory;
 
 import javax.swing.AbstractAction;
 import javax.swing.JComponent;
@@ -22,10 +24,14 @@ import main.panes.Pane;
 @SuppressWarnings("serial")
 public class Main extends JFrame {
 	
-	public static final int SHORTCUT_KEY = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+	// note that the toolkit can't report the menu shortcut key when running headless (ex. in the benchmarks), in which case Ctrl is used instead
+	public static final int SHORTCUT_KEY = GraphicsEnvironment.isHeadless() ? InputEvent.CTRL_DOWN_MASK : Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
 	public static final boolean ON_MAC = System.getProperty("os.name").toLowerCase().contains("mac");
 	public static Pane activePane = null;
 	
+	// the time taken to start up is only reported (to standard error) when the application is started with -Dstartup.report=true
+	private static final boolean STARTUP_REPORT = Boolean.getBoolean("startup.report");
+	
 	public Main() {
 		FileManager.getInstance().updateFrameTitle();  // initialize the single FileManager instance while setting the JFrame title
 		
@@ -58,6 +64,10 @@ public class Main extends JFrame {
 			public void actionPerformed(ActionEvent e) { FileManager.getInstance().exit(); }
 		});
 		initFindActions();
+		
+		// the last session is restored before the frame is shown, so that it's first painted with the page of the file that was open (which is then
+		// loaded in the background, see the SessionSnapshot class)
+		SessionSnapshot.getInstance().restore();
 		pack();
 		setLocationRelativeTo(null);
 		setVisible(true);
@@ -92,6 +102,39 @@ public class Main extends JFrame {
 	}
 	
 	public static void main(String[] args) {
+		final long jvmStartup = STARTUP_REPORT ? ManagementFactory.getRuntimeMXBean().getUptime() : 0;  // in milliseconds
+		
+		if (LatencyMonitor.ENABLED) LatencyMonitor.getInstance().install();
+		if (SessionRecorder.ENABLED) SessionRecorder.getInstance().install();
+		MemoryGovernor.getInstance().install();
+		
+		// note that the look and feel is set on the EDT along with the rest of the UI, since Swing components (including the look and feel's defaults)
+		// should only be accessed from the EDT; because the main thread has nothing else to do, setting it beforehand wouldn't save any time either
+		SwingUtilities.invokeLater(() -> {
+			final long start = System.nanoTime();
+			setLookAndFeel();
+			
+			final long lookAndFeelSet = System.nanoTime();
+			new Main();
+			
+			final long frameShown = System.nanoTime();
+			
+			// the first paint of the frame is queued when the frame is shown, so by the time this runs, the frame has been painted and is editable
+			SwingUtilities.invokeLater(() -> {
+				if (STARTUP_REPORT) {
+					final long firstPaint = System.nanoTime();
+					
+					System.err.printf("Startup: JVM %d ms, look and feel %d ms, frame %d ms, first paint %d ms (%d ms to first editable frame)%n",
+							jvmStartup, toMillis(lookAndFeelSet - start), toMillis(frameShown - lookAndFeelSet), toMillis(firstPaint - frameShown),
+							ManagementFactory.getRuntimeMXBean().getUptime());
+				}
+				preloadFonts();
+				RecentFiles.getInstance().preload();
+			});
+		});
+	}
+	
+	private static void setLookAndFeel() {
 		try {
 			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());  // adopt the default UI look and feel of the system
 		} catch (ClassNotFoundException e) {
@@ -103,9 +146,17 @@ public class Main extends JFrame {
 		} catch (UnsupportedLookAndFeelException e) {
 			e.printStackTrace();
 		}
-		// the method / constructor reference operator (::) introduced in Java 8 allows a method or constructor to be called as a lambda expression; in the
-		// statement below, Main::new is the same as using the lambda expression: () -> new Main; note that this operator is not a replacement for more
-		// complex lambda expressions and is only a shorthand for invoking a method or constructor
-		SwingUtilities.invokeLater(Main::new);
+	}
+	
+	// finding all of the system's fonts is the slowest part of opening the font pane for the first time; because the graphics environment caches them,
+	// they're loaded on a background thread once the frame is shown (rather than before, so as to not compete with the frame for the font manager)
+	private static void preloadFonts() {
+		final Thread thread = new Thread(() -> GraphicsEnvironment.getLocalGraphicsEnvironment().getAllFonts(), "Font Preloader");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	private static long toMillis(long nanos) {
+		return nanos / 1_000_000;
 	}
 }
@@ -0,0 +1,214 @@
+package main;
+
+import java.util.Arrays;
+
+// this class keeps a set of offsets in a text (ex. the bookmarks of the text area) attached to the text around them as it's edited; rather than a
+// Position for every marker (which the document would have to update one by one on every edit), the markers are kept in a treap (a binary search tree
+// that's balanced by giving its nodes random priorities), where shifting every marker after an edit is done by splitting the tree at the edit and
+// adding the shift to the root of the part after it, to be pushed down to its children whenever they're visited; an edit therefore takes O(log n) for
+// n markers (plus the markers it removes, if any), as does finding the marker before or after an offset, while listing the markers in a range takes
+// O(log n + k) for the k markers in it
+//
+// like a Position, a marker at the offset where text is inserted ends up after the inserted text (unless it's at the start of the text); the markers
+// within removed text are removed along with it, apart from one at the start of it, which stays where it is
+//
+// note that the same offset can be marked more than once, and that the tree is only used on the EDT, so it isn't synchronized
+final class MarkerTree {
+	
+	private static final int[] NONE = {};
+	
+	private Node root = null;
+	private int size = 0;
+	private int seed = 0x2545f491;
+	
+	private static final class Node {
+		
+		private int offset;
+		private int shift = 0;  // yet to be added to the offsets of both children (and everything below them)
+		private final int priority;
+		private Node left, right;
+		
+		private Node(int offset, int priority) {
+			this.offset = offset;
+			this.priority = priority;
+		}
+		
+		private void push() {
+			if (shift == 0) return;
+			
+			if (left != null) left.add(shift);
+			if (right != null) right.add(shift);
+			shift = 0;
+		}
+		
+		private void add(int shift) {
+			offset += shift;
+			this.shift += shift;
+		}
+	}
+	
+	// the two parts a tree is split into (see "split")
+	private Node before, after;
+	
+	int size() {
+		return size;
+	}
+	
+	void clear() {
+		root = null;
+		size = 0;
+	}
+	
+	void add(int offset) {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		
+		split(root, offset);
+		root = merge(merge(before, new Node(offset, seed)), after);
+		size++;
+	}
+	
+	// removes the markers between the given offsets (including a marker at the start offset, but not one at the end offset); returns whether there
+	// were any
+	boolean remove(int start, int end) {
+		if (start >= end) return false;
+		
+		split(root, start);
+		final Node first = before;
+		
+		split(after, end);
+		final int removed = count(before);
+		
+		root = merge(first, after);
+		size -= removed;
+		return removed > 0;
+	}
+	
+	// shifts the markers at or after the given offset by the length of the text inserted there
+	void insertUpdate(int offset, int length) {
+		if (root == null) return;
+		
+		// a marker at the start of the text stays there
+		split(root, offset == 0 ? 1 : offset);
+		if (after != null) after.add(length);
+		
+		root = merge(before, after);
+	}
+	
+	// removes the markers within the removed text (see above), and shifts the ones after it back by its length
+	void removeUpdate(int offset, int length) {
+		if (root == null) return;
+		
+		split(root, offset + 1);
+		final Node first = before;
+		
+		split(after, offset + length);
+		size -= count(before);
+		if (after != null) after.add(-length);
+		
+		root = merge(first, after);
+	}
+	
+	// returns the first marker at or after the given offset, or -1 if there's none
+	int next(int offset) {
+		int next = -1;
+		
+		for (Node node = root; node != null;) {
+			node.push();
+			
+			if (node.offset >= offset) {
+				next = node.offset;
+				node = node.left;
+			}
+			else node = node.right;
+		}
+		return next;
+	}
+	
+	// returns the last marker before the given offset, or -1 if there's none
+	int previous(int offset) {
+		int previous = -1;
+		
+		for (Node node = root; node != null;) {
+			node.push();
+			
+			if (node.offset < offset) {
+				previous = node.offset;
+				node = node.right;
+			}
+			else node = node.left;
+		}
+		return previous;
+	}
+	
+	// returns the markers between the given offsets (including one at the start offset, but not one at the end offset), in order
+	int[] range(int start, int end) {
+		int[] markers = NONE;
+		int count = 0;
+		
+		// an in-order walk that skips the subtrees that are entirely outside of the range, with the path to the current node kept on a stack
+		Node[] stack = new Node[64];
+		int depth = 0;
+		
+		for (Node node = root; node != null || depth > 0;) {
+			if (node != null) {
+				node.push();
+				
+				if (node.offset >= start) {
+					if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+					stack[depth++] = node;
+					node = node.left;
+				}
+				else node = node.right;
+				continue;
+			}
+			node = stack[--depth];
+			if (node.offset >= end) break;
+			
+			if (count == markers.length) markers = Arrays.copyOf(markers, Math.max(16, count * 2));
+			markers[count++] = node.offset;
+			node = node.right;
+		}
+		return count == markers.length ? markers : Arrays.copyOf(markers, count);
+	}
+	
+	// splits the given tree into the markers before the given offset and those at or after it, which are left in "before" and "after"
+	private void split(Node node, int offset) {
+		if (node == null) {
+			before = after = null;
+			return;
+		}
+		node.push();
+		
+		if (node.offset < offset) {
+			split(node.right, offset);
+			node.right = before;
+			before = node;
+		}
+		else {
+			split(node.left, offset);
+			node.left = after;
+			after = node;
+		}
+	}
+	
+	// joins two trees, where every marker of the first one comes before those of the second one
+	private static Node merge(Node first, Node second) {
+		if (first == null) return second;
+		if (second == null) return first;
+		
+		if (first.priority > second.priority) {
+			first.push();
+			first.right = merge(first.right, second);
+			return first;
+		}
+		second.push();
+		second.left = merge(first, second.left);
+		return second;
+	}
+	
+	private static int count(Node node) {
+		return node == null ? 0 : 1 + count(node.left) + count(node.right);
+	}
+}
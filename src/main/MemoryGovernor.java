@@ -0,0 +1,115 @@
+package main;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import javax.swing.SwingUtilities;
+
+// this class keeps the editor usable when the heap is running out, by giving up what it can do without one step at a time rather than failing with an
+// OutOfMemoryError: first the syntax highlighting, then most of the undo history, then the caches (the wrapped line views, the kept search results, the
+// kept folder listings and the panes that hold on to large data, like the font lists and the last comparison), and finally the text itself, by
+// reopening the file in read-only mode (see the PagedFile class); every step is shown in the status bar
+//
+// the heap is watched with the collection usage threshold of the old generation, which is only checked after a garbage collection, so that the
+// notification means the memory is actually in use rather than garbage that hasn't been collected yet; a single step is taken per notification, at
+// most once per STEP_INTERVAL milliseconds, so that the memory freed by a step has the chance to be collected before the next step is considered
+//
+// the steps are undone (except for the text wrapping, which is left to the user) once a new text is started or another file is opened
+public final class MemoryGovernor {
+	
+	// the steps, in the order they're taken
+	public static final int NORMAL = 0, NO_HIGHLIGHTING = 1, TRIMMED_UNDO = 2, NO_CACHES = 3, READ_ONLY = 4;
+	
+	private static final String[] MESSAGES = { null, "Low memory: syntax highlighting off", "Low memory: undo history trimmed",
+			"Low memory: caches cleared", "Low memory: switched to read-only mode" };
+	
+	// the share of the old generation that can be in use after a garbage collection before the first step is taken, which can be changed with
+	// -Dmemory.threshold=<fraction>
+	private static final double THRESHOLD = Double.parseDouble(System.getProperty("memory.threshold", "0.75"));
+	private static final long STEP_INTERVAL = 1000;
+	private static final int TRIMMED_UNDO_LIMIT = 10;  // the number of edits that can still be undone once the undo history has been trimmed
+	
+	private static MemoryGovernor instance;
+	
+	private int level = NORMAL;
+	private long lastStepTime = 0;
+	
+	private MemoryGovernor() {}
+	
+	public static MemoryGovernor getInstance() {
+		if (instance == null) instance = new MemoryGovernor();
+		return instance;
+	}
+	
+	// sets the threshold on the old generation and listens for it being exceeded; this should be called once, at startup
+	public void install() {
+		// the old generation is the largest of the heap's pools whose usage after a collection can be watched; the young generation's pools are left
+		// out, since what survives a young collection is mostly short-lived, and their maximum size is often undefined anyway
+		MemoryPoolMXBean oldGeneration = null;
+		
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && pool.getUsage().getMax() > 0 &&
+					(oldGeneration == null || pool.getUsage().getMax() > oldGeneration.getUsage().getMax()))
+				oldGeneration = pool;
+		}
+		if (oldGeneration == null) return;
+		
+		final String poolName = oldGeneration.getName();
+		
+		oldGeneration.setCollectionUsageThreshold((long) (oldGeneration.getUsage().getMax() * THRESHOLD));
+		
+		// note that the notifications are sent on a thread of the management service, so the step is taken on the EDT
+		((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener((notification, handback) -> {
+			if (notification.getType().equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED) &&
+					MemoryNotificationInfo.from((CompositeData) notification.getUserData()).getPoolName().equals(poolName))
+				SwingUtilities.invokeLater(this::step);
+		}, null, null);
+	}
+	
+	public int getLevel() {
+		return level;
+	}
+	
+	// takes the next step, unless the last one was taken too recently
+	public void step() {
+		final long now = System.currentTimeMillis();
+		if (level == READ_ONLY || now - lastStepTime < STEP_INTERVAL) return;
+		
+		lastStepTime = now;
+		
+		switch (level + 1) {
+			case NO_HIGHLIGHTING:
+				AppTextArea.getInstance().dropHighlighting();
+				break;
+			case TRIMMED_UNDO:
+				AppTextArea.getInstance().setUndoLimit(TRIMMED_UNDO_LIMIT);
+				break;
+			case NO_CACHES:
+				AppTextArea.getInstance().dropCaches();
+				break;
+			case READ_ONLY:
+				// only a file that's saved can be reopened without losing anything; otherwise, the user is left to save (or discard) the
+				// changes; the step is tried again on the next notification, in case they've been saved by then
+				if (!FileManager.getInstance().reopenReadOnly()) {
+					StatusBar.getInstance().setMemoryInfo("Low memory: save the file to free up memory");
+					return;
+				}
+				break;
+		}
+		level++;
+		StatusBar.getInstance().setMemoryInfo(MESSAGES[level]);
+	}
+	
+	// undoes the steps once the text they were taken for has been replaced; note that the syntax is set by the caller along with the new text
+	public void reset() {
+		if (level == NORMAL) return;
+		
+		if (level >= TRIMMED_UNDO) AppTextArea.getInstance().setUndoLimit(AppTextArea.UNDO_LIMIT);
+		level = NORMAL;
+		StatusBar.getInstance().setMemoryInfo(null);
+	}
+}
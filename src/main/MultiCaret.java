@@ -0,0 +1,502 @@
+package main;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultCaret;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Position;
+
+// this class is the text area's caret, which can have any number of other carets along with it (ex. one on every line of a block of text, for editing
+// the same column of each line at once); the carets are kept sorted (and without overlapping selections) in parallel arrays of their dots and marks,
+// rather than as an object (or a Position) each, so that thousands of them can be moved and edited at once, and only the ones in the part of the text
+// area being painted are painted, which are found by binary search
+//
+// typing, deleting and pasting with several carets replaces the selection of each one (or the character before or after it) as a single edit (see
+// "AppTextArea.replaceRanges"), which is undone in one step and only goes through the edit handling once; the other carets are cleared as soon as the
+// caret is moved, or the text is changed, in any other way (ex. by clicking, undoing or finding text), since their offsets would no longer be valid
+//
+// a caret is added with Alt + click (or above or below the others, from the edit menu), while Alt + drag selects a block of text, with a caret on each
+// of its lines; note that the text area's own caret is one of the carets, which is the one the text area scrolls to
+@SuppressWarnings("serial")
+final class MultiCaret extends DefaultCaret {
+	
+	// the selections of the carets are painted over the text (since the caret is painted after it), so they're translucent
+	private static final int SELECTION_ALPHA = 96;
+	
+	private int[] dots = new int[16], marks = new int[16];
+	private int count = 0;             // the number of carets, which is 0 while there's only the text area's own caret
+	private int primary = 0;           // the index of the text area's own caret
+	private boolean updating = false;  // whether the carets are being moved (or the text edited) by this class, rather than in any other way
+	private Point blockStart = null;   // where the mouse was pressed for selecting a block, if it was pressed with Alt
+	
+	private final KeyListener keyListener = new KeyAdapter() {
+		@Override
+		public void keyPressed(KeyEvent e) {
+			if (count == 0 || e.isConsumed() || e.isControlDown() || e.isAltDown() || e.isMetaDown()) return;
+			
+			switch (e.getKeyCode()) {
+				case KeyEvent.VK_ESCAPE: clear(); break;
+				case KeyEvent.VK_BACK_SPACE: edit(null, -1); break;
+				case KeyEvent.VK_DELETE: edit(null, 1); break;
+				case KeyEvent.VK_ENTER: replaceSelections("\n"); break;
+				case KeyEvent.VK_TAB: replaceSelections("\t"); break;
+				case KeyEvent.VK_LEFT: case KeyEvent.VK_RIGHT: case KeyEvent.VK_UP: case KeyEvent.VK_DOWN: case KeyEvent.VK_HOME: case KeyEvent.VK_END:
+					move(e.getKeyCode(), e.isShiftDown());
+					break;
+				default: return;
+			}
+			e.consume();
+		}
+		
+		// the same characters are typed as by the text area's own key typed action, which leaves out control characters (including those of the keys
+		// handled above) and shortcuts, but not characters typed with AltGr (ie. with both Ctrl and Alt down)
+		@Override
+		public void keyTyped(KeyEvent e) {
+			final char c = e.getKeyChar();
+			
+			if (count == 0 || e.isConsumed() || c < 0x20 || c == 0x7F || e.isMetaDown() || e.isControlDown() != e.isAltDown()) return;
+			
+			replaceSelections(String.valueOf(c));
+			e.consume();
+		}
+	};
+	
+	private final DocumentListener documentListener = new DocumentListener() {
+		@Override
+		public void insertUpdate(DocumentEvent e) { if (!updating) clear(); }
+		
+		@Override
+		public void removeUpdate(DocumentEvent e) { if (!updating) clear(); }
+		
+		@Override
+		public void changedUpdate(DocumentEvent e) {}
+	};
+	
+	@Override
+	public void install(JTextComponent c) {
+		super.install(c);
+		c.addKeyListener(keyListener);
+		c.getDocument().addDocumentListener(documentListener);
+	}
+	
+	@Override
+	public void deinstall(JTextComponent c) {
+		c.removeKeyListener(keyListener);
+		c.getDocument().removeDocumentListener(documentListener);
+		super.deinstall(c);
+	}
+	
+	public boolean hasCarets() {
+		return count > 0;
+	}
+	
+	// removes all of the carets but the text area's own
+	public void clear() {
+		if (count == 0) return;
+		
+		count = 0;
+		super.setSelectionVisible(true);
+		getComponent().repaint();
+	}
+	
+	@Override
+	public void setDot(int dot, Position.Bias dotBias) {
+		if (!updating) clear();
+		super.setDot(dot, dotBias);
+	}
+	
+	@Override
+	public void moveDot(int dot, Position.Bias dotBias) {
+		if (!updating) clear();
+		super.moveDot(dot, dotBias);
+	}
+	
+	// the selection of the text area's own caret is painted along with those of the other carets (see "paint") while there are any, so that they all
+	// look the same
+	@Override
+	public void setSelectionVisible(boolean visible) {
+		super.setSelectionVisible(visible && count == 0);
+	}
+	
+	@Override
+	public void mousePressed(MouseEvent e) {
+		blockStart = null;
+		
+		if (!e.isConsumed() && e.isAltDown() && SwingUtilities.isLeftMouseButton(e) && getComponent().isEnabled()) {
+			final int offset = getComponent().viewToModel2D(e.getPoint());
+			
+			if (offset != -1) {
+				blockStart = e.getPoint();
+				getComponent().requestFocusInWindow();
+				add(offset);
+				return;
+			}
+		}
+		super.mousePressed(e);
+	}
+	
+	@Override
+	public void mouseDragged(MouseEvent e) {
+		if (blockStart == null) super.mouseDragged(e);
+		else if (!e.isConsumed() && SwingUtilities.isLeftMouseButton(e)) {
+			selectBlock(blockStart, e.getPoint());
+			getComponent().scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+		}
+	}
+	
+	// adds a caret on the line above the first caret (or below the last one), at the same horizontal position
+	public void addAdjacent(boolean above) {
+		startCarets();
+		
+		try {
+			final Element root = getComponent().getDocument().getDefaultRootElement();
+			final int index = above ? 0 : count - 1;
+			final int line = root.getElementIndex(dots[index]) + (above ? -1 : 1);
+			
+			if (line < 0 || line >= root.getElementCount()) {
+				if (count == 1) count = 0;
+				return;
+			}
+			final int offset = offsetAt(getComponent().modelToView2D(dots[index]).getX(), root.getElement(line));
+			
+			if (above) insert(0, offset, offset);
+			else insert(count, offset, offset);
+			
+			primary = above ? 0 : count - 1;
+			update();
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	// adds a caret at the given offset, unless there's one there already
+	private void add(int offset) {
+		startCarets();
+		
+		int index = 0;
+		while (index < count && Math.max(dots[index], marks[index]) < offset) index++;
+		
+		if (index < count && Math.min(dots[index], marks[index]) <= offset) primary = index;
+		else {
+			insert(index, offset, offset);
+			primary = index;
+		}
+		update();
+	}
+	
+	// replaces the carets with a caret on each line between the given points, whose selection is between their horizontal positions
+	private void selectBlock(Point from, Point to) {
+		final JTextComponent component = getComponent();
+		final Element root = component.getDocument().getDefaultRootElement();
+		final int fromLine = root.getElementIndex(component.viewToModel2D(from));
+		final int toLine = root.getElementIndex(component.viewToModel2D(to));
+		
+		count = 0;
+		
+		try {
+			for (int line = Math.min(fromLine, toLine); line <= Math.max(fromLine, toLine); line++) {
+				final Element element = root.getElement(line);
+				
+				if (line == toLine) primary = count;
+				insert(count, offsetAt(to.getX(), element), offsetAt(from.getX(), element));
+			}
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+		update();
+	}
+	
+	// returns the offset of the given line that's closest to the given horizontal position (ie. the same column, in a monospaced font)
+	private int offsetAt(double x, Element line) throws BadLocationException {
+		final Rectangle2D start = getComponent().modelToView2D(line.getStartOffset());
+		return Math.min(line.getEndOffset() - 1, getComponent().viewToModel2D(new Point2D.Double(x, start.getCenterY())));
+	}
+	
+	// moves every caret the way the given (arrow, Home or End) key moves the text area's own caret, keeping their marks where they are if selecting
+	private void move(int keyCode, boolean select) {
+		final JTextComponent component = getComponent();
+		final Element root = component.getDocument().getDefaultRootElement();
+		final int length = component.getDocument().getLength();
+		
+		try {
+			for (int i = 0; i < count; i++) {
+				final int dot = dots[i], start = Math.min(dot, marks[i]), end = Math.max(dot, marks[i]);
+				final int lineIndex = root.getElementIndex(dot);
+				final Element line = root.getElement(lineIndex);
+				int target;
+				
+				switch (keyCode) {
+					case KeyEvent.VK_LEFT: target = !select && start != end ? start : Math.max(0, dot - 1); break;
+					case KeyEvent.VK_RIGHT: target = !select && start != end ? end : Math.min(length, dot + 1); break;
+					case KeyEvent.VK_HOME: target = line.getStartOffset(); break;
+					case KeyEvent.VK_END: target = line.getEndOffset() - 1; break;
+					default:
+						final int targetLine = lineIndex + (keyCode == KeyEvent.VK_UP ? -1 : 1);
+						
+						if (targetLine < 0) target = 0;
+						else if (targetLine >= root.getElementCount()) target = length;
+						else target = offsetAt(component.modelToView2D(dot).getX(), root.getElement(targetLine));
+				}
+				dots[i] = target;
+				if (!select) marks[i] = target;
+			}
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+		update();
+	}
+	
+	// replaces the selection of every caret with the given text, as a single edit
+	public void replaceSelections(String text) {
+		final String[] texts = new String[count];
+		
+		Arrays.fill(texts, text);
+		edit(texts, 0);
+	}
+	
+	// replaces the selection of each caret with the corresponding line of the given text if it has as many lines as there are carets (ex. when pasting
+	// the text copied from the same carets), or the whole text otherwise
+	public void paste(String text) {
+		final String[] lines = (text.endsWith("\n") ? text.substring(0, text.length() - 1) : text).split("\n", -1);
+		
+		if (lines.length == count) edit(lines, 0);
+		else replaceSelections(text);
+	}
+	
+	// returns the text selected by every caret, a line for each caret with a selection, or null if none of them have one
+	public String getSelectedText() {
+		final StringBuilder text = new StringBuilder();
+		
+		try {
+			for (int i = 0; i < count; i++) {
+				final int start = Math.min(dots[i], marks[i]), end = Math.max(dots[i], marks[i]);
+				
+				if (start == end) continue;
+				if (text.length() > 0) text.append('\n');
+				text.append(getComponent().getText(start, end - start));
+			}
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return text.length() == 0 ? null : text.toString();
+	}
+	
+	// replaces the selection of each caret with its text, or, for a caret without a selection, deletes the character before it (if the direction is -1)
+	// or after it (if it's 1) instead, when the texts are null; the carets then end up after the text that replaced their selections
+	private void edit(String[] texts, int direction) {
+		final JTextComponent component = getComponent();
+		
+		if (!component.isEditable() || !component.isEnabled()) return;
+		
+		final int length = component.getDocument().getLength();
+		final int[] starts = new int[count], ends = new int[count];
+		
+		if (texts == null) {
+			texts = new String[count];
+			Arrays.fill(texts, "");
+		}
+		for (int i = 0, previousEnd = 0; i < count; i++) {
+			int start = Math.min(dots[i], marks[i]), end = Math.max(dots[i], marks[i]);
+			
+			if (start == end && direction < 0) start = Math.max(previousEnd, start - 1);
+			else if (start == end && direction > 0) end = Math.min(length, end + 1);
+			
+			starts[i] = start;
+			ends[i] = previousEnd = end;
+		}
+		updating = true;
+		
+		try {
+			AppTextArea.getInstance().replaceRanges(starts, ends, texts, count);
+		}
+		finally {
+			updating = false;
+		}
+		for (int i = 0, shift = 0; i < count; i++) {
+			dots[i] = marks[i] = starts[i] + shift + texts[i].length();
+			shift += texts[i].length() - (ends[i] - starts[i]);
+		}
+		update();
+	}
+	
+	// starts keeping track of the carets, with the text area's own caret as the only one, if it's not done already
+	private void startCarets() {
+		if (count > 0) return;
+		
+		count = 1;
+		primary = 0;
+		dots[0] = getDot();
+		marks[0] = getMark();
+	}
+	
+	private void insert(int index, int dot, int mark) {
+		if (count == dots.length) {
+			dots = Arrays.copyOf(dots, count * 2);
+			marks = Arrays.copyOf(marks, count * 2);
+		}
+		System.arraycopy(dots, index, dots, index + 1, count - index);
+		System.arraycopy(marks, index, marks, index + 1, count - index);
+		dots[index] = dot;
+		marks[index] = mark;
+		count++;
+	}
+	
+	// merges the carets that have ended up in the same place (or with overlapping selections), then moves the text area's own caret to where it's
+	// supposed to be; with only a single caret left, the text area's own caret is all there is again
+	private void update() {
+		sort();
+		
+		int merged = 0;
+		
+		for (int i = 0; i < count; i++) {
+			final int start = Math.min(dots[i], marks[i]), end = Math.max(dots[i], marks[i]);
+			
+			if (merged > 0) {
+				final int previous = merged - 1;
+				final int previousStart = Math.min(dots[previous], marks[previous]), previousEnd = Math.max(dots[previous], marks[previous]);
+				
+				if (start < previousEnd || start == previousStart) {
+					final boolean forward = dots[i] >= marks[i];
+					
+					dots[previous] = forward ? Math.max(end, previousEnd) : previousStart;
+					marks[previous] = forward ? previousStart : Math.max(end, previousEnd);
+					if (i == primary) primary = previous;
+					continue;
+				}
+			}
+			if (i == primary) primary = merged;
+			dots[merged] = dots[i];
+			marks[merged] = marks[i];
+			merged++;
+		}
+		count = merged;
+		updating = true;
+		
+		try {
+			super.setDot(marks[primary], Position.Bias.Forward);
+			super.moveDot(dots[primary], Position.Bias.Forward);
+		}
+		finally {
+			updating = false;
+		}
+		if (count == 1) count = 0;
+		
+		super.setSelectionVisible(count == 0);
+		getComponent().repaint();
+	}
+	
+	// the carets only get out of order if a selection is extended past the start of the next caret's, so they're only sorted if they're not in order
+	private void sort() {
+		boolean sorted = true;
+		
+		for (int i = 1; i < count && sorted; i++)
+			sorted = Math.min(dots[i - 1], marks[i - 1]) <= Math.min(dots[i], marks[i]);
+		
+		if (sorted) return;
+		
+		final long[] order = new long[count];
+		
+		for (int i = 0; i < count; i++)
+			order[i] = (long) Math.min(dots[i], marks[i]) << 32 | i;
+		
+		Arrays.sort(order);
+		
+		final int[] oldDots = Arrays.copyOf(dots, count), oldMarks = Arrays.copyOf(marks, count);
+		final int oldPrimary = primary;
+		
+		for (int i = 0; i < count; i++) {
+			final int index = (int) order[i];
+			
+			if (index == oldPrimary) primary = i;
+			dots[i] = oldDots[index];
+			marks[i] = oldMarks[index];
+		}
+	}
+	
+	// paints the selections of all of the carets (see "setSelectionVisible"), and the other carets, in the part of the text area being painted; the
+	// text area's own caret is painted (and blinks) the same as always
+	@Override
+	public void paint(Graphics g) {
+		if (count > 0) {
+			try {
+				paintCarets(g);
+			}
+			catch (BadLocationException e) {
+				e.printStackTrace();
+			}
+		}
+		super.paint(g);
+	}
+	
+	private void paintCarets(Graphics g) throws BadLocationException {
+		final JTextComponent component = getComponent();
+		final Rectangle clip = g.getClipBounds() != null ? g.getClipBounds() : component.getVisibleRect();
+		final int from = component.viewToModel2D(new Point(0, clip.y));
+		final int to = component.viewToModel2D(new Point(component.getWidth(), clip.y + clip.height));
+		final Color selectionColor = component.getSelectionColor();
+		
+		// the ends of the carets' selections are in order as well, since they don't overlap
+		int low = 0, high = count;
+		
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			
+			if (Math.max(dots[middle], marks[middle]) < from) low = middle + 1;
+			else high = middle;
+		}
+		for (int i = low; i < count && Math.min(dots[i], marks[i]) <= to; i++) {
+			final int start = Math.min(dots[i], marks[i]), end = Math.max(dots[i], marks[i]);
+			
+			if (start != end) {
+				g.setColor(new Color(selectionColor.getRed(), selectionColor.getGreen(), selectionColor.getBlue(), SELECTION_ALPHA));
+				paintSelection(g, Math.max(start, from), Math.min(end, to));
+			}
+			if (i != primary) {
+				final Rectangle2D r = component.modelToView2D(dots[i]);
+				
+				g.setColor(component.getCaretColor());
+				g.fillRect((int) r.getX(), (int) r.getY(), 1, (int) r.getHeight());
+			}
+		}
+	}
+	
+	// a selection spanning several rows is painted to the right edge of the text on its first row, from the left edge on its last row, and across
+	// the rows in between, the same way the text area paints its own selection
+	private void paintSelection(Graphics g, int start, int end) throws BadLocationException {
+		final JTextComponent component = getComponent();
+		final Rectangle2D r0 = component.modelToView2D(start), r1 = component.modelToView2D(end);
+		
+		if (r0.getY() == r1.getY()) {
+			g.fillRect((int) r0.getX(), (int) r0.getY(), (int) (r1.getX() - r0.getX()), (int) r0.getHeight());
+			return;
+		}
+		final Insets insets = component.getInsets();
+		final int left = insets.left, right = component.getWidth() - insets.right;
+		final int y0 = (int) r0.getY(), y1 = (int) r1.getY(), height0 = (int) r0.getHeight();
+		
+		g.fillRect((int) r0.getX(), y0, right - (int) r0.getX(), height0);
+		g.fillRect(left, y0 + height0, right - left, y1 - y0 - height0);
+		g.fillRect(left, y1, (int) r1.getX() - left, (int) r1.getHeight());
+	}
+}
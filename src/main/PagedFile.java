@@ -0,0 +1,393 @@
+package main;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+// this class provides read-only access to a file that is too large to be loaded into memory all at once; the file is memory-mapped in segments, so that
+// only the parts of it that are actually read (ex. the pages around the viewport, or the pages being searched) are decoded, meaning the heap used stays
+// constant regardless of the size of the file
+//
+// a sparse line index is built on a background thread as soon as the file is opened: rather than storing the offset of every line, which for a file
+// with hundreds of millions of lines would take gigabytes, only the offset of every CHECKPOINT_INTERVAL-th line is stored; the offset of any other line
+// is found by scanning forward from the closest checkpoint before it; the number of characters before each checkpoint is stored as well, so that a
+// character offset can be found in the same way
+//
+// note that all offsets used by this class are byte offsets; also, note that the file is assumed to be encoded in UTF-8, in which the line feed byte
+// (\n) is never part of a multi-byte character, meaning the file can be safely split (and decoded) at any line start
+public final class PagedFile {
+	
+	// files larger than this are opened in read-only mode, since loading them would take more of the heap than there is; a loaded file takes up to 8
+	// times its size in the heap (the bytes read, the decoded text, the document's copy of it, and the copy kept to tell whether it has been saved,
+	// along with the room needed to edit it), so the threshold is the largest file that fits in the maximum heap that many times over, but no more
+	// than 1 GB, since the text has to fit in the document's char array; the threshold can be changed with -Dlargefile.threshold=<bytes>
+	public static final long THRESHOLD = Long.getLong("largefile.threshold", Math.min(1L << 30, Runtime.getRuntime().maxMemory() / 8));
+	
+	private static final int SEGMENT_SIZE = 64 << 20;      // the size of each mapped segment of the file
+	private static final int CHUNK_SIZE = 1 << 20;         // the (approximate) number of bytes decoded at a time when searching
+	private static final int MAX_LINE_SCAN = 1 << 20;      // lines longer than this are split at a character boundary instead of their line start
+	private static final int CHECKPOINT_INTERVAL = 1024;
+	private static final int SAMPLE_SIZE = 1 << 20;        // the number of bytes sampled to estimate the length of lines before any have been indexed
+	
+	private final Path path;
+	private final FileChannel channel;
+	private final long size;
+	
+	// the segment that was most recently read from (on the EDT, or by a search, see the PagedFind class); note that the indexer maps its own segments,
+	// since it reads the file sequentially
+	private MappedByteBuffer segment = null;
+	private long segmentStart = -1;
+	
+	// checkpoints[i] is the offset of the start of line (i * CHECKPOINT_INTERVAL), where lines are counted from 0, and charCheckpoints[i] is the number
+	// of characters before it (counted as decoded, ie. with each CRLF as a single character and each supplementary character as two)
+	private long[] checkpoints = new long[1024];
+	private long[] charCheckpoints = new long[1024];
+	private int checkpointCount = 1;
+	private long indexedBytes = 0, indexedLines = 0, indexedChars = 0, wordCount = 0;
+	private volatile boolean indexComplete = false, closed = false;
+	
+	// the given Runnable is called (on the indexer thread) whenever the index has progressed, and once more after it's complete
+	public PagedFile(Path path, Runnable onIndexProgress) throws IOException {
+		this.path = path;
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		size = channel.size();
+		
+		final Thread indexer = new Thread(() -> buildIndex(onIndexProgress), "Line Indexer");
+		indexer.setDaemon(true);
+		indexer.start();
+	}
+	
+	public Path getPath() {
+		return path;
+	}
+	
+	public long getSize() {
+		return size;
+	}
+	
+	public boolean isIndexComplete() {
+		return indexComplete;
+	}
+	
+	// returns the number of lines found so far, counted the same way as JTextArea counts them (ie. a file with no line feeds has 1 line)
+	public synchronized long getLineCount() {
+		return indexedLines + 1;
+	}
+	
+	public synchronized long getWordCount() {
+		return wordCount;
+	}
+	
+	public void close() {
+		closed = true;
+		
+		try {
+			channel.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private void buildIndex(Runnable onIndexProgress) {
+		long offset = 0, lines = 0, chars = 0, words = 0;
+		boolean inWord = false, afterCarriageReturn = false;
+		
+		try {
+			while (offset < size && !closed) {
+				final int length = (int) Math.min(SEGMENT_SIZE, size - offset);
+				final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+				
+				for (int i = 0; i < length; i++) {
+					final byte b = buffer.get(i);
+					
+					// the whitespace bytes are the same as those used for the status bar's word count; note that none of them can be part of a
+					// multi-byte character, so the words can be counted without decoding the file
+					final boolean whitespace = b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x0B;
+					
+					if (!whitespace && !inWord) words++;
+					inWord = !whitespace;
+					
+					// see "charLength" for how the characters are counted
+					chars += charLength(b, afterCarriageReturn);
+					afterCarriageReturn = b == '\r';
+					
+					if (b == '\n' && ++lines % CHECKPOINT_INTERVAL == 0) addCheckpoint(offset + i + 1, chars);
+				}
+				offset += length;
+				
+				synchronized (this) {
+					indexedBytes = offset;
+					indexedLines = lines;
+					indexedChars = chars;
+					wordCount = words;
+				}
+				onIndexProgress.run();
+			}
+		}
+		catch (IOException e) {
+			// the channel is closed (interrupting the indexer) when another file is opened, in which case there's nothing to report
+			if (!closed) e.printStackTrace();
+			return;
+		}
+		indexComplete = !closed;
+		onIndexProgress.run();
+	}
+	
+	private synchronized void addCheckpoint(long offset, long chars) {
+		if (checkpointCount == checkpoints.length) {
+			checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+			charCheckpoints = Arrays.copyOf(charCheckpoints, checkpointCount * 2);
+		}
+		checkpoints[checkpointCount] = offset;
+		charCheckpoints[checkpointCount++] = chars;
+	}
+	
+	// returns the number of characters (of the decoded text) that start at the given byte: every byte besides the continuation bytes of a multi-byte
+	// character starts one, except that the first byte of a 4 byte character starts two (since it's decoded as a surrogate pair) and the line feed of
+	// a CRLF starts none (since it's decoded along with the carriage return as a single line feed); note that malformed input is decoded as one
+	// replacement character per malformed sequence rather than per byte, so the count is only exact for files that are actually encoded in UTF-8
+	private static int charLength(byte b, boolean afterCarriageReturn) {
+		if ((b & 0xC0) == 0x80 || (b == '\n' && afterCarriageReturn)) return 0;
+		return (b & 0xF8) == 0xF0 ? 2 : 1;
+	}
+	
+	// returns the offset of the start of the given line, or -1 if the index hasn't reached that line yet
+	public long getLineStart(long line) throws IOException {
+		final long checkpoint;
+		final int index;
+		
+		synchronized (this) {
+			if (line > indexedLines) return -1;
+			
+			index = (int) Math.min(line / CHECKPOINT_INTERVAL, checkpointCount - 1);
+			checkpoint = checkpoints[index];
+		}
+		return skipLines(checkpoint, line - (long) index * CHECKPOINT_INTERVAL);
+	}
+	
+	// returns the line the given offset is on, or -1 if the index hasn't reached that offset yet
+	public long getLineOfOffset(long offset) throws IOException {
+		final long checkpoint;
+		int low = 0, high;
+		
+		synchronized (this) {
+			if (offset > indexedBytes) return -1;
+			
+			// binary search for the last checkpoint at or before the offset
+			high = checkpointCount - 1;
+			
+			while (low < high) {
+				final int mid = (low + high + 1) >>> 1;
+				
+				if (checkpoints[mid] <= offset) low = mid;
+				else high = mid - 1;
+			}
+			checkpoint = checkpoints[low];
+		}
+		return (long) low * CHECKPOINT_INTERVAL + countLines(checkpoint, offset);
+	}
+	
+	// returns the byte offset of the character at the given character offset (or the size of the file, if it has fewer characters), or -1 if the index
+	// hasn't reached that character yet; the closest checkpoint before it is found by a binary search, then the bytes after it are counted
+	public long getOffsetOfChar(long charOffset) throws IOException {
+		long offset, chars;
+		int low = 0, high;
+		
+		synchronized (this) {
+			if (charOffset > indexedChars && !indexComplete) return -1;
+			
+			high = checkpointCount - 1;
+			
+			while (low < high) {
+				final int mid = (low + high + 1) >>> 1;
+				
+				if (charCheckpoints[mid] <= charOffset) low = mid;
+				else high = mid - 1;
+			}
+			offset = checkpoints[low];
+			chars = charCheckpoints[low];
+		}
+		for (boolean afterCarriageReturn = offset > 0 && getByte(offset - 1) == '\r'; offset < size; offset++) {
+			final byte b = getByte(offset);
+			final int length = charLength(b, afterCarriageReturn);
+			
+			// note that a character offset in the middle of a surrogate pair is rounded up to the end of it
+			if (length > 0 && chars >= charOffset) break;
+			
+			chars += length;
+			afterCarriageReturn = b == '\r';
+		}
+		return offset;
+	}
+	
+	// estimates the offset of the start of the given line (or of the given character, if "chars" is true) when the index hasn't reached it yet, by
+	// extrapolating from the average length of the lines (or characters) indexed so far; if the indexer hasn't finished its first segment yet, a
+	// sample of the file after the part that's been indexed is counted instead; note that the offset returned is always a character boundary, and
+	// for lines, the start of a line as well (unless the line is longer than MAX_LINE_SCAN)
+	public long estimateOffset(long target, boolean chars) throws IOException {
+		final long from, fromCount;
+		long bytes, count;
+		
+		synchronized (this) {
+			from = bytes = indexedBytes;
+			fromCount = count = chars ? indexedChars : indexedLines;
+		}
+		if (count == 0) {
+			bytes = Math.min(SAMPLE_SIZE, size - from);
+			count = 0;
+			
+			for (long i = from; i < from + bytes; i++)
+				count += chars ? charLength(getByte(i), i > 0 && getByte(i - 1) == '\r') : getByte(i) == '\n' ? 1 : 0;
+		}
+		// a sample without any line feeds means the lines are longer than the sample, so the estimate is at least that far ahead
+		final double averageLength = (double) bytes / Math.max(1, count);
+		final long estimate = Math.min(size, from + (long) (Math.max(0, target - fromCount) * averageLength));
+		
+		return chars ? toCharBoundary(estimate) : lineStartAtOrBefore(estimate);
+	}
+	
+	private synchronized byte getByte(long offset) throws IOException {
+		if (segment == null || offset < segmentStart || offset >= segmentStart + segment.capacity()) {
+			segmentStart = offset - offset % SEGMENT_SIZE;
+			segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, Math.min(SEGMENT_SIZE, size - segmentStart));
+		}
+		return segment.get((int) (offset - segmentStart));
+	}
+	
+	// returns the number of line feeds between the given offsets
+	public int countLines(long start, long end) throws IOException {
+		int count = 0;
+		
+		for (long i = start; i < end; i++)
+			if (getByte(i) == '\n') count++;
+		
+		return count;
+	}
+	
+	// returns the offset after the given number of line feeds, starting from the given offset (or the size of the file, if it ends before then)
+	public long skipLines(long start, long count) throws IOException {
+		long offset = start;
+		
+		while (count > 0 && offset < size)
+			if (getByte(offset++) == '\n') count--;
+		
+		return offset;
+	}
+	
+	// returns the start of the line the given offset is on; for lines longer than MAX_LINE_SCAN, the closest character boundary is returned instead
+	public long lineStartAtOrBefore(long offset) throws IOException {
+		final long limit = Math.max(0, offset - MAX_LINE_SCAN);
+		
+		for (long i = offset; i > limit; i--)
+			if (getByte(i - 1) == '\n') return i;
+		
+		return limit == 0 ? 0 : toCharBoundary(limit);
+	}
+	
+	// returns the start of the next line at or after the given offset (or the size of the file); for lines longer than MAX_LINE_SCAN, the closest
+	// character boundary is returned instead
+	public long lineStartAtOrAfter(long offset) throws IOException {
+		final long limit = Math.min(size, offset + MAX_LINE_SCAN);
+		
+		if (offset == 0) return 0;
+		
+		for (long i = offset; i < limit; i++)
+			if (getByte(i - 1) == '\n') return i;
+		
+		return limit == size ? size : toCharBoundary(limit);
+	}
+	
+	// the continuation bytes of a multi-byte UTF-8 character all start with the bits 10, so skipping them reaches the start of the next character;
+	// note that the line feed of a CRLF is skipped as well, since the two are decoded as a single character
+	public long toCharBoundary(long offset) throws IOException {
+		while (offset < size && ((getByte(offset) & 0xC0) == 0x80 || (offset > 0 && getByte(offset) == '\n' && getByte(offset - 1) == '\r'))) offset++;
+		return offset;
+	}
+	
+	// decodes the bytes between the given offsets, normalizing the line separators in the same way as files that are loaded in full
+	public String decode(long start, long end) throws IOException {
+		return decodeRaw(start, end).replace("\r\n", "\n");
+	}
+	
+	// note that malformed input is replaced (with U+FFFD) rather than reported, since the file may not have been written in UTF-8 at all
+	private String decodeRaw(long start, long end) throws IOException {
+		if (end <= start) return "";
+		return StandardCharsets.UTF_8.decode(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)).toString();
+	}
+	
+	// returns the offset of the first occurrence of the text at or after the given offset (if searching down), or the last occurrence ending at or before
+	// the given offset (if searching up), or -1 if there isn't one; the file is decoded and searched one line-aligned chunk at a time, so the text (which
+	// can't contain a line feed) is never split across chunks, except in a line longer than MAX_LINE_SCAN, which is split at a character boundary
+	// instead; there, consecutive chunks overlap by one character less than the text (see "overlapStart"), so that an occurrence across the split is
+	// still found whole in one of them
+	//
+	// the search gives up (returning -1) as soon as the given condition is true, and the number of bytes searched is passed on after every chunk
+	public long find(String text, boolean matchCase, long from, boolean down, BooleanSupplier stopped, LongConsumer onSearched) throws IOException {
+		final String target = matchCase ? text : text.toLowerCase();
+		
+		if (down) {
+			for (long start = from; start < size && !closed && !stopped.getAsBoolean();) {
+				final long end = lineStartAtOrAfter(Math.min(size, start + CHUNK_SIZE));
+				final String chunk = decodeRaw(start, end);
+				final int index = (matchCase ? chunk : chunk.toLowerCase()).indexOf(target);
+				
+				if (index != -1) return start + utf8Length(chunk, 0, index);
+				onSearched.accept(end - start);
+				if (end == size) break;
+				
+				start = isLineStart(end) ? end : Math.max(start + 1, start + utf8Length(chunk, 0, overlapStart(chunk, chunk.length() - target.length() + 1)));
+			}
+		}
+		else {
+			for (long end = from; end > 0 && !closed && !stopped.getAsBoolean();) {
+				final long start = lineStartAtOrBefore(Math.max(0, end - CHUNK_SIZE));
+				final String chunk = decodeRaw(start, end);
+				final int index = (matchCase ? chunk : chunk.toLowerCase()).lastIndexOf(target);
+				
+				if (index != -1) return start + utf8Length(chunk, 0, index);
+				onSearched.accept(end - start);
+				if (start == 0) break;
+				
+				end = isLineStart(start) ? start : Math.min(end - 1, start + utf8Length(chunk, 0, overlapStart(chunk, target.length() - 1)));
+			}
+		}
+		return -1;
+	}
+	
+	private boolean isLineStart(long offset) throws IOException {
+		return offset == 0 || offset == size || getByte(offset - 1) == '\n';
+	}
+	
+	// returns the given index of the chunk, clamped to it, and moved back off the second half of a surrogate pair so that the pair isn't split
+	private static int overlapStart(String chunk, int index) {
+		index = Math.max(0, Math.min(chunk.length(), index));
+		if (index > 0 && index < chunk.length() && Character.isLowSurrogate(chunk.charAt(index))) index--;
+		
+		return index;
+	}
+	
+	// returns the number of bytes the given range of characters takes up when encoded in UTF-8, without actually encoding them
+	public static long utf8Length(CharSequence text, int start, int end) {
+		long length = 0;
+		
+		for (int i = start; i < end; i++) {
+			final char c = text.charAt(i);
+			
+			if (c < 0x80) length++;
+			else if (c < 0x800) length += 2;
+			else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+				length += 4;
+				i++;
+			}
+			else length += 3;
+		}
+		return length;
+	}
+}
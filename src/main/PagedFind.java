@@ -0,0 +1,84 @@
+package main;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+// this class finds the next (or previous) occurrence of a text in a file opened in read-only mode (see the PagedFile class) on a background thread,
+// since the whole file may have to be searched before it's found (twice over, when wrapping around), which for a file of several gigabytes takes a
+// while; the progress is the share of the file searched so far, and the search can be stopped at any point (ex. by finding again, or opening another
+// file), the same way as searching in files (see the FileSearch class)
+final class PagedFind {
+	
+	private final PagedFile file;
+	private final String text;
+	private final boolean matchCase, down, wrapAround;
+	private final long from;
+	private final Runnable onProgress;
+	private final Consumer<PagedFind> onComplete;
+	private volatile boolean stopped = false, failed = false;
+	private volatile long searched = 0;  // the number of bytes searched so far
+	private volatile long result = -1;
+	
+	// both callbacks are called on the background thread: onProgress whenever another chunk of the file has been searched, and onComplete (with this
+	// instance) once the search is over, whether an occurrence was found or not, unless it has been stopped first
+	PagedFind(PagedFile file, String text, boolean matchCase, long from, boolean down, boolean wrapAround, Runnable onProgress,
+			Consumer<PagedFind> onComplete) {
+		this.file = file;
+		this.text = text;
+		this.matchCase = matchCase;
+		this.from = from;
+		this.down = down;
+		this.wrapAround = wrapAround;
+		this.onProgress = onProgress;
+		this.onComplete = onComplete;
+	}
+	
+	void start() {
+		final Thread thread = new Thread(this::run, "Find");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	void stop() {
+		stopped = true;
+	}
+	
+	// returns the percentage of the file that has been searched
+	int getProgress() {
+		return file.getSize() == 0 ? 100 : (int) Math.min(100, searched * 100 / file.getSize());
+	}
+	
+	String getText() {
+		return text;
+	}
+	
+	// returns the byte offset of the occurrence found, or -1 if there isn't one
+	long getResult() {
+		return result;
+	}
+	
+	// returns whether the file couldn't be read (ex. it was truncated while it was being searched)
+	boolean hasFailed() {
+		return failed;
+	}
+	
+	// when wrapping around, the rest of the file is searched from the other end; note that this searches the part before the starting offset again,
+	// up to the whole file, which is simpler than stopping at the starting offset, and only matters if there's no occurrence at all
+	private void run() {
+		try {
+			result = file.find(text, matchCase, from, down, () -> stopped, this::searched);
+			if (result == -1 && wrapAround && !stopped)
+				result = file.find(text, matchCase, down ? 0 : file.getSize(), down, () -> stopped, this::searched);
+		}
+		catch (IOException e) {
+			if (!stopped) e.printStackTrace();
+			failed = true;
+		}
+		if (!stopped) onComplete.accept(this);
+	}
+	
+	private void searched(long bytes) {
+		searched += bytes;
+		onProgress.run();
+	}
+}
@@ -0,0 +1,131 @@
+package main;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+// this class finds (or counts) all occurrences of a text in a large document using all of the available cores: the document is split into chunks, which
+// are searched in parallel on the common ForkJoinPool, then the results of the chunks are merged in order; each chunk overlaps the next one by the length
+// of the text minus 1, so that an occurrence that crosses the boundary between 2 chunks is still found (by the first of them), while an occurrence is
+// never found twice, since a chunk only reports the occurrences that start within it
+//
+// note that documents smaller than THRESHOLD are searched on the calling thread, since splitting them up costs more than it saves
+public final class ParallelSearch {
+	
+	// the threshold can be changed with -Dsearch.parallel.threshold=<characters>
+	public static final int THRESHOLD = Integer.getInteger("search.parallel.threshold", 4 << 20);
+	private static final int CHUNK_SIZE = 1 << 20;  // in characters; this is also how often the search checks whether it's been cancelled
+	
+	private ParallelSearch() {}
+	
+	// returns the offsets of all occurrences (including overlapping ones) in order, or null if there are more than the given limit or the search was
+	// cancelled; note that the document is usually a snapshot of the text, since it's searched from other threads
+	public static int[] findAll(String text, String query, boolean matchCase, int limit, BooleanSupplier cancelled) {
+		final AtomicInteger total = new AtomicInteger();
+		final Search search = new Search(text, query, matchCase, limit, cancelled, total, 0, chunkCount(text));
+		
+		return text.length() < THRESHOLD ? search.compute() : ForkJoinPool.commonPool().invoke(search);
+	}
+	
+	// returns the number of occurrences (including overlapping ones), or -1 if the search was cancelled; unlike "findAll", the offsets aren't kept, so
+	// there's no limit to the number of occurrences that can be counted
+	public static int count(String text, String query, boolean matchCase, BooleanSupplier cancelled) {
+		final AtomicInteger total = new AtomicInteger();
+		final Search search = new Search(text, query, matchCase, -1, cancelled, total, 0, chunkCount(text));
+		
+		if (text.length() < THRESHOLD) search.compute();
+		else ForkJoinPool.commonPool().invoke(search);
+		
+		return cancelled.getAsBoolean() ? -1 : total.get();
+	}
+	
+	private static int chunkCount(String text) {
+		return Math.max(1, (int) (((long) text.length() + CHUNK_SIZE - 1) / CHUNK_SIZE));
+	}
+	
+	// searches a range of chunks, splitting it in half until only a single chunk is left; the results are merged on the way back up, left before right,
+	// which keeps them in order; a limit of -1 means the occurrences are only counted (in total), and null is returned instead of their offsets
+	@SuppressWarnings("serial")
+	private static final class Search extends RecursiveTask<int[]> {
+		
+		private final String text, query;
+		private final boolean matchCase;
+		private final int limit;
+		private final BooleanSupplier cancelled;
+		private final AtomicInteger total;
+		private final int firstChunk, lastChunk;  // the range of chunks is exclusive of the last chunk
+		
+		private Search(String text, String query, boolean matchCase, int limit, BooleanSupplier cancelled, AtomicInteger total, int firstChunk,
+				int lastChunk) {
+			this.text = text;
+			this.query = query;
+			this.matchCase = matchCase;
+			this.limit = limit;
+			this.cancelled = cancelled;
+			this.total = total;
+			this.firstChunk = firstChunk;
+			this.lastChunk = lastChunk;
+		}
+		
+		@Override
+		protected int[] compute() {
+			if (lastChunk - firstChunk == 1) return searchChunk();
+			
+			final int middle = (firstChunk + lastChunk) >>> 1;
+			final Search left = new Search(text, query, matchCase, limit, cancelled, total, firstChunk, middle);
+			final Search right = new Search(text, query, matchCase, limit, cancelled, total, middle, lastChunk);
+			
+			right.fork();
+			
+			final int[] leftMatches = left.compute();
+			final int[] rightMatches = right.join();
+			
+			if (leftMatches == null || rightMatches == null) return null;
+			
+			final int[] matches = new int[leftMatches.length + rightMatches.length];
+			
+			System.arraycopy(leftMatches, 0, matches, 0, leftMatches.length);
+			System.arraycopy(rightMatches, 0, matches, leftMatches.length, rightMatches.length);
+			return matches;
+		}
+		
+		// note that a chunk is searched up to the length of the text minus 1 past its end, but only the occurrences starting within it are reported,
+		// which all of the occurrences found are, since an occurrence has to end before the end of the searched range
+		private int[] searchChunk() {
+			final int start = (int) Math.min(text.length(), (long) firstChunk * CHUNK_SIZE);
+			final int end = (int) Math.min(text.length(), (long) start + CHUNK_SIZE + query.length() - 1);
+			int[] matches = new int[limit == -1 ? 0 : 16];
+			int count = 0;
+			
+			if (cancelled.getAsBoolean() || (limit != -1 && total.get() > limit)) return null;
+			
+			for (int i = indexOf(text, query, matchCase, start, end); i != -1; i = indexOf(text, query, matchCase, i + 1, end)) {
+				if (limit != -1) {
+					if (count == matches.length) matches = Arrays.copyOf(matches, count * 2);
+					matches[count] = i;
+				}
+				count++;
+			}
+			// the limit is checked against the total of all of the chunks searched so far, so that the other chunks can stop early once it's exceeded
+			if (total.addAndGet(count) > limit && limit != -1) return null;
+			return limit == -1 ? matches : Arrays.copyOf(matches, count);
+		}
+	}
+	
+	// returns the offset of the first occurrence that lies entirely between the given offsets, or -1 if there isn't one; note that unlike lowercasing
+	// the whole text before searching it (as the find operations do), comparing ignoring case keeps the offsets the same as those of the text itself, and
+	// doesn't make a copy of it
+	public static int indexOf(String text, String query, boolean matchCase, int from, int to) {
+		if (matchCase) return text.indexOf(query, from, to);
+		
+		final char lower = Character.toLowerCase(query.charAt(0)), upper = Character.toUpperCase(query.charAt(0));
+		
+		for (int i = from; i <= to - query.length(); i++) {
+			final char c = text.charAt(i);
+			if ((c == lower || c == upper) && text.regionMatches(true, i, query, 0, query.length())) return i;
+		}
+		return -1;
+	}
+}
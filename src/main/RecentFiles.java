@@ -0,0 +1,129 @@
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// the files that were last opened or saved, most recent first, which the file browser lists on its side (see the FileBrowser class); like the search
+// history (see the SearchHistory class), the list is kept in a small file in the user's home directory, one path per line
+//
+// the metadata of the recent files is read in the background once the frame is shown (see "preload"), as is the listing of the folder of the most
+// recent one (see the DirectoryCache class), so that the browser can show both right away without reading anything on the EDT; a recent file that no
+// longer exists is left out of the list once its metadata has been read
+public final class RecentFiles {
+	
+	private static final int MAX_ENTRIES = 10;
+	
+	// the file can be changed with -Drecent.files=<path>
+	private static final String FILE_PROPERTY = "recent.files";
+	
+	private static RecentFiles instance;
+	
+	private final StateFile file;
+	private final List<Path> paths = new ArrayList<>();  // only accessed on the EDT
+	private final Map<Path, DirectoryCache.Entry> entries = new ConcurrentHashMap<>();
+	private final Set<Path> missing = ConcurrentHashMap.newKeySet();
+	
+	public static RecentFiles getInstance() {
+		if (instance == null) instance = new RecentFiles();
+		return instance;
+	}
+	
+	private RecentFiles() {
+		final String file = System.getProperty(FILE_PROPERTY);
+		this.file = new StateFile(file != null ? Paths.get(file) : Paths.get(System.getProperty("user.home"), ".text-editor", "recent-files"),
+				"Recent Files");
+		load();
+	}
+	
+	// returns the recent files, leaving out those known not to exist anymore
+	public List<Path> get() {
+		final List<Path> existing = new ArrayList<>();
+		
+		for (Path recent : paths)
+			if (!missing.contains(recent)) existing.add(recent);
+		return existing;
+	}
+	
+	// returns the metadata of the given recent file, or null if it hasn't been read (yet)
+	public DirectoryCache.Entry getEntry(Path recent) {
+		return entries.get(recent);
+	}
+	
+	public void add(File file) {
+		final Path recent = file.toPath().toAbsolutePath();
+		
+		if (!paths.isEmpty() && paths.get(0).equals(recent)) return;
+		
+		paths.remove(recent);
+		paths.add(0, recent);
+		if (paths.size() > MAX_ENTRIES) paths.remove(paths.size() - 1);
+		
+		missing.remove(recent);
+		entries.remove(recent);  // its metadata is read again the next time the recent files are preloaded
+		save();
+	}
+	
+	// reads the metadata of the recent files and lists the folder of the most recent one on a background thread; this is called once the frame has
+	// been shown, so as to not compete with it for the disk
+	public void preload() {
+		final List<Path> recent = new ArrayList<>(paths);
+		
+		final Thread thread = new Thread(() -> {
+			for (Path file : recent) {
+				try {
+					entries.put(file, DirectoryCache.Entry.read(file));
+				}
+				catch (IOException e) {
+					missing.add(file);
+				}
+			}
+			for (Path file : recent) {
+				if (missing.contains(file) || file.getParent() == null) continue;
+				
+				DirectoryCache.getInstance().list(file.getParent());
+				break;
+			}
+		}, "Recent Files Preloader");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	private void load() {
+		final Path path = file.getPath();
+		if (!Files.isRegularFile(path)) return;
+		
+		try {
+			for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+				if (line.isEmpty() || paths.size() == MAX_ENTRIES) continue;
+				
+				try {
+					paths.add(Paths.get(line));
+				}
+				catch (InvalidPathException e) {
+					continue;
+				}
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private void save() {
+		final StringBuilder builder = new StringBuilder();
+		
+		for (Path recent : paths) builder.append(recent).append('\n');
+		
+		file.save(builder);
+	}
+}
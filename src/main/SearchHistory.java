@@ -0,0 +1,107 @@
+package main;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// the texts that were last searched for and replaced with, most recent first, which the find and replace fields list in a drop-down (see the
+// HistoryDropDown class); the history is kept in a small file in the user's home directory, so that it's kept between sessions, and is only read
+// the first time it's needed
+//
+// every text is kept once, and searching for a text that's already in the history moves it to the front of it, dropping the least recently used
+// texts once there are too many; texts that are too long (ex. a large pasted pattern) aren't kept at all
+public final class SearchHistory {
+	
+	public static final int FIND = 0, REPLACE = 1;
+	
+	private static final int MAX_ENTRIES = 20;   // of each kind
+	private static final int MAX_LENGTH = 1000;  // of a text that's kept
+	private static final char[] PREFIXES = { 'f', 'r' };
+	
+	// the file can be changed with -Dsearch.history=<path>
+	private static final String FILE_PROPERTY = "search.history";
+	
+	private static SearchHistory instance;
+	
+	private final StateFile file;
+	private final List<List<String>> entries = List.of(new ArrayList<>(), new ArrayList<>());
+	
+	public static SearchHistory getInstance() {
+		if (instance == null) instance = new SearchHistory();
+		return instance;
+	}
+	
+	private SearchHistory() {
+		final String file = System.getProperty(FILE_PROPERTY);
+		this.file = new StateFile(file != null ? Paths.get(file) : Paths.get(System.getProperty("user.home"), ".text-editor", "search-history"),
+				"Search History");
+		load();
+	}
+	
+	public List<String> get(int kind) {
+		return new ArrayList<>(entries.get(kind));
+	}
+	
+	public void add(int kind, String text) {
+		final List<String> list = entries.get(kind);
+		
+		if (text.isEmpty() || text.length() > MAX_LENGTH || (!list.isEmpty() && list.get(0).equals(text))) return;
+		
+		list.remove(text);
+		list.add(0, text);
+		if (list.size() > MAX_ENTRIES) list.remove(list.size() - 1);
+		
+		save();
+	}
+	
+	// every line is a text, prefixed with its kind; note that line feeds (and the backslashes used to escape them) are escaped
+	private void load() {
+		final Path path = file.getPath();
+		if (!Files.isRegularFile(path)) return;
+		
+		try {
+			for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+				if (line.length() < 2) continue;
+				
+				for (int kind = 0; kind < PREFIXES.length; kind++)
+					if (line.charAt(0) == PREFIXES[kind] && entries.get(kind).size() < MAX_ENTRIES) entries.get(kind).add(unescape(line.substring(2)));
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private void save() {
+		final StringBuilder builder = new StringBuilder();
+		
+		for (int kind = 0; kind < PREFIXES.length; kind++)
+			for (String text : entries.get(kind)) builder.append(PREFIXES[kind]).append(':').append(escape(text)).append('\n');
+		
+		file.save(builder);
+	}
+	
+	private static String escape(String text) {
+		return text.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+	}
+	
+	private static String unescape(String text) {
+		final StringBuilder builder = new StringBuilder(text.length());
+		
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			
+			if (c != '\\' || i + 1 == text.length()) {
+				builder.append(c);
+				continue;
+			}
+			final char next = text.charAt(++i);
+			builder.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+		}
+		return builder.toString();
+	}
+}
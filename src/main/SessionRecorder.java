@@ -0,0 +1,288 @@
+package main;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.BadLocationException;
+
+// this class records an editing session as a compact log of what the user did (typing, deleting, pasting, finding, replacing, undoing and saving, as
+// well as starting a new text and opening files), so that the session can be replayed headless against the real components to measure the latency
+// of every operation along with everything it sets off (see bench.SessionReplay); every event is a byte for its type followed by its fields, with
+// numbers written as variable-length integers, so that a keystroke takes up around 4 bytes
+//
+// an edit is recorded from the document's edit listener, where the removal and insertion of the same event (ex. typing over a selection) are merged
+// into a single edit, as are the chunks of a streamed insertion (see the StreamedInsertion class); the edits made by a recorded operation (ex.
+// replacing) are part of that operation, so they aren't recorded on their own; note that edits that don't go through the edit listener (ex. typing
+// with several carets, or sorting lines) aren't recorded
+//
+// the recorder is only enabled when the application is started with -Dsession.record=<file>; like the latency monitor, ENABLED is a static final
+// constant, so the hooks cost nothing when it's disabled; also, note that the log holds the text that was typed and pasted
+public final class SessionRecorder {
+	
+	public static final String FILE = System.getProperty("session.record");
+	public static final boolean ENABLED = FILE != null;
+	
+	// the types of events
+	public static final int NEW = 0, OPEN = 1, TYPE = 2, DELETE = 3, PASTE = 4, FIND_NEXT = 5, FIND_PREVIOUS = 6, REPLACE = 7, REPLACE_ALL = 8,
+			UNDO = 9, REDO = 10, SAVE = 11;
+	
+	// the flags of the find options
+	public static final int FIND_DOWN = 1, MATCH_CASE = 2, WRAP_AROUND = 4;
+	
+	private static final int MAGIC = 0x54455331;  // "TES1"
+	
+	private static SessionRecorder instance;
+	
+	private DataOutputStream out;
+	
+	// the edit that's yet to be written, since the next edit may still be merged into it
+	private int pendingOffset = -1, pendingLength;
+	private final StringBuilder pendingText = new StringBuilder();
+	private AWTEvent pendingEvent;
+	private boolean pendingStreamed;
+	
+	private AWTEvent operationEvent = null;  // the event of the last recorded operation, whose edits are part of it
+	
+	// a recorded event, as read back from the log; which of the fields are used depends on the type (see "read")
+	public static final class Event {
+		
+		public int type;
+		public int offset, length;                   // of the text removed by an edit
+		public String text;                          // inserted by an edit, the text to find, or the path of an opened file
+		public String replacement;
+		public int findFromIndex, findToIndex, flags;  // the range being searched by a find (or a replacement), and the find options
+	}
+	
+	private SessionRecorder() {}
+	
+	public static SessionRecorder getInstance() {
+		if (instance == null) instance = new SessionRecorder();
+		return instance;
+	}
+	
+	// opens the log (replacing any log already there) and makes sure the last of it is written when the application exits; this should be called
+	// once, before the frame is created
+	public void install() {
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(Paths.get(FILE))));
+			out.writeInt(MAGIC);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(this::close, "Session Recorder"));
+	}
+	
+	// called by the text area's edit listener for every edit made by the user; the edit is streamed if it's a chunk of a streamed insertion
+	public synchronized void edited(DocumentEvent e, boolean streamed) {
+		final AWTEvent event = EventQueue.getCurrentEvent();
+		if (out == null || (event != null && event == operationEvent)) return;
+		
+		final boolean insert = e.getType() == DocumentEvent.EventType.INSERT;
+		final int offset = e.getOffset();
+		
+		if (insert && pendingOffset != -1 && offset == pendingOffset + pendingText.length() && ((event != null && event == pendingEvent) ||
+				(streamed && pendingStreamed))) {
+			appendInserted(e);
+			return;
+		}
+		writePending();
+		pendingOffset = offset;
+		pendingLength = insert ? 0 : e.getLength();
+		pendingEvent = event;
+		pendingStreamed = streamed;
+		
+		if (insert) appendInserted(e);
+	}
+	
+	private void appendInserted(DocumentEvent e) {
+		try {
+			pendingText.append(e.getDocument().getText(e.getOffset(), e.getLength()));
+		}
+		catch (BadLocationException ex) {
+			ex.printStackTrace();
+		}
+	}
+	
+	// records an operation that doesn't take any arguments (ex. undoing); note that the state it depends on (ex. the text to find, or whether there's
+	// a file to save to) is taken from the text area and the file manager
+	public void record(int type) {
+		record(type, 0, 0);
+	}
+	
+	// the same as above, with the range being searched for a find or a replacement
+	public synchronized void record(int type, int findFromIndex, int findToIndex) {
+		if (out == null) return;
+		
+		writePending();
+		operationEvent = EventQueue.getCurrentEvent();
+		
+		final AppTextArea textArea = AppTextArea.getInstance();
+		
+		try {
+			out.writeByte(type);
+			
+			if (type >= FIND_NEXT && type <= REPLACE_ALL) {
+				writeNumber(findFromIndex);
+				writeNumber(findToIndex);
+				out.writeByte((textArea.getFindDown() ? FIND_DOWN : 0) | (textArea.getFindMatchCase() ? MATCH_CASE : 0) |
+						(textArea.getFindWrapAround() ? WRAP_AROUND : 0));
+				writeText(textArea.getTextToFind());
+				
+				if (type >= REPLACE) writeText(textArea.getReplacementText());
+			}
+			// the log is written out whenever the file is, so that little is lost if the application doesn't exit normally
+			if (type == SAVE || type == NEW) out.flush();
+		}
+		catch (IOException e) {
+			failed(e);
+		}
+	}
+	
+	public synchronized void opened(File file) {
+		if (out == null) return;
+		
+		writePending();
+		
+		try {
+			out.writeByte(OPEN);
+			writeText(file.getAbsolutePath());
+			out.flush();
+		}
+		catch (IOException e) {
+			failed(e);
+		}
+	}
+	
+	private synchronized void close() {
+		if (out == null) return;
+		
+		writePending();
+		
+		try {
+			out.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		out = null;
+	}
+	
+	// a single inserted character is written as a keystroke, and any other insertion as a paste
+	private void writePending() {
+		if (pendingOffset == -1) return;
+		
+		try {
+			final int type = pendingText.length() == 0 ? DELETE : pendingText.length() == 1 ? TYPE : PASTE;
+			
+			out.writeByte(type);
+			writeNumber(pendingOffset);
+			writeNumber(pendingLength);
+			
+			if (type == TYPE) writeNumber(pendingText.charAt(0));
+			else if (type == PASTE) writeText(pendingText);
+		}
+		catch (IOException e) {
+			failed(e);
+		}
+		pendingOffset = -1;
+		pendingText.setLength(0);
+		pendingEvent = null;
+	}
+	
+	// stops recording once the log can't be written to, rather than failing on every event after that
+	private void failed(IOException e) {
+		e.printStackTrace();
+		out = null;
+	}
+	
+	// 7 bits at a time, lowest first, with the highest bit of every byte but the last one set
+	private void writeNumber(int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+	
+	private void writeText(CharSequence text) throws IOException {
+		final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+		
+		writeNumber(bytes.length);
+		out.write(bytes);
+	}
+	
+	// reads the header of a log, throwing an IOException if it isn't one
+	public static void readHeader(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC) throw new IOException("Not a session log");
+	}
+	
+	// reads the next event of a log, or returns null at the end of it
+	public static Event read(DataInputStream in) throws IOException {
+		final int type = in.read();
+		if (type == -1) return null;
+		
+		final Event event = new Event();
+		event.type = type;
+		
+		switch (type) {
+			case OPEN:
+				event.text = readText(in);
+				break;
+			case TYPE:
+			case DELETE:
+			case PASTE:
+				event.offset = readNumber(in);
+				event.length = readNumber(in);
+				event.text = type == TYPE ? String.valueOf((char) readNumber(in)) : type == PASTE ? readText(in) : "";
+				break;
+			case FIND_NEXT:
+			case FIND_PREVIOUS:
+			case REPLACE:
+			case REPLACE_ALL:
+				event.findFromIndex = readNumber(in);
+				event.findToIndex = readNumber(in);
+				event.flags = in.readUnsignedByte();
+				event.text = readText(in);
+				if (type >= REPLACE) event.replacement = readText(in);
+				break;
+			case NEW:
+			case UNDO:
+			case REDO:
+			case SAVE:
+				break;
+			default:
+				throw new IOException("Unknown event type " + type);
+		}
+		return event;
+	}
+	
+	private static int readNumber(DataInputStream in) throws IOException {
+		int value = 0;
+		
+		for (int shift = 0; shift < 35; shift += 7) {
+			final int b = in.readUnsignedByte();
+			value |= (b & 0x7f) << shift;
+			
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Malformed number");
+	}
+	
+	private static String readText(DataInputStream in) throws IOException {
+		final byte[] bytes = new byte[readNumber(in)];
+		
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,157 @@
+package main;
+
+import java.awt.Font;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// the state the editor was closed in (the file that was open, the caret and the first line shown, the font, the zoom, the text wrapping and the find
+// options), which is written to a small file in the user's home directory when the application exits, and restored the next time it's started; the
+// snapshot is a header followed by the state, deflated, so that it only takes up a few kilobytes even with the page of text it keeps (see below)
+//
+// restoring is lazy, so that the frame is shown as quickly as it would be without a file: the snapshot keeps the text of the lines that were shown,
+// which is put in the text area before the frame is first painted, while the file itself is read and decoded in the background (or, if it's too large
+// to be loaded, mapped and indexed, see the PagedFile class); the caret and the scroll position are only restored once the file has been loaded, and
+// the page is only shown if the file hasn't been changed since (going by its size and the time it was last modified), and if it didn't have unsaved
+// changes when the editor was closed
+//
+// restoring can be disabled with -Dsession.restore=false, and the file can be changed with -Dsession.snapshot=<path>
+public final class SessionSnapshot {
+	
+	private static final boolean ENABLED = !"false".equals(System.getProperty("session.restore"));
+	
+	private static final int MAGIC = 0x54455332;            // "TES2"
+	private static final int MAX_PAGE_LENGTH = 1 << 16;     // the number of characters of the page kept, in case the lines shown are very long
+	private static final int MAX_FIND_LENGTH = 1000;        // texts to find that are longer than this (ex. a large pasted pattern) aren't kept
+	
+	// the flags of the state
+	private static final int WRAPPED = 1, MATCH_CASE = 2, FIND_DOWN = 4, WRAP_AROUND = 8, READ_ONLY = 16;
+	
+	private static SessionSnapshot instance;
+	
+	private final Path path;
+	
+	public static SessionSnapshot getInstance() {
+		if (instance == null) instance = new SessionSnapshot();
+		return instance;
+	}
+	
+	private SessionSnapshot() {
+		final String file = System.getProperty("session.snapshot");
+		path = file != null ? Paths.get(file) : Paths.get(System.getProperty("user.home"), ".text-editor", "session");
+	}
+	
+	// writes the snapshot; this is called on the EDT when the application exits, once any unsaved changes have been saved (or discarded), and the
+	// snapshot is small enough that it isn't worth doing in the background; note that a file that's still being loaded keeps the snapshot it was
+	// restored from, since the state of the text area is only that of the page
+	public void save() {
+		if (!ENABLED || EditorState.getInstance().is(EditorState.LOADING)) return;
+		
+		final AppTextArea textArea = AppTextArea.getInstance();
+		final File file = FileManager.getInstance().getFile();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		try {
+			new DataOutputStream(bytes).writeInt(MAGIC);
+			
+			try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+				final Font font = textArea.getTextFont();
+				
+				out.writeByte((textArea.getTextWrapping() ? WRAPPED : 0) | (textArea.getFindMatchCase() ? MATCH_CASE : 0) |
+						(textArea.getFindDown() ? FIND_DOWN : 0) | (textArea.getFindWrapAround() ? WRAP_AROUND : 0) |
+						(textArea.isReadOnly() ? READ_ONLY : 0));
+				out.writeUTF(font.getFamily());
+				out.writeByte(font.getStyle());
+				out.writeShort(textArea.getBaseFontSize());
+				out.writeShort(textArea.getZoom());
+				writeFindText(out, textArea.getTextToFind());
+				writeFindText(out, textArea.getReplacementText());
+				out.writeUTF(file == null ? "" : file.getAbsolutePath());
+				
+				if (file != null) {
+					out.writeLong(file.length());
+					out.writeLong(file.lastModified());
+					for (long offset : textArea.getViewOffsets()) out.writeLong(offset);
+					
+					// the text of a compressed file is only known once it's been decompressed, so there's no point in keeping its page
+					final boolean pageKept = !EditorState.getInstance().is(EditorState.DIRTY) && !EditorState.getInstance().is(EditorState.COMPRESSED);
+					final byte[] page = pageKept ? textArea.getVisibleText(MAX_PAGE_LENGTH).getBytes(StandardCharsets.UTF_8) : new byte[0];
+					
+					out.writeInt(page.length);
+					out.write(page);
+				}
+			}
+			// the snapshot is written to a temporary file first and then moved over the old one, so that it's never left half written
+			final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+			
+			Files.createDirectories(path.toAbsolutePath().getParent());
+			Files.write(temp, bytes.toByteArray());
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	// restores the snapshot; this is called on the EDT while the frame is being created, before it's shown, so that the frame is first painted with
+	// the font, the zoom and the page of the last session, rather than being painted once without them
+	public void restore() {
+		if (!ENABLED || !Files.isRegularFile(path)) return;
+		
+		try (InputStream stream = new BufferedInputStream(Files.newInputStream(path))) {
+			if (new DataInputStream(stream).readInt() != MAGIC) return;
+			
+			final DataInputStream in = new DataInputStream(new InflaterInputStream(stream));
+			final AppTextArea textArea = AppTextArea.getInstance();
+			final int flags = in.readUnsignedByte();
+			
+			textArea.setTextFont(in.readUTF(), in.readUnsignedByte(), in.readUnsignedShort());
+			textArea.setZoom(in.readUnsignedShort());
+			textArea.setTextWrapping((flags & WRAPPED) != 0);
+			textArea.setFindMatchCase((flags & MATCH_CASE) != 0);
+			textArea.setFindDown((flags & FIND_DOWN) != 0);
+			textArea.setFindWrapAround((flags & WRAP_AROUND) != 0);
+			textArea.setTextToFind(in.readUTF());
+			textArea.setReplacementText(in.readUTF());
+			
+			final String filePath = in.readUTF();
+			if (filePath.isEmpty()) return;
+			
+			final long size = in.readLong(), lastModified = in.readLong();
+			final long top = in.readLong(), caret = in.readLong(), mark = in.readLong();
+			final byte[] page = new byte[in.readInt()];
+			
+			in.readFully(page);
+			
+			final File file = new File(filePath);
+			if (!file.isFile()) return;
+			
+			final boolean unchanged = file.length() == size && file.lastModified() == lastModified;
+			final boolean readOnly = (flags & READ_ONLY) != 0;
+			
+			// the offsets are only restored if the file is opened in the same mode as it was (ex. not if the threshold of read-only mode was changed
+			// since), as they're byte offsets in read-only mode
+			FileManager.getInstance().restore(file, unchanged && page.length > 0 ? new String(page, StandardCharsets.UTF_8) : null, () -> {
+				if (textArea.isReadOnly() == readOnly) textArea.setViewOffsets(top, caret, mark);
+			});
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private static void writeFindText(DataOutputStream out, String text) throws IOException {
+		out.writeUTF(text.length() > MAX_FIND_LENGTH ? "" : text);
+	}
+}
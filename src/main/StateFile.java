@@ -0,0 +1,53 @@
+package main;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// a small text file in which the editor keeps some of its state between sessions (ex. the search history, see the SearchHistory class), which is saved
+// on a background thread whenever the state changes; the file is written to a temporary file first and then moved over the old one, so that it's
+// never left half written, and every save is numbered, so that a save that's been overtaken by a later one (ex. two searches in quick succession) is
+// skipped rather than overwriting the later one
+final class StateFile {
+	
+	private final Path path;
+	private final String threadName;
+	private int version = 0;       // incremented on every save, on the EDT
+	private int savedVersion = 0;  // guarded by this instance
+	
+	StateFile(Path path, String threadName) {
+		this.path = path;
+		this.threadName = threadName;
+	}
+	
+	Path getPath() {
+		return path;
+	}
+	
+	// saves the given content, which mustn't be changed afterwards, since it's written on the background thread
+	void save(CharSequence content) {
+		final int version = ++this.version;
+		
+		final Thread thread = new Thread(() -> {
+			synchronized (this) {
+				if (version < savedVersion) return;
+				
+				try {
+					final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+					
+					Files.createDirectories(path.toAbsolutePath().getParent());
+					Files.writeString(temp, content, StandardCharsets.UTF_8);
+					Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					savedVersion = version;
+				}
+				catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}, threadName);
+		thread.setDaemon(true);
+		thread.start();
+	}
+}
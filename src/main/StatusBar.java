@@ -1,13 +1,19 @@
 package main;
 
+import java.awt.Color;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSeparator;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.text.BadLocationException;
 
 @SuppressWarnings("serial")
@@ -16,8 +22,29 @@ public final class StatusBar extends JPanel {
 	private static StatusBar instance;
 	private JLabel[] labels = new JLabel[7];
 	
+	// the word count is computed on a single background (daemon) thread, so that it never delays the handling of the next key event, and it's
+	// refreshed at most once per WORD_COUNT_DELAY milliseconds, regardless of how many edits are made in that time
+	private static final int WORD_COUNT_DELAY = 150;
+	private final ExecutorService statsExecutor = Executors.newSingleThreadExecutor(r -> {
+		final Thread thread = new Thread(r, "Status Bar Statistics");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicLong wordCountGeneration = new AtomicLong();
+	private final Timer wordCountTimer = new Timer(WORD_COUNT_DELAY, e -> updateWordCount());
+	private boolean caretInfoPending = false;
+	private final JLabel latencyLabel = new JLabel();
+	private final JLabel memoryLabel = new JLabel();
+	private final JLabel progressLabel = new JLabel();  // fills the space between the two sets of labels
+	
+	// the word count shown, along with the number of words known to have been added since the last snapshot was taken (see "updateTextInfo(int)"),
+	// which are added to the count of that snapshot once it's done
+	private int wordCount = 0;
+	private int wordCountDelta = 0;
+	
 	private StatusBar() {
 		super(new GridBagLayout());
+		wordCountTimer.setRepeats(false);
 		
 		final GridBagConstraints gbc = new GridBagConstraints();
 		final int halfCount = labels.length / 2;
@@ -43,7 +70,7 @@ public final class StatusBar extends JPanel {
 		// as much as possible)
 		gbc.weightx = 1.0;
 		gbc.fill = GridBagConstraints.HORIZONTAL;  // allows component to be resized horizontally
-		add(new JLabel(), gbc);                    // add an empty label to fill the space
+		add(progressLabel, gbc);                   // add a label (which is empty unless progress is shown) to fill the space
 		gbc.gridx++;                               // move to the column after the empty space (label)
 		gbc.weightx = 0.0;                         // reset weightx, specifying that component should not be resized
 		gbc.fill = GridBagConstraints.NONE;        // doesn't allow component to be resized
@@ -60,6 +87,24 @@ public final class StatusBar extends JPanel {
 			add(labels[i], gbc);
 			gbc.gridx++;
 		}
+		// the memory warning is only shown once memory has been freed up (see the MemoryGovernor class)
+		memoryLabel.setFont(labels[0].getFont());
+		memoryLabel.setForeground(Color.RED.darker());
+		memoryLabel.setVisible(false);
+		add(memoryLabel, gbc);
+		gbc.gridx++;
+		
+		// the latency readout is only shown if the latency monitor is enabled; note that it's refreshed on a timer rather than on every edit, so that
+		// the readout itself doesn't add to the latency it's reporting
+		if (LatencyMonitor.ENABLED) {
+			latencyLabel.setFont(labels[0].getFont());
+			gbc.fill = GridBagConstraints.VERTICAL;
+			add(new JSeparator(JSeparator.VERTICAL), gbc);
+			gbc.gridx++;
+			gbc.fill = GridBagConstraints.NONE;
+			add(latencyLabel, gbc);
+			new Timer(1000, e -> updateLatencyInfo()).start();
+		}
 		setVisible(true);
 		update();
 	}
@@ -75,39 +120,143 @@ public final class StatusBar extends JPanel {
 		updateZoomInfo();
 	}
 	
+	// note that the length and line count are both kept track of by the document itself, meaning they can be read in constant time and are therefore
+	// updated immediately; the word count, on the other hand, requires scanning the entire text, so it's computed in the background (see below)
 	public void updateTextInfo() {
-		if (isVisible()) {
-			final String text = AppTextArea.getInstance().getText();
-			final int length = text.length();
+		if (isVisible() && AppTextArea.getInstance().isReadOnly()) {
+			// in read-only mode, the text area only holds a window of the file, so the statistics of the whole file are taken from its line index
+			// instead; note that these are only partial until the index is complete
+			final PagedFile file = AppTextArea.getInstance().getPagedFile();
+			final String partial = file.isIndexComplete() ? "" : "+";
 			
-			// split text content into array of strings with whitespace characters as delimiters (using regex), then get the array length; note that
-			// using split on an empty string returns an array with that empty string as the only element, rather than returning an empty array
-			int wordCount = (length == 0 ? 0 : text.split("\\s+").length);
+			labels[0].setText("Length: " + file.getSize() + " bytes");
+			labels[1].setText("Lines: " + file.getLineCount() + partial);
+			labels[2].setText("Words: " + file.getWordCount() + partial);
+		}
+		else if (isVisible()) {
+			labels[0].setText("Length: " + AppTextArea.getInstance().getTextLength());
+			labels[1].setText("Lines: " + AppTextArea.getInstance().getLineCount());
 			
-			labels[0].setText("Length: " + length);
+			// the timer isn't restarted if it's already running, so that the word count is still refreshed periodically while typing continuously
+			if (!wordCountTimer.isRunning()) wordCountTimer.start();
+		}
+	}
+	
+	// the same as above, but for edits whose effect on the word count is already known (ex. the chunks of a streamed insertion, whose words are counted
+	// as they're read), so that the text doesn't have to be counted again; note that the text isn't in read-only mode when it's edited
+	public void updateTextInfo(int addedWords) {
+		wordCount += addedWords;
+		wordCountDelta += addedWords;
+		
+		if (isVisible()) {
+			labels[0].setText("Length: " + AppTextArea.getInstance().getTextLength());
 			labels[1].setText("Lines: " + AppTextArea.getInstance().getLineCount());
 			labels[2].setText("Words: " + wordCount);
 		}
 	}
 	
-	public void updateCaretInfo() {
-		if (isVisible()) {
-			try {
-				int pos = AppTextArea.getInstance().getCaretPosition();
-				int line = AppTextArea.getInstance().getLineOfOffset(pos);
-				int col = pos - AppTextArea.getInstance().getLineStartOffset(line);
+	// shows the progress of a long running operation (ex. inserting a large amount of text), or clears it if the given text is null
+	public void setProgress(String text) {
+		progressLabel.setText(text == null ? "" : text);
+	}
+	
+	// shows the step taken to free up memory, or hides the warning if the given text is null
+	public void setMemoryInfo(String text) {
+		memoryLabel.setText(text == null ? "" : text);
+		memoryLabel.setVisible(text != null);
+		revalidate();
+	}
+	
+	// counts the words of the text on the background thread, reading them from the document itself rather than from a copy of the text, which would
+	// take time proportional to its length on the EDT after every burst of edits; the count is dropped if the text is changed while it's being counted
+	// (see "countWords" in the AppTextArea class), in which case the timer has been restarted by the change, so the text is counted again once the
+	// change has been made (which, for a large text that's being typed into continuously, means the count is only refreshed once typing pauses); a
+	// generation number is used to drop any count that has been superseded by a newer one by the time it's processed, so that only the latest result
+	// is shown
+	private void updateWordCount() {
+		final int version = AppTextArea.getInstance().getTextVersion();
+		final long generation = wordCountGeneration.incrementAndGet();
+		
+		wordCountDelta = 0;
+		
+		statsExecutor.execute(() -> {
+			if (generation != wordCountGeneration.get()) return;
+			
+			final int count = AppTextArea.getInstance().countWords(version);
+			if (count == -1) return;
+			
+			SwingUtilities.invokeLater(() -> {
+				if (generation != wordCountGeneration.get()) return;
 				
-				labels[3].setText("Ln: " + (line + 1));
-				labels[4].setText("Col: " + (col + 1));
-				labels[5].setText("Pos: " + (pos + 1));
-			}
-			catch (BadLocationException e) {
-				e.printStackTrace();
-			}
+				wordCount = count + wordCountDelta;
+				labels[2].setText("Words: " + wordCount);
+			});
+		});
+	}
+	
+	// counts the runs of non-whitespace characters in a single pass; the whitespace characters are the same as those matched by "\\s" in regex, which
+	// was previously used to split the text, though unlike splitting, this doesn't allocate an array of every word, and leading whitespace isn't
+	// counted as an (empty) word
+	public static int countWords(CharSequence text) {
+		int count = 0;
+		boolean inWord = false;
+		
+		for (int i = 0; i < text.length(); i++) {
+			final boolean whitespace = isWhitespace(text.charAt(i));
+			
+			if (!whitespace && !inWord) count++;
+			inWord = !whitespace;
+		}
+		return count;
+	}
+	
+	public static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+	}
+	
+	// the caret position, line and column can all be found in (at most) logarithmic time, but because many caret events can be fired for a single edit
+	// (ex. replacing all occurrences of some text), updates are coalesced so that the labels are only updated once all pending events are handled;
+	// note that unlike the word count, these are read from the document itself, which is only safe to do on the EDT
+	public void updateCaretInfo() {
+		if (isVisible() && !caretInfoPending) {
+			caretInfoPending = true;
+			SwingUtilities.invokeLater(this::showCaretInfo);
+		}
+	}
+	
+	private void showCaretInfo() {
+		caretInfoPending = false;
+		
+		try {
+			int pos = AppTextArea.getInstance().getCaretPosition();
+			int line = AppTextArea.getInstance().getLineOfOffset(pos);
+			int col = pos - AppTextArea.getInstance().getLineStartOffset(line);
+			
+			// in read-only mode, the line is offset by the line the window starts at (which is unknown until the line index reaches it), and the
+			// position is the byte offset in the file, since the character offset would require decoding the file up to the caret
+			final long firstLine = AppTextArea.getInstance().getFirstLine();
+			final boolean readOnly = AppTextArea.getInstance().isReadOnly();
+			
+			labels[3].setText("Ln: " + (firstLine == -1 ? "?" : String.valueOf(firstLine + line + 1)));
+			labels[4].setText("Col: " + (col + 1));
+			labels[5].setText("Pos: " + ((readOnly ? AppTextArea.getInstance().getCaretByteOffset() : pos) + 1));
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
 		}
 	}
 	
 	public void updateZoomInfo() {
 		if (isVisible()) labels[6].setText(AppTextArea.getInstance().getZoom() + "%");
 	}
+	
+	public void updateLatencyInfo() {
+		if (isVisible()) {
+			final LatencyMonitor.Snapshot edit = LatencyMonitor.getInstance().getEditListeners();
+			final LatencyMonitor.Snapshot paint = LatencyMonitor.getInstance().getEditToPaint();
+			
+			latencyLabel.setText(String.format("Edit p99: %.1f ms  Paint p99: %.1f ms  Stalls: %d",
+					edit.getP99Micros() / 1000.0, paint.getP99Micros() / 1000.0, LatencyMonitor.getInstance().getEdtStalls().getCount()));
+		}
+	}
 }
@@ -0,0 +1,228 @@
+package main;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.swing.SwingUtilities;
+
+// this class inserts a large amount of text (ex. a large paste, or the contents of files dropped onto the text area) a chunk at a time: the text is
+// read, and its line separators normalized, on a background thread that stays at most a couple of chunks ahead of the EDT, which then inserts each chunk
+// in an event of its own, so that the text area stays responsive (and the progress can be shown) in the meantime; note that unlike pasting normally,
+// which reads the whole text into a single string before inserting it, the text is never held in full outside of the document
+//
+// the chunks are all collected into a single edit by the text area (see "startInsertion"), and the words of each chunk are counted as it's inserted,
+// so that the word count can be updated from those rather than counted again from the entire text
+final class StreamedInsertion {
+	
+	static final int THRESHOLD = 1 << 20;            // texts shorter than this (in characters) are inserted in one go, the same as before
+	private static final int CHUNK_SIZE = 1 << 21;  // in characters
+	private static final int MAX_PENDING_CHUNKS = 2;
+	private static final String END = new String();  // queued once there's nothing left to read (compared by reference)
+	
+	private final Reader reader;
+	private final CountingInputStream input;  // the bytes of the files being inserted (or null for other text, whose size isn't known)
+	private final long size;
+	private final BlockingQueue<String> chunks = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+	private volatile boolean stopped = false;
+	
+	private String start;                     // the text that was already read before the insertion was started (if any)
+	private boolean afterCarriageReturn = false;  // whether the last character read was a carriage return (note that it was normalized already)
+	private boolean inWord;                   // whether the last character read (or the one before the insertion) is part of a word
+	private int offset;                       // where the next chunk is inserted
+	private long inserted = 0;                // the number of characters inserted so far
+	private char last;                        // the last character inserted
+	
+	private StreamedInsertion(Reader reader, CountingInputStream input, long size, String start) {
+		this.reader = reader;
+		this.input = input;
+		this.size = size;
+		this.start = start;
+	}
+	
+	// the given text is the start of what the reader reads, which has been read already (to find out whether it's too large to be inserted in one go)
+	static StreamedInsertion ofText(Reader reader, String start) {
+		return new StreamedInsertion(reader, null, -1, start);
+	}
+	
+	// the files are inserted one after the other, decoded as UTF-8 (the same as when they're opened), with malformed input replaced
+	static StreamedInsertion ofFiles(List<File> files) throws IOException {
+		final List<InputStream> streams = new ArrayList<>();
+		long size = 0;
+		
+		for (File file : files) {
+			streams.add(Files.newInputStream(file.toPath()));
+			size += file.length();
+		}
+		final CountingInputStream input = new CountingInputStream(new SequenceInputStream(Collections.enumeration(streams)));
+		
+		return new StreamedInsertion(new InputStreamReader(input, StandardCharsets.UTF_8), input, size, "");
+	}
+	
+	// starts inserting the text at the given offset of the text area, whose character before that offset (if any) is given; note that this is called
+	// on the EDT by the text area, after it has removed the text being replaced (if any)
+	void start(int offset, char before) {
+		this.offset = offset;
+		inWord = offset > 0 && !StatusBar.isWhitespace(before);
+		
+		final Thread thread = new Thread(this::read, "Streamed Insertion");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	// stops reading the text, keeping the chunks that have been inserted already; note that this is called on the EDT
+	void stop() {
+		if (stopped) return;
+		
+		stopped = true;
+		chunks.clear();  // unblock the reader, if it's waiting for a chunk to be inserted
+		finish();
+	}
+	
+	private void read() {
+		final char[] buffer = new char[CHUNK_SIZE];
+		final StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 1);
+		
+		try {
+			normalize(start.toCharArray(), start.length(), chunk);
+			start = null;
+			
+			while (!stopped) {
+				int length = 0;
+				
+				// fill the buffer, since a reader may return much less than requested at a time
+				for (int read; length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1;) length += read;
+				
+				normalize(buffer, length, chunk);
+				
+				if (chunk.length() > 0) queue(chunk.toString());
+				if (length < buffer.length) break;
+				
+				chunk.setLength(0);
+			}
+		}
+		catch (IOException | InterruptedException e) {
+			if (!stopped) e.printStackTrace();
+		}
+		finally {
+			try {
+				reader.close();
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+			try {
+				queue(END);
+			}
+			catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	// maps both \r\n and a single \r to \n, which is the same as pasting does (and which, unlike loading a file, keeps \r out of the text altogether);
+	// since a \r\n can be split across chunks, whether the last character was a \r is kept between calls
+	private void normalize(char[] buffer, int length, StringBuilder chunk) {
+		for (int i = 0; i < length; i++) {
+			final char c = buffer[i];
+			
+			if (c == '\n' && afterCarriageReturn) {
+				afterCarriageReturn = false;
+				continue;
+			}
+			afterCarriageReturn = c == '\r';
+			chunk.append(afterCarriageReturn ? '\n' : c);
+		}
+	}
+	
+	private void queue(String chunk) throws InterruptedException {
+		if (stopped) return;
+		
+		chunks.put(chunk);
+		SwingUtilities.invokeLater(this::insertNext);
+	}
+	
+	// inserts the next chunk that has been read (there's one for every call); note that the words of the chunk are counted here rather than on the
+	// reader's thread, since they're counted from the end of the previous chunk, which must have been inserted already
+	private void insertNext() {
+		final String chunk = chunks.poll();
+		
+		if (stopped || chunk == null) return;
+		if (chunk == END) {
+			stopped = true;
+			finish();
+			return;
+		}
+		int words = 0;
+		
+		for (int i = 0; i < chunk.length(); i++) {
+			final boolean whitespace = StatusBar.isWhitespace(chunk.charAt(i));
+			
+			if (!whitespace && !inWord) words++;
+			inWord = !whitespace;
+		}
+		if (!AppTextArea.getInstance().insertChunk(chunk, offset)) {
+			stop();
+			return;
+		}
+		offset += chunk.length();
+		inserted += chunk.length();
+		last = chunk.charAt(chunk.length() - 1);
+		
+		StatusBar.getInstance().updateTextInfo(words);
+		StatusBar.getInstance().setProgress("Inserting... " + (input != null && size > 0 ?
+				Math.min(100, input.count * 100 / size) + "%" : (inserted >> 20) + " MB"));
+	}
+	
+	// the word after the inserted text (if any) was counted as a word of its own, unless it was part of the word before the insertion; now that it's
+	// after the inserted text instead, it's part of the word the text ends with (if any)
+	private void finish() {
+		final int end = offset;
+		final char after = AppTextArea.getInstance().getCharAt(end);
+		int words = 0;
+		
+		if (inserted > 0 && after != 0 && !StatusBar.isWhitespace(after)) {
+			final boolean wasWordStart = end - inserted == 0 || StatusBar.isWhitespace(AppTextArea.getInstance().getCharAt((int) (end - inserted - 1)));
+			final boolean isWordStart = StatusBar.isWhitespace(last);
+			
+			words = (isWordStart ? 1 : 0) - (wasWordStart ? 1 : 0);
+		}
+		StatusBar.getInstance().setProgress(null);
+		AppTextArea.getInstance().finishInsertion(this, words);
+	}
+	
+	// counts the bytes read from the files, so that the progress can be shown as a percentage of their size
+	private static final class CountingInputStream extends FilterInputStream {
+		
+		private volatile long count = 0;
+		
+		private CountingInputStream(InputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public int read() throws IOException {
+			final int b = super.read();
+			if (b != -1) count++;
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			final int read = super.read(b, off, len);
+			if (read > 0) count += read;
+			return read;
+		}
+	}
+}
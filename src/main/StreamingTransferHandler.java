@@ -0,0 +1,140 @@
+package main;
+
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.StringSelection;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JComponent;
+import javax.swing.JTextArea;
+import javax.swing.TransferHandler;
+import javax.swing.text.JTextComponent;
+
+// the text area's transfer handler, which pastes text and inserts dropped (or pasted) files as a streamed insertion (see the StreamedInsertion class)
+// if they're too large to be inserted in one go; everything else is left to the text area's own transfer handler (that of its UI), which this wraps
+//
+// with several carets (see the MultiCaret class), the text of every caret's selection is cut or copied, and pasted text is inserted at every caret
+//
+// note that the wrapped handler's protected methods (ex. "createTransferable") can't be called from here, which is only an issue for dragging text out
+// of the text area, since that calls them on the text area's handler directly; dragging isn't enabled for the text area, though, so only its cut and
+// copy actions export text, which go through "exportToClipboard"
+@SuppressWarnings("serial")
+final class StreamingTransferHandler extends TransferHandler {
+	
+	private final JTextArea textArea;
+	private final TransferHandler handler;
+	
+	StreamingTransferHandler(JTextArea textArea) {
+		this.textArea = textArea;
+		handler = textArea.getTransferHandler();
+	}
+	
+	@Override
+	public int getSourceActions(JComponent c) {
+		return handler.getSourceActions(c);
+	}
+	
+	@Override
+	public void exportToClipboard(JComponent c, Clipboard clipboard, int action) throws IllegalStateException {
+		final MultiCaret caret = (MultiCaret) textArea.getCaret();
+		
+		if (!caret.hasCarets()) {
+			handler.exportToClipboard(c, clipboard, action);
+			return;
+		}
+		final String text = caret.getSelectedText();
+		if (text == null) return;
+		
+		clipboard.setContents(new StringSelection(text), null);
+		if (action == MOVE) caret.replaceSelections("");
+	}
+	
+	@Override
+	public boolean canImport(TransferSupport support) {
+		if (support.isDataFlavorSupported(DataFlavor.javaFileListFlavor)) return textArea.isEditable() && textArea.isEnabled();
+		return handler.canImport(support);
+	}
+	
+	@Override
+	public boolean importData(TransferSupport support) {
+		if (!textArea.isEditable() || !textArea.isEnabled()) return false;
+		
+		final boolean files = support.isDataFlavorSupported(DataFlavor.javaFileListFlavor);
+		
+		// text that's dropped (rather than pasted) may have been dragged from within the text area itself, which the text area's handler keeps track of
+		if (!files && support.isDrop()) return handler.importData(support);
+		
+		final int start = support.isDrop() ? ((JTextComponent.DropLocation) support.getDropLocation()).getIndex() : textArea.getSelectionStart();
+		final int end = support.isDrop() ? start : textArea.getSelectionEnd();
+		
+		try {
+			if (files) return importFiles(support.getTransferable(), start, end);
+			
+			if (((MultiCaret) textArea.getCaret()).hasCarets()) {
+				if (!support.isDataFlavorSupported(DataFlavor.stringFlavor)) return false;
+				
+				final String text = (String) support.getTransferable().getTransferData(DataFlavor.stringFlavor);
+				((MultiCaret) textArea.getCaret()).paste(text.replace("\r\n", "\n").replace('\r', '\n'));
+				return true;
+			}
+			final Reader reader = getTextReader(support.getTransferable());
+			if (reader == null) return handler.importData(support);
+			
+			// read up to the threshold first, so that text that turns out to be short enough is pasted in one go, the same as before
+			final char[] buffer = new char[StreamedInsertion.THRESHOLD];
+			int length = 0;
+			
+			for (int read; length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1;) length += read;
+			
+			if (length < buffer.length) {
+				reader.close();
+				textArea.replaceSelection(new String(buffer, 0, length).replace("\r\n", "\n").replace('\r', '\n'));
+				return true;
+			}
+			AppTextArea.getInstance().startInsertion(StreamedInsertion.ofText(reader, new String(buffer)), start, end);
+			return true;
+		}
+		catch (IOException | UnsupportedFlavorException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
+	// directories (and anything else that isn't a regular file) are left out
+	private static boolean importFiles(Transferable transferable, int start, int end) throws IOException, UnsupportedFlavorException {
+		final List<File> files = new ArrayList<>();
+		
+		for (Object file : (List<?>) transferable.getTransferData(DataFlavor.javaFileListFlavor))
+			if (((File) file).isFile()) files.add((File) file);
+		
+		if (files.isEmpty()) return false;
+		
+		AppTextArea.getInstance().startInsertion(StreamedInsertion.ofFiles(files), start, end);
+		return true;
+	}
+	
+	// prefers a plain text flavor that's read as a stream (ex. that of the system clipboard, which is read from its bytes as they're decoded), then one
+	// that's read as a string; note that a StringReader reads the string itself rather than a copy of it
+	private static Reader getTextReader(Transferable transferable) throws IOException, UnsupportedFlavorException {
+		DataFlavor streamFlavor = null;
+		
+		for (DataFlavor flavor : transferable.getTransferDataFlavors()) {
+			if (!flavor.isMimeTypeEqual("text/plain")) continue;
+			
+			if (flavor.isRepresentationClassReader()) return flavor.getReaderForText(transferable);
+			if (flavor.isRepresentationClassInputStream() && streamFlavor == null) streamFlavor = flavor;
+		}
+		if (streamFlavor != null) return streamFlavor.getReaderForText(transferable);
+		if (transferable.isDataFlavorSupported(DataFlavor.stringFlavor))
+			return new StringReader((String) transferable.getTransferData(DataFlavor.stringFlavor));
+		
+		return null;
+	}
+}
@@ -7,21 +7,21 @@ import javax.swing.AbstractAction;
 import javax.swing.JButton;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
-import javax.swing.event.UndoableEditEvent;
-import javax.swing.event.UndoableEditListener;
-import javax.swing.undo.UndoManager;
-import javax.swing.undo.UndoableEdit;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 @SuppressWarnings("serial")
 public class TextInput extends JTextField {
 	
-	// this class improves on JTextField by implementing an UndoManager that will store edits (UndoableEdit instances) made to the text; edits can be
-	// undone and redone by using their respective shortcuts; the (Ctrl / Command) + H key stroke is also disabled for OpenJDK; the button represents
-	// the associated button that will be disabled whenever the text becomes empty, and enabled in the opposite scenario; button can be null if no
-	// buttons are to be associated with an instance of this class
+	// this class improves on JTextField by keeping an undo history of the edits made to the text (see the EditHistory class, which coalesces typing
+	// into a single edit and limits the memory the histories of all of the fields take up); edits can be undone and redone by using their respective
+	// shortcuts, and a field can also list the texts it was last used with (see the setHistory method); the (Ctrl / Command) + H key stroke is also
+	// disabled for OpenJDK; the button represents the associated button that will be disabled whenever the text becomes empty, and enabled in the
+	// opposite scenario; button can be null if no buttons are to be associated with an instance of this class
 	
-	private final UndoManager undoManager = new UndoManager();
+	private final EditHistory history = new EditHistory(this);
 	private final JButton button;
+	private boolean replacing = false;  // see "replaceText"
 	
 	public TextInput(String text, JButton button) {
 		super(text);
@@ -46,31 +46,35 @@ public class TextInput extends JTextField {
 		final int[] keyCodes = { KeyEvent.VK_Z, KeyEvent.VK_Y, KeyEvent.VK_H };
 		final String[] actionKeys = { "undo", "redo", "none" };
 		
-		getDocument().addUndoableEditListener(new UndoableEditListener() {
+		getDocument().addDocumentListener(new DocumentListener() {
 			@Override
-			public void undoableEditHappened(UndoableEditEvent e) {
-				UndoableEdit edit = e.getEdit();
-				boolean addedText = edit.getPresentationName().equals("addition");
-				
-				undoManager.addEdit(edit);
-				onEdit(addedText);
+			public void insertUpdate(DocumentEvent e) {
+				if (history.insertUpdate(e) && !replacing) onEdit(true);
 			}
+			
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				if (history.removeUpdate(e) && !replacing) onEdit(false);
+			}
+			
+			@Override
+			public void changedUpdate(DocumentEvent e) {}
 		});
 		getActionMap().put("undo", new AbstractAction() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				if (undoManager.canUndo()) {
+				if (history.canUndo()) {
 					if (button != null) revert(true);
-					else undoManager.undo();
+					else history.undo();
 				}
 			}
 		});
 		getActionMap().put("redo", new AbstractAction() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				if (undoManager.canRedo()) {
+				if (history.canRedo()) {
 					if (button != null) revert(false);
-					else undoManager.redo();
+					else history.redo();
 				}
 			}
 		});
@@ -81,12 +85,31 @@ public class TextInput extends JTextField {
 	private void revert(boolean undo) {
 		boolean wasEmpty = getText().isEmpty();
 		
-		if (undo) undoManager.undo();
-		else undoManager.redo();
+		if (undo) history.undo();
+		else history.redo();
 		
 		if (getText().isEmpty()) button.setEnabled(false);
 		else if (wasEmpty) button.setEnabled(true);
 	}
 	
+	// shows a drop-down of the texts the field was last used with (see the SearchHistory class) when the down arrow key is pressed
+	public void setHistory(int kind) {
+		new HistoryDropDown(this, kind);
+	}
+	
+	// replaces the whole text (ex. with a text chosen from the drop-down), which the document does by removing the old text and then inserting the new
+	// one; onEdit is only called once for both, as if the new text had been typed over the old one
+	void replaceText(String text) {
+		replacing = true;
+		
+		try {
+			setText(text);
+		}
+		finally {
+			replacing = false;
+		}
+		onEdit(!text.isEmpty());
+	}
+	
 	protected void onEdit(boolean addedText) {}
 }
@@ -0,0 +1,284 @@
+package main.panes;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.GridLayout;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.util.concurrent.Callable;
+
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.GroupLayout;
+import javax.swing.GroupLayout.Alignment;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+
+import main.AppTextArea;
+import main.LineDiff;
+
+// this pane shows the differences between two texts side by side (see the LineDiff class), with the removed lines highlighted on the left and the added
+// lines on the right; every row is drawn by the same renderer and has the same (fixed) height, so the list only ever renders the rows that are visible,
+// no matter how many lines the texts have
+@SuppressWarnings("serial")
+public final class DiffPane extends Pane {
+	
+	private static final int MAX_DRAWN_LENGTH = 1000;  // the number of characters of a line that are drawn, since the rest is cut off anyway
+	private static final int TAB_SIZE = 4;
+	private static final Color REMOVED_COLOR = new Color(255, 220, 220);
+	private static final Color ADDED_COLOR = new Color(220, 255, 220);
+	private static final Color BLANK_COLOR = new Color(236, 236, 236);
+	
+	private final JLabel[] nameLabels = { new JLabel(" "), new JLabel(" ") };
+	private final JPanel namePanel = new JPanel(new GridLayout(1, 2));
+	private final JLabel statusLabel = new JLabel(" ");
+	private final JButton previousButton = new JButton();
+	private final RowListModel rows = new RowListModel();
+	private final JList<Integer> rowList = new JList<>(rows);
+	private final JScrollPane rowScrollPane = new JScrollPane(rowList);
+	private final GroupLayout layout;
+	private LineDiff diff = null;  // the diff being computed, or shown once it's done
+	
+	// the elements are just the row numbers, which the renderer looks up in the diff
+	private static final class RowListModel extends AbstractListModel<Integer> {
+		
+		private LineDiff diff = null;
+		
+		@Override
+		public int getSize() {
+			return diff == null ? 0 : diff.getRowCount();
+		}
+		
+		@Override
+		public Integer getElementAt(int index) {
+			return index;
+		}
+		
+		private void setDiff(LineDiff diff) {
+			if (getSize() > 0) {
+				final int size = getSize();
+				this.diff = null;
+				fireIntervalRemoved(this, 0, size - 1);
+			}
+			this.diff = diff;
+			if (getSize() > 0) fireIntervalAdded(this, 0, getSize() - 1);
+		}
+	}
+	
+	public DiffPane(JFrame owner) {
+		super(owner, "Compare", new Dimension(960, 600), new Dimension(128, 20));
+		setResizable(true);
+		
+		initActions();
+		initRowList();
+		
+		for (JLabel nameLabel : nameLabels) namePanel.add(nameLabel);
+		
+		layout = new GroupLayout(getContentPane());
+		layout.setAutoCreateGaps(true);
+		layout.setAutoCreateContainerGaps(true);
+		setLayout(layout);
+		setLayoutGroups();
+		
+		start(owner);
+	}
+	
+	private void initActions() {
+		primaryButton.setAction(new AbstractAction("Next Change") {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (primaryButton.isEnabled()) goToChange(true);
+			}
+		});
+		primaryButton.setMnemonic(KeyEvent.VK_N);
+		
+		previousButton.setAction(new AbstractAction("Previous Change") {
+			@Override
+			public void actionPerformed(ActionEvent e) { goToChange(false); }
+		});
+		previousButton.setMnemonic(KeyEvent.VK_P);
+		previousButton.setMinimumSize(buttonSize);
+		previousButton.setPreferredSize(buttonSize);
+		cancelButton.setText("Close");
+		setChangeButtonsEnabled(false);
+	}
+	
+	// a fixed cell width (any width will do) keeps the list from rendering every row to find the widest one; the rows fill the width of the list anyway
+	private void initRowList() {
+		rowList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		rowList.setFixedCellWidth(100);
+		rowList.setCellRenderer(new RowRenderer());
+		rowScrollPane.getVerticalScrollBar().setUnitIncrement(16);
+	}
+	
+	// compares the two texts on a background thread, replacing whatever the pane was showing before
+	public void compare(String leftName, Callable<String> left, String rightName, Callable<String> right) {
+		stopDiff();
+		
+		final Font font = AppTextArea.getInstance().getTextFont();
+		rowList.setFont(new Font(font.getFamily(), font.getStyle(), AppTextArea.getInstance().getBaseFontSize()));
+		rowList.setFixedCellHeight(rowList.getFontMetrics(rowList.getFont()).getHeight() + 2);
+		
+		nameLabels[0].setText(leftName);
+		nameLabels[1].setText(rightName);
+		statusLabel.setText("Comparing...");
+		
+		final LineDiff diff = new LineDiff(left, right, done -> SwingUtilities.invokeLater(() -> {
+			if (done == this.diff) showDiff();
+		}));
+		this.diff = diff;
+		diff.start();
+	}
+	
+	private void showDiff() {
+		if (diff.getError() != null) {
+			statusLabel.setText("Couldn't compare: " + diff.getError());
+			return;
+		}
+		rows.setDiff(diff);
+		
+		if (diff.getChangeCount() == 0) {
+			statusLabel.setText("No differences");
+			return;
+		}
+		statusLabel.setText(getSummary());
+		setChangeButtonsEnabled(true);
+		goToChange(true);
+	}
+	
+	private String getSummary() {
+		final int changes = diff.getChangeCount();
+		
+		return changes + (changes == 1 ? " change: " : " changes: ") + diff.getChangedLineCount(LineDiff.LEFT) + " lines removed, " +
+				diff.getChangedLineCount(LineDiff.RIGHT) + " lines added";
+	}
+	
+	// goes to the next (or previous) change from the selected row, or from the start (or end) if there's none, scrolling it into the upper part of the
+	// viewport so that the lines after it are visible as well
+	private void goToChange(boolean next) {
+		if (rows.getSize() == 0) return;
+		
+		final int selected = rowList.getSelectedIndex();
+		final int row = selected != -1 ? selected : next ? -1 : rows.getSize();
+		final int change = next ? diff.getNextChange(row) : diff.getPreviousChange(row);
+		
+		if (change == -1) return;
+		
+		final int changeRow = diff.getChangeRow(change);
+		final Rectangle bounds = rowList.getCellBounds(changeRow, changeRow);
+		final Rectangle visible = rowList.getVisibleRect();
+		
+		rowList.setSelectedIndex(changeRow);
+		rowList.scrollRectToVisible(new Rectangle(bounds.x, Math.max(0, bounds.y - visible.height / 4), bounds.width, visible.height));
+		statusLabel.setText("Change " + (change + 1) + " of " + getSummary());
+	}
+	
+	private void setChangeButtonsEnabled(boolean enabled) {
+		primaryButton.setEnabled(enabled);
+		previousButton.setEnabled(enabled);
+	}
+	
+	// the diff is dropped along with the rows, since it holds both texts
+	private void stopDiff() {
+		if (diff != null) {
+			diff.stop();
+			diff = null;
+		}
+		rows.setDiff(null);
+		setChangeButtonsEnabled(false);
+	}
+	
+	// draws both sides of a row, each with its line number in a gutter; a side without a line is left blank (in gray)
+	private final class RowRenderer extends JComponent implements ListCellRenderer<Integer> {
+		
+		private int row;
+		private boolean selected;
+		
+		@Override
+		public Component getListCellRendererComponent(JList<? extends Integer> list, Integer value, int index, boolean isSelected,
+				boolean cellHasFocus) {
+			row = value;
+			selected = isSelected;
+			setFont(list.getFont());
+			return this;
+		}
+		
+		@Override
+		protected void paintComponent(Graphics g) {
+			final int half = getWidth() / 2;
+			
+			paintSide(g, LineDiff.LEFT, 0, half);
+			paintSide(g, LineDiff.RIGHT, half, getWidth() - half);
+			
+			g.setColor(Color.GRAY);
+			g.drawLine(half, 0, half, getHeight());
+		}
+		
+		private void paintSide(Graphics g, int side, int x, int width) {
+			final LineDiff diff = rows.diff;
+			final int line = diff.getLine(side, row);
+			final FontMetrics metrics = g.getFontMetrics(getFont());
+			final int gutterWidth = metrics.charWidth('0') * (String.valueOf(diff.getLineCount(side)).length() + 1);
+			final int baseline = (getHeight() - metrics.getHeight()) / 2 + metrics.getAscent();
+			
+			g.setColor(line == -1 ? BLANK_COLOR : !diff.isChanged(side, line) ? rowList.getBackground() :
+					side == LineDiff.LEFT ? REMOVED_COLOR : ADDED_COLOR);
+			g.fillRect(x, 0, width, getHeight());
+			g.setColor(selected ? rowList.getSelectionBackground() : BLANK_COLOR);
+			g.fillRect(x, 0, gutterWidth, getHeight());
+			
+			if (line == -1) return;
+			
+			final Graphics clipped = g.create(x, 0, width, getHeight());
+			final String number = String.valueOf(line + 1);
+			String text = diff.getLineText(side, line);
+			
+			if (text.length() > MAX_DRAWN_LENGTH) text = text.substring(0, MAX_DRAWN_LENGTH);
+			
+			clipped.setFont(getFont());
+			clipped.setColor(selected ? rowList.getSelectionForeground() : Color.GRAY);
+			clipped.drawString(number, gutterWidth - metrics.charWidth('0') / 2 - metrics.stringWidth(number), baseline);
+			clipped.setColor(rowList.getForeground());
+			clipped.drawString(text.replace("\t", " ".repeat(TAB_SIZE)), gutterWidth + metrics.charWidth('0') / 2, baseline);
+			clipped.dispose();
+		}
+	}
+	
+	private void setLayoutGroups() {
+		layout.setHorizontalGroup(layout.createParallelGroup(Alignment.LEADING)
+			.addComponent(namePanel)
+			.addComponent(rowScrollPane)
+			.addGroup(layout.createSequentialGroup()
+				.addComponent(statusLabel, 0, GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+				.addComponent(previousButton)
+				.addComponent(primaryButton)
+				.addComponent(cancelButton)));
+		
+		layout.setVerticalGroup(layout.createSequentialGroup()
+			.addComponent(namePanel)
+			.addComponent(rowScrollPane)
+			.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+				.addComponent(statusLabel)
+				.addComponent(previousButton)
+				.addComponent(primaryButton)
+				.addComponent(cancelButton)));
+	}
+	
+	@Override
+	protected void onClose() {
+		stopDiff();
+	}
+}
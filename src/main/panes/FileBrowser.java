@@ -0,0 +1,478 @@
+package main.panes;
+
+import java.awt.Component;
+import java.awt.Dialog;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.GroupLayout;
+import javax.swing.GroupLayout.Alignment;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+import main.DirectoryCache;
+import main.RecentFiles;
+import main.TextInput;
+
+// this pane is the file browser used to choose a file to open or to save to (see the FileManager class); unlike JFileChooser, which lists a folder and
+// reads the attributes of its files on the EDT (ex. as it sorts and paints them), the folder is listed in the background (see the DirectoryCache
+// class), and its entries are added to the table in batches as they're listed, so that a large folder (ex. on a network share) doesn't freeze the
+// editor; the entries are sorted (folders first, then by name) once they've all been listed, since sorting every batch would move the rows the user
+// may be looking at
+//
+// the files that were last opened or saved are listed on the side (see the RecentFiles class); note that the pane is modal, so that the file chosen
+// can be returned to the caller
+@SuppressWarnings("serial")
+public final class FileBrowser extends Pane {
+	
+	public static final int OPEN = 0, SAVE = 1;
+	
+	private static final int REFRESH_INTERVAL = 100;  // how often (in milliseconds) the entries listed are added to the table
+	private static final String[] FILTER_NAMES = { "Text Files (*.txt)", "Compressed Files (*.gz)", "All Files" };
+	private static final String[] FILTER_EXTENSIONS = { ".txt", ".gz", null };
+	
+	private final JLabel directoryLabel = new JLabel("Look in:");
+	private final JLabel nameLabel = new JLabel("File name:");
+	private final JLabel typeLabel = new JLabel("Files of type:");
+	private final JLabel statusLabel = new JLabel(" ");
+	private final JButton upButton = new JButton();
+	private final TextInput directoryField = new TextInput();
+	private final TextInput nameField = new TextInput();
+	private final JComboBox<String> typeBox = new JComboBox<>(FILTER_NAMES);
+	private final EntryTableModel entries = new EntryTableModel();
+	private final JTable entryTable = new JTable(entries);
+	private final JScrollPane entryScrollPane = new JScrollPane(entryTable);
+	private final JList<Path> recentList = new JList<>();
+	private final JScrollPane recentScrollPane = new JScrollPane(recentList);
+	private final Timer refreshTimer = new Timer(REFRESH_INTERVAL, e -> addListed());
+	private final GroupLayout layout;
+	
+	private int mode = OPEN;
+	private Path directory = null;
+	private DirectoryCache.Listing listing = null;
+	private Path[] fallbacks = {};  // the folders browsed in turn if the listing fails (see "onOpen")
+	private int listed = 0;  // the number of entries of the listing that have been added to the table
+	private File chosen = null;
+	private String confirmTitle = null;  // the title of the dialog confirming that an existing file is replaced, or null if it's not confirmed
+	
+	// the entries of the folder that pass the filter, which are added in batches, firing a single event for each batch rather than one for every entry
+	// (see the HitListModel class of the FindInFilesPane class); every entry listed is kept, so that the filter can be changed without listing the
+	// folder again
+	private static final class EntryTableModel extends AbstractTableModel {
+		
+		private static final String[] COLUMNS = { "Name", "Size", "Modified" };
+		private static final Comparator<DirectoryCache.Entry> ORDER = Comparator.<DirectoryCache.Entry, Boolean>comparing(entry -> !entry.directory)
+				.thenComparing(entry -> entry.name, String.CASE_INSENSITIVE_ORDER);
+		
+		private final List<DirectoryCache.Entry> listed = new ArrayList<>(), shown = new ArrayList<>();
+		private final DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
+		private String extension = null;
+		
+		@Override
+		public int getRowCount() {
+			return shown.size();
+		}
+		
+		@Override
+		public int getColumnCount() {
+			return COLUMNS.length;
+		}
+		
+		@Override
+		public String getColumnName(int column) {
+			return COLUMNS[column];
+		}
+		
+		@Override
+		public Object getValueAt(int row, int column) {
+			final DirectoryCache.Entry entry = shown.get(row);
+			
+			switch (column) {
+				case 0:
+					return entry.directory ? entry.name + File.separator : entry.name;
+				case 1:
+					return entry.directory ? "" : formatSize(entry.size);
+				default:
+					return dateFormat.format(new Date(entry.modified));
+			}
+		}
+		
+		private DirectoryCache.Entry getEntry(int row) {
+			return shown.get(row);
+		}
+		
+		private void addAll(List<DirectoryCache.Entry> batch) {
+			final int size = shown.size();
+			
+			listed.addAll(batch);
+			for (DirectoryCache.Entry entry : batch) if (accepts(entry)) shown.add(entry);
+			
+			if (shown.size() > size) fireTableRowsInserted(size, shown.size() - 1);
+		}
+		
+		private void sort() {
+			shown.sort(ORDER);
+			fireTableDataChanged();
+		}
+		
+		// hidden entries (ex. dot files) are left out, like JFileChooser does, while folders are always shown, since they can be browsed into
+		private boolean accepts(DirectoryCache.Entry entry) {
+			return !entry.hidden && (entry.directory || extension == null || entry.name.toLowerCase().endsWith(extension));
+		}
+		
+		private void setExtension(String extension, boolean sorted) {
+			this.extension = extension;
+			shown.clear();
+			for (DirectoryCache.Entry entry : listed) if (accepts(entry)) shown.add(entry);
+			
+			if (sorted) shown.sort(ORDER);
+			fireTableDataChanged();
+		}
+		
+		private void clear() {
+			listed.clear();
+			shown.clear();
+			fireTableDataChanged();
+		}
+		
+		private static String formatSize(long size) {
+			if (size < 1024) return size + " B";
+			if (size < 1024 * 1024) return (size + 1023) / 1024 + " KB";
+			return String.format("%.1f MB", size / (1024.0 * 1024.0));
+		}
+	}
+	
+	public FileBrowser(JFrame owner) {
+		super(owner, "Open", new Dimension(720, 460), new Dimension(84, 20));
+		setModalityType(Dialog.ModalityType.APPLICATION_MODAL);
+		
+		directoryLabel.setLabelFor(directoryField);
+		directoryLabel.setDisplayedMnemonic(KeyEvent.VK_I);
+		nameLabel.setLabelFor(nameField);
+		nameLabel.setDisplayedMnemonic(KeyEvent.VK_N);
+		typeLabel.setLabelFor(typeBox);
+		typeLabel.setDisplayedMnemonic(KeyEvent.VK_T);
+		upButton.setMinimumSize(buttonSize);
+		
+		initActions();
+		initEntryTable();
+		initRecentList();
+		
+		layout = new GroupLayout(getContentPane());
+		layout.setAutoCreateGaps(true);
+		layout.setAutoCreateContainerGaps(true);
+		setLayout(layout);
+		setLayoutGroups();
+	}
+	
+	private void initActions() {
+		primaryButton.setAction(new AbstractAction("Open") {
+			@Override
+			public void actionPerformed(ActionEvent e) { choose(); }
+		});
+		upButton.setAction(new AbstractAction("Up") {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (directory != null && directory.getParent() != null) browse(directory.getParent());
+			}
+		});
+		upButton.setMnemonic(KeyEvent.VK_U);
+		
+		// enter in the folder field goes to the folder typed, rather than choosing the file (which is what the pane's default button does)
+		directoryField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "browse");
+		directoryField.getActionMap().put("browse", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				final Path typed = toPath(directoryField.getText());
+				
+				if (typed == null) {
+					statusLabel.setText("Folder not found");
+					return;
+				}
+				DirectoryCache.getInstance().readEntry(typed, entry -> SwingUtilities.invokeLater(() -> {
+					if (!isShowing()) return;
+					
+					if (entry != null && entry.directory) browse(typed);
+					else statusLabel.setText("Folder not found");
+				}));
+			}
+		});
+		typeBox.addActionListener(e -> entries.setExtension(FILTER_EXTENSIONS[typeBox.getSelectedIndex()], listing != null && listing.isDone()));
+	}
+	
+	private void initEntryTable() {
+		entryTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		entryTable.setShowGrid(false);
+		entryTable.setFillsViewportHeight(true);
+		entryTable.getTableHeader().setReorderingAllowed(false);
+		entryTable.getColumnModel().getColumn(0).setPreferredWidth(300);
+		entryTable.getColumnModel().getColumn(1).setPreferredWidth(70);
+		entryTable.getColumnModel().getColumn(2).setPreferredWidth(130);
+		
+		// selecting a file puts its name in the name field, so that it's what's chosen (or saved over)
+		entryTable.getSelectionModel().addListSelectionListener(e -> {
+			final int row = entryTable.getSelectedRow();
+			if (!e.getValueIsAdjusting() && row != -1 && !entries.getEntry(row).directory) nameField.setText(entries.getEntry(row).name);
+		});
+		entryTable.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				final int row = entryTable.rowAtPoint(e.getPoint());
+				if (e.getClickCount() == 2 && row != -1) activate(entries.getEntry(row));
+			}
+		});
+		entryTable.getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "activate");
+		entryTable.getActionMap().put("activate", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (entryTable.getSelectedRow() != -1) activate(entries.getEntry(entryTable.getSelectedRow()));
+			}
+		});
+	}
+	
+	// a recent file is shown with its folder, and its size once its metadata has been read (see the RecentFiles class); selecting it goes to its
+	// folder, while double-clicking it chooses it right away
+	private void initRecentList() {
+		recentList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		recentScrollPane.setColumnHeaderView(new JLabel(" Recent files"));
+		recentScrollPane.setPreferredSize(new Dimension(180, 0));
+		recentList.setCellRenderer(new DefaultListCellRenderer() {
+			@Override
+			public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+				final Path recent = (Path) value;
+				final DirectoryCache.Entry entry = RecentFiles.getInstance().getEntry(recent);
+				final Component component = super.getListCellRendererComponent(list, recent.getFileName() + (entry == null ? "" :
+						"  (" + EntryTableModel.formatSize(entry.size) + ")"), index, isSelected, cellHasFocus);
+				
+				setToolTipText(recent.toString());
+				return component;
+			}
+		});
+		recentList.addListSelectionListener(e -> {
+			final Path recent = recentList.getSelectedValue();
+			
+			if (e.getValueIsAdjusting() || recent == null || recent.getParent() == null) return;
+			
+			if (!recent.getParent().equals(directory)) browse(recent.getParent());
+			nameField.setText(recent.getFileName().toString());
+		});
+		recentList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2 && recentList.getSelectedValue() != null) choose();
+			}
+		});
+	}
+	
+	// shows the browser and waits until it's closed, returning the file chosen, or null if the user cancelled; the title is that of the mode if it's
+	// null
+	public File prompt(JFrame owner, int mode, String title) {
+		return prompt(owner, mode, title, null);
+	}
+	
+	// the same as above for saving, except that replacing a file that already exists has to be confirmed, in a dialog with the given title
+	public File promptSave(JFrame owner, String confirmTitle) {
+		return prompt(owner, SAVE, null, confirmTitle);
+	}
+	
+	private File prompt(JFrame owner, int mode, String title, String confirmTitle) {
+		if (isShowing()) return null;  // ex. the open shortcut being pressed while the browser is shown
+		
+		this.mode = mode;
+		this.confirmTitle = confirmTitle;
+		chosen = null;
+		setTitle(title != null ? title : mode == OPEN ? "Open" : "Save As");
+		primaryButton.setText(mode == OPEN ? "Open" : "Save");
+		primaryButton.setMnemonic(mode == OPEN ? KeyEvent.VK_O : KeyEvent.VK_S);
+		open(owner);
+		
+		return chosen;
+	}
+	
+	// the browser starts in the folder it was last in, or at first in that of the most recent file, whose listing is likely to have been preloaded
+	// already (see the RecentFiles class); whether the folder still exists isn't checked here, since that would block the EDT (ex. on a network share
+	// that's gone), rather the documents folder and then the home folder are browsed instead if it can't be listed (see "addListed")
+	@Override
+	protected void onOpen() {
+		final List<Path> recent = RecentFiles.getInstance().get();
+		
+		recentList.setListData(recent.toArray(new Path[0]));
+		statusLabel.setText(" ");
+		
+		if (directory == null && !recent.isEmpty()) directory = recent.get(0).getParent();
+		
+		final Path home = Paths.get(System.getProperty("user.home"));
+		final Path documents = home.resolve("Documents");
+		
+		if (directory == null) browse(documents, home);
+		else browse(directory, documents, home);
+	}
+	
+	private void browse(Path directory, Path... fallbacks) {
+		this.directory = directory.toAbsolutePath();
+		this.fallbacks = fallbacks;
+		directoryField.setText(this.directory.toString());
+		upButton.setEnabled(this.directory.getParent() != null);
+		entries.clear();
+		
+		listing = DirectoryCache.getInstance().list(this.directory);
+		listed = 0;
+		statusLabel.setText("Listing...");
+		
+		// the entries listed already (all of them, if the listing was kept) are shown right away, rather than after the first interval
+		addListed();
+	}
+	
+	// called by the timer while the folder is being listed; the timer is stopped once every entry has been added to the table
+	private void addListed() {
+		final boolean done = listing.isDone();
+		final List<DirectoryCache.Entry> batch = listing.getEntries(listed);
+		
+		listed += batch.size();
+		entries.addAll(batch);
+		
+		if (!done) {
+			statusLabel.setText("Listing... " + listed + " items");
+			if (!refreshTimer.isRunning()) refreshTimer.start();
+			return;
+		}
+		refreshTimer.stop();
+		
+		if (listing.getError() != null && fallbacks.length > 0) {
+			browse(fallbacks[0], Arrays.copyOfRange(fallbacks, 1, fallbacks.length));
+			return;
+		}
+		
+		// the selection is kept on the same entry once the entries are sorted
+		final int row = entryTable.getSelectedRow();
+		final DirectoryCache.Entry selected = row == -1 ? null : entries.getEntry(row);
+		
+		entries.sort();
+		if (selected != null) {
+			final int index = entries.shown.indexOf(selected);
+			entryTable.getSelectionModel().setSelectionInterval(index, index);
+		}
+		statusLabel.setText(listing.getError() != null ? "The folder can't be read" : listed + (listed == 1 ? " item" : " items"));
+	}
+	
+	private void activate(DirectoryCache.Entry entry) {
+		if (entry.directory) browse(entry.path);
+		else {
+			nameField.setText(entry.name);
+			choose();
+		}
+	}
+	
+	// the name can also be a path (relative to the folder, or absolute), in which case a folder is gone to rather than chosen; what the path is gets read
+	// in the background (see the DirectoryCache class), and a path that can't be read is taken to be missing, which is also how a file that's saved
+	// to is known to exist already
+	private void choose() {
+		final Path path = nameField.getText().trim().isEmpty() ? null : toPath(nameField.getText().trim());
+		
+		if (path == null) {
+			statusLabel.setText(nameField.getText().trim().isEmpty() ? "Enter a file name" : "Invalid file name");
+			return;
+		}
+		DirectoryCache.getInstance().readEntry(path, entry -> SwingUtilities.invokeLater(() -> {
+			if (!isShowing()) return;  // ex. a second click on the button after the file was chosen
+			
+			if (entry != null && entry.directory) {
+				browse(path);
+				nameField.setText("");
+				return;
+			}
+			if (mode == OPEN && entry == null) {
+				statusLabel.setText("File not found");
+				return;
+			}
+			if (mode == SAVE && entry != null && confirmTitle != null && JOptionPane.showConfirmDialog(this,
+					"File already exists. Do you want to replace it?", confirmTitle, JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) !=
+					JOptionPane.YES_OPTION) return;
+			
+			chosen = path.toFile();
+			refreshTimer.stop();
+			dispose();
+		}));
+	}
+	
+	private Path toPath(String text) {
+		try {
+			return directory.resolve(text).normalize();
+		}
+		catch (InvalidPathException e) {
+			return null;
+		}
+	}
+	
+	private void setLayoutGroups() {
+		layout.setHorizontalGroup(layout.createParallelGroup(Alignment.LEADING)
+			.addGroup(layout.createSequentialGroup()
+				.addComponent(directoryLabel)
+				.addComponent(directoryField)
+				.addComponent(upButton))
+			.addGroup(layout.createSequentialGroup()
+				.addComponent(recentScrollPane, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE)
+				.addComponent(entryScrollPane))
+			.addGroup(layout.createSequentialGroup()
+				.addGroup(layout.createParallelGroup(Alignment.LEADING)
+					.addComponent(nameLabel)
+					.addComponent(typeLabel))
+				.addGroup(layout.createParallelGroup(Alignment.LEADING)
+					.addComponent(nameField)
+					.addComponent(typeBox))
+				.addGroup(layout.createParallelGroup(Alignment.TRAILING)
+					.addComponent(primaryButton)
+					.addComponent(cancelButton)))
+			.addComponent(statusLabel));
+		
+		layout.setVerticalGroup(layout.createSequentialGroup()
+			.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+				.addComponent(directoryLabel)
+				.addComponent(directoryField)
+				.addComponent(upButton))
+			.addGroup(layout.createParallelGroup(Alignment.LEADING)
+				.addComponent(recentScrollPane)
+				.addComponent(entryScrollPane))
+			.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+				.addComponent(nameLabel)
+				.addComponent(nameField)
+				.addComponent(primaryButton))
+			.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+				.addComponent(typeLabel)
+				.addComponent(typeBox)
+				.addComponent(cancelButton))
+			.addComponent(statusLabel));
+	}
+	
+	@Override
+	protected void onClose() {
+		refreshTimer.stop();
+	}
+}
@@ -0,0 +1,134 @@
+package main.panes;
+
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.swing.AbstractAction;
+import javax.swing.ButtonGroup;
+import javax.swing.GroupLayout;
+import javax.swing.GroupLayout.Alignment;
+import javax.swing.JCheckBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JRadioButton;
+
+import main.AppTextArea;
+import main.TextInput;
+
+// this pane keeps or removes the lines of the selection (or of the whole text) that contain the given text or regular expression; note that in
+// read-only mode, the lines of the whole file are filtered into another file instead (see AppTextArea's "transformLines")
+@SuppressWarnings("serial")
+public final class FilterLinesPane extends Pane {
+	
+	private final JLabel patternLabel = new JLabel("Lines with:");
+	private final JLabel statusLabel = new JLabel(" ");
+	private final TextInput patternField = new TextInput("", primaryButton) {
+		@Override
+		public void onEdit(boolean addedText) {
+			primaryButton.setEnabled(!getText().isEmpty());
+		}
+	};
+	private final JPanel optionPanel = new JPanel(new FlowLayout(FlowLayout.LEADING, 0, 0));
+	private final JRadioButton[] radioButtons = { new JRadioButton("Keep"), new JRadioButton("Remove") };
+	private final JCheckBox[] checkBoxes = { new JCheckBox("Match case"), new JCheckBox("Regular expression") };
+	private final GroupLayout layout;
+	
+	public FilterLinesPane(JFrame owner) {
+		super(owner, "Filter Lines", new Dimension(440, 140), new Dimension(84, 20));
+		
+		patternLabel.setLabelFor(patternField);
+		patternLabel.setDisplayedMnemonic(KeyEvent.VK_L);
+		
+		primaryButton.setAction(new AbstractAction("Filter") {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (primaryButton.isEnabled()) filter();
+			}
+		});
+		primaryButton.setEnabled(false);
+		
+		initOptions();
+		
+		layout = new GroupLayout(getContentPane());
+		layout.setAutoCreateGaps(true);
+		layout.setAutoCreateContainerGaps(true);
+		setLayout(layout);
+		setLayoutGroups();
+		
+		onOpen();
+		start(owner);
+	}
+	
+	private void initOptions() {
+		final ButtonGroup buttonGroup = new ButtonGroup();
+		final int[] mnemonicKeyCodes = { KeyEvent.VK_K, KeyEvent.VK_M, KeyEvent.VK_C, KeyEvent.VK_R };
+		
+		for (int i = 0; i < radioButtons.length; i++) {
+			buttonGroup.add(radioButtons[i]);
+			radioButtons[i].setMnemonic(mnemonicKeyCodes[i]);
+			optionPanel.add(radioButtons[i]);
+		}
+		for (int i = 0; i < checkBoxes.length; i++) {
+			checkBoxes[i].setMnemonic(mnemonicKeyCodes[radioButtons.length + i]);
+			optionPanel.add(checkBoxes[i]);
+		}
+		radioButtons[0].setSelected(true);
+		checkBoxes[0].setSelected(true);
+	}
+	
+	// the text is matched anywhere in a line, as is the regular expression (rather than the whole line)
+	private void filter() {
+		final int flags = (checkBoxes[0].isSelected() ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE) |
+				(checkBoxes[1].isSelected() ? 0 : Pattern.LITERAL);
+		final Pattern pattern;
+		
+		try {
+			pattern = Pattern.compile(patternField.getText(), flags);
+		}
+		catch (PatternSyntaxException e) {
+			statusLabel.setText("Invalid regular expression: " + e.getDescription());
+			return;
+		}
+		// the pane is closed first, since a file may have to be chosen for the result in read-only mode
+		dispose();
+		AppTextArea.getInstance().filterLines(pattern, radioButtons[0].isSelected());
+	}
+	
+	private void setLayoutGroups() {
+		layout.setHorizontalGroup(layout.createSequentialGroup()
+			.addGroup(layout.createParallelGroup(Alignment.LEADING)
+				.addComponent(patternLabel))
+			.addGroup(layout.createParallelGroup(Alignment.LEADING)
+				.addComponent(patternField)
+				.addComponent(optionPanel)
+				.addComponent(statusLabel))
+			.addGroup(layout.createParallelGroup(Alignment.TRAILING)
+				.addComponent(primaryButton)
+				.addComponent(cancelButton)));
+		
+		layout.setVerticalGroup(layout.createSequentialGroup()
+			.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+				.addComponent(patternLabel)
+				.addComponent(patternField)
+				.addComponent(primaryButton))
+			.addGroup(layout.createParallelGroup(Alignment.CENTER)
+				.addComponent(optionPanel)
+				.addComponent(cancelButton))
+			.addComponent(statusLabel));
+	}
+	
+	// the field keeps the last pattern, selected so that typing replaces it
+	@Override
+	protected void onOpen() {
+		statusLabel.setText(" ");
+		patternField.selectAll();
+	}
+	
+	@Override
+	protected void onClose() {}
+}
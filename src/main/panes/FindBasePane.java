@@ -14,9 +14,10 @@ import javax.swing.JLabel;
 import javax.swing.KeyStroke;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
-import javax.swing.undo.UndoManager;
 
 import main.AppTextArea;
+import main.IncrementalSearch;
+import main.SearchHistory;
 import main.TextInput;
 
 // due to the many similarities between the find and replace panes, this abstract class has been created to serve as the base class for both of them
@@ -26,6 +27,7 @@ public abstract class FindBasePane extends Pane {
 	protected final JLabel findLabel = new JLabel("Find what:");
 	protected final JCheckBox[] checkBoxes = { new JCheckBox("Match case"), new JCheckBox("Wrap around") };
 	protected final GroupLayout layout;
+	private final String title;
 	
 	// anonymous classes in Java provide a way to override methods of an existing class or interface without explicitly creating a new class, making
 	// it useful for providing instance-specific implementation
@@ -45,19 +47,23 @@ public abstract class FindBasePane extends Pane {
 					primaryButton.setEnabled(true);
 			}
 			else if (text.isEmpty()) primaryButton.setEnabled(false);
+			
+			// search for the text as it's typed, selecting the closest occurrence of it (see the IncrementalSearch class), and show the number of
+			// occurrences in the title of the pane
+			IncrementalSearch.getInstance().search(text, count ->
+					setTitle(count == -1 ? title : title + " (" + count + (count == 1 ? " match)" : " matches)")));
 		}
 	};
 	
 	protected FindBasePane(JFrame owner, String title) {
 		super(owner, title, new Dimension(400, 175), new Dimension(84, 20));
-		
-		final UndoManager undoManager = new UndoManager();
-		undoManager.setLimit(100);
+		this.title = title;
 		
 		// having label associated with another component will select that other component when the label's mnemonic is pressed, since label itself
 		// cannot be selected; note that a mnemonic cannot be assigned to JTextField
 		findLabel.setLabelFor(findField);
 		findLabel.setDisplayedMnemonic(KeyEvent.VK_N);
+		findField.setHistory(SearchHistory.FIND);
 		
 		primaryButton.setText("Find Next");
 		primaryButton.setMnemonic(KeyEvent.VK_F);
@@ -101,6 +107,8 @@ public abstract class FindBasePane extends Pane {
 	}
 	
 	private void find(boolean next) {
+		SearchHistory.getInstance().add(SearchHistory.FIND, findField.getText());
+		
 		// reset the text find range if the text to search for has changed
 		if (!AppTextArea.getInstance().getTextToFind().equals(findField.getText())) {
 			AppTextArea.getInstance().setTextToFind(findField.getText());
@@ -135,5 +143,24 @@ public abstract class FindBasePane extends Pane {
 		});
 	}
 	
+	// the text to find and the check box options are shared with the other find / replace pane, so they may have changed since this pane was closed;
+	// note that the text is only set if it's different, since setting it also adds to the text field's undo history
+	@Override
+	protected void onOpen() {
+		final String textToFind = AppTextArea.getInstance().getTextToFind();
+		
+		if (!findField.getText().equals(textToFind)) findField.setText(textToFind);
+		
+		checkBoxes[0].setSelected(AppTextArea.getInstance().getFindMatchCase());
+		checkBoxes[1].setSelected(AppTextArea.getInstance().getFindWrapAround());
+	}
+	
+	// the matches of the text being found are only highlighted (and counted) while the pane is open
+	@Override
+	protected void onClose() {
+		IncrementalSearch.getInstance().cancel();
+		setTitle(title);
+	}
+	
 	protected abstract void setLayoutGroups();
 }
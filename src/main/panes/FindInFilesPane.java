@@ -0,0 +1,306 @@
+package main.panes;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.GroupLayout;
+import javax.swing.GroupLayout.Alignment;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JFileChooser;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+
+import main.AppTextArea;
+import main.FileManager;
+import main.FileSearch;
+import main.SearchHistory;
+import main.TextInput;
+
+// this pane finds a text in all of the files of a directory (see the FileSearch class), listing the occurrences found while the search continues;
+// clicking an occurrence (or pressing enter on it) opens its file with the occurrence selected
+@SuppressWarnings("serial")
+public final class FindInFilesPane extends Pane {
+	
+	private static final int REFRESH_INTERVAL = 100;  // how often (in milliseconds) the occurrences found are added to the list
+	
+	private final JLabel findLabel = new JLabel("Find what:");
+	private final JLabel directoryLabel = new JLabel("In folder:");
+	private final JLabel statusLabel = new JLabel(" ");
+	private final JCheckBox matchCaseCheckBox = new JCheckBox("Match case");
+	private final JButton browseButton = new JButton();
+	private final TextInput findField = new TextInput(AppTextArea.getInstance().getTextToFind(), primaryButton) {
+		@Override
+		public void onEdit(boolean addedText) {
+			primaryButton.setEnabled(!getText().isEmpty());
+		}
+	};
+	private final TextInput directoryField = new TextInput();
+	private final GroupLayout layout;
+	
+	// the occurrences are queued by the worker threads, then added to the list model in batches on the EDT by the timer; the list itself only renders
+	// the visible rows, since every row has the same (fixed) height; note that every search has its own queue, so that a cancelled search that's still
+	// finishing off the files it was searching can't add to the results of the next one
+	private final HitListModel hits = new HitListModel();
+	private final JList<FileSearch.Hit> hitList = new JList<>(hits);
+	private final JScrollPane hitScrollPane = new JScrollPane(hitList);
+	private ConcurrentLinkedQueue<FileSearch.Hit> pendingHits = new ConcurrentLinkedQueue<>();
+	private final Timer refreshTimer = new Timer(REFRESH_INTERVAL, e -> addPendingHits());
+	private FileSearch search = null;
+	private Path root = null;
+	private JFileChooser directoryChooser = null;
+	
+	// unlike DefaultListModel, occurrences are added in batches, firing a single event for each batch rather than one for every occurrence
+	private static final class HitListModel extends AbstractListModel<FileSearch.Hit> {
+		
+		private final List<FileSearch.Hit> hits = new ArrayList<>();
+		
+		@Override
+		public int getSize() {
+			return hits.size();
+		}
+		
+		@Override
+		public FileSearch.Hit getElementAt(int index) {
+			return hits.get(index);
+		}
+		
+		private void addAll(List<FileSearch.Hit> batch) {
+			if (batch.isEmpty()) return;
+			
+			hits.addAll(batch);
+			fireIntervalAdded(this, hits.size() - batch.size(), hits.size() - 1);
+		}
+		
+		private void clear() {
+			if (hits.isEmpty()) return;
+			
+			final int size = hits.size();
+			hits.clear();
+			fireIntervalRemoved(this, 0, size - 1);
+		}
+	}
+	
+	public FindInFilesPane(JFrame owner) {
+		super(owner, "Find in Files", new Dimension(640, 420), new Dimension(84, 20));
+		
+		findLabel.setLabelFor(findField);
+		findField.setHistory(SearchHistory.FIND);
+		findLabel.setDisplayedMnemonic(KeyEvent.VK_N);
+		directoryLabel.setLabelFor(directoryField);
+		directoryLabel.setDisplayedMnemonic(KeyEvent.VK_I);
+		matchCaseCheckBox.setMnemonic(KeyEvent.VK_C);
+		matchCaseCheckBox.setSelected(AppTextArea.getInstance().getFindMatchCase());
+		
+		primaryButton.setEnabled(!findField.getText().isEmpty());
+		browseButton.setMinimumSize(buttonSize);
+		
+		initActions();
+		initHitList();
+		
+		layout = new GroupLayout(getContentPane());
+		layout.setAutoCreateGaps(true);
+		layout.setAutoCreateContainerGaps(true);
+		setLayout(layout);
+		setLayoutGroups();
+		
+		onOpen();
+		start(owner);
+	}
+	
+	private void initActions() {
+		primaryButton.setAction(new AbstractAction("Find All") {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (primaryButton.isEnabled()) startSearch();
+			}
+		});
+		primaryButton.setMnemonic(KeyEvent.VK_F);
+		
+		browseButton.setAction(new AbstractAction("Browse...") {
+			@Override
+			public void actionPerformed(ActionEvent e) { browse(); }
+		});
+		browseButton.setMnemonic(KeyEvent.VK_B);
+	}
+	
+	private void initHitList() {
+		hitList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		
+		// a fixed cell size means the list doesn't have to render every row to find its size, which would defeat the purpose of only rendering the
+		// visible rows; the width is wide enough for the previews, which are scrolled to horizontally
+		hitList.setFixedCellHeight(hitList.getFontMetrics(hitList.getFont()).getHeight() + 2);
+		hitList.setFixedCellWidth(1200);
+		
+		// show the path of each file relative to the directory searched, rather than just its name
+		hitList.setCellRenderer(new DefaultListCellRenderer() {
+			@Override
+			public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+				final FileSearch.Hit hit = (FileSearch.Hit) value;
+				final String text = root.relativize(hit.path) + ":" + (hit.line + 1) + ":" + (hit.column + 1) + ":  " + hit.preview;
+				
+				return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+			}
+		});
+		hitList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				final int index = hitList.locationToIndex(e.getPoint());
+				
+				// note that "locationToIndex" returns the closest row, even if the point is below the last one
+				if (index != -1 && hitList.getCellBounds(index, index).contains(e.getPoint())) openHit(hits.getElementAt(index));
+			}
+		});
+		hitList.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "openHit");
+		hitList.getActionMap().put("openHit", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (hitList.getSelectedValue() != null) openHit(hitList.getSelectedValue());
+			}
+		});
+	}
+	
+	private void browse() {
+		if (directoryChooser == null) {
+			directoryChooser = new JFileChooser();
+			directoryChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+		}
+		directoryChooser.setCurrentDirectory(new File(directoryField.getText()));
+		
+		if (directoryChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION)
+			directoryField.setText(directoryChooser.getSelectedFile().getAbsolutePath());
+	}
+	
+	private void startSearch() {
+		final Path directory;
+		
+		try {
+			directory = Paths.get(directoryField.getText().trim()).toAbsolutePath();
+		}
+		catch (InvalidPathException e) {
+			statusLabel.setText("Folder not found");
+			return;
+		}
+		if (!Files.isDirectory(directory)) {
+			statusLabel.setText("Folder not found");
+			return;
+		}
+		stopSearch();
+		hits.clear();
+		root = directory;
+		pendingHits = new ConcurrentLinkedQueue<>();
+		
+		SearchHistory.getInstance().add(SearchHistory.FIND, findField.getText());
+		
+		final FileSearch search = new FileSearch(directory, findField.getText(), matchCaseCheckBox.isSelected(), pendingHits::add);
+		
+		this.search = search;
+		statusLabel.setText("Searching...");
+		refreshTimer.start();
+		search.start();
+	}
+	
+	private void stopSearch() {
+		if (search != null) {
+			search.cancel();
+			search = null;
+		}
+		refreshTimer.stop();
+	}
+	
+	// called by the timer while searching; the timer is stopped once the search is done and every occurrence it found has been added to the list
+	private void addPendingHits() {
+		final List<FileSearch.Hit> batch = new ArrayList<>();
+		
+		for (FileSearch.Hit hit; (hit = pendingHits.poll()) != null;)
+			batch.add(hit);
+		
+		hits.addAll(batch);
+		
+		if (search == null) return;
+		
+		final String status = hits.getSize() + (hits.getSize() == 1 ? " match" : " matches") + " in " + search.getFileCount() + " files searched";
+		
+		if (search.isDone() && pendingHits.isEmpty()) {
+			statusLabel.setText(search.getHitCount() >= FileSearch.MAX_HITS ? status + " (stopped at " + FileSearch.MAX_HITS + " matches)" : status);
+			refreshTimer.stop();
+			search = null;
+		}
+		else statusLabel.setText("Searching... " + status);
+	}
+	
+	private void openHit(FileSearch.Hit hit) {
+		if (FileManager.getInstance().openPrompted(hit.path.toFile()))
+			AppTextArea.getInstance().selectInLine(hit.line, hit.lineOffset, hit.column, hit.length);
+	}
+	
+	private void setLayoutGroups() {
+		layout.setHorizontalGroup(layout.createParallelGroup(Alignment.LEADING)
+			.addGroup(layout.createSequentialGroup()
+				.addGroup(layout.createParallelGroup(Alignment.LEADING)
+					.addComponent(findLabel)
+					.addComponent(directoryLabel)
+					.addComponent(matchCaseCheckBox))
+				.addGroup(layout.createParallelGroup(Alignment.LEADING)
+					.addComponent(findField)
+					.addComponent(directoryField)
+					.addComponent(statusLabel))
+				.addGroup(layout.createParallelGroup(Alignment.TRAILING)
+					.addComponent(primaryButton)
+					.addComponent(browseButton)
+					.addComponent(cancelButton)))
+			.addComponent(hitScrollPane));
+		
+		layout.setVerticalGroup(layout.createSequentialGroup()
+			.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+				.addComponent(findLabel)
+				.addComponent(findField)
+				.addComponent(primaryButton))
+			.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+				.addComponent(directoryLabel)
+				.addComponent(directoryField)
+				.addComponent(browseButton))
+			.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+				.addComponent(matchCaseCheckBox)
+				.addComponent(statusLabel)
+				.addComponent(cancelButton))
+			.addComponent(hitScrollPane));
+	}
+	
+	// the folder defaults to that of the open file (if there is one), and is otherwise kept from the last search
+	@Override
+	protected void onOpen() {
+		final File file = FileManager.getInstance().getFile();
+		
+		if (file != null && file.getAbsoluteFile().getParentFile() != null)
+			directoryField.setText(file.getAbsoluteFile().getParent());
+		else if (directoryField.getText().isEmpty())
+			directoryField.setText(System.getProperty("user.home"));
+	}
+	
+	@Override
+	protected void onClose() {
+		stopSearch();
+	}
+}
@@ -21,6 +21,7 @@ public final class FindPane extends FindBasePane {
 	
 	private final JPanel dirPanel = new JPanel();
 	private final JPanel checkBoxPanel = new JPanel();  // the replace pane does not use a panel for its checkboxes due its layout
+	private final JRadioButton[] radioButtons = { new JRadioButton("Up"), new JRadioButton("Down") };
 	
 	public FindPane(JFrame owner) {
 		super(owner, "Find");
@@ -36,7 +37,6 @@ public final class FindPane extends FindBasePane {
 	
 	private void initRadioButtons() {
 		final ButtonGroup buttonGroup = new ButtonGroup();
-		final JRadioButton[] radioButtons = { new JRadioButton("Up"), new JRadioButton("Down") };
 		
 		dirPanel.setMaximumSize(new Dimension(100, 30));
 		dirPanel.setLayout(new BorderLayout());
@@ -106,5 +106,11 @@ public final class FindPane extends FindBasePane {
 	}
 	
 	@Override
-	protected final void onClose() {}
+	protected final void onOpen() {
+		super.onOpen();
+		
+		// only change the selection if it's different, since changing it also resets the range of indices to search in
+		final JRadioButton direction = radioButtons[AppTextArea.getInstance().getFindDown() ? 1 : 0];
+		if (!direction.isSelected()) direction.setSelected(true);
+	}
 }
@@ -352,9 +352,13 @@ public class FontPane extends Pane {
 		}
 	}
 	
+	// reselect the font of the text area, since it may have been changed (or zoomed) since the pane was last open
 	@Override
-	protected void onClose() {
-		for (var model : listModels) model.clear();
-		fonts.clear();
+	protected void onOpen() {
+		setSelections();
 	}
+	
+	// note that the lists and fonts are kept when the pane is closed, since the pane is reused and finding all of the system's fonts is slow
+	@Override
+	protected void onClose() {}
 }
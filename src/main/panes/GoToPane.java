@@ -0,0 +1,139 @@
+package main.panes;
+
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+
+import javax.swing.AbstractAction;
+import javax.swing.ButtonGroup;
+import javax.swing.GroupLayout;
+import javax.swing.GroupLayout.Alignment;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JRadioButton;
+
+import main.AppTextArea;
+import main.TextInput;
+
+// this pane moves the caret to a line (and optionally a column of it, as "line:column"), a character offset or a byte offset; note that all of them
+// are counted from 1, the same as in the status bar, whose position is a byte offset in read-only mode and a character offset otherwise
+@SuppressWarnings("serial")
+public final class GoToPane extends Pane {
+	
+	private final JLabel goToLabel = new JLabel("Go to:");
+	private final JLabel statusLabel = new JLabel(" ");
+	private final TextInput goToField = new TextInput("", primaryButton) {
+		@Override
+		public void onEdit(boolean addedText) {
+			primaryButton.setEnabled(!getText().trim().isEmpty());
+		}
+	};
+	private final JPanel modePanel = new JPanel(new FlowLayout(FlowLayout.LEADING, 0, 0));
+	private final JRadioButton[] radioButtons = { new JRadioButton("Line[:Column]"), new JRadioButton("Character"), new JRadioButton("Byte") };
+	private final GroupLayout layout;
+	
+	public GoToPane(JFrame owner) {
+		super(owner, "Go To", new Dimension(400, 140), new Dimension(84, 20));
+		
+		goToLabel.setLabelFor(goToField);
+		goToLabel.setDisplayedMnemonic(KeyEvent.VK_G);
+		
+		primaryButton.setAction(new AbstractAction("Go To") {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (primaryButton.isEnabled()) goTo();
+			}
+		});
+		primaryButton.setEnabled(false);
+		
+		initRadioButtons();
+		
+		layout = new GroupLayout(getContentPane());
+		layout.setAutoCreateGaps(true);
+		layout.setAutoCreateContainerGaps(true);
+		setLayout(layout);
+		setLayoutGroups();
+		
+		onOpen();
+		start(owner);
+	}
+	
+	private void initRadioButtons() {
+		final ButtonGroup buttonGroup = new ButtonGroup();
+		final int[] mnemonicKeyCodes = { KeyEvent.VK_L, KeyEvent.VK_C, KeyEvent.VK_B };
+		
+		for (int i = 0; i < radioButtons.length; i++) {
+			buttonGroup.add(radioButtons[i]);
+			radioButtons[i].setMnemonic(mnemonicKeyCodes[i]);
+			modePanel.add(radioButtons[i]);
+		}
+		radioButtons[0].setSelected(true);
+	}
+	
+	private void goTo() {
+		final String input = goToField.getText().trim();
+		final boolean jumped;
+		
+		try {
+			if (radioButtons[0].isSelected()) {
+				final int colon = input.indexOf(':');
+				final long line = Long.parseLong(colon == -1 ? input : input.substring(0, colon).trim());
+				final int column = colon == -1 ? 1 : Integer.parseInt(input.substring(colon + 1).trim());
+				
+				jumped = line >= 1 && column >= 1 && AppTextArea.getInstance().goToLineAndColumn(line - 1, column - 1);
+			}
+			else {
+				final long offset = Long.parseLong(input);
+				jumped = offset >= 1 && AppTextArea.getInstance().goToOffset(offset - 1, radioButtons[2].isSelected());
+			}
+		}
+		catch (NumberFormatException e) {
+			statusLabel.setText(radioButtons[0].isSelected() ? "Enter a line number, optionally followed by :column" : "Enter a number");
+			return;
+		}
+		if (!jumped) {
+			statusLabel.setText(radioButtons[0].isSelected() ? "There's no such line" : "The position is past the end of the file");
+			return;
+		}
+		dispose();
+	}
+	
+	private void setLayoutGroups() {
+		layout.setHorizontalGroup(layout.createSequentialGroup()
+			.addGroup(layout.createParallelGroup(Alignment.LEADING)
+				.addComponent(goToLabel))
+			.addGroup(layout.createParallelGroup(Alignment.LEADING)
+				.addComponent(goToField)
+				.addComponent(modePanel)
+				.addComponent(statusLabel))
+			.addGroup(layout.createParallelGroup(Alignment.TRAILING)
+				.addComponent(primaryButton)
+				.addComponent(cancelButton)));
+		
+		layout.setVerticalGroup(layout.createSequentialGroup()
+			.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+				.addComponent(goToLabel)
+				.addComponent(goToField)
+				.addComponent(primaryButton))
+			.addGroup(layout.createParallelGroup(Alignment.CENTER)
+				.addComponent(modePanel)
+				.addComponent(cancelButton))
+			.addComponent(statusLabel));
+	}
+	
+	// the field starts off with the line the caret is on (if it's known), selected so that typing replaces it
+	@Override
+	protected void onOpen() {
+		final long line = AppTextArea.getInstance().getCaretLine();
+		
+		statusLabel.setText(" ");
+		
+		if (radioButtons[0].isSelected() && line != -1) goToField.setText(String.valueOf(line + 1));
+		goToField.selectAll();
+	}
+	
+	@Override
+	protected void onClose() {}
+}
@@ -41,7 +41,7 @@ public abstract class Pane extends JDialog {
 		primaryButton.setPreferredSize(buttonSize);
 		cancelButton.setMinimumSize(buttonSize);
 		cancelButton.setPreferredSize(buttonSize);
-        
+
         initActions();
 		addExternalActions();
 	}
@@ -84,19 +84,24 @@ public abstract class Pane extends JDialog {
 			for (int j = 0; j < AppMenuBar.getInstance().getNumMenuItems(i); j++) {
 				final int keyCode = AppMenuBar.getInstance().getKeyCode(i, j);
 				final int modifiers = AppMenuBar.getInstance().getModifier(i, j);
-				final Runnable action = AppMenuBar.getInstance().getAction(i, j);
 				final String actionKey = "action" + (count++);
 				
-				// note that the action map key does not necessarily need to be descriptive; it only has to match a keystroke with an action
+				// note that the action map key does not necessarily need to be descriptive; it only has to match a keystroke with an action; the menu
+				// item's own action is used, so that the key stroke is disabled along with the item
 				getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(keyCode, modifiers), actionKey);
-				getRootPane().getActionMap().put(actionKey, new AbstractAction() {
-					@Override
-					public void actionPerformed(ActionEvent e) { action.run(); }
-				});
+				getRootPane().getActionMap().put(actionKey, AppMenuBar.getInstance().getAction(i, j));
 			}
 		}
 	}
 	
+	// shows the pane again after it has been closed; note that a disposed dialog only has its native resources released, meaning it can be made
+	// displayable again simply by showing it, which is much faster than rebuilding all of its components
+	public void open(JFrame owner) {
+		closing = false;
+		onOpen();
+		start(owner);
+	}
+	
 	protected void start(JFrame owner) {
 		pack();
 		setLocationRelativeTo(owner);
@@ -106,6 +111,9 @@ public abstract class Pane extends JDialog {
 	// note that an abstract method cannot be marked as final as it's supposed to be overriden; however, its overriden method in a derived class can be
 	protected abstract void onClose();
 	
+	// called before the pane is reopened, so that its components can be updated to reflect any changes made while it was closed
+	protected void onOpen() {}
+	
 	protected boolean closing() {
 		return closing;
 	}
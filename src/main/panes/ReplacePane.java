@@ -10,6 +10,7 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 
 import main.AppTextArea;
+import main.SearchHistory;
 import main.TextInput;
 
 @SuppressWarnings("serial")
@@ -30,6 +31,7 @@ public class ReplacePane extends FindBasePane {
 		super(owner, "Replace");
 		replaceLabel.setLabelFor(replaceField);
 		replaceLabel.setDisplayedMnemonic(KeyEvent.VK_P);
+		replaceField.setHistory(SearchHistory.REPLACE);
 		
 		for (int i = 0; i < replaceButtons.length; i++) {
 			replaceButtons[i] = new JButton();
@@ -46,16 +48,27 @@ public class ReplacePane extends FindBasePane {
 		// values, such as mnemonic key, icon, and a tool tip
 		final AbstractAction replace = new AbstractAction("Replace") {
 			@Override
-			public void actionPerformed(ActionEvent e) { AppTextArea.REPLACE_NEXT.run(); }
+			public void actionPerformed(ActionEvent e) {
+				addToHistory();
+				AppTextArea.REPLACE_NEXT.run();
+			}
 		};
 		final AbstractAction replaceAll = new AbstractAction("Replace All") {
 			@Override
-			public void actionPerformed(ActionEvent e) { AppTextArea.REPLACE_ALL.run(); }
+			public void actionPerformed(ActionEvent e) {
+				addToHistory();
+				AppTextArea.REPLACE_ALL.run();
+			}
 		};
 		replaceButtons[0].setAction(replace);
 		replaceButtons[1].setAction(replaceAll);
 	}
 	
+	private void addToHistory() {
+		SearchHistory.getInstance().add(SearchHistory.FIND, findField.getText());
+		SearchHistory.getInstance().add(SearchHistory.REPLACE, replaceField.getText());
+	}
+	
 	@Override
 	protected final void setLayoutGroups() {
 		layout.setHorizontalGroup(layout.createSequentialGroup()
@@ -93,5 +106,10 @@ public class ReplacePane extends FindBasePane {
 	}
 	
 	@Override
-	protected void onClose() {}
+	protected void onOpen() {
+		super.onOpen();
+		
+		final String replacementText = AppTextArea.getInstance().getReplacementText();
+		if (!replaceField.getText().equals(replacementText)) replaceField.setText(replacementText);
+	}
 }
@@ -0,0 +1,405 @@
+package main.syntax;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// this class finds matching brackets (and the innermost pair of brackets around an offset) without scanning the text: the brackets of every line are
+// kept (as found by the lexer, so that brackets within strings and comments are left out), along with a balanced tree over the lines, where each node
+// holds the net depth of the lines under it (opening brackets minus closing ones), the lowest depth reached from their start, and the highest depth
+// reached from their end; the line a match is on can then be found by descending the tree, in O(log n) for n lines, and only that line's brackets are
+// scanned
+//
+// the tree is a treap (a binary search tree whose nodes are also heap-ordered by random priorities, which keeps it balanced) ordered by the position
+// of the lines rather than by a key, so that lines can be added or removed anywhere by splitting the tree where they go and merging the parts back
+// together, in O(log n) plus the number of lines added, rather than shifting every line after them; the brackets of each line are updated as the
+// line is lexed, also in O(log n); the nodes are kept in arrays rather than as objects, so that a text with millions of lines doesn't take millions of
+// objects; this instance is guarded by the lock of the SyntaxHighlighter it's for
+//
+// note that brackets are nested by depth regardless of their kind, the same way they're counted, so the bracket found for "(" in "(]" is the "]",
+// which is then reported as having no match, since it's of another kind
+final class BracketIndex {
+	
+	private static final int[] NONE = {};
+	
+	private final Random random = new Random();
+	
+	// the nodes, where node 0 is the empty tree, whose values are all 0; lineBrackets[i] holds the brackets of the line of node i, each as its column
+	// shifted left by 3, plus its kind (see "add") shifted left by 1, plus 1 for closing brackets, and the line's own depth values are kept along with
+	// those of the node's whole subtree
+	private int root = 0, nodeCount = 1;
+	private int[] lefts = new int[1], rights = new int[1], sizes = new int[1], priorities = new int[1];
+	private int[] lineSums = new int[1], lineMinPrefixes = new int[1], lineMaxSuffixes = new int[1];
+	private int[] sums = new int[1], minPrefixes = new int[1], maxSuffixes = new int[1];
+	private int[][] lineBrackets = new int[1][];
+	private int[] freeNodes = new int[16];  // the nodes of removed lines, which are reused before any new ones
+	private int freeCount = 0;
+	private int splitLeft, splitRight;      // the two trees the last split resulted in (see "split")
+	
+	// the brackets found in a line, in order
+	static final class Brackets {
+		
+		private int[] brackets = new int[16];
+		private int count = 0;
+		
+		// the kind of a bracket is the index of its character in "([{" (or ")]}"), so that a bracket only matches one of the same kind; lexers whose
+		// blocks aren't made of brackets (ex. XML) use a single kind
+		void add(int column, int kind, boolean closing) {
+			if (count == brackets.length) brackets = Arrays.copyOf(brackets, count * 2);
+			brackets[count++] = column << 3 | kind << 1 | (closing ? 1 : 0);
+		}
+		
+		void clear() {
+			count = 0;
+		}
+		
+		int[] toArray() {
+			return count == 0 ? NONE : Arrays.copyOf(brackets, count);
+		}
+	}
+	
+	void reset(int lineCount) {
+		final int capacity = Math.max(16, lineCount + 1);
+		
+		lefts = new int[capacity];
+		rights = new int[capacity];
+		sizes = new int[capacity];
+		priorities = new int[capacity];
+		lineSums = new int[capacity];
+		lineMinPrefixes = new int[capacity];
+		lineMaxSuffixes = new int[capacity];
+		sums = new int[capacity];
+		minPrefixes = new int[capacity];
+		maxSuffixes = new int[capacity];
+		lineBrackets = new int[capacity][];
+		nodeCount = 1;
+		freeCount = 0;
+		root = build(lineCount);
+	}
+	
+	private int getLineCount() {
+		return sizes[root];
+	}
+	
+	// adds the given number of lines (without any brackets) after the given line
+	void insertLines(int line, int count) {
+		split(root, line + 1);
+		
+		final int before = splitLeft, after = splitRight;
+		root = merge(merge(before, build(count)), after);
+	}
+	
+	// removes the given number of lines after the given line
+	void removeLines(int line, int count) {
+		split(root, line + 1);
+		
+		final int before = splitLeft;
+		split(splitRight, count);
+		
+		final int after = splitRight;
+		release(splitLeft);
+		root = merge(before, after);
+	}
+	
+	void setLine(int line, int[] brackets) {
+		if (line < getLineCount()) setLine(root, line, brackets);
+	}
+	
+	private void setLine(int node, int line, int[] brackets) {
+		final int leftSize = sizes[lefts[node]];
+		
+		if (line < leftSize) setLine(lefts[node], line, brackets);
+		else if (line > leftSize) setLine(rights[node], line - leftSize - 1, brackets);
+		else setBrackets(node, brackets);
+		
+		update(node);
+	}
+	
+	private int[] getBrackets(int line) {
+		int node = root;
+		
+		for (;;) {
+			final int leftSize = sizes[lefts[node]];
+			
+			if (line < leftSize) node = lefts[node];
+			else if (line == leftSize) return lineBrackets[node];
+			else {
+				line -= leftSize + 1;
+				node = rights[node];
+			}
+		}
+	}
+	
+	// builds a tree of the given number of new lines, in linear time rather than by merging them one at a time: every line is added to the right of
+	// the ones before it, and the nodes on the tree's right edge with a lower priority than the new one become its left subtree; returns its root
+	private int build(int count) {
+		int[] edge = new int[16];  // the tree's right edge, from the root down
+		int depth = 0;
+		
+		for (int i = 0; i < count; i++) {
+			final int node = newNode();
+			int last = 0;
+			
+			while (depth > 0 && priorities[edge[depth - 1]] < priorities[node]) {
+				last = edge[--depth];
+				update(last);
+			}
+			lefts[node] = last;
+			if (depth > 0) rights[edge[depth - 1]] = node;
+			
+			if (depth == edge.length) edge = Arrays.copyOf(edge, depth * 2);
+			edge[depth++] = node;
+		}
+		for (int i = depth - 1; i >= 0; i--) update(edge[i]);
+		
+		return depth == 0 ? 0 : edge[0];
+	}
+	
+	private int newNode() {
+		final int node;
+		
+		if (freeCount > 0) node = freeNodes[--freeCount];
+		else {
+			if (nodeCount == lefts.length) grow(nodeCount + (nodeCount >> 1));
+			node = nodeCount++;
+		}
+		lefts[node] = rights[node] = 0;
+		priorities[node] = random.nextInt();
+		setBrackets(node, NONE);
+		
+		return node;
+	}
+	
+	private void grow(int capacity) {
+		lefts = Arrays.copyOf(lefts, capacity);
+		rights = Arrays.copyOf(rights, capacity);
+		sizes = Arrays.copyOf(sizes, capacity);
+		priorities = Arrays.copyOf(priorities, capacity);
+		lineSums = Arrays.copyOf(lineSums, capacity);
+		lineMinPrefixes = Arrays.copyOf(lineMinPrefixes, capacity);
+		lineMaxSuffixes = Arrays.copyOf(lineMaxSuffixes, capacity);
+		sums = Arrays.copyOf(sums, capacity);
+		minPrefixes = Arrays.copyOf(minPrefixes, capacity);
+		maxSuffixes = Arrays.copyOf(maxSuffixes, capacity);
+		lineBrackets = Arrays.copyOf(lineBrackets, capacity);
+	}
+	
+	// frees the nodes of the given tree, so that they're reused for the lines added next
+	private void release(int node) {
+		if (node == 0) return;
+		
+		release(lefts[node]);
+		release(rights[node]);
+		lineBrackets[node] = null;
+		
+		if (freeCount == freeNodes.length) freeNodes = Arrays.copyOf(freeNodes, freeCount * 2);
+		freeNodes[freeCount++] = node;
+	}
+	
+	// splits the given tree into its first given number of lines and the rest, which are left in splitLeft and splitRight
+	private void split(int node, int count) {
+		if (node == 0) {
+			splitLeft = splitRight = 0;
+			return;
+		}
+		if (sizes[lefts[node]] >= count) {
+			split(lefts[node], count);
+			lefts[node] = splitRight;
+			update(node);
+			splitRight = node;
+		}
+		else {
+			split(rights[node], count - sizes[lefts[node]] - 1);
+			rights[node] = splitLeft;
+			update(node);
+			splitLeft = node;
+		}
+	}
+	
+	// returns the tree of the lines of the first given tree followed by those of the second one
+	private int merge(int first, int second) {
+		if (first == 0) return second;
+		if (second == 0) return first;
+		
+		if (priorities[first] > priorities[second]) {
+			rights[first] = merge(rights[first], second);
+			update(first);
+			return first;
+		}
+		lefts[second] = merge(first, lefts[second]);
+		update(second);
+		return second;
+	}
+	
+	private void setBrackets(int node, int[] brackets) {
+		int sum = 0, minPrefix = 0, maxSuffix = 0;
+		
+		for (int bracket : brackets) {
+			sum += depthOf(bracket);
+			minPrefix = Math.min(minPrefix, sum);
+		}
+		for (int i = brackets.length - 1, suffix = 0; i >= 0; i--) {
+			suffix += depthOf(brackets[i]);
+			maxSuffix = Math.max(maxSuffix, suffix);
+		}
+		lineBrackets[node] = brackets;
+		lineSums[node] = sum;
+		lineMinPrefixes[node] = minPrefix;
+		lineMaxSuffixes[node] = maxSuffix;
+	}
+	
+	// combines the values of the node's line with those of its subtrees, which come before and after it
+	private void update(int node) {
+		final int left = lefts[node], right = rights[node];
+		
+		sizes[node] = sizes[left] + 1 + sizes[right];
+		sums[node] = sums[left] + lineSums[node] + sums[right];
+		minPrefixes[node] = Math.min(minPrefixes[left], Math.min(sums[left] + lineMinPrefixes[node], sums[left] + lineSums[node] + minPrefixes[right]));
+		maxSuffixes[node] = Math.max(maxSuffixes[right], Math.max(sums[right] + lineMaxSuffixes[node], sums[right] + lineSums[node] + maxSuffixes[left]));
+	}
+	
+	private static int depthOf(int bracket) {
+		return (bracket & 1) == 0 ? 1 : -1;
+	}
+	
+	private static int kindOf(int bracket) {
+		return bracket >>> 1 & 3;
+	}
+	
+	// returns whether there's a bracket at the given column of the given line, whether it has a match or not
+	boolean isBracket(int line, int column) {
+		return line < getLineCount() && indexOf(getBrackets(line), column) != -1;
+	}
+	
+	// returns the position (see "position") of the bracket matching the one at the given column of the given line, or -1 if there isn't a bracket there
+	// or it has no match (including if the bracket closing (or opening) its block is of another kind)
+	long findMatch(int line, int column) {
+		if (line >= getLineCount()) return -1;
+		
+		final int[] brackets = getBrackets(line);
+		final int index = indexOf(brackets, column);
+		
+		if (index == -1) return -1;
+		
+		final int kind = kindOf(brackets[index]);
+		return (brackets[index] & 1) == 0 ? findClosing(line, index + 1, kind) : findOpening(line, index, kind);
+	}
+	
+	// returns the position of the innermost opening bracket that's before the given column of the given line and isn't closed before it, or -1 if
+	// there isn't one
+	long findEnclosing(int line, int column) {
+		if (line >= getLineCount()) return -1;
+		
+		final int index = Arrays.binarySearch(getBrackets(line), column << 3);
+		return findOpening(line, index < 0 ? -index - 1 : index, -1);
+	}
+	
+	// finds the closing bracket that brings the depth below that of the given bracket of the line (ie. the one matching the bracket before it), which
+	// has to be of the given kind
+	private long findClosing(int line, int from, int kind) {
+		final int[] brackets = getBrackets(line);
+		int depth = 0;
+		
+		for (int i = from; i < brackets.length; i++) {
+			depth += depthOf(brackets[i]);
+			if (depth == -1) return matched(line, brackets[i], kind);
+		}
+		// the match is in the first line after this one where the depth (counted from the start of the next line) gets low enough
+		final int target = -1 - depth;
+		final int[] depthBefore = new int[1];
+		final int matchLine = findLineForward(root, 0, line + 1, depthBefore, target);
+		
+		if (matchLine == -1) return -1;
+		
+		depth = depthBefore[0];
+		
+		for (int bracket : getBrackets(matchLine)) {
+			depth += depthOf(bracket);
+			if (depth == target) return matched(matchLine, bracket, kind);
+		}
+		return -1;
+	}
+	
+	// finds the opening bracket (before the given bracket of the line) that brings the depth, counted backwards, above that of the given bracket, which
+	// has to be of the given kind (unless it's -1)
+	private long findOpening(int line, int before, int kind) {
+		final int[] brackets = getBrackets(line);
+		int depth = 0;
+		
+		for (int i = before - 1; i >= 0; i--) {
+			depth += depthOf(brackets[i]);
+			if (depth == 1) return matched(line, brackets[i], kind);
+		}
+		final int target = 1 - depth;
+		final int[] depthAfter = new int[1];
+		final int matchLine = findLineBackward(root, 0, line - 1, depthAfter, target);
+		
+		if (matchLine == -1) return -1;
+		
+		final int[] matchBrackets = getBrackets(matchLine);
+		depth = depthAfter[0];
+		
+		for (int i = matchBrackets.length - 1; i >= 0; i--) {
+			depth += depthOf(matchBrackets[i]);
+			if (depth == target) return matched(matchLine, matchBrackets[i], kind);
+		}
+		return -1;
+	}
+	
+	private static long matched(int line, int bracket, int kind) {
+		return kind == -1 || kindOf(bracket) == kind ? position(line, bracket) : -1;
+	}
+	
+	// returns the first line at or after the given line where the depth (counted from the start of that line) reaches the target, which is passed
+	// through "depth" along with the depth at the start of the line found; the node's first line is the given one
+	private int findLineForward(int node, int first, int from, int[] depth, int target) {
+		if (node == 0 || first + sizes[node] <= from) return -1;
+		
+		if (first >= from && depth[0] + minPrefixes[node] > target) {
+			depth[0] += sums[node];
+			return -1;
+		}
+		final int self = first + sizes[lefts[node]];
+		final int line = findLineForward(lefts[node], first, from, depth, target);
+		
+		if (line != -1) return line;
+		
+		if (self >= from) {
+			if (depth[0] + lineMinPrefixes[node] <= target) return self;
+			depth[0] += lineSums[node];
+		}
+		return findLineForward(rights[node], self + 1, from, depth, target);
+	}
+	
+	// the same as above, but searching backwards from the given line (inclusive), with the depth counted from the end of that line
+	private int findLineBackward(int node, int first, int to, int[] depth, int target) {
+		if (node == 0 || first > to) return -1;
+		
+		if (first + sizes[node] - 1 <= to && depth[0] + maxSuffixes[node] < target) {
+			depth[0] += sums[node];
+			return -1;
+		}
+		final int self = first + sizes[lefts[node]];
+		final int line = findLineBackward(rights[node], self + 1, to, depth, target);
+		
+		if (line != -1) return line;
+		
+		if (self <= to) {
+			if (depth[0] + lineMaxSuffixes[node] >= target) return self;
+			depth[0] += lineSums[node];
+		}
+		return findLineBackward(lefts[node], first, to, depth, target);
+	}
+	
+	// returns the index of the bracket at the given column, or -1 if there isn't one
+	private static int indexOf(int[] brackets, int column) {
+		final int index = Arrays.binarySearch(brackets, column << 3);
+		
+		if (index >= 0) return index;
+		return -index - 1 < brackets.length && brackets[-index - 1] >>> 3 == column ? -index - 1 : -1;
+	}
+	
+	// a position is the line of a bracket in the upper 32 bits and its column in the lower 32 bits
+	private static long position(int line, int bracket) {
+		return (long) line << 32 | bracket >>> 3;
+	}
+}
@@ -0,0 +1,98 @@
+package main.syntax;
+
+import java.util.Set;
+
+// highlights the keywords, literals and comments of Java; the only constructs that span several lines are block comments (including Javadoc) and text
+// blocks, which are the 2 states besides the initial one
+final class JavaLexer extends Lexer {
+	
+	static final JavaLexer INSTANCE = new JavaLexer();
+	
+	private static final int IN_COMMENT = 1;
+	private static final int IN_TEXT_BLOCK = 2;
+	
+	private static final Set<String> KEYWORDS = Set.of(
+		"abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue", "default", "do", "double", "else",
+		"enum", "extends", "final", "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+		"new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this", "throw",
+		"throws", "transient", "try", "void", "volatile", "while", "var", "record", "yield", "sealed", "permits", "true", "false", "null");
+	
+	private JavaLexer() {}
+	
+	@Override
+	public int lex(CharSequence line, int state, Tokens tokens) {
+		int i = 0;
+		
+		while (i < line.length()) {
+			if (state == IN_COMMENT) {
+				final int end = indexOf(line, "*/", i);
+				
+				if (end == -1) {
+					tokens.add(i, line.length(), COMMENT);
+					return IN_COMMENT;
+				}
+				tokens.add(i, end + 2, COMMENT);
+				i = end + 2;
+				state = INITIAL_STATE;
+				continue;
+			}
+			if (state == IN_TEXT_BLOCK) {
+				final int end = indexOfTextBlockEnd(line, i);
+				
+				if (end == -1) {
+					tokens.add(i, line.length(), STRING);
+					return IN_TEXT_BLOCK;
+				}
+				tokens.add(i, end, STRING);
+				i = end;
+				state = INITIAL_STATE;
+				continue;
+			}
+			final char c = line.charAt(i);
+			
+			if (c == '/' && startsWith(line, i, "//")) {
+				tokens.add(i, line.length(), COMMENT);
+				return INITIAL_STATE;
+			}
+			else if (c == '/' && startsWith(line, i, "/*")) {
+				tokens.add(i, i + 2, COMMENT);
+				i += 2;
+				state = IN_COMMENT;
+			}
+			else if (c == '"' && startsWith(line, i, "\"\"\"")) {
+				tokens.add(i, i + 3, STRING);
+				i += 3;
+				state = IN_TEXT_BLOCK;
+			}
+			else if (c == '"' || c == '\'') {
+				final int end = skipString(line, i, c);
+				
+				tokens.add(i, end == -1 ? line.length() : end, STRING);
+				i = end == -1 ? line.length() : end;
+			}
+			else if (Character.isDigit(c) || (c == '.' && i + 1 < line.length() && Character.isDigit(line.charAt(i + 1)))) {
+				final int end = skipNumber(line, i);
+				
+				tokens.add(i, end, NUMBER);
+				i = end;
+			}
+			else if (Character.isJavaIdentifierStart(c)) {
+				final int end = skipIdentifier(line, i);
+				
+				if (KEYWORDS.contains(line.subSequence(i, end).toString())) tokens.add(i, end, KEYWORD);
+				i = end;
+			}
+			else i++;
+		}
+		return state;
+	}
+	
+	// returns the offset after the closing quotes of a text block, or -1 if they aren't on this line
+	private static int indexOfTextBlockEnd(CharSequence line, int offset) {
+		for (int i = offset; i < line.length(); i++) {
+			if (line.charAt(i) == '\\') i++;
+			else if (startsWith(line, i, "\"\"\"")) return i + 3;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,47 @@
+package main.syntax;
+
+// highlights the keys, strings, numbers and literals (true, false and null) of JSON; since a string can't contain a line separator, nothing in JSON
+// spans several lines, so the state is always the initial one
+final class JsonLexer extends Lexer {
+	
+	static final JsonLexer INSTANCE = new JsonLexer();
+	
+	private JsonLexer() {}
+	
+	@Override
+	public int lex(CharSequence line, int state, Tokens tokens) {
+		int i = 0;
+		
+		while (i < line.length()) {
+			final char c = line.charAt(i);
+			
+			if (c == '"') {
+				final int end = skipString(line, i, '"');
+				
+				if (end == -1) {
+					tokens.add(i, line.length(), STRING);
+					break;
+				}
+				// a string followed by a colon is the key of a member rather than a value
+				final int next = skipWhitespace(line, end);
+				
+				tokens.add(i, end, next < line.length() && line.charAt(next) == ':' ? KEY : STRING);
+				i = end;
+			}
+			else if (Character.isDigit(c) || (c == '-' && i + 1 < line.length() && Character.isDigit(line.charAt(i + 1)))) {
+				final int end = skipNumber(line, i);
+				
+				tokens.add(i, end, NUMBER);
+				i = end;
+			}
+			else if (Character.isLetter(c)) {
+				final int end = skipIdentifier(line, i);
+				
+				if (isWord(line, i, end, "true") || isWord(line, i, end, "false") || isWord(line, i, end, "null")) tokens.add(i, end, KEYWORD);
+				i = end;
+			}
+			else i++;
+		}
+		return INITIAL_STATE;
+	}
+}
@@ -0,0 +1,169 @@
+package main.syntax;
+
+import java.util.Arrays;
+
+// a lexer splits a line of text into tokens (ex. keywords, strings and comments), which are then painted in the color of their type; lexing is done
+// one line at a time, starting in the state the previous line ended in (ex. inside a block comment), so that after an edit, the lines can be lexed
+// again from the edited line onwards, until a line ends in the same state as it did before, which means none of the lines after it have changed
+// (see the SyntaxHighlighter class)
+//
+// note that the state of a lexer is a plain int (rather than an object), so that one can be kept for every line at little cost, and so that comparing
+// 2 states is a simple equality check; a state can't be negative, since -1 is used for lines that haven't been lexed yet, and every lexer starts in 0
+public abstract class Lexer {
+	
+	public static final int INITIAL_STATE = 0;
+	
+	// the types of tokens; note that only the color of a token changes with its type (rather than its font style), since the width of the text has to
+	// stay the same as that of the plain text for the caret and selection to line up with it
+	public static final int PLAIN = 0;
+	public static final int KEYWORD = 1;  // also used for the tags of XML and the log levels that aren't warnings or errors
+	public static final int STRING = 2;
+	public static final int NUMBER = 3;   // also used for the timestamps of logs
+	public static final int COMMENT = 4;
+	public static final int KEY = 5;      // the keys of JSON and YAML, and the attributes of XML
+	public static final int WARNING = 6;
+	public static final int ERROR = 7;
+	static final int TYPE_BITS = 4;
+	static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+	
+	// the lexer for files that don't have one of their own, which leaves the whole text plain (but still finds its brackets)
+	static final Lexer PLAIN_TEXT = new Lexer() {
+		@Override
+		public int lex(CharSequence line, int state, Tokens tokens) {
+			return state;
+		}
+	};
+	
+	// lexes a line (without its line separator) starting in the given state, adding its tokens to the given buffer; returns the state the line ends in
+	public abstract int lex(CharSequence line, int state, Tokens tokens);
+	
+	// adds the brackets of a line (see the BracketIndex class) to the given list, leaving out those within the strings and comments of the given
+	// tokens (which the line was lexed into); lexers of languages whose blocks aren't made of brackets (ex. XML) find their own
+	void addBrackets(CharSequence line, int[] tokens, BracketIndex.Brackets brackets) {
+		int type = PLAIN;
+		
+		for (int i = 0, token = 0; i < line.length(); i++) {
+			while (token < tokens.length && tokens[token] >>> TYPE_BITS <= i) type = tokens[token++] & TYPE_MASK;
+			
+			if (type == STRING || type == COMMENT) continue;
+			
+			final char c = line.charAt(i);
+			
+			if (c == '(' || c == '[' || c == '{') brackets.add(i, "([{".indexOf(c), false);
+			else if (c == ')' || c == ']' || c == '}') brackets.add(i, ")]}".indexOf(c), true);
+		}
+	}
+	
+	// returns the lexer for the given file name (based on its extension), or null if there isn't one, in which case the file is shown as plain text
+	public static Lexer forFileName(String name) {
+		if (name == null) return null;
+		
+		final String lowerCase = name.toLowerCase();
+		final String extension = lowerCase.substring(lowerCase.lastIndexOf('.') + 1);
+		
+		switch (extension) {
+			case "json": return JsonLexer.INSTANCE;
+			case "yaml": case "yml": return YamlLexer.INSTANCE;
+			case "xml": case "xsd": case "xsl": case "xslt": case "svg": case "pom": case "plist": return XmlLexer.INSTANCE;
+			case "java": return JavaLexer.INSTANCE;
+			case "log": return LogLexer.INSTANCE;
+		}
+		// rotated logs usually have a number after the extension (ex. app.log.1)
+		return lowerCase.contains(".log.") ? LogLexer.INSTANCE : null;
+	}
+	
+	// the tokens of a line, kept as the offset each token starts at (shifted left by TYPE_BITS) combined with its type, in order; a token ends where the
+	// next one starts (or at the end of the line), so the plain text between tokens is a token of its own, and adjacent tokens of the same type are
+	// merged into one, which keeps the array of each line as small as possible
+	public static final class Tokens {
+		
+		static final int[] NONE = {};  // shared by every line that's entirely plain text
+		
+		private int[] tokens = new int[32];
+		private int count = 0;
+		
+		// marks the text between the given offsets of the line as a token of the given type; tokens must be added in order
+		public void add(int start, int end, int type) {
+			if (end <= start) return;
+			
+			mark(start, type);
+			mark(end, PLAIN);
+		}
+		
+		private void mark(int offset, int type) {
+			if (count > 0 && tokens[count - 1] >>> TYPE_BITS == offset) count--;  // the previous token is empty, so it's replaced
+			if (count > 0 ? (tokens[count - 1] & TYPE_MASK) == type : type == PLAIN) return;
+			
+			if (count == tokens.length) tokens = Arrays.copyOf(tokens, count * 2);
+			tokens[count++] = offset << TYPE_BITS | type;
+		}
+		
+		void clear() {
+			count = 0;
+		}
+		
+		int[] toArray() {
+			return count == 0 ? NONE : Arrays.copyOf(tokens, count);
+		}
+	}
+	
+	// returns the offset after the closing quote of the string starting at the given offset (ie. at its opening quote), or -1 if the string isn't
+	// closed by the end of the line; note that quotes escaped with a backslash don't close the string
+	static int skipString(CharSequence line, int offset, char quote) {
+		for (int i = offset + 1; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			
+			if (c == '\\') i++;
+			else if (c == quote) return i + 1;
+		}
+		return -1;
+	}
+	
+	// returns the offset after the number starting at the given offset; note that this includes letters and dots, so that hexadecimal numbers,
+	// exponents, and suffixes (ex. 10L) are all part of the number
+	static int skipNumber(CharSequence line, int offset) {
+		int i = offset + 1;
+		
+		while (i < line.length() && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '.' || line.charAt(i) == '_' ||
+				((line.charAt(i) == '-' || line.charAt(i) == '+') && (line.charAt(i - 1) == 'e' || line.charAt(i - 1) == 'E'))))
+			i++;
+		
+		return i;
+	}
+	
+	static int skipIdentifier(CharSequence line, int offset) {
+		int i = offset + 1;
+		
+		while (i < line.length() && Character.isJavaIdentifierPart(line.charAt(i))) i++;
+		return i;
+	}
+	
+	static int skipWhitespace(CharSequence line, int offset) {
+		int i = offset;
+		
+		while (i < line.length() && Character.isWhitespace(line.charAt(i))) i++;
+		return i;
+	}
+	
+	static boolean startsWith(CharSequence line, int offset, String prefix) {
+		if (offset + prefix.length() > line.length()) return false;
+		
+		for (int i = 0; i < prefix.length(); i++)
+			if (line.charAt(offset + i) != prefix.charAt(i)) return false;
+		
+		return true;
+	}
+	
+	// returns whether the text between the given offsets is the given word
+	static boolean isWord(CharSequence line, int start, int end, String word) {
+		return end - start == word.length() && startsWith(line, start, word);
+	}
+	
+	// returns the offset of the given text at or after the given offset, or -1 if it isn't found
+	static int indexOf(CharSequence line, String text, int offset) {
+		for (int i = offset; i <= line.length() - text.length(); i++)
+			if (startsWith(line, i, text)) return i;
+		
+		return -1;
+	}
+}
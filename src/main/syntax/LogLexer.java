@@ -0,0 +1,70 @@
+package main.syntax;
+
+// highlights the timestamps, levels and quoted strings of log lines, along with the stack traces of exceptions; since log formats vary a lot, nothing is
+// assumed about the order of the fields, so any word that's a level is highlighted as one, and any word that starts with a digit is highlighted as a
+// number (which covers dates, times and most identifiers); every line is lexed on its own, so the state is always the initial one
+final class LogLexer extends Lexer {
+	
+	static final LogLexer INSTANCE = new LogLexer();
+	
+	private LogLexer() {}
+	
+	@Override
+	public int lex(CharSequence line, int state, Tokens tokens) {
+		final int start = skipWhitespace(line, 0);
+		
+		// the frames of a stack trace (ex. "\tat main.Main.main(Main.java:10)") are dimmed, while its causes are highlighted as errors
+		if (start > 0 && startsWith(line, start, "at ")) {
+			tokens.add(start, line.length(), COMMENT);
+			return INITIAL_STATE;
+		}
+		if (startsWith(line, start, "Caused by:")) {
+			tokens.add(start, line.length(), ERROR);
+			return INITIAL_STATE;
+		}
+		int i = start;
+		
+		while (i < line.length()) {
+			final char c = line.charAt(i);
+			
+			if (c == '"') {
+				final int end = skipString(line, i, c);
+				
+				tokens.add(i, end == -1 ? line.length() : end, STRING);
+				i = end == -1 ? line.length() : end;
+			}
+			else if (Character.isDigit(c)) {
+				// note that the separators of dates and times are part of the number, so that a timestamp is a single token
+				int end = i + 1;
+				
+				while (end < line.length() && (Character.isLetterOrDigit(line.charAt(end)) || "-:.,/+_".indexOf(line.charAt(end)) != -1)) end++;
+				while (end > i + 1 && !Character.isLetterOrDigit(line.charAt(end - 1))) end--;  // ex. the period at the end of a sentence
+				
+				tokens.add(i, end, NUMBER);
+				i = end;
+			}
+			else if (Character.isLetter(c)) {
+				int end = i + 1;
+				
+				while (end < line.length() && Character.isLetterOrDigit(line.charAt(end))) end++;
+				
+				tokens.add(i, end, typeOfWord(line, i, end));
+				i = end;
+			}
+			else i++;
+		}
+		return INITIAL_STATE;
+	}
+	
+	// the levels are only recognized in upper case, since the lower case words (ex. "error") are common in the messages themselves
+	private static int typeOfWord(CharSequence line, int start, int end) {
+		if (end - start < 4 || end - start > 8 || !Character.isUpperCase(line.charAt(start + 1))) return PLAIN;
+		
+		switch (line.subSequence(start, end).toString()) {
+			case "FATAL": case "SEVERE": case "ERROR": case "CRITICAL": return ERROR;
+			case "WARN": case "WARNING": return WARNING;
+			case "INFO": case "DEBUG": case "TRACE": case "FINE": case "FINER": case "FINEST": case "CONFIG": return KEYWORD;
+			default: return PLAIN;
+		}
+	}
+}
@@ -0,0 +1,335 @@
+package main.syntax;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.JComponent;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import javax.swing.text.TabExpander;
+import javax.swing.text.Utilities;
+
+// this class highlights the syntax of the text area's text using a lexer (see the Lexer class), which is chosen by the name of the open file; the state
+// the lexer is in at the start of every line is kept, along with the tokens of the line, so that after an edit, only the lines from the edited one
+// onwards are lexed again, and only until a line ends in the same state as it did before (meaning none of the lines after it can have changed); this
+// makes typing in a large file as cheap as typing in a small one, even though the whole file is lexed when it's opened
+//
+// the lexing is done on a background thread, in batches of lines, each of which holds the document's read lock (so that the text can't change while
+// it's being read), and the lock is released between batches, so that typing never has to wait for more than a single batch; the tokens are then only
+// painted for the visible lines by the text area's views (see the SyntaxTextAreaUI class), which take them from here; the brackets of each line are
+// found along with its tokens, and are kept in an index (see the BracketIndex class) for finding matching brackets and the blocks around the caret
+//
+// note that the line states and tokens are guarded by this instance's lock, since they're changed by the EDT (whenever lines are added or removed)
+// and the lexing thread, and read by the EDT (whenever the text is painted)
+public final class SyntaxHighlighter {
+	
+	private static final int UNKNOWN_STATE = -1;   // the state of a line that hasn't been lexed yet
+	private static final int BATCH_SIZE = 500;     // the number of lines lexed while holding the document's read lock
+	private static final int MAX_LINE_LENGTH = 20_000;  // longer lines (ex. minified JSON) are shown as plain text, as lexing them would hold the lock
+	
+	// the colors of the token types, in the order of the types' values (see the Lexer class); note that plain text uses the text area's foreground
+	private static final Color[] COLORS = {
+		null, new Color(0, 51, 179), new Color(6, 125, 23), new Color(23, 80, 235), new Color(128, 128, 128), new Color(135, 16, 148),
+		new Color(190, 120, 0), new Color(200, 0, 0)
+	};
+	
+	private final JTextArea textArea;
+	private final Runnable onLexed;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		final Thread thread = new Thread(r, "Syntax Highlighter");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Lexer.Tokens tokenBuffer = new Lexer.Tokens();  // only used by the lexing thread
+	private final BracketIndex.Brackets bracketBuffer = new BracketIndex.Brackets();
+	private final Segment lineText = new Segment();
+	private final BracketIndex brackets = new BracketIndex();
+	
+	private Lexer lexer = Lexer.PLAIN_TEXT;
+	private int lineCount = 0;
+	private int[] states = new int[0];    // the state at the start of each line
+	private int[][] tokens = new int[0][];  // the tokens of each line (see the Tokens class), or null if it hasn't been lexed yet
+	private boolean lexing = false;
+	
+	// every line from dirtyFrom onwards has to be lexed again, at least up to dirtyTo, then up to the first line whose state doesn't change; dirtyFrom
+	// is -1 when all of the lines are up to date
+	private int dirtyFrom = -1, dirtyTo = -1;
+	
+	// onLexed is called on the EDT whenever every line is up to date (ex. so that the brackets around the caret can be found again)
+	public SyntaxHighlighter(JTextArea textArea, Runnable onLexed) {
+		this.textArea = textArea;
+		this.onLexed = onLexed;
+		
+		// the views find the highlighter through the text area, since they're created by its UI (which may be replaced at any time)
+		textArea.putClientProperty(SyntaxHighlighter.class, this);
+		textArea.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) { linesChanged(e); }
+			
+			@Override
+			public void removeUpdate(DocumentEvent e) { linesChanged(e); }
+			
+			@Override
+			public void changedUpdate(DocumentEvent e) {}
+		});
+		setLexer(null);
+	}
+	
+	// returns the highlighter of the given text area, or null if it doesn't have one
+	static SyntaxHighlighter of(Component component) {
+		return (SyntaxHighlighter) ((JComponent) component).getClientProperty(SyntaxHighlighter.class);
+	}
+	
+	// sets the lexer used for the text (null for plain text), which lexes the whole text again; note that this is called on the EDT
+	public synchronized void setLexer(Lexer lexer) {
+		this.lexer = lexer == null ? Lexer.PLAIN_TEXT : lexer;
+		lineCount = textArea.getDocument().getDefaultRootElement().getElementCount();
+		states = new int[lineCount];
+		tokens = new int[lineCount][];
+		brackets.reset(lineCount);
+		dirtyFrom = dirtyTo = -1;
+		
+		Arrays.fill(states, UNKNOWN_STATE);
+		states[0] = Lexer.INITIAL_STATE;
+		markDirty(0, lineCount - 1);
+		textArea.repaint();
+	}
+	
+	public synchronized Lexer getLexer() {
+		return lexer == Lexer.PLAIN_TEXT ? null : lexer;
+	}
+	
+	// called on the EDT (while the document is locked for writing) after text has been inserted or removed; the lines the edit added (or removed) are
+	// added to (or removed from) the states and tokens, then the edited line is marked to be lexed again, along with the lines that were added
+	private synchronized void linesChanged(DocumentEvent e) {
+		final Element root = e.getDocument().getDefaultRootElement();
+		final int line = root.getElementIndex(e.getOffset());
+		final int added = root.getElementCount() - lineCount;
+		
+		if (added > 0) {
+			if (lineCount + added > states.length) {
+				final int capacity = Math.max(lineCount + added, states.length + (states.length >> 1));
+				
+				states = Arrays.copyOf(states, capacity);
+				tokens = Arrays.copyOf(tokens, capacity);
+			}
+			System.arraycopy(states, line + 1, states, line + 1 + added, lineCount - line - 1);
+			System.arraycopy(tokens, line + 1, tokens, line + 1 + added, lineCount - line - 1);
+			Arrays.fill(states, line + 1, line + 1 + added, UNKNOWN_STATE);
+			Arrays.fill(tokens, line + 1, line + 1 + added, null);
+			brackets.insertLines(line, added);
+		}
+		else if (added < 0) {
+			System.arraycopy(states, line + 1 - added, states, line + 1, lineCount - line - 1 + added);
+			System.arraycopy(tokens, line + 1 - added, tokens, line + 1, lineCount - line - 1 + added);
+			Arrays.fill(tokens, lineCount + added, lineCount, null);
+			brackets.removeLines(line, -added);
+		}
+		lineCount += added;
+		
+		// the lines that were already going to be lexed again have moved along with the rest of the text after the edited line
+		if (dirtyTo > line) dirtyTo = Math.max(line, dirtyTo + added);
+		
+		markDirty(line, line + Math.max(added, 0));
+	}
+	
+	private void markDirty(int from, int to) {
+		dirtyFrom = dirtyFrom == -1 ? from : Math.min(dirtyFrom, from);
+		dirtyTo = Math.max(dirtyTo, to);
+		
+		if (!lexing) {
+			lexing = true;
+			executor.execute(this::lex);
+		}
+	}
+	
+	// lexes batches of lines until every line is up to date; each batch of lines that was lexed is then repainted if it's visible
+	private void lex() {
+		final Document document = textArea.getDocument();
+		final int[] lexed = new int[2];
+		
+		while (true) {
+			lexed[0] = -1;
+			document.render(() -> lexBatch(document, lexed));
+			
+			if (lexed[0] == -1) {
+				SwingUtilities.invokeLater(onLexed);
+				return;
+			}
+			
+			final int from = lexed[0], to = lexed[1];
+			SwingUtilities.invokeLater(() -> repaintLines(from, to));
+		}
+	}
+	
+	// lexes the next batch of lines, passing on the range of lines that were lexed (or -1 if there weren't any left to lex, in which case the lexing
+	// thread stops until the next edit)
+	private synchronized void lexBatch(Document document, int[] lexed) {
+		if (dirtyFrom == -1) {
+			dirtyFrom = dirtyTo = -1;
+			lexing = false;
+			return;
+		}
+		final Element root = document.getDefaultRootElement();
+		final int from = dirtyFrom;
+		final int end = Math.min(lineCount, from + BATCH_SIZE);
+		int line = from;
+		int state = states[line];
+		boolean upToDate = false;
+		
+		try {
+			for (; line < end && !upToDate; line++) {
+				final Element element = root.getElement(line);
+				final int length = element.getEndOffset() - element.getStartOffset() - 1;  // without the line separator
+				int next = state;
+				
+				tokenBuffer.clear();
+				bracketBuffer.clear();
+				document.getText(element.getStartOffset(), length, lineText);
+				
+				// the brackets of lines that are too long to be lexed are still found, though those within strings and comments aren't left out
+				if (length <= MAX_LINE_LENGTH) next = lexer.lex(lineText, state, tokenBuffer);
+				
+				tokens[line] = tokenBuffer.toArray();
+				(length <= MAX_LINE_LENGTH ? lexer : Lexer.PLAIN_TEXT).addBrackets(lineText, tokens[line], bracketBuffer);
+				brackets.setLine(line, bracketBuffer.toArray());
+				
+				// once past the edited lines, the lines after this one are up to date if it ends in the same state as it did before
+				if (line + 1 == lineCount) upToDate = true;
+				else {
+					upToDate = line >= dirtyTo && states[line + 1] == next;
+					states[line + 1] = next;
+				}
+				state = next;
+			}
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+			upToDate = true;
+		}
+		dirtyFrom = upToDate || line == lineCount ? -1 : line;
+		if (dirtyFrom == -1) dirtyTo = -1;
+		
+		lexed[0] = from;
+		lexed[1] = line - 1;
+	}
+	
+	// repaints the viewport if any of the given lines are visible
+	private void repaintLines(int from, int to) {
+		final Rectangle visible = textArea.getVisibleRect();
+		final Element root = textArea.getDocument().getDefaultRootElement();
+		final int first = root.getElementIndex(textArea.viewToModel2D(new Point(visible.x, visible.y)));
+		final int last = root.getElementIndex(textArea.viewToModel2D(new Point(visible.x + visible.width, visible.y + visible.height)));
+		
+		if (from <= last && to >= first) textArea.repaint(visible);
+	}
+	
+	// returns whether there's a bracket at the given offset, whether it has a match or not
+	public synchronized boolean isBracket(int offset) {
+		final Element root = textArea.getDocument().getDefaultRootElement();
+		final int line = root.getElementIndex(offset);
+		final int column = offset - root.getElement(line).getStartOffset();
+		
+		return brackets.isBracket(line, column) && toOffset((long) line << 32 | column) != -1;
+	}
+	
+	// returns the offset of the bracket matching the one at the given offset, or -1 if there isn't a bracket there (or it has no match, or the bracket
+	// closing (or opening) its block is of another kind, see the BracketIndex class); note that a line that has been edited but not lexed again yet may
+	// not have its brackets where they were, so the offset found is checked against the text
+	public synchronized int findMatchingBracket(int offset) {
+		final Element root = textArea.getDocument().getDefaultRootElement();
+		final int line = root.getElementIndex(offset);
+		
+		return toOffset(brackets.findMatch(line, offset - root.getElement(line).getStartOffset()));
+	}
+	
+	// returns the start and end offsets of the innermost block around the given offset (ie. from its opening bracket to the end of its closing one,
+	// which for XML is the whole end tag), or null if the offset isn't within a block
+	public synchronized int[] findEnclosingBlock(int offset) {
+		final Element root = textArea.getDocument().getDefaultRootElement();
+		final int line = root.getElementIndex(offset);
+		final int start = toOffset(brackets.findEnclosing(line, offset - root.getElement(line).getStartOffset()));
+		
+		if (start == -1) return null;
+		
+		final int startLine = root.getElementIndex(start);
+		final int end = toOffset(brackets.findMatch(startLine, start - root.getElement(startLine).getStartOffset()));
+		
+		if (end == -1) return null;
+		
+		try {
+			// the closing bracket of XML is the start of the end tag, which ends at the next ">"
+			final String text = textArea.getText(end, Math.min(textArea.getDocument().getLength() - end, 256));
+			final int tagEnd = text.charAt(0) == '<' || text.charAt(0) == '/' ? text.indexOf('>') : 0;
+			
+			return new int[] { start, end + Math.max(tagEnd, 0) + 1 };
+		}
+		catch (BadLocationException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	// converts the position of a bracket in the index to its offset in the text, returning -1 if there's no longer a bracket there
+	private int toOffset(long position) {
+		if (position == -1) return -1;
+		
+		final Element root = textArea.getDocument().getDefaultRootElement();
+		final int line = (int) (position >>> 32);
+		
+		if (line >= root.getElementCount()) return -1;
+		
+		final int offset = root.getElement(line).getStartOffset() + (int) position;
+		
+		try {
+			return offset < textArea.getDocument().getLength() && "()[]{}</".indexOf(textArea.getText(offset, 1).charAt(0)) != -1 ? offset : -1;
+		}
+		catch (BadLocationException e) {
+			return -1;
+		}
+	}
+	
+	// returns the tokens of the given line, or null if it hasn't been lexed yet (or there's no lexer)
+	synchronized int[] getTokens(int line) {
+		return line < lineCount ? tokens[line] : null;
+	}
+	
+	// draws the text between the given offsets (which are within a single line) in the colors of its tokens, the same way PlainView draws it in a
+	// single color; returns the x coordinate of the end of the text, or NaN if the line hasn't been lexed yet, in which case nothing is drawn
+	float drawText(Graphics2D g, float x, float y, int p0, int p1, Segment segment, TabExpander expander) throws BadLocationException {
+		final Document document = textArea.getDocument();
+		final int line = document.getDefaultRootElement().getElementIndex(p0);
+		final int lineStart = document.getDefaultRootElement().getElement(line).getStartOffset();
+		final int[] lineTokens = getTokens(line);
+		int i = 0, start = p0;
+		
+		if (lineTokens == null) return Float.NaN;
+		
+		// skip to the token that contains the start of the text
+		while (i < lineTokens.length && lineStart + (lineTokens[i] >>> Lexer.TYPE_BITS) <= p0) i++;
+		
+		while (start < p1) {
+			final int type = i == 0 ? Lexer.PLAIN : lineTokens[i - 1] & Lexer.TYPE_MASK;
+			final int end = i < lineTokens.length ? Math.min(p1, lineStart + (lineTokens[i] >>> Lexer.TYPE_BITS)) : p1;
+			
+			document.getText(start, end - start, segment);
+			g.setColor(type == Lexer.PLAIN ? textArea.getForeground() : COLORS[type]);
+			x = Utilities.drawTabbedText(segment, x, y, g, expander, start);
+			start = end;
+			i++;
+		}
+		return x;
+	}
+}
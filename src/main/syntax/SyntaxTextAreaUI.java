@@ -0,0 +1,138 @@
+package main.syntax;
+
+import java.awt.Graphics2D;
+import java.awt.Shape;
+
+import javax.swing.JComponent;
+import javax.swing.JTextArea;
+import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.plaf.TextUI;
+import javax.swing.plaf.basic.BasicTextAreaUI;
+import javax.swing.plaf.synth.SynthLookAndFeel;
+import javax.swing.plaf.synth.SynthTextAreaUI;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.PlainView;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+import javax.swing.text.WrappedPlainView;
+
+// the views of a text area (which draw its text) are created by its UI, so highlighting the syntax of the text means replacing the UI with one that
+// creates views which draw the text in the colors of its tokens (see the SyntaxHighlighter class); since only the lines within the viewport are ever
+// drawn, only those lines are styled, no matter how large the text is
+//
+// note that the UI is based on that of the look and feel where possible: Synth based look and feels (ex. GTK and Nimbus) get a subclass of the Synth UI,
+// so that the text area keeps their styling, while the others get a subclass of the basic UI, which is what their own UIs are based on as well
+public final class SyntaxTextAreaUI {
+	
+	private static final String BATCH_PROPERTY = "SyntaxTextAreaUI.batch";
+	
+	private SyntaxTextAreaUI() {}
+	
+	// returns a UI for a text area; this should be called by the text area's "updateUI" method, so that the UI is replaced along with the look and feel
+	public static TextUI create() {
+		return UIManager.getLookAndFeel() instanceof SynthLookAndFeel ? new SynthUI() : new BasicUI();
+	}
+	
+	// while many edits are made in a row (ex. typing at thousands of carets, see the MultiCaret class), the view of a text area without line wrapping
+	// isn't updated for each of them, since a plain view measures every line whenever its longest line is made shorter, which with a caret on each of
+	// many lines of the same length can happen for every edit; instead, the view is recreated once the edits are done, which measures the lines once
+	public static void startBatch(JTextArea textArea) {
+		textArea.putClientProperty(BATCH_PROPERTY, Boolean.TRUE);
+	}
+	
+	public static void endBatch(JTextArea textArea) {
+		textArea.putClientProperty(BATCH_PROPERTY, null);
+		
+		if (textArea.getUI() instanceof BasicUI) ((BasicUI) textArea.getUI()).modelChanged();
+		else if (textArea.getUI() instanceof SynthUI) ((SynthUI) textArea.getUI()).modelChanged();
+	}
+	
+	private static final class BasicUI extends BasicTextAreaUI {
+		@Override
+		public View create(Element element) {
+			final View view = createView(element, (JTextArea) getComponent());
+			return view != null ? view : super.create(element);
+		}
+		
+		// overridden only to be callable from "endBatch"
+		@Override
+		protected void modelChanged() {
+			super.modelChanged();
+		}
+	}
+	
+	private static final class SynthUI extends SynthTextAreaUI {
+		@Override
+		public View create(Element element) {
+			final View view = createView(element, (JTextArea) getComponent());
+			return view != null ? view : super.create(element);
+		}
+		
+		@Override
+		protected void modelChanged() {
+			super.modelChanged();
+		}
+	}
+	
+	// returns null for documents with bidirectional text, which are drawn by different views altogether (and are left as plain text)
+	private static View createView(Element element, JTextArea textArea) {
+		if (Boolean.TRUE.equals(element.getDocument().getProperty("i18n"))) return null;
+		
+		return textArea.getLineWrap() ? new HighlightedWrappedPlainView(element, textArea.getWrapStyleWord()) : new HighlightedPlainView(element);
+	}
+	
+	// the text is only drawn in color when it's not selected (the selected text is drawn in the selection's color) and the text area is enabled, and
+	// only once the line has been lexed; otherwise, it's drawn the same way as before
+	private static final class HighlightedPlainView extends PlainView {
+		
+		private HighlightedPlainView(Element element) {
+			super(element);
+		}
+		
+		@Override
+		protected float drawUnselectedText(Graphics2D g, float x, float y, int p0, int p1) throws BadLocationException {
+			final SyntaxHighlighter highlighter = SyntaxHighlighter.of(getContainer());
+			final float end = highlighter == null || !getContainer().isEnabled() ? Float.NaN :
+					highlighter.drawText(g, x, y, p0, p1, getLineBuffer(), this);
+			
+			return Float.isNaN(end) ? super.drawUnselectedText(g, x, y, p0, p1) : end;
+		}
+		
+		@Override
+		public void insertUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+			if (!isBatch()) super.insertUpdate(e, a, f);
+		}
+		
+		@Override
+		public void removeUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+			if (!isBatch()) super.removeUpdate(e, a, f);
+		}
+		
+		@Override
+		public void changedUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+			if (!isBatch()) super.changedUpdate(e, a, f);
+		}
+		
+		private boolean isBatch() {
+			return ((JComponent) getContainer()).getClientProperty(BATCH_PROPERTY) != null;
+		}
+	}
+	
+	private static final class HighlightedWrappedPlainView extends WrappedPlainView {
+		
+		private HighlightedWrappedPlainView(Element element, boolean wordWrap) {
+			super(element, wordWrap);
+		}
+		
+		@Override
+		protected float drawUnselectedText(Graphics2D g, float x, float y, int p0, int p1) throws BadLocationException {
+			final SyntaxHighlighter highlighter = SyntaxHighlighter.of(getContainer());
+			final float end = highlighter == null || !getContainer().isEnabled() ? Float.NaN :
+					highlighter.drawText(g, x, y, p0, p1, getLineBuffer(), this);
+			
+			return Float.isNaN(end) ? super.drawUnselectedText(g, x, y, p0, p1) : end;
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package main.syntax;
+
+// highlights the tags, attributes, attribute values, comments and CDATA sections of XML; since any of them (besides the name of a tag) can span
+// several lines, each has a state of its own, including an attribute value for each kind of quote
+final class XmlLexer extends Lexer {
+	
+	static final XmlLexer INSTANCE = new XmlLexer();
+	
+	private static final int IN_COMMENT = 1;
+	private static final int IN_TAG = 2;          // after the name of a tag, where its attributes are
+	private static final int IN_CDATA = 3;
+	private static final int IN_DOUBLE_QUOTED = 4;  // attribute values
+	private static final int IN_SINGLE_QUOTED = 5;
+	private static final int IN_DECLARATION = 6;  // ex. <?xml ... ?> and <!DOCTYPE ... >
+	
+	private XmlLexer() {}
+	
+	@Override
+	public int lex(CharSequence line, int state, Tokens tokens) {
+		int i = 0;
+		
+		while (i < line.length()) {
+			switch (state) {
+				case IN_COMMENT: {
+					final int end = indexOf(line, "-->", i);
+					
+					tokens.add(i, end == -1 ? line.length() : end + 3, COMMENT);
+					if (end == -1) return IN_COMMENT;
+					
+					i = end + 3;
+					state = INITIAL_STATE;
+					break;
+				}
+				case IN_CDATA: {
+					final int end = indexOf(line, "]]>", i);
+					
+					if (end == -1) return IN_CDATA;
+					
+					tokens.add(end, end + 3, KEYWORD);
+					i = end + 3;
+					state = INITIAL_STATE;
+					break;
+				}
+				case IN_DECLARATION: {
+					final int end = indexOf(line, ">", i);
+					
+					tokens.add(i, end == -1 ? line.length() : end + 1, KEYWORD);
+					if (end == -1) return IN_DECLARATION;
+					
+					i = end + 1;
+					state = INITIAL_STATE;
+					break;
+				}
+				case IN_DOUBLE_QUOTED:
+				case IN_SINGLE_QUOTED: {
+					final int end = indexOf(line, state == IN_DOUBLE_QUOTED ? "\"" : "'", i);
+					
+					tokens.add(i, end == -1 ? line.length() : end + 1, STRING);
+					if (end == -1) return state;
+					
+					i = end + 1;
+					state = IN_TAG;
+					break;
+				}
+				case IN_TAG: {
+					final char c = line.charAt(i);
+					
+					if (c == '>' || (c == '/' && startsWith(line, i, "/>")) || (c == '?' && startsWith(line, i, "?>"))) {
+						final int end = c == '>' ? i + 1 : i + 2;
+						
+						tokens.add(i, end, KEYWORD);
+						i = end;
+						state = INITIAL_STATE;
+					}
+					else if (c == '"' || c == '\'') {
+						tokens.add(i, i + 1, STRING);
+						i++;
+						state = c == '"' ? IN_DOUBLE_QUOTED : IN_SINGLE_QUOTED;
+					}
+					else if (isNameStart(c)) {
+						final int end = skipName(line, i);
+						
+						tokens.add(i, end, KEY);
+						i = end;
+					}
+					else i++;
+					break;
+				}
+				default: {
+					final int start = indexOf(line, "<", i);
+					
+					if (start == -1) return INITIAL_STATE;
+					
+					if (startsWith(line, start, "<!--")) {
+						tokens.add(start, start + 4, COMMENT);
+						i = start + 4;
+						state = IN_COMMENT;
+					}
+					else if (startsWith(line, start, "<![CDATA[")) {
+						tokens.add(start, start + 9, KEYWORD);
+						i = start + 9;
+						state = IN_CDATA;
+					}
+					else if (startsWith(line, start, "<!")) {
+						i = start;
+						state = IN_DECLARATION;
+					}
+					else {
+						// the name of the tag (including the slash of a closing tag, or the question mark of a processing instruction)
+						int end = start + 1;
+						
+						if (end < line.length() && (line.charAt(end) == '/' || line.charAt(end) == '?')) end++;
+						if (end < line.length() && isNameStart(line.charAt(end))) end = skipName(line, end);
+						
+						tokens.add(start, end, KEYWORD);
+						i = end;
+						state = IN_TAG;
+					}
+				}
+			}
+		}
+		return state;
+	}
+	
+	// the brackets of XML are its tags: a start tag opens a block at its "<", which is closed at the "<" of the end tag (or the "/" of "/>"), so that
+	// matching a start tag finds its end tag; note that these are all within the tokens of tags, which declarations, comments and CDATA aren't
+	@Override
+	void addBrackets(CharSequence line, int[] tokens, BracketIndex.Brackets brackets) {
+		int type = PLAIN;
+		
+		for (int i = 0, token = 0; i < line.length(); i++) {
+			while (token < tokens.length && tokens[token] >>> TYPE_BITS <= i) type = tokens[token++] & TYPE_MASK;
+			
+			if (type != KEYWORD) continue;
+			
+			final char c = line.charAt(i);
+			final char next = i + 1 < line.length() ? line.charAt(i + 1) : 0;
+			
+			if (c == '<' && next == '/') brackets.add(i, 0, true);
+			else if (c == '<' && isNameStart(next)) brackets.add(i, 0, false);
+			else if (c == '/' && next == '>') brackets.add(i, 0, true);
+		}
+	}
+	
+	private static boolean isNameStart(char c) {
+		return Character.isLetter(c) || c == '_' || c == ':';
+	}
+	
+	private static int skipName(CharSequence line, int offset) {
+		int i = offset + 1;
+		
+		while (i < line.length() && (Character.isLetterOrDigit(line.charAt(i)) || "_:-.".indexOf(line.charAt(i)) != -1)) i++;
+		return i;
+	}
+}
@@ -0,0 +1,171 @@
+package main.syntax;
+
+import java.util.Set;
+
+// highlights the keys, scalars, comments and document markers of YAML; the only construct that spans several lines (and is highlighted as such) is a
+// block scalar (ie. a value starting with | or >), which continues for as long as its lines are indented further than the line that started it, so
+// the indentation of that line is kept as part of the state; note that multi-line flow collections and quoted scalars are lexed line by line, which
+// highlights them well enough in practice
+final class YamlLexer extends Lexer {
+	
+	static final YamlLexer INSTANCE = new YamlLexer();
+	
+	private static final int IN_BLOCK_SCALAR = 1;  // plus the indentation of the line that started the block scalar
+	
+	private static final Set<String> KEYWORDS = Set.of("true", "false", "null", "yes", "no", "on", "off", "~");
+	private static final String FLOW_INDICATORS = ",[]{}";
+	
+	private YamlLexer() {}
+	
+	@Override
+	public int lex(CharSequence line, int state, Tokens tokens) {
+		int i = 0;
+		
+		while (i < line.length() && line.charAt(i) == ' ') i++;
+		
+		final int indent = i;
+		
+		if (state >= IN_BLOCK_SCALAR) {
+			// blank lines are part of the block scalar no matter how they're indented
+			if (skipWhitespace(line, i) == line.length()) return state;
+			if (indent > state - IN_BLOCK_SCALAR) {
+				tokens.add(indent, line.length(), STRING);
+				return state;
+			}
+		}
+		if (i == line.length()) return INITIAL_STATE;
+		
+		if (line.charAt(i) == '#') {
+			tokens.add(i, line.length(), COMMENT);
+			return INITIAL_STATE;
+		}
+		if (indent == 0 && (startsWith(line, 0, "---") || startsWith(line, 0, "..."))) {
+			tokens.add(0, 3, KEYWORD);
+			i = 3;
+		}
+		else {
+			// skip the markers of (possibly nested) sequence entries, then check for the key of a mapping entry
+			while (i < line.length() && line.charAt(i) == '-' && (i + 1 == line.length() || line.charAt(i + 1) == ' ')) i = skipWhitespace(line, i + 1);
+			
+			final int colon = indexOfKeyEnd(line, i);
+			
+			if (colon != -1) {
+				tokens.add(i, colon, KEY);
+				i = colon + 1;
+			}
+		}
+		return lexValue(line, skipWhitespace(line, i), indent, tokens);
+	}
+	
+	// returns the offset of the colon that ends the key starting at the given offset, or -1 if there isn't a key there
+	private static int indexOfKeyEnd(CharSequence line, int offset) {
+		if (offset == line.length()) return -1;
+		
+		int i = offset;
+		final char c = line.charAt(i);
+		
+		if (c == '"' || c == '\'') {
+			final int end = skipString(line, i, c);
+			if (end == -1) return -1;
+			
+			i = end;
+			while (i < line.length() && line.charAt(i) == ' ') i++;
+			return isKeyEnd(line, i) ? i : -1;
+		}
+		if (FLOW_INDICATORS.indexOf(c) != -1 || c == '#') return -1;
+		
+		for (; i < line.length(); i++) {
+			if (line.charAt(i) == '#' && line.charAt(i - 1) == ' ') return -1;
+			if (isKeyEnd(line, i)) return i;
+		}
+		return -1;
+	}
+	
+	private static boolean isKeyEnd(CharSequence line, int offset) {
+		return offset < line.length() && line.charAt(offset) == ':' && (offset + 1 == line.length() || line.charAt(offset + 1) == ' ');
+	}
+	
+	private static int lexValue(CharSequence line, int offset, int indent, Tokens tokens) {
+		if (offset == line.length()) return INITIAL_STATE;
+		
+		int i = offset;
+		char c = line.charAt(i);
+		
+		// a block scalar indicator may be followed by chomping and indentation indicators, then only a comment
+		if (c == '|' || c == '>') {
+			int end = i + 1;
+			
+			while (end < line.length() && "+-0123456789".indexOf(line.charAt(end)) != -1) end++;
+			
+			final int next = skipWhitespace(line, end);
+			
+			if (next == line.length() || line.charAt(next) == '#') {
+				tokens.add(i, end, KEYWORD);
+				tokens.add(next, line.length(), COMMENT);
+				return IN_BLOCK_SCALAR + indent;
+			}
+		}
+		// a plain scalar runs to the end of the line (or a comment), and is highlighted as a whole if it's a number or a literal
+		if (c != '"' && c != '\'' && c != '&' && c != '*' && c != '!' && FLOW_INDICATORS.indexOf(c) == -1) {
+			final int comment = indexOfComment(line, i);
+			int end = comment;
+			
+			while (end > i && line.charAt(end - 1) == ' ') end--;
+			
+			tokens.add(i, end, typeOfScalar(line, i, end));
+			tokens.add(comment, line.length(), COMMENT);
+			return INITIAL_STATE;
+		}
+		// otherwise, the value is lexed as a sequence of (possibly quoted) scalars, anchors, aliases and tags, separated by flow indicators
+		while (i < line.length()) {
+			c = line.charAt(i);
+			
+			if (c == '#' && (i == 0 || line.charAt(i - 1) == ' ')) {
+				tokens.add(i, line.length(), COMMENT);
+				break;
+			}
+			else if (c == '"' || c == '\'') {
+				final int end = skipString(line, i, c);
+				
+				tokens.add(i, end == -1 ? line.length() : end, STRING);
+				i = end == -1 ? line.length() : end;
+			}
+			else if (c == ' ' || c == ':' || FLOW_INDICATORS.indexOf(c) != -1) i++;
+			else {
+				int end = i + 1;
+				
+				while (end < line.length() && line.charAt(end) != ' ' && FLOW_INDICATORS.indexOf(line.charAt(end)) == -1) end++;
+				
+				// a scalar followed by a colon is a key within a flow mapping
+				if (line.charAt(end - 1) == ':') tokens.add(i, end - 1, KEY);
+				else tokens.add(i, end, c == '&' || c == '*' || c == '!' ? KEYWORD : typeOfScalar(line, i, end));
+				i = end;
+			}
+		}
+		return INITIAL_STATE;
+	}
+	
+	// returns the offset of the comment in the line (ie. a # at the start of a word), or the length of the line if there isn't one
+	private static int indexOfComment(CharSequence line, int offset) {
+		for (int i = offset; i < line.length(); i++)
+			if (line.charAt(i) == '#' && (i == 0 || line.charAt(i - 1) == ' ')) return i;
+		
+		return line.length();
+	}
+	
+	private static int typeOfScalar(CharSequence line, int start, int end) {
+		if (end == start) return PLAIN;
+		if (KEYWORDS.contains(line.subSequence(start, end).toString().toLowerCase())) return KEYWORD;
+		
+		final char c = line.charAt(start);
+		final boolean numeric = Character.isDigit(c) ||
+				((c == '-' || c == '+' || c == '.') && end - start > 1 && Character.isDigit(line.charAt(start + 1)));
+		
+		if (!numeric) return PLAIN;
+		
+		for (int i = start + 1; i < end; i++)
+			if (!Character.isLetterOrDigit(line.charAt(i)) && "._+-:".indexOf(line.charAt(i)) == -1) return PLAIN;
+		
+		return NUMBER;
+	}
+}